@@ -0,0 +1,46 @@
+package uk.ac.ed.inf.aqmaps.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * The entry point of the benchmarks jar. It takes the usual JMH options and always adds the
+ * gc profiler, so that every run reports the allocation rate next to the throughput and
+ * latency scores. Build and run from the repository root with:
+ * <pre>
+ *     mvn install -DskipTests
+ *     mvn -f benchmarks/pom.xml package
+ *     java -jar benchmarks/target/benchmarks.jar [JMH options, e.g. GeometryBenchmark -rf json]
+ * </pre>
+ * <p>The fixtures are read from {@code autotest}, or the directory named by the
+ * {@code aqmaps.autotest} system property; see {@link Fixtures}.</p>
+ */
+public class BenchmarkMain {
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args the JMH command line options
+     * @throws RunnerException            if a benchmark failed
+     * @throws CommandLineOptionException if the options are invalid
+     * @throws IOException                if the help could not be printed
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        var commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        var options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
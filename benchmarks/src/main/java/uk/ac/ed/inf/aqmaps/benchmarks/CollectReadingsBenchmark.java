@@ -0,0 +1,107 @@
+package uk.ac.ed.inf.aqmaps.benchmarks;
+
+import com.mapbox.geojson.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.aqmaps.DroneCollectReadings;
+import uk.ac.ed.inf.aqmaps.Navigation;
+import uk.ac.ed.inf.aqmaps.NoFlyZones;
+import uk.ac.ed.inf.aqmaps.NoOpFlightLog;
+import uk.ac.ed.inf.aqmaps.RoutePlanning;
+import uk.ac.ed.inf.aqmaps.Sensor;
+
+import java.awt.geom.Point2D;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a whole mission, {@link DroneCollectReadings#collectReadings()}, on the sensors
+ * of fixed autotest days, with the flight log discarded.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectReadingsBenchmark {
+
+    /**
+     * The autotest day to fly.
+     */
+    @Param({"01-01-2020", "15-06-2020", "28-02-2021", "31-12-2021"})
+    public String day;
+    /**
+     * The way the drone orders the sensors.
+     */
+    @Param({"GREEDY", "TOUR"})
+    public RoutePlanning routePlanning;
+    /**
+     * The way the drone finds its way to the next sensor.
+     */
+    @Param({"REACTIVE", "PLANNED", "INCREMENTAL"})
+    public Navigation navigation;
+
+    /**
+     * The no-fly zones.
+     */
+    private NoFlyZones noFlyZones;
+    /**
+     * The sensors of the day, never visited.
+     */
+    private List<Sensor> sensors;
+    /**
+     * The standard output, while it is silenced.
+     */
+    private PrintStream stdout;
+
+    /**
+     * Loads the fixtures of the day, and silences the message the drone prints at the end of
+     * a successful mission.
+     */
+    @Setup(Level.Trial)
+    public void loadFixtures() {
+        noFlyZones = Fixtures.noFlyZones();
+        sensors = Fixtures.sensors(day);
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Restores the standard output.
+     */
+    @TearDown(Level.Trial)
+    public void restoreOutput() {
+        System.setOut(stdout);
+    }
+
+    /**
+     * Flies the mission of the day from the usual starting position. The sensors are copied
+     * first, since a mission marks them visited. The copy is measured too, but copying a few
+     * dozen sensors costs far less than the mission.
+     *
+     * @return the flight path
+     */
+    @Benchmark
+    public ArrayList<Point> collectReadings() {
+        var drone = new DroneCollectReadings(5678, 150, Fixtures.copy(sensors), noFlyZones,
+                new Point2D.Double(-3.1878, 55.9444), NoOpFlightLog.INSTANCE);
+        drone.setRoutePlanning(routePlanning);
+        drone.setNavigation(navigation);
+        return drone.collectReadings();
+    }
+}
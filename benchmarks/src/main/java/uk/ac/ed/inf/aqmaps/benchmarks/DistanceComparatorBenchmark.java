@@ -0,0 +1,81 @@
+package uk.ac.ed.inf.aqmaps.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.aqmaps.DistanceComparator;
+import uk.ac.ed.inf.aqmaps.Sensor;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link DistanceComparator} finding the nearest sensor and sorting the sensors
+ * of a fixed autotest day by distance from the starting position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceComparatorBenchmark {
+
+    /**
+     * The autotest day of the sensors.
+     */
+    @Param({"01-01-2020", "31-12-2021"})
+    public String day;
+
+    /**
+     * The sensors of the day, in map order.
+     */
+    private List<Sensor> sensors;
+    /**
+     * The comparator from the starting position.
+     */
+    private DistanceComparator comparator;
+
+    /**
+     * Loads the sensors of the day.
+     */
+    @Setup(Level.Trial)
+    public void loadFixtures() {
+        sensors = Fixtures.sensors(day);
+        comparator = new DistanceComparator(new Point2D.Double(-3.1878, 55.9444));
+    }
+
+    /**
+     * Finds the nearest sensor.
+     *
+     * @return the nearest sensor
+     */
+    @Benchmark
+    public Sensor nearest() {
+        return Collections.min(sensors, comparator);
+    }
+
+    /**
+     * Sorts a copy of the sensors by distance.
+     *
+     * @return the sorted sensors
+     */
+    @Benchmark
+    public List<Sensor> sort() {
+        var sorted = new ArrayList<>(sensors);
+        sorted.sort(comparator);
+        return sorted;
+    }
+}
@@ -0,0 +1,153 @@
+package uk.ac.ed.inf.aqmaps.benchmarks;
+
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import uk.ac.ed.inf.aqmaps.NoFlyZones;
+import uk.ac.ed.inf.aqmaps.Sensor;
+import uk.ac.ed.inf.aqmaps.WebRequests;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The fixed inputs of the benchmarks, built from the outputs of the {@code autotest} days.
+ *
+ * <p>The sensors of a day are read back from its readings GeoJSON and the move segments from
+ * its flight path file. The real no-fly zones are only served by the web server, so unless
+ * the {@code aqmaps.noflyzones} system property names a saved copy of them, two synthetic
+ * rectangular zones bundled with the benchmarks are used.</p>
+ */
+public final class Fixtures {
+
+    /**
+     * The directory of the autotest outputs, relative to the working directory by default.
+     */
+    private static final Path AUTOTEST_DIR = Path.of(System.getProperty("aqmaps.autotest", "autotest"));
+    /**
+     * The marker colours of the reading ranges, from 0 - 32 up to 224 - 256.
+     */
+    private static final List<String> READING_COLOURS = List.of(
+            "#00ff00", "#40ff00", "#80ff00", "#c0ff00", "#ffc000", "#ff8000", "#ff4000", "#ff0000");
+
+    /**
+     * Instantiates a new Fixtures, never.
+     */
+    private Fixtures() {
+        super();
+    }
+
+    /**
+     * Loads the no-fly zones.
+     *
+     * @return the no-fly zones
+     */
+    public static NoFlyZones noFlyZones() {
+        try {
+            var file = System.getProperty("aqmaps.noflyzones");
+            String json;
+            if (file != null) {
+                json = Files.readString(Path.of(file));
+            } else {
+                try (var in = Objects.requireNonNull(Fixtures.class.getResourceAsStream("/no-fly-zones.geojson"))) {
+                    json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+            return new NoFlyZones(WebRequests.parseBuildings(json));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Loads the sensors of a day from its readings map. The readings themselves are not in the
+     * map, so each sensor gets the middle of the range its marker colour stands for, and the
+     * sensors marked with a cross get a flat battery.
+     *
+     * @param day the day, as DD-MM-YYYY
+     * @return the new sensors, not visited, in map order
+     */
+    public static ArrayList<Sensor> sensors(String day) {
+        var sensors = new ArrayList<Sensor>();
+        var features = FeatureCollection.fromJson(read("readings-" + day + ".geojson")).features();
+        for (var feature : Objects.requireNonNull(features)) {
+            if (!(feature.geometry() instanceof Point)) {
+                continue;
+            }
+            var point = (Point) feature.geometry();
+            var location = feature.getStringProperty("location");
+            var colour = feature.getStringProperty("rgb-string");
+            Sensor sensor;
+            if ("cross".equals(feature.getStringProperty("marker-symbol"))) {
+                sensor = new Sensor(location, 5.0, "null");
+            } else {
+                var range = Math.max(0, READING_COLOURS.indexOf(colour));
+                sensor = new Sensor(location, 100.0, String.valueOf(range * 32 + 16.0));
+            }
+            sensor.setCoord(new Point2D.Double(point.longitude(), point.latitude()));
+            sensors.add(sensor);
+        }
+        return sensors;
+    }
+
+    /**
+     * Copies sensors, so that a mission can be flown again with none of them visited.
+     *
+     * @param sensors the sensors
+     * @return the new sensors
+     */
+    public static ArrayList<Sensor> copy(List<Sensor> sensors) {
+        var copies = new ArrayList<Sensor>(sensors.size());
+        for (Sensor sensor : sensors) {
+            var copy = new Sensor(sensor.getLocation(), sensor.getBattery(), sensor.getReading());
+            copy.setCoord(sensor.getCoord());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * Loads the move segments of a day from its flight path file.
+     *
+     * @param day the day, as DD-MM-YYYY
+     * @return the segments as packed x1, y1, x2, y2 quadruples
+     */
+    public static double[] moves(String day) {
+        var lines = read("flightpath-" + day + ".txt").split("\n");
+        var moves = new double[4 * lines.length];
+        var count = 0;
+        for (String line : lines) {
+            var fields = line.split(",");
+            if (fields.length < 7) {
+                continue;
+            }
+            moves[count++] = Double.parseDouble(fields[1].trim());
+            moves[count++] = Double.parseDouble(fields[2].trim());
+            moves[count++] = Double.parseDouble(fields[4].trim());
+            moves[count++] = Double.parseDouble(fields[5].trim());
+        }
+        return Arrays.copyOf(moves, count);
+    }
+
+    /**
+     * Reads a file of the autotest directory.
+     *
+     * @param name the file name
+     * @return the contents
+     */
+    private static String read(String name) {
+        try {
+            return Files.readString(AUTOTEST_DIR.resolve(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the fixture " + AUTOTEST_DIR.resolve(name)
+                    + ", run from the repository root or set -Daqmaps.autotest.", e);
+        }
+    }
+}
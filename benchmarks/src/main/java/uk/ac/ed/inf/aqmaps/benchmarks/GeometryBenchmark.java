@@ -0,0 +1,116 @@
+package uk.ac.ed.inf.aqmaps.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ed.inf.aqmaps.GeometryHelpers;
+import uk.ac.ed.inf.aqmaps.NoFlyZones;
+
+import java.awt.geom.Line2D;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the geometry helpers called for every move of the drone, on the moves the drone
+ * made on fixed autotest days. Each invocation goes through the same {@value #MOVES} moves, and
+ * the scores are per move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(GeometryBenchmark.MOVES)
+public class GeometryBenchmark {
+
+    /**
+     * The number of moves checked by each invocation.
+     */
+    static final int MOVES = 512;
+    /**
+     * The autotest days the moves are taken from.
+     */
+    private static final String[] DAYS = {"01-01-2020", "15-06-2020", "28-02-2021", "31-12-2021"};
+
+    /**
+     * The no-fly zones the moves are checked against.
+     */
+    private NoFlyZones noFlyZones;
+    /**
+     * The moves as packed x1, y1, x2, y2 quadruples.
+     */
+    private double[] moves;
+    /**
+     * The moves as lines, for the Line2D overload.
+     */
+    private Line2D[] lines;
+
+    /**
+     * Loads the moves and the no-fly zones.
+     */
+    @Setup(Level.Trial)
+    public void loadFixtures() {
+        noFlyZones = Fixtures.noFlyZones();
+        moves = new double[4 * MOVES];
+        var filled = 0;
+        // the moves of the days in order, repeated if there are fewer than MOVES
+        while (filled < moves.length) {
+            for (String day : DAYS) {
+                var dayMoves = Fixtures.moves(day);
+                var length = Math.min(dayMoves.length, moves.length - filled);
+                System.arraycopy(dayMoves, 0, moves, filled, length);
+                filled += length;
+            }
+        }
+        lines = new Line2D[moves.length / 4];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = new Line2D.Double(moves[4 * i], moves[4 * i + 1], moves[4 * i + 2], moves[4 * i + 3]);
+        }
+    }
+
+    /**
+     * Checks every move against the no-fly zones.
+     *
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void polygonLineIntersects(Blackhole blackhole) {
+        for (int i = 0; i < moves.length; i += 4) {
+            blackhole.consume(noFlyZones.polygonLineIntersects(moves[i], moves[i + 1], moves[i + 2], moves[i + 3]));
+        }
+    }
+
+    /**
+     * Checks every move against the no-fly zones, through the original Line2D overload.
+     *
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void polygonLineIntersectsLine2D(Blackhole blackhole) {
+        for (Line2D line : lines) {
+            blackhole.consume(noFlyZones.polygonLineIntersects(line));
+        }
+    }
+
+    /**
+     * Finds the movement angle of every move.
+     *
+     * @param blackhole the sink of the results
+     */
+    @Benchmark
+    public void findMovementAngle(Blackhole blackhole) {
+        for (int i = 0; i < moves.length; i += 4) {
+            blackhole.consume(GeometryHelpers.findMovementAngle(moves[i], moves[i + 1], moves[i + 2], moves[i + 3]));
+        }
+    }
+}
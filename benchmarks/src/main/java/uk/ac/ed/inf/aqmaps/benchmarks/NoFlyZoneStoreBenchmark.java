@@ -0,0 +1,103 @@
+package uk.ac.ed.inf.aqmaps.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.aqmaps.NoFlyZoneStore;
+import uk.ac.ed.inf.aqmaps.NoFlyZones;
+import uk.ac.ed.inf.aqmaps.TemporaryZone;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the drone reading the no-fly zones of a {@link NoFlyZoneStore} before each move,
+ * on its own and while another thread keeps adding and lifting a temporary zone, which should
+ * not slow the reads down.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoFlyZoneStoreBenchmark {
+
+    /**
+     * The store.
+     */
+    private NoFlyZoneStore store;
+    /**
+     * The temporary zone added and lifted by the writer.
+     */
+    private TemporaryZone crane;
+    /**
+     * The moves made by the reader, cycling through a mission.
+     */
+    private int move;
+    /**
+     * Flag to check if the writer adds the zone next.
+     */
+    private boolean adding;
+
+    /**
+     * Loads the no-fly zones and adds a temporary zone holding for part of the mission.
+     */
+    @Setup(Level.Trial)
+    public void loadFixtures() {
+        store = new NoFlyZoneStore(Fixtures.noFlyZones());
+        crane = new TemporaryZone("crane", List.of(
+                new Point2D.Double(-3.1900, 55.9430), new Point2D.Double(-3.1880, 55.9430),
+                new Point2D.Double(-3.1880, 55.9455), new Point2D.Double(-3.1900, 55.9455)), 50, 100);
+        store.add(crane);
+    }
+
+    /**
+     * Reads the no-fly zones after the next move, with no updates.
+     *
+     * @return the no-fly zones
+     */
+    @Benchmark
+    @Group("quiet")
+    public NoFlyZones quietRead() {
+        move = (move + 1) % 150;
+        return store.zonesAt(move);
+    }
+
+    /**
+     * Reads the no-fly zones after the next move, while the writer updates the store.
+     *
+     * @return the no-fly zones
+     */
+    @Benchmark
+    @Group("updated")
+    @GroupThreads(1)
+    public NoFlyZones updatedRead() {
+        move = (move + 1) % 150;
+        return store.zonesAt(move);
+    }
+
+    /**
+     * Adds or lifts the temporary zone, building a new snapshot.
+     *
+     * @return the version of the new snapshot
+     */
+    @Benchmark
+    @Group("updated")
+    @GroupThreads(1)
+    public long update() {
+        adding = !adding;
+        return adding ? store.add(crane) : store.remove(crane.getName());
+    }
+}
@@ -0,0 +1,136 @@
+package uk.ac.ed.inf.aqmaps.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.aqmaps.GeometryHelpers;
+import uk.ac.ed.inf.aqmaps.Headings;
+import uk.ac.ed.inf.aqmaps.IncrementalPlanner;
+import uk.ac.ed.inf.aqmaps.NoFlyZones;
+import uk.ac.ed.inf.aqmaps.PathPlanner;
+import uk.ac.ed.inf.aqmaps.PlayArea;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks choosing every move of a leg with the {@link IncrementalPlanner}, against
+ * finding the whole leg again with the {@link PathPlanner} before every move, which is what
+ * the drone would have to do to re-plan from scratch whenever a move is blocked. Each
+ * invocation flies the legs between the sensors of an autotest day in map order, and returns
+ * the moves made.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplanningBenchmark {
+
+    /**
+     * The maximum number of moves of a leg.
+     */
+    private static final int MAX_MOVES = 150;
+
+    /**
+     * The autotest day the legs are taken from.
+     */
+    @Param({"01-01-2020", "15-06-2020"})
+    public String day;
+
+    /**
+     * The no-fly zones.
+     */
+    private NoFlyZones noFlyZones;
+    /**
+     * The path planner.
+     */
+    private PathPlanner pathPlanner;
+    /**
+     * The locations of the sensors, as packed x, y pairs.
+     */
+    private double[] sensors;
+
+    /**
+     * Loads the no-fly zones and the sensors.
+     */
+    @Setup(Level.Trial)
+    public void loadFixtures() {
+        noFlyZones = Fixtures.noFlyZones();
+        pathPlanner = new PathPlanner(Headings.DEFAULT, noFlyZones, PlayArea.DEFAULT);
+        var daySensors = Fixtures.sensors(day);
+        sensors = new double[2 * daySensors.size()];
+        for (int i = 0; i < daySensors.size(); i++) {
+            sensors[2 * i] = daySensors.get(i).getCoord().getX();
+            sensors[2 * i + 1] = daySensors.get(i).getCoord().getY();
+        }
+    }
+
+    /**
+     * Flies the legs, taking each move from a planner kept for the leg.
+     *
+     * @return the moves made
+     */
+    @Benchmark
+    public int incremental() {
+        var headings = Headings.DEFAULT;
+        var moves = 0;
+        for (int s = 2; s < sensors.length; s += 2) {
+            var x = sensors[s - 2];
+            var y = sensors[s - 1];
+            var planner = IncrementalPlanner.plan(pathPlanner, headings, noFlyZones, PlayArea.DEFAULT,
+                    x, y, sensors[s], sensors[s + 1], GeometryHelpers.READING_DISTANCE, MAX_MOVES);
+            for (int m = 0; planner != null && m < MAX_MOVES; m++) {
+                var angle = planner.nextAngle(x, y);
+                if (angle == -1) {
+                    break;
+                }
+                x += headings.dx(angle);
+                y += headings.dy(angle);
+                moves++;
+                if (GeometryHelpers.distance(x, y, sensors[s], sensors[s + 1]) < GeometryHelpers.READING_DISTANCE) {
+                    break;
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Flies the legs, finding the rest of the leg again before every move.
+     *
+     * @return the moves made
+     */
+    @Benchmark
+    public int replanEveryMove() {
+        var headings = Headings.DEFAULT;
+        var moves = 0;
+        for (int s = 2; s < sensors.length; s += 2) {
+            var x = sensors[s - 2];
+            var y = sensors[s - 1];
+            for (int m = 0; m < MAX_MOVES; m++) {
+                var path = pathPlanner.findPath(x, y, sensors[s], sensors[s + 1],
+                        GeometryHelpers.READING_DISTANCE, MAX_MOVES - m);
+                if (path == null) {
+                    break;
+                }
+                x += headings.dx(path[0]);
+                y += headings.dy(path[0]);
+                moves++;
+                if (GeometryHelpers.distance(x, y, sensors[s], sensors[s + 1]) < GeometryHelpers.READING_DISTANCE) {
+                    break;
+                }
+            }
+        }
+        return moves;
+    }
+}
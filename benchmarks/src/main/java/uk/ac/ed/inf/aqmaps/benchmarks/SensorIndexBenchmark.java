@@ -0,0 +1,133 @@
+package uk.ac.ed.inf.aqmaps.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.aqmaps.PlayArea;
+import uk.ac.ed.inf.aqmaps.Sensor;
+import uk.ac.ed.inf.aqmaps.SensorIndex;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link SensorIndex} finding the nearest sensor to points of the play area,
+ * against the linear scan it replaces, with sensors scattered at random over the play area.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensorIndexBenchmark {
+
+    /**
+     * The number of query points, cycled through by the benchmarks.
+     */
+    private static final int QUERY_COUNT = 1024;
+
+    /**
+     * The number of sensors.
+     */
+    @Param({"33", "1000", "10000"})
+    public int sensorCount;
+
+    /**
+     * The sensors.
+     */
+    private List<Sensor> sensors;
+    /**
+     * The index over the sensors.
+     */
+    private SensorIndex index;
+    /**
+     * The query points, as packed x, y pairs.
+     */
+    private double[] queries;
+    /**
+     * The next query point.
+     */
+    private int next;
+
+    /**
+     * Scatters the sensors and the query points over the play area.
+     */
+    @Setup(Level.Trial)
+    public void scatter() {
+        var area = PlayArea.DEFAULT;
+        var random = new Random(5678);
+        sensors = new ArrayList<>(sensorCount);
+        for (int i = 0; i < sensorCount; i++) {
+            var sensor = new Sensor("sensor." + i, 100.0, "0.0");
+            sensor.setCoord(new Point2D.Double(
+                    area.getWestLng() + random.nextDouble() * (area.getEastLng() - area.getWestLng()),
+                    area.getSouthLat() + random.nextDouble() * (area.getNorthLat() - area.getSouthLat())));
+            sensors.add(sensor);
+        }
+        index = new SensorIndex(sensors);
+        queries = new double[2 * QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[2 * i] = area.getWestLng() + random.nextDouble() * (area.getEastLng() - area.getWestLng());
+            queries[2 * i + 1] = area.getSouthLat() + random.nextDouble() * (area.getNorthLat() - area.getSouthLat());
+        }
+    }
+
+    /**
+     * Finds the nearest sensor with the index.
+     *
+     * @return the nearest sensor
+     */
+    @Benchmark
+    public Sensor indexed() {
+        var q = nextQuery();
+        return index.nearest(queries[q], queries[q + 1]);
+    }
+
+    /**
+     * Finds the nearest sensor by scanning all of them.
+     *
+     * @return the nearest sensor
+     */
+    @Benchmark
+    public Sensor linearScan() {
+        var q = nextQuery();
+        var x = queries[q];
+        var y = queries[q + 1];
+        Sensor nearest = null;
+        var nearestDistSq = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < sensors.size(); i++) {
+            var coord = sensors.get(i).getCoord();
+            var dx = coord.getX() - x;
+            var dy = coord.getY() - y;
+            var distSq = dx * dx + dy * dy;
+            if (distSq < nearestDistSq) {
+                nearest = sensors.get(i);
+                nearestDistSq = distSq;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Moves on to the next query point.
+     *
+     * @return the offset of its x co-ordinate in the query points
+     */
+    private int nextQuery() {
+        next = (next + 1) % QUERY_COUNT;
+        return 2 * next;
+    }
+}
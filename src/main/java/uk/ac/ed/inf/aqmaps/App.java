@@ -2,8 +2,13 @@ package uk.ac.ed.inf.aqmaps;
 
 import java.awt.geom.Point2D;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 
 /**
  * The class from where the application is started.
@@ -19,12 +24,30 @@ public class App {
      *     *   starting longitude
      *     *   random state seed
      *     *   port
+     *     *   route planning, greedy, tour or orienteering (optional, default greedy)
+     *     *   navigation, reactive, planned or incremental (optional, default reactive)
      * </pre>
      * <p> The arguments should always be provided in the same order<p/>
+     * <p> W3W location lookups are cached on disk if the {@code aqmaps.cache.dir} system property
+     * names a cache directory, so that repeated runs rarely fetch them.</p>
+     * <p> Temporary no-fly zones are read from a GeoJSON file, and read again whenever it changes
+     * during the flight, if the {@code aqmaps.zone.feed} system property names one
+     * (see {@link NoFlyZoneFeed}).</p>
+     * <p> If the first argument is {@code --batch} the remaining arguments are handed to {@link BatchApp}
+     * which runs a range of days in a single JVM. If it is {@code --farm} they are handed to
+     * {@link SimulationFarm}, which replays the autotest days and compares them with the golden outputs.</p>
      *
      * @param args the input arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchApp.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--farm")) {
+            SimulationFarm.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         if (args.length < 7) {
             throw new IllegalArgumentException(" We need 7 arguments to proceed.");
         }
@@ -40,32 +63,218 @@ public class App {
         var randomState = Integer.parseInt(args[5]);
         var port = Integer.parseInt(args[6]);
 
-        var requestHandler = new WebRequests(port);
+        var settings = new MissionSettings(startingPosition, randomState);
+        if (args.length > 7) {
+            settings.setRoutePlanning(RoutePlanning.parse(args[7]));
+        }
+        if (args.length > 8) {
+            settings.setNavigation(Navigation.parse(args[8]));
+        }
 
-        var noFlyCoords = requestHandler.getBuidings();
-        var sensors = requestHandler.getMaps(year + "/" + month + "/" + day + "/");
+        var requestHandler = new WebRequests(port);
+        var cacheDir = System.getProperty("aqmaps.cache.dir");
+        if (cacheDir != null) {
+            requestHandler.setWordsCache(WordsCache.open(Path.of(cacheDir), WordsCache.DEFAULT_MAX_ENTRIES));
+        }
 
-        var dateString = day + "-" + month + "-" + year;
-        Path logFile = Path.of("flightpath-" + dateString + ".txt");
+        var zoneFeedFile = System.getProperty("aqmaps.zone.feed");
         try {
-            Files.deleteIfExists(logFile);
-            Files.createFile(logFile);
+            var noFlyZones = new NoFlyZones(requestHandler.getBuidings());
+            if (zoneFeedFile != null) {
+                var noFlyZoneStore = new NoFlyZoneStore(noFlyZones);
+                try {
+                    // polled until the JVM exits
+                    NoFlyZoneFeed.open(Path.of(zoneFeedFile), noFlyZoneStore);
+                } catch (IOException e) {
+                    System.err.println("IO exception while reading the no-fly zone feed " + zoneFeedFile + ".");
+                    System.exit(1);
+                }
+                settings.setNoFlyZoneStore(noFlyZoneStore);
+            }
+            runDay(requestHandler, noFlyZones, day, month, year, settings);
+        } catch (WebRequestException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
         } catch (IOException e) {
-            System.err.println("IO exception while creating or deleting the flight path file.");
+            System.err.println("IO exception while writing the flight path or readings map file.");
             System.exit(1);
         }
+    }
+
+    /**
+     * Runs the drone for a single day and writes the flight path and GeoJSON readings map
+     * to the output directory. With more than one seed in the settings the seeds are swept
+     * (see {@link SeedSweep}) and only the best flight is written, as it was flown in the
+     * sweep; its readings map is always built after the mission. With more than one drone
+     * in the settings the day is flown by a {@link FleetMission} instead. The readings map is written after the mission, or while
+     * the drone flies with {@link MissionSettings#isStreamReadingsMap()}. The flight path, and the
+     * readings map written after the mission, only get their real names once the day has been
+     * flown, see {@link DayOutputs}. A streamed readings map is written under its real name from
+     * the start, so that it can be followed during the mission, and is left as far as it got if
+     * the day fails or times out.
+     *
+     * @param requestHandler   the web requests handler to fetch the sensors with
+     * @param noFlyZones       the no-fly zones on the map
+     * @param day              the day
+     * @param month            the month
+     * @param year             the year
+     * @param settings         the settings of the mission
+     * @return the summary of the mission
+     * @throws IOException         if the flight path file or the readings map could not be written,
+     *                             or the day was interrupted
+     * @throws WebRequestException if the sensors for the day could not be fetched
+     */
+    public static MissionResult runDay(
+            WebRequests requestHandler,
+            NoFlyZones noFlyZones,
+            String day,
+            String month,
+            String year,
+            MissionSettings settings) throws IOException {
+        var startTime = System.nanoTime();
+        var sensors = requestHandler.getMaps(year + "/" + month + "/" + day + "/");
+        if (settings.getRoutePlanning() == RoutePlanning.ORIENTEERING
+                && settings.getSensorPriority() != SensorPriority.UNIFORM) {
+            addLastKnown(requestHandler, sensors, LocalDate.of(
+                    Integer.parseInt(year), Integer.parseInt(month), Integer.parseInt(day)).minusDays(1));
+        }
+        var sensorsTotal = sensors.size();
+        var metrics = new MissionMetrics();
+        metrics.addFetchNanos(System.nanoTime() - startTime);
+
+        var outputDir = settings.getOutputDir();
+        var dateString = day + "-" + month + "-" + year;
+        Path logFile = outputDir.resolve("flightpath-" + dateString + ".txt");
+        Path readingsFile = outputDir.resolve("readings-" + dateString + ".geojson");
+
+        if (settings.getFleetSize() > 1) {
+            return record(settings, new FleetMission(noFlyZones, settings).fly(sensors, dateString, startTime, metrics));
+        }
+
+        var seed = settings.getRandomState();
+        SeedSweep.Run best = null;
+        if (settings.getSeedCount() > 1) {
+            var sweepStart = System.nanoTime();
+            best = new SeedSweep().findBest(sensors, noFlyZones, settings, settings.getSeedCount());
+            if (best == null) {
+                throw new InterruptedIOException("The seed sweep of " + dateString + " was interrupted.");
+            }
+            seed = best.getSeed();
+            var bestMetrics = best.getDrone().getMetrics();
+            metrics.add(bestMetrics);
+            // the runs which lost count as planning
+            metrics.addPlanningNanos(System.nanoTime() - sweepStart
+                    - bestMetrics.getPlanningNanos() - bestMetrics.getFlightNanos());
+        }
 
-        var drone = new DroneCollectReadings(randomState, 150, sensors, noFlyCoords, startingPosition, logFile);
-        var movementPoints = drone.collectReadings();
-        // get visited sensors
-        var processedSensors = drone.getVisitedSensors();
-        // add univisited sensors to the list
-        processedSensors.addAll(drone.getToVisit());
+        DroneCollectReadings drone;
+        ArrayList<Sensor> processedSensors;
+        long outputStart;
+        if (best != null) {
+            drone = best.getDrone();
+            outputStart = System.nanoTime();
+            processedSensors = drone.getVisitedSensors();
+            processedSensors.addAll(drone.getToVisit());
+            try (var outputs = new DayOutputs()) {
+                best.getFlightLog().writeTo(outputs.part(logFile));
+                var geojsonHelper = new GeoJsonHelper();
+                geojsonHelper.createGeoJsonMap(processedSensors, best.getMovementPoints());
+                geojsonHelper.writeToFile(outputs.part(readingsFile).toString());
+                outputs.commit();
+            }
+        } else {
+            try (var outputs = new DayOutputs()) {
+                var logPart = outputs.part(logFile);
+                var flightPath = settings.getLogFactory().open(logPart);
+                // the point of streaming is to see the map grow, so it does not wait for the commit
+                var readingsMap = settings.isStreamReadingsMap()
+                        ? new GeoJsonStreamWriter(readingsFile, settings.getStartingPosition(), flightPath)
+                        : null;
+                try (var flightLog = readingsMap != null ? readingsMap : flightPath) {
+                    drone = settings.newDrone(seed, sensors, noFlyZones, settings.getStartingPosition(), flightLog);
+                    drone.setMetrics(metrics);
+                    var movementPoints = drone.collectReadings();
+                    outputStart = System.nanoTime();
+                    // get visited sensors
+                    processedSensors = drone.getVisitedSensors();
+                    // add univisited sensors to the list
+                    processedSensors.addAll(drone.getToVisit());
 
-        var geojsonHelper = new GeoJsonHelper();
-        geojsonHelper.createGeoJsonMap(processedSensors, movementPoints);
-        geojsonHelper.writeToFile("readings-" + dateString + ".geojson");
+                    if (readingsMap != null) {
+                        readingsMap.finish(processedSensors);
+                    } else {
+                        var geojsonHelper = new GeoJsonHelper();
+                        geojsonHelper.createGeoJsonMap(processedSensors, movementPoints);
+                        geojsonHelper.writeToFile(outputs.part(readingsFile).toString());
+                    }
+                }
+                outputs.commit();
+            }
+        }
+        metrics.addOutputNanos(System.nanoTime() - outputStart);
 
+        var sensorsRead = countSensorsRead(processedSensors);
+        var elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        return record(settings, new MissionResult(dateString, seed, settings.getMaxMoves() - drone.getMovesLeft(),
+                sensorsRead, sensorsTotal, drone.isCompleted(), elapsedMillis, metrics));
+    }
+
+    /**
+     * Gives each sensor what it reported on the day before, so that the drone can tell which
+     * sensors are worth reading before it reads any. Sensors which were not on the map of the
+     * day before, or every sensor if there is no such map, are left with nothing known.
+     *
+     * @param requestHandler the web requests handler to fetch the map of the day before with
+     * @param sensors        the sensors of the day
+     * @param dayBefore      the day before
+     */
+    private static void addLastKnown(WebRequests requestHandler, List<Sensor> sensors, LocalDate dayBefore) {
+        ArrayList<Sensor> lastSensors;
+        try {
+            lastSensors = requestHandler.getSensorData(String.format("%d/%02d/%02d/",
+                    dayBefore.getYear(), dayBefore.getMonthValue(), dayBefore.getDayOfMonth()));
+        } catch (WebRequestException e) {
+            // e.g. the first day of the data, then every sensor is worth the same
+            return;
+        }
+        var lastByLocation = new HashMap<String, Sensor>();
+        for (Sensor last : lastSensors) {
+            lastByLocation.put(last.getLocation(), last);
+        }
+        for (Sensor sensor : sensors) {
+            sensor.setLastKnown(lastByLocation.get(sensor.getLocation()));
+        }
     }
-}
 
+    /**
+     * Records the result of a mission in the metrics registry of the settings, if there is one.
+     *
+     * @param settings the settings of the mission
+     * @param result   the summary of the mission
+     * @return the summary of the mission
+     */
+    private static MissionResult record(MissionSettings settings, MissionResult result) {
+        var registry = settings.getMetricsRegistry();
+        if (registry != null) {
+            registry.record(result);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the sensors a reading was taken from, leaving out the dummy sensor the drone
+     * flies back to the starting position with.
+     *
+     * @param sensors the sensors
+     * @return the number of visited sensors
+     */
+    static int countSensorsRead(List<Sensor> sensors) {
+        var sensorsRead = 0;
+        for (Sensor sensor : sensors) {
+            if (sensor.isVisited() && !sensor.getLocation().equals("null")) {
+                sensorsRead++;
+            }
+        }
+        return sensorsRead;
+    }
+}
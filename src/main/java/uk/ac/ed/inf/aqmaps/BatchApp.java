@@ -0,0 +1,193 @@
+package uk.ac.ed.inf.aqmaps;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The batch entry point which runs the drone for many days in a single JVM.
+ * The web server connection and the no-fly zones are loaded once and shared by
+ * all the days, which are flown in parallel on a bounded thread pool.
+ */
+public class BatchApp {
+
+    /**
+     * <p>This the entry point of the batch mode. The arguments are given as options: </p>
+     * <pre>
+     *     *   --from DD-MM-YYYY   first day of the range (inclusive)
+     *     *   --to DD-MM-YYYY     last day of the range (inclusive)
+     *     *   --dates FILE        file with one DD-MM-YYYY date per line, instead of a range
+     *     *   --lat LATITUDE      starting latitude (default 55.9444)
+     *     *   --lng LONGITUDE     starting longitude (default -3.1878)
+     *     *   --seed SEED         random state seed (default 5678)
+     *     *   --seeds N           number of seeds swept per day, from SEED up, keeping the best flight (default 1)
+     *     *   --max-moves N       number of moves each drone can make (default 150)
+     *     *   --play-area NORTH,SOUTH,EAST,WEST  bounds of the play area (default the central area)
+     *     *   --port PORT         port of the web server (default 80)
+     *     *   --threads N         number of days flown in parallel (default number of processors)
+     *     *   --max-requests N    number of web requests in flight at once (default 8)
+     *     *   --cache-dir DIR     directory of the persistent W3W location cache (default no cache)
+     *     *   --cache-size N      maximum number of cached W3W locations (default 4096)
+     *     *   --timeout SECONDS   time limit for a single day (default 60)
+     *     *   --out DIR           output directory (default current directory)
+     *     *   --flight-log MODE   sync, async (written on a background thread) or none (default sync)
+     *     *   --planner MODE      greedy (nearest sensor next), tour (planned tour) or orienteering
+     *     *                       (the sensors worth the most within the moves) (default greedy)
+     *     *   --priority MODE     worth of the sensors to orienteering: uniform, battery (low battery
+     *     *                       the day before first) or reading (high readings the day before first)
+     *     *                       (default uniform)
+     *     *   --distance-matrix DIR   plan tours with the moves round the no-fly zones, stored in DIR
+     *     *   --navigation MODE   reactive (wall following), planned (A* legs) or
+     *     *                       incremental (A* legs repaired with D* Lite) (default reactive)
+     *     *   --zone-feed FILE    GeoJSON file of temporary no-fly zones, read again whenever it changes
+     *     *   --readings-map MODE tree (built after the mission) or stream (written during it) (default tree)
+     *     *   --fleet N           number of drones splitting the sensors of each day (default 1)
+     *     *   --fleet-starts LAT,LNG;LAT,LNG;...   starts of the drones, the others start at --lat --lng
+     *     *   --fleet-split MODE  sectors (angular, equal sizes) or kmeans (clusters) (default sectors)
+     *     *   --metrics FILE      write the metrics of each day and their totals to a JSON file
+     *     *   --fixtures DIR      serve DIR with an in-process {@link StandInWebServer} instead of using --port
+     *     *   --fixture-latency MS or MIN-MAX   delay of each stand-in response (default 0)
+     *     *   --fixture-error-rate R            fraction of stand-in requests failing (default 0)
+     * </pre>
+     * <p>Like {@code autotest/runner.py}, the outcome of each day is appended to okay.txt,
+     * not-okay.txt or timeout.txt in the output directory. The metrics of the days flown so
+     * far are added up by a {@link MetricsRegistry}, which can be watched over JMX. The options
+     * are parsed by {@link BatchOptions}, which the {@link SimulationFarm} shares.</p>
+     *
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        var options = BatchOptions.parse(args);
+        var dates = options.getDates();
+        var standIn = options.startStandIn();
+        var requestHandler = options.newRequestHandler();
+        NoFlyZones noFlyZones = null;
+        try {
+            noFlyZones = new NoFlyZones(requestHandler.getBuidings());
+        } catch (WebRequestException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        var outputDir = options.getOutputDir() == null ? Path.of("") : options.getOutputDir();
+        var settings = options.newSettings(noFlyZones, outputDir);
+        var distanceMatrixStore = settings.getDistanceMatrixStore();
+        var zoneFeed = options.openZoneFeed(noFlyZones, settings);
+        var metricsRegistry = new MetricsRegistry();
+        try {
+            metricsRegistry.register();
+        } catch (JMException e) {
+            System.err.println("The metrics could not be registered with JMX: " + e.getMessage());
+        }
+        settings.setMetricsRegistry(metricsRegistry);
+
+        try {
+            Files.createDirectories(outputDir);
+        } catch (IOException e) {
+            System.err.println("IO exception while creating the output directory " + outputDir + ".");
+            System.exit(1);
+        }
+
+        var results = runDays(requestHandler, noFlyZones, dates, settings, options.getThreads(),
+                options.getTimeoutSeconds());
+        if (zoneFeed != null) {
+            zoneFeed.close();
+        }
+        if (distanceMatrixStore != null) {
+            try {
+                distanceMatrixStore.save();
+            } catch (IOException e) {
+                System.err.println("IO exception while writing the distance matrix store "
+                        + distanceMatrixStore.getStoreFile() + ".");
+            }
+        }
+        var metricsFile = options.getMetricsFile();
+        if (metricsFile != null) {
+            try {
+                metricsRegistry.writeSummary(metricsFile, results);
+            } catch (IOException e) {
+                System.err.println("IO exception while writing the metrics summary " + metricsFile + ".");
+            }
+        }
+        if (standIn != null) {
+            System.out.println("Stand-in web server answered " + standIn.getRequestCount() + " requests, "
+                    + standIn.getInjectedErrorCount() + " with injected errors.");
+            standIn.close();
+        }
+        if (results.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the drone for every date on a bounded thread pool, see {@link DayRunner}, and records
+     * the outcome of each day.
+     *
+     * @param requestHandler   the shared web requests handler
+     * @param noFlyZones       the no-fly zones on the map, shared by the missions of all the days
+     * @param dates            the dates to fly
+     * @param settings         the settings shared by the missions of all the days
+     * @param threads          the number of days flown in parallel
+     * @param timeoutSeconds   the time limit for a single day
+     * @return the results of the days that finished, in date order
+     */
+    public static List<MissionResult> runDays(
+            WebRequests requestHandler,
+            NoFlyZones noFlyZones,
+            List<LocalDate> dates,
+            MissionSettings settings,
+            int threads,
+            long timeoutSeconds) {
+        var outputDir = settings.getOutputDir();
+        var batchStart = System.nanoTime();
+        var results = new ArrayList<MissionResult>();
+        var okay = new StringBuilder();
+        var notOkay = new StringBuilder();
+        var timedOut = new StringBuilder();
+
+        new DayRunner(threads, timeoutSeconds).run(dates,
+                (day, month, year) -> App.runDay(requestHandler, noFlyZones, day, month, year, settings),
+                new DayRunner.DayListener<>() {
+                    @Override
+                    public void finished(LocalDate date, MissionResult result) {
+                        results.add(result);
+                        var readingsFile = "readings-" + date.format(BatchOptions.DATE_FORMAT) + ".geojson";
+                        if (result.isCompleted()) {
+                            okay.append(readingsFile).append(" is okay\n");
+                        } else {
+                            notOkay.append(readingsFile).append(" is not okay\n");
+                        }
+                        System.out.println(result);
+                    }
+
+                    @Override
+                    public void timedOut(LocalDate date) {
+                        var dateString = date.format(BatchOptions.DATE_FORMAT);
+                        timedOut.append(dateString).append(" time out, probably an infinite loop somewhere.\n");
+                        System.err.println(dateString + " timed out after " + timeoutSeconds + " seconds.");
+                    }
+
+                    @Override
+                    public void failed(LocalDate date, Throwable cause) {
+                        var dateString = date.format(BatchOptions.DATE_FORMAT);
+                        notOkay.append("readings-").append(dateString).append(".geojson is not okay\n");
+                        System.err.println(dateString + " failed: " + cause);
+                    }
+                });
+
+        try {
+            Files.writeString(outputDir.resolve("okay.txt"), okay);
+            Files.writeString(outputDir.resolve("not-okay.txt"), notOkay);
+            Files.writeString(outputDir.resolve("timeout.txt"), timedOut);
+        } catch (IOException e) {
+            System.err.println("IO exception while writing the batch summary files.");
+        }
+
+        var elapsedSeconds = (System.nanoTime() - batchStart) / 1e9;
+        System.out.println(String.format("Flew %d of %d days in %.1f seconds.", results.size(), dates.size(), elapsedSeconds));
+        return results;
+    }
+}
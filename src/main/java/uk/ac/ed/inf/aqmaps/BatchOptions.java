@@ -0,0 +1,559 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The command line options of the batch mode, see {@link BatchApp#main}, and what is set up
+ * from them before the days are flown: the stand-in web server, the web requests handler and
+ * the settings of the missions. The {@link SimulationFarm} takes the same options, and adds its
+ * own by overriding {@link #parseOption} and {@link #parseFlag}.
+ */
+public class BatchOptions {
+
+    /**
+     * The date format used for the command line and the output file names.
+     */
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    /**
+     * The first day of the range, or null.
+     */
+    private LocalDate from = null;
+    /**
+     * The last day of the range, or null.
+     */
+    private LocalDate to = null;
+    /**
+     * The file with the dates to fly, or null to fly the range.
+     */
+    private Path datesFile = null;
+    /**
+     * The starting latitude.
+     */
+    private double startLatitude = 55.9444;
+    /**
+     * The starting longitude.
+     */
+    private double startLongitude = -3.1878;
+    /**
+     * The random state seed.
+     */
+    private int randomState = 5678;
+    /**
+     * The number of seeds swept per day.
+     */
+    private int seedCount = 1;
+    /**
+     * The number of drones splitting the sensors of each day.
+     */
+    private int fleetSize = 1;
+    /**
+     * The starts of the drones of a fleet.
+     */
+    private ArrayList<Point2D> fleetStarts = new ArrayList<>();
+    /**
+     * The way the sensors are split between the drones of a fleet.
+     */
+    private FleetPartitioning fleetPartitioning = FleetPartitioning.SECTORS;
+    /**
+     * The number of moves each drone can make.
+     */
+    private int maxMoves = 150;
+    /**
+     * The bounds of the play area.
+     */
+    private PlayArea playArea = PlayArea.DEFAULT;
+    /**
+     * The port of the web server.
+     */
+    private int port = 80;
+    /**
+     * The number of days flown in parallel.
+     */
+    private int threads = Runtime.getRuntime().availableProcessors();
+    /**
+     * The number of web requests in flight at once.
+     */
+    private int maxRequests = WebRequests.DEFAULT_MAX_CONCURRENT_REQUESTS;
+    /**
+     * The time limit for a single day.
+     */
+    private long timeoutSeconds = 60L;
+    /**
+     * The directory of the persistent W3W location cache, or null.
+     */
+    private Path cacheDir = null;
+    /**
+     * The maximum number of cached W3W locations.
+     */
+    private int cacheSize = WordsCache.DEFAULT_MAX_ENTRIES;
+    /**
+     * The output directory, or null if it was not given.
+     */
+    private Path outputDir = null;
+    /**
+     * The factory of the flight logs.
+     */
+    private FlightLog.Factory logFactory = FileFlightLog::new;
+    /**
+     * The way the drone orders the sensors.
+     */
+    private RoutePlanning routePlanning = RoutePlanning.GREEDY;
+    /**
+     * The worth of the sensors to orienteering.
+     */
+    private SensorPriority sensorPriority = SensorPriority.UNIFORM;
+    /**
+     * The way the drone finds its way to the next sensor.
+     */
+    private Navigation navigation = Navigation.REACTIVE;
+    /**
+     * Flag to check if the readings map is written while the drone flies.
+     */
+    private boolean streamReadingsMap = false;
+    /**
+     * The file the metrics are written to, or null.
+     */
+    private Path metricsFile = null;
+    /**
+     * The directory of the distance matrix store, or null.
+     */
+    private Path distanceMatrixDir = null;
+    /**
+     * The GeoJSON file of temporary no-fly zones, or null.
+     */
+    private Path zoneFeedFile = null;
+    /**
+     * The directory served by the stand-in web server, or null to use the port.
+     */
+    private Path fixtureDir = null;
+    /**
+     * The options handed to the stand-in web server, as option and value pairs.
+     */
+    private final ArrayList<String> fixtureOptions = new ArrayList<>();
+
+    /**
+     * Parses the command line options of the batch mode.
+     *
+     * @param args the input arguments
+     * @return the options
+     */
+    public static BatchOptions parse(String[] args) {
+        var options = new BatchOptions();
+        options.parseArgs(args);
+        return options;
+    }
+
+    /**
+     * Parses the command line options into this object.
+     *
+     * @param args the input arguments
+     */
+    public void parseArgs(String[] args) {
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (parseFlag(args[i])) {
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for option " + args[i] + ".");
+                }
+                if (!parseOption(args[i], args[i + 1])) {
+                    throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+                }
+                i++;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid option value: " + e.getMessage(), e);
+        }
+
+        if (fleetSize > 1 && (seedCount > 1 || streamReadingsMap)) {
+            throw new IllegalArgumentException("--fleet cannot be combined with --seeds or --readings-map stream.");
+        }
+    }
+
+    /**
+     * Parses an option without a value.
+     *
+     * @param option the option
+     * @return true if the option was taken else false
+     */
+    protected boolean parseFlag(String option) {
+        return false;
+    }
+
+    /**
+     * Parses an option and its value.
+     *
+     * @param option the option
+     * @param value  the value
+     * @return true if the option was taken else false
+     */
+    protected boolean parseOption(String option, String value) {
+        switch (option) {
+            case "--from":
+                from = LocalDate.parse(value, DATE_FORMAT);
+                break;
+            case "--to":
+                to = LocalDate.parse(value, DATE_FORMAT);
+                break;
+            case "--dates":
+                datesFile = Path.of(value);
+                break;
+            case "--lat":
+                startLatitude = Double.parseDouble(value);
+                break;
+            case "--lng":
+                startLongitude = Double.parseDouble(value);
+                break;
+            case "--seed":
+                randomState = Integer.parseInt(value);
+                break;
+            case "--seeds":
+                seedCount = Integer.parseInt(value);
+                break;
+            case "--max-moves":
+                maxMoves = Integer.parseInt(value);
+                break;
+            case "--play-area":
+                playArea = PlayArea.parse(value);
+                break;
+            case "--port":
+                port = Integer.parseInt(value);
+                break;
+            case "--threads":
+                threads = Integer.parseInt(value);
+                break;
+            case "--max-requests":
+                maxRequests = Integer.parseInt(value);
+                break;
+            case "--cache-dir":
+                cacheDir = Path.of(value);
+                break;
+            case "--cache-size":
+                cacheSize = Integer.parseInt(value);
+                break;
+            case "--timeout":
+                timeoutSeconds = Long.parseLong(value);
+                break;
+            case "--out":
+                outputDir = Path.of(value);
+                break;
+            case "--flight-log":
+                logFactory = flightLogFactory(value);
+                break;
+            case "--planner":
+                routePlanning = RoutePlanning.parse(value);
+                break;
+            case "--priority":
+                sensorPriority = SensorPriority.parse(value);
+                break;
+            case "--navigation":
+                navigation = Navigation.parse(value);
+                break;
+            case "--zone-feed":
+                zoneFeedFile = Path.of(value);
+                break;
+            case "--readings-map":
+                streamReadingsMap = readingsMapMode(value);
+                break;
+            case "--fleet":
+                fleetSize = Integer.parseInt(value);
+                break;
+            case "--fleet-starts":
+                fleetStarts = parseStarts(value);
+                break;
+            case "--fleet-split":
+                fleetPartitioning = FleetPartitioning.parse(value);
+                break;
+            case "--distance-matrix":
+                distanceMatrixDir = Path.of(value);
+                break;
+            case "--metrics":
+                metricsFile = Path.of(value);
+                break;
+            case "--fixtures":
+                fixtureDir = Path.of(value);
+                break;
+            case "--fixture-latency":
+            case "--fixture-error-rate":
+                // handed to the stand-in server once it is started
+                fixtureOptions.add("--" + option.substring("--fixture-".length()));
+                fixtureOptions.add(value);
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the dates to fly, from the dates file or the range.
+     *
+     * @return the dates, in the order given
+     */
+    public List<LocalDate> getDates() {
+        if (datesFile != null) {
+            return readDates(datesFile);
+        }
+        if (from != null && to != null) {
+            var dates = new ArrayList<LocalDate>();
+            for (var date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                dates.add(date);
+            }
+            return dates;
+        }
+        throw new IllegalArgumentException(" We need either --from and --to, or --dates to proceed.");
+    }
+
+    /**
+     * Starts the stand-in web server if --fixtures was given, and points the port at it.
+     *
+     * @return the stand-in web server, or null if the web server at the port is used
+     */
+    public StandInWebServer startStandIn() {
+        if (fixtureDir == null) {
+            return null;
+        }
+        StandInWebServer standIn = null;
+        try {
+            standIn = new StandInWebServer(fixtureDir, 0);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        // the same seed as the drone, so that a run is repeatable
+        standIn.setSeed(randomState);
+        for (int i = 0; i < fixtureOptions.size(); i += 2) {
+            standIn.configure(fixtureOptions.get(i), fixtureOptions.get(i + 1));
+        }
+        port = standIn.getPort();
+        return standIn;
+    }
+
+    /**
+     * Makes the web requests handler shared by all the days.
+     *
+     * @return the web requests handler
+     */
+    public WebRequests newRequestHandler() {
+        var requestHandler = new WebRequests(port);
+        requestHandler.setMaxConcurrentRequests(maxRequests);
+        if (cacheDir != null) {
+            requestHandler.setWordsCache(WordsCache.open(cacheDir, cacheSize));
+        }
+        return requestHandler;
+    }
+
+    /**
+     * Makes the settings shared by the missions of all the days, with the distance matrix store
+     * opened if --distance-matrix was given.
+     *
+     * @param noFlyZones the no-fly zones on the map
+     * @param outputDir  the output directory
+     * @return the settings
+     */
+    public MissionSettings newSettings(NoFlyZones noFlyZones, Path outputDir) {
+        var settings = new MissionSettings(new Point2D.Double(startLongitude, startLatitude), randomState);
+        settings.setMaxMoves(maxMoves);
+        settings.setPlayArea(playArea);
+        settings.setOutputDir(outputDir);
+        settings.setLogFactory(logFactory);
+        settings.setRoutePlanning(routePlanning);
+        settings.setSensorPriority(sensorPriority);
+        settings.setNavigation(navigation);
+        settings.setStreamReadingsMap(streamReadingsMap);
+        settings.setSeedCount(seedCount);
+        settings.setFleetSize(fleetSize);
+        settings.setFleetStarts(fleetStarts);
+        settings.setFleetPartitioning(fleetPartitioning);
+        if (distanceMatrixDir != null) {
+            settings.setDistanceMatrixStore(DistanceMatrixStore.open(noFlyZones, playArea, Headings.DEFAULT, maxMoves,
+                    distanceMatrixDir));
+        }
+        return settings;
+    }
+
+    /**
+     * Opens the no-fly zone feed if --zone-feed was given, and hands its store to the settings.
+     *
+     * @param noFlyZones the no-fly zones on the map
+     * @param settings   the settings shared by the missions of all the days
+     * @return the feed, to be closed after the days are flown, or null
+     */
+    public NoFlyZoneFeed openZoneFeed(NoFlyZones noFlyZones, MissionSettings settings) {
+        if (zoneFeedFile == null) {
+            return null;
+        }
+        var noFlyZoneStore = new NoFlyZoneStore(noFlyZones);
+        NoFlyZoneFeed zoneFeed = null;
+        try {
+            zoneFeed = NoFlyZoneFeed.open(zoneFeedFile, noFlyZoneStore);
+        } catch (IOException e) {
+            System.err.println("IO exception while reading the no-fly zone feed " + zoneFeedFile + ".");
+            System.exit(1);
+        }
+        settings.setNoFlyZoneStore(noFlyZoneStore);
+        return zoneFeed;
+    }
+
+    /**
+     * Gets from.
+     *
+     * @return the first day of the range, or null
+     */
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets to.
+     *
+     * @return the last day of the range, or null
+     */
+    public LocalDate getTo() {
+        return to;
+    }
+
+    /**
+     * Gets dates file.
+     *
+     * @return the file with the dates to fly, or null
+     */
+    public Path getDatesFile() {
+        return datesFile;
+    }
+
+    /**
+     * Gets fleet size.
+     *
+     * @return the number of drones splitting the sensors of each day
+     */
+    public int getFleetSize() {
+        return fleetSize;
+    }
+
+    /**
+     * Gets threads.
+     *
+     * @return the number of days flown in parallel
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Gets timeout seconds.
+     *
+     * @return the time limit for a single day
+     */
+    public long getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    /**
+     * Gets output dir.
+     *
+     * @return the output directory, or null if it was not given
+     */
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
+    /**
+     * Gets metrics file.
+     *
+     * @return the file the metrics are written to, or null
+     */
+    public Path getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * Gets the flight log factory for a --flight-log mode.
+     *
+     * @param mode the mode, sync, async or none
+     * @return the flight log factory
+     */
+    private static FlightLog.Factory flightLogFactory(String mode) {
+        switch (mode) {
+            case "sync":
+                return FileFlightLog::new;
+            case "async":
+                return file -> new FileFlightLog(file, true);
+            case "none":
+                return file -> NoOpFlightLog.INSTANCE;
+            default:
+                throw new IllegalArgumentException("Unknown flight log mode " + mode + ".");
+        }
+    }
+
+    /**
+     * Checks if a --readings-map mode streams the readings map.
+     *
+     * @param mode the mode, tree or stream
+     * @return true if the readings map is written while the drone flies
+     */
+    private static boolean readingsMapMode(String mode) {
+        switch (mode) {
+            case "tree":
+                return false;
+            case "stream":
+                return true;
+            default:
+                throw new IllegalArgumentException("Unknown readings map mode " + mode + ".");
+        }
+    }
+
+    /**
+     * Parses the starts of the drones of a fleet.
+     *
+     * @param starts the starts, as LAT,LNG pairs separated by semicolons
+     * @return the list of starts, as (longitude, latitude) points
+     */
+    private static ArrayList<Point2D> parseStarts(String starts) {
+        var points = new ArrayList<Point2D>();
+        for (String start : starts.split(";")) {
+            var fields = start.split(",");
+            if (fields.length != 2) {
+                throw new IllegalArgumentException("Invalid fleet start " + start + ", expected LAT,LNG.");
+            }
+            points.add(new Point2D.Double(Double.parseDouble(fields[1].trim()), Double.parseDouble(fields[0].trim())));
+        }
+        return points;
+    }
+
+    /**
+     * Reads the dates to fly from a file with one DD-MM-YYYY date per line.
+     * Empty lines and lines starting with # are skipped.
+     *
+     * @param datesFile the path of the dates file
+     * @return the list of dates
+     */
+    private static List<LocalDate> readDates(Path datesFile) {
+        var dates = new ArrayList<LocalDate>();
+        try {
+            for (String line : Files.readAllLines(datesFile)) {
+                var trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                dates.add(LocalDate.parse(trimmed, DATE_FORMAT));
+            }
+        } catch (IOException e) {
+            System.err.println("IO exception while reading the dates file " + datesFile + ".");
+            System.exit(1);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date in " + datesFile + ": " + e.getParsedString(), e);
+        }
+        return dates;
+    }
+}
@@ -0,0 +1,87 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The output files of a day. They are written under a temporary {@code .part} name and only
+ * renamed to their real names once the whole day has been flown, so that a day which fails or
+ * is cancelled by the batch mode timeout leaves no half written flight path or readings map
+ * behind. Closing the outputs before {@link #commit()} deletes the temporary files. A readings
+ * map streamed by a {@link GeoJsonStreamWriter} is the exception, as it is meant to be read
+ * while the drone flies.
+ */
+public class DayOutputs implements Closeable {
+
+    /**
+     * The real paths of the output files.
+     */
+    private final List<Path> files = new ArrayList<>();
+    /**
+     * Flag to check if the files have been renamed to their real names.
+     */
+    private boolean committed = false;
+
+    /**
+     * Adds an output file and gets the temporary path to write it to.
+     *
+     * @param file the real path of the output file
+     * @return the temporary path of the file
+     */
+    public Path part(Path file) {
+        files.add(file);
+        return partOf(file);
+    }
+
+    /**
+     * Renames every output file to its real name, replacing the files of an earlier run. An
+     * output which was never written, e.g. the flight path with {@link NoOpFlightLog}, is skipped.
+     *
+     * @throws IOException if a file could not be renamed, or the day was interrupted, in which
+     *                     case the flight was cut short and none of the files are kept
+     */
+    public void commit() throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("The day was interrupted before its outputs were written.");
+        }
+        for (Path file : files) {
+            if (Files.exists(partOf(file))) {
+                Files.move(partOf(file), file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        committed = true;
+    }
+
+    /**
+     * Deletes the temporary files if the outputs were not committed.
+     */
+    @Override
+    public void close() {
+        if (committed) {
+            return;
+        }
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(partOf(file));
+            } catch (IOException e) {
+                System.err.println("Could not delete " + partOf(file) + ".");
+            }
+        }
+    }
+
+    /**
+     * Gets the temporary path of an output file.
+     *
+     * @param file the real path of the output file
+     * @return the path with {@code .part} appended to the file name
+     */
+    private static Path partOf(Path file) {
+        return file.resolveSibling(file.getFileName() + ".part");
+    }
+}
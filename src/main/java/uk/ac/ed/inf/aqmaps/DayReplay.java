@@ -0,0 +1,232 @@
+package uk.ac.ed.inf.aqmaps;
+
+/**
+ * The outcome of replaying a single day against its golden outputs, see {@link SimulationFarm}.
+ */
+public class DayReplay {
+    /**
+     * The date string of the day (DD-MM-YYYY).
+     */
+    private final String name;
+    /**
+     * The summary of the mission, or null if the day failed or timed out.
+     */
+    private final MissionResult result;
+    /**
+     * Flag to check if the day was stopped after the time limit.
+     */
+    private final boolean timedOut;
+    /**
+     * The first move which differs from the golden flight path, counted from 1, or 0 if the
+     * flight paths match.
+     */
+    private final int firstDifferentMove;
+    /**
+     * The number of sensors whose markers differ from the golden readings map, including the
+     * ones missing from either map.
+     */
+    private final int differentSensors;
+    /**
+     * Flag to check if the flight line of the readings map matches the golden one.
+     */
+    private final boolean flightLineMatching;
+    /**
+     * The number of moves of the golden flight path.
+     */
+    private final int goldenMoves;
+    /**
+     * The number of sensors left unread on the golden readings map.
+     */
+    private final int goldenSensorsMissed;
+    /**
+     * Flag to check if the golden run read every sensor and returned.
+     */
+    private final boolean goldenCompleted;
+
+    /**
+     * Instantiates a new Day replay.
+     *
+     * @param name                the date string of the day
+     * @param result              the summary of the mission, or null if the day failed or timed out
+     * @param timedOut            true if the day was stopped after the time limit
+     * @param firstDifferentMove  the first move which differs from the golden flight path, or 0
+     * @param differentSensors    the number of sensors whose markers differ
+     * @param flightLineMatching  true if the flight line of the readings map matches
+     * @param goldenMoves         the number of moves of the golden flight path
+     * @param goldenSensorsMissed the number of sensors left unread on the golden readings map
+     * @param goldenCompleted     true if the golden run read every sensor and returned
+     */
+    public DayReplay(String name, MissionResult result, boolean timedOut, int firstDifferentMove,
+                     int differentSensors, boolean flightLineMatching, int goldenMoves,
+                     int goldenSensorsMissed, boolean goldenCompleted) {
+        super();
+        this.name = name;
+        this.result = result;
+        this.timedOut = timedOut;
+        this.firstDifferentMove = firstDifferentMove;
+        this.differentSensors = differentSensors;
+        this.flightLineMatching = flightLineMatching;
+        this.goldenMoves = goldenMoves;
+        this.goldenSensorsMissed = goldenSensorsMissed;
+        this.goldenCompleted = goldenCompleted;
+    }
+
+    /**
+     * Checks if the day was flown and both of its outputs match the golden ones.
+     *
+     * @return true if the day matches else false
+     */
+    public boolean isMatching() {
+        return isFlown() && isFlightPathMatching() && isReadingsMapMatching();
+    }
+
+    /**
+     * Checks if the day was flown to the end.
+     *
+     * @return true if there is a mission result else false
+     */
+    public boolean isFlown() {
+        return result != null;
+    }
+
+    /**
+     * Checks if the flight path matches the golden one.
+     *
+     * @return true if the flight paths match else false
+     */
+    public boolean isFlightPathMatching() {
+        return firstDifferentMove == 0;
+    }
+
+    /**
+     * Checks if the readings map matches the golden one.
+     *
+     * @return true if the sensor markers and the flight line match else false
+     */
+    public boolean isReadingsMapMatching() {
+        return differentSensors == 0 && flightLineMatching;
+    }
+
+    /**
+     * Gets the number of sensors left unread.
+     *
+     * @return the sensors missed, or 0 if the day was not flown
+     */
+    public int getSensorsMissed() {
+        return result == null ? 0 : result.getSensorsTotal() - result.getSensorsRead();
+    }
+
+    /**
+     * Gets name.
+     *
+     * @return the date string of the day
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets result.
+     *
+     * @return the summary of the mission, or null if the day failed or timed out
+     */
+    public MissionResult getResult() {
+        return result;
+    }
+
+    /**
+     * Is timed out boolean.
+     *
+     * @return true if the day was stopped after the time limit
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Gets first different move.
+     *
+     * @return the first move which differs from the golden flight path, or 0
+     */
+    public int getFirstDifferentMove() {
+        return firstDifferentMove;
+    }
+
+    /**
+     * Gets different sensors.
+     *
+     * @return the number of sensors whose markers differ
+     */
+    public int getDifferentSensors() {
+        return differentSensors;
+    }
+
+    /**
+     * Is flight line matching boolean.
+     *
+     * @return true if the flight line of the readings map matches
+     */
+    public boolean isFlightLineMatching() {
+        return flightLineMatching;
+    }
+
+    /**
+     * Gets golden moves.
+     *
+     * @return the number of moves of the golden flight path
+     */
+    public int getGoldenMoves() {
+        return goldenMoves;
+    }
+
+    /**
+     * Gets golden sensors missed.
+     *
+     * @return the number of sensors left unread on the golden readings map
+     */
+    public int getGoldenSensorsMissed() {
+        return goldenSensorsMissed;
+    }
+
+    /**
+     * Is golden completed boolean.
+     *
+     * @return true if the golden run read every sensor and returned
+     */
+    public boolean isGoldenCompleted() {
+        return goldenCompleted;
+    }
+
+    /**
+     * To string string.
+     *
+     * @return the string
+     */
+    @Override
+    public String toString() {
+        if (result == null) {
+            return name + (timedOut ? " timed out" : " failed");
+        }
+        var outcome = new StringBuilder(name);
+        if (isMatching()) {
+            outcome.append(" matches");
+        } else {
+            outcome.append(" differs:");
+            if (!isFlightPathMatching()) {
+                outcome.append(" flight path from move ").append(firstDifferentMove).append(';');
+            }
+            if (differentSensors > 0) {
+                outcome.append(' ').append(differentSensors).append(" of ").append(result.getSensorsTotal())
+                        .append(" sensor markers;");
+            }
+            if (!flightLineMatching) {
+                outcome.append(" flight line;");
+            }
+            outcome.setLength(outcome.length() - 1);
+        }
+        return outcome
+                + String.format(", moves %d (golden %d), missed %d (golden %d), %d ms",
+                result.getMovesUsed(), goldenMoves, getSensorsMissed(), goldenSensorsMissed,
+                result.getElapsedMillis());
+    }
+}
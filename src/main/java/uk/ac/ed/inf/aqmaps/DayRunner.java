@@ -0,0 +1,147 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a task for each of many days on a bounded thread pool, with a time limit for every
+ * day, and hands the outcome of each day to a listener in date order. It is shared by the
+ * batch mode, see {@link BatchApp}, and the {@link SimulationFarm}.
+ */
+public class DayRunner {
+
+    /**
+     * The work done for a single day, e.g. flying it with {@link App#runDay}.
+     *
+     * @param <T> the type of the result of a day
+     */
+    public interface DayTask<T> {
+        /**
+         * Runs the day.
+         *
+         * @param day   the day, two digits
+         * @param month the month, two digits
+         * @param year  the year
+         * @return the result of the day
+         * @throws Exception if the day failed
+         */
+        T run(String day, String month, String year) throws Exception;
+    }
+
+    /**
+     * The listener told the outcome of each day, on the thread which called {@link #run}.
+     *
+     * @param <T> the type of the result of a day
+     */
+    public interface DayListener<T> {
+        /**
+         * Called with the result of a day which finished.
+         *
+         * @param date   the date
+         * @param result the result of the day
+         */
+        void finished(LocalDate date, T result);
+
+        /**
+         * Called for a day which was cancelled after the time limit.
+         *
+         * @param date the date
+         */
+        void timedOut(LocalDate date);
+
+        /**
+         * Called for a day whose task threw.
+         *
+         * @param date  the date
+         * @param cause what the task threw
+         */
+        void failed(LocalDate date, Throwable cause);
+    }
+
+    /**
+     * The number of days run in parallel.
+     */
+    private final int threads;
+    /**
+     * The time limit for a single day.
+     */
+    private final long timeoutSeconds;
+
+    /**
+     * Instantiates a new Day runner.
+     *
+     * @param threads        the number of days run in parallel
+     * @param timeoutSeconds the time limit for a single day
+     */
+    public DayRunner(int threads, long timeoutSeconds) {
+        super();
+        this.threads = threads;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Runs the task for every date. The time limit of a day starts when a worker picks it up,
+     * not when it is queued, and a day over the limit is interrupted. Before returning, the
+     * runner waits for the interrupted days to stop, so that they can delete their unfinished
+     * files, see {@link DayOutputs}.
+     *
+     * @param <T>      the type of the result of a day
+     * @param dates    the dates to run
+     * @param task     the work done for each day
+     * @param listener the listener told the outcome of each day, in date order
+     */
+    public <T> void run(List<LocalDate> dates, DayTask<T> task, DayListener<T> listener) {
+        var executor = Executors.newFixedThreadPool(threads);
+        var watchdog = Executors.newSingleThreadScheduledExecutor();
+        var futures = new ArrayList<Future<T>>();
+
+        for (LocalDate date : dates) {
+            var day = String.format("%02d", date.getDayOfMonth());
+            var month = String.format("%02d", date.getMonthValue());
+            var year = String.valueOf(date.getYear());
+            var self = new AtomicReference<Future<T>>();
+            var future = new FutureTask<>(() -> {
+                var timer = watchdog.schedule(() -> self.get().cancel(true), timeoutSeconds, TimeUnit.SECONDS);
+                try {
+                    return task.run(day, month, year);
+                } finally {
+                    timer.cancel(false);
+                }
+            });
+            self.set(future);
+            futures.add(future);
+            executor.execute(future);
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                listener.finished(dates.get(i), futures.get(i).get());
+            } catch (CancellationException e) {
+                listener.timedOut(dates.get(i));
+            } catch (ExecutionException e) {
+                listener.failed(dates.get(i), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+        try {
+            // let the cancelled days delete their unfinished files before the JVM exits
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("Some cancelled days are still running, their .part files may be left behind.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
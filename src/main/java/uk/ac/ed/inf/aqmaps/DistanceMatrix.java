@@ -0,0 +1,112 @@
+package uk.ac.ed.inf.aqmaps;
+
+/**
+ * The number of moves between the starting position and every sensor of a day, and between
+ * every pair of sensors, flying round the no-fly zones on the move lattice.
+ *
+ * <p>Node 0 is the starting position and nodes 1 to n are the sensors in input order, like in
+ * {@link TourPlanner}. The moves are kept in a single {@code int[]}, indexed by
+ * from * size + to. A leg is not always as long both ways, since the drone only has to get
+ * within reading distance of a sensor, or within a move of the starting position.</p>
+ */
+public final class DistanceMatrix {
+
+    /**
+     * The moves of a leg there is no way to fly within the move budget.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The number of nodes, the starting position included.
+     */
+    private final int size;
+    /**
+     * The moves of each leg, indexed by from * size + to.
+     */
+    private final int[] moves;
+
+    /**
+     * Instantiates a new Distance matrix.
+     *
+     * @param size  the number of nodes, the starting position included
+     * @param moves the moves of each leg, indexed by from * size + to, which is not copied
+     */
+    public DistanceMatrix(int size, int[] moves) {
+        super();
+        if (moves.length != size * size) {
+            throw new IllegalArgumentException("The distance matrix must have size * size entries.");
+        }
+        this.size = size;
+        this.moves = moves;
+    }
+
+    /**
+     * Gets the moves of a leg.
+     *
+     * @param from the node the leg starts at
+     * @param to   the node the leg leads to
+     * @return the number of moves, or {@link #UNREACHABLE}
+     */
+    public int moves(int from, int to) {
+        return moves[from * size + to];
+    }
+
+    /**
+     * Turns the moves into the symmetric costs of a {@link TourPlanner}, the mean of the
+     * moves both ways. A leg which can only be flown one way costs the moves that way.
+     *
+     * @param unreachableCost the cost of a leg which cannot be flown either way
+     * @return the symmetric cost matrix, indexed by from * size + to
+     */
+    public double[] toCosts(double unreachableCost) {
+        var costs = new double[size * size];
+        for (int a = 0; a < size; a++) {
+            for (int b = a + 1; b < size; b++) {
+                var there = moves(a, b);
+                var back = moves(b, a);
+                double cost;
+                if (there == UNREACHABLE && back == UNREACHABLE) {
+                    cost = unreachableCost;
+                } else if (there == UNREACHABLE || back == UNREACHABLE) {
+                    cost = Math.min(there, back);
+                } else {
+                    cost = (there + back) / 2.0;
+                }
+                costs[a * size + b] = cost;
+                costs[b * size + a] = cost;
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Fills in each leg which cannot be flown with the moves of the leg the other way. The
+     * legs from a sensor inside a no-fly zone cannot be flown from the sensor itself, but the
+     * drone reads it from outside, from where it can fly back the way it came.
+     *
+     * @return the new distance matrix, or this one if every leg can be flown
+     */
+    public DistanceMatrix withReverseLegs() {
+        int[] filled = null;
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < size; b++) {
+                if (moves(a, b) == UNREACHABLE && moves(b, a) != UNREACHABLE) {
+                    if (filled == null) {
+                        filled = moves.clone();
+                    }
+                    filled[a * size + b] = moves(b, a);
+                }
+            }
+        }
+        return filled == null ? this : new DistanceMatrix(size, filled);
+    }
+
+    /**
+     * Gets size.
+     *
+     * @return the number of nodes, the starting position included
+     */
+    public int getSize() {
+        return size;
+    }
+}
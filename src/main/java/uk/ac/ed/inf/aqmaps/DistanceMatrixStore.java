@@ -0,0 +1,360 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * The store of the moves between every pair of places the drone has flown between over a
+ * building map, i.e. the no-fly zones, from which the {@link DistanceMatrix} of a day is taken.
+ *
+ * <p>The sensors of different days share a small pool of locations, so the store keeps one
+ * matrix over every starting position and sensor location seen so far. When a day brings
+ * new places, the legs to and from them are found with a {@link PathPlanner}, one row of the
+ * matrix per task in parallel, and the matrix grows. Every day and every seed flown with the
+ * same no-fly zones then reuses the legs. A leg ends within reading distance of a sensor, or
+ * within a move of a starting position; a place which is both keeps the goal it was first
+ * added with.</p>
+ *
+ * <p>The store can be kept in a binary file inside a directory, named after a fingerprint
+ * of the no-fly zones, the play area, the headings and the move budget, so that each building
+ * map has its own file. The file is rewritten atomically, like the {@link WordsCache}.</p>
+ */
+public class DistanceMatrixStore {
+
+    /**
+     * The extension of the store files.
+     */
+    public static final String FILE_EXTENSION = ".matrix";
+    /**
+     * The magic number at the start of the store file ("DMAT").
+     */
+    private static final int MAGIC = 0x444d4154;
+    /**
+     * The version of the store file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The path of the store file, or null if the store is kept in memory only.
+     */
+    private final Path storeFile;
+    /**
+     * The planner finding the legs.
+     */
+    private final PathPlanner pathPlanner;
+    /**
+     * The length of a move, the goal radius of a starting position.
+     */
+    private final double stepLength;
+    /**
+     * The maximum number of moves of a leg.
+     */
+    private final int maxMoves;
+    /**
+     * The index of each place in the matrix.
+     */
+    private final HashMap<Point2D, Integer> indexOf = new HashMap<>();
+    /**
+     * The x coordinates of the places.
+     */
+    private double[] xs = new double[0];
+    /**
+     * The y coordinates of the places.
+     */
+    private double[] ys = new double[0];
+    /**
+     * The distance to each place a leg has to get within.
+     */
+    private double[] goalRadii = new double[0];
+    /**
+     * The number of places.
+     */
+    private int count = 0;
+    /**
+     * The moves of each leg, indexed by from * count + to.
+     */
+    private int[] moves = new int[0];
+    /**
+     * Flag to check if the store changed since it was last loaded or saved.
+     */
+    private boolean dirty = false;
+
+    /**
+     * Instantiates a new, empty Distance matrix store. Use
+     * {@link #open(NoFlyZones, PlayArea, Headings, int, Path)} to load a stored one.
+     *
+     * @param noFlyZones the no-fly zones
+     * @param playArea   the play area
+     * @param headings   the headings of the drone
+     * @param maxMoves   the maximum number of moves of a leg
+     * @param storeDir   the directory of the store files, or null to keep the store in memory only
+     */
+    public DistanceMatrixStore(NoFlyZones noFlyZones, PlayArea playArea, Headings headings, int maxMoves, Path storeDir) {
+        super();
+        this.pathPlanner = new PathPlanner(headings, noFlyZones, playArea);
+        this.stepLength = headings.getStepLength();
+        this.maxMoves = maxMoves;
+        this.storeFile = storeDir == null
+                ? null
+                : storeDir.resolve(fingerprint(noFlyZones, playArea, headings, maxMoves) + FILE_EXTENSION);
+    }
+
+    /**
+     * Opens the store of the building map kept in the given directory. A missing or unreadable
+     * store file gives an empty store.
+     *
+     * @param noFlyZones the no-fly zones
+     * @param playArea   the play area
+     * @param headings   the headings of the drone
+     * @param maxMoves   the maximum number of moves of a leg
+     * @param storeDir   the directory of the store files
+     * @return the distance matrix store
+     */
+    public static DistanceMatrixStore open(NoFlyZones noFlyZones, PlayArea playArea, Headings headings,
+                                           int maxMoves, Path storeDir) {
+        var store = new DistanceMatrixStore(noFlyZones, playArea, headings, maxMoves, storeDir);
+        try {
+            store.load();
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable distance matrix store " + store.storeFile + ".");
+        }
+        return store;
+    }
+
+    /**
+     * Gets the distance matrix of a day, finding the legs of the places not in the store yet.
+     *
+     * @param startingPosition the starting position, node 0
+     * @param sensors          the sensors, nodes 1 to n
+     * @return the distance matrix
+     */
+    public synchronized DistanceMatrix matrixFor(Point2D startingPosition, List<Sensor> sensors) {
+        var size = sensors.size() + 1;
+        var nodes = new int[size];
+        var known = count;
+        nodes[0] = place(startingPosition, stepLength);
+        for (int i = 1; i < size; i++) {
+            nodes[i] = place(sensors.get(i - 1).getCoord(), GeometryHelpers.READING_DISTANCE);
+        }
+        if (count > known) {
+            grow(known);
+        }
+
+        var dayMoves = new int[size * size];
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < size; b++) {
+                dayMoves[a * size + b] = moves[nodes[a] * count + nodes[b]];
+            }
+        }
+        return new DistanceMatrix(size, dayMoves);
+    }
+
+    /**
+     * Finds the index of a place, adding it to the places if it is new.
+     *
+     * @param coord      the coordinates of the place
+     * @param goalRadius the distance to the place a leg has to get within
+     * @return the index of the place
+     */
+    private int place(Point2D coord, double goalRadius) {
+        var index = indexOf.get(coord);
+        if (index != null) {
+            return index;
+        }
+        if (count == xs.length) {
+            var capacity = Math.max(16, 2 * count);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            goalRadii = Arrays.copyOf(goalRadii, capacity);
+        }
+        xs[count] = coord.getX();
+        ys[count] = coord.getY();
+        goalRadii[count] = goalRadius;
+        indexOf.put(new Point2D.Double(coord.getX(), coord.getY()), count);
+        return count++;
+    }
+
+    /**
+     * Grows the matrix to all the places, finding the legs to and from the new ones in parallel.
+     *
+     * @param known the number of places the matrix already has the legs of
+     */
+    private void grow(int known) {
+        var grown = new int[count * count];
+        for (int a = 0; a < known; a++) {
+            System.arraycopy(moves, a * known, grown, a * count, known);
+        }
+        // each row is written by one task only
+        IntStream.range(0, count).parallel().forEach(a -> {
+            for (int b = a < known ? known : 0; b < count; b++) {
+                grown[a * count + b] = a == b ? 0 : leg(a, b);
+            }
+        });
+        moves = grown;
+        dirty = true;
+    }
+
+    /**
+     * Finds the moves of the leg between two places.
+     *
+     * @param from the index of the place the leg starts at
+     * @param to   the index of the place the leg leads to
+     * @return the number of moves, or {@link DistanceMatrix#UNREACHABLE}
+     */
+    private int leg(int from, int to) {
+        var path = pathPlanner.findPath(xs[from], ys[from], xs[to], ys[to], goalRadii[to], maxMoves);
+        return path == null ? DistanceMatrix.UNREACHABLE : path.length;
+    }
+
+    /**
+     * Loads the places and the matrix of the store file.
+     *
+     * @throws IOException if the store file exists but is not a whole store
+     */
+    private synchronized void load() throws IOException {
+        if (storeFile == null) {
+            return;
+        }
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(storeFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a distance matrix store file.");
+            }
+            var places = in.readInt();
+            // a larger matrix would not fit in an array
+            if (places < 0 || places > 46_340) {
+                throw new IOException("Damaged distance matrix store file.");
+            }
+            for (int i = 0; i < places; i++) {
+                var x = in.readDouble();
+                var y = in.readDouble();
+                var goalRadius = in.readDouble();
+                if (place(new Point2D.Double(x, y), goalRadius) != i) {
+                    throw new IOException("Damaged distance matrix store file.");
+                }
+            }
+            var loaded = new int[places * places];
+            for (int i = 0; i < loaded.length; i++) {
+                loaded[i] = in.readInt();
+            }
+            moves = loaded;
+        } catch (NoSuchFileException e) {
+            // nothing stored yet
+        } catch (IOException e) {
+            // start again from an empty store
+            indexOf.clear();
+            count = 0;
+            moves = new int[0];
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the store to its file if it changed. The file is first written next to the
+     * store file and then moved over it.
+     *
+     * @throws IOException if the store file could not be written
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty || storeFile == null) {
+            return;
+        }
+        var storeDir = storeFile.toAbsolutePath().getParent();
+        Files.createDirectories(storeDir);
+        var tempFile = Files.createTempFile(storeDir, storeFile.getFileName().toString(), ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(count);
+                for (int i = 0; i < count; i++) {
+                    out.writeDouble(xs[i]);
+                    out.writeDouble(ys[i]);
+                    out.writeDouble(goalRadii[i]);
+                }
+                for (int move : moves) {
+                    out.writeInt(move);
+                }
+            }
+            try {
+                Files.move(tempFile, storeFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, storeFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Gets the number of places in the store.
+     *
+     * @return the place count
+     */
+    public synchronized int getPlaceCount() {
+        return count;
+    }
+
+    /**
+     * Gets store file.
+     *
+     * @return the path of the store file, or null if the store is kept in memory only
+     */
+    public Path getStoreFile() {
+        return storeFile;
+    }
+
+    /**
+     * Finds the fingerprint of everything the legs depend on apart from the places.
+     *
+     * @param noFlyZones the no-fly zones
+     * @param playArea   the play area
+     * @param headings   the headings of the drone
+     * @param maxMoves   the maximum number of moves of a leg
+     * @return the fingerprint as hex digits
+     */
+    private static String fingerprint(NoFlyZones noFlyZones, PlayArea playArea, Headings headings, int maxMoves) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        var buffer = ByteBuffer.allocate(Double.BYTES * 2);
+        for (List<Point2D> polygon : noFlyZones.getPolygons()) {
+            for (Point2D point : polygon) {
+                digest.update(buffer.clear().putDouble(point.getX()).putDouble(point.getY()).array());
+            }
+            // keeps the polygons apart
+            digest.update(buffer.clear().putDouble(Double.NaN).putDouble(Double.NaN).array());
+        }
+        digest.update(buffer.clear().putDouble(playArea.getNorthLat()).putDouble(playArea.getSouthLat()).array());
+        digest.update(buffer.clear().putDouble(playArea.getEastLng()).putDouble(playArea.getWestLng()).array());
+        digest.update(buffer.clear().putDouble(headings.getAngleStep()).putDouble(headings.getStepLength()).array());
+        digest.update(buffer.clear().putDouble(maxMoves).putDouble(VERSION).array());
+
+        var hex = new StringBuilder();
+        var hash = digest.digest();
+        // half of the hash is plenty to tell building maps apart
+        for (int i = 0; i < hash.length / 2; i++) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        return hex.toString();
+    }
+}
@@ -3,12 +3,8 @@ package uk.ac.ed.inf.aqmaps;
 import com.mapbox.geojson.Point;
 
 import java.awt.geom.Point2D;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.NoSuchElementException;
 import java.util.Random;
 
 /**
@@ -25,25 +21,41 @@ public abstract class Drone {
      */
     protected final Random RNG;
     /**
-     * The Path value for the flightPathLog.
+     * The sink each move of the drone is logged to.
      */
-    protected final Path flightPathLogFile;
+    protected final FlightLog flightLog;
+    /**
+     * The table of legal movement directions and the step length.
+     */
+    protected final Headings headings;
     /**
      * The number of moves left.
      */
     protected int movesLeft;
+    /**
+     * The max number of moves the drone can make.
+     */
+    protected final int maxMoves;
     /**
      * The list of sensors to visit.
      */
     protected ArrayList<Sensor> toVisit;
+    /**
+     * The spatial index over the sensors to visit.
+     */
+    protected SensorIndex sensorIndex;
     /**
      * The starting position co-ordinates.
      */
     protected Point2D startingPosition;
     /**
-     * The current position co-ordinates.
+     * The current x co-ordinate (longitude).
      */
-    protected Point2D currentPosition;
+    protected double currentX;
+    /**
+     * The current y co-ordinate (latitude).
+     */
+    protected double currentY;
 
     /**
      * Initializes the values for the fields of drone class.
@@ -52,22 +64,46 @@ public abstract class Drone {
      * @param movesLeft         the moves left, i.e. the max number of moves the drone can make
      * @param toVisit           the list of sensors to visit
      * @param startingPosition  the starting position
-     * @param flightPathLogFile the path of flightPathLog file
+     * @param flightLog         the flight log to log the moves to
+     */
+    public Drone(
+            int seed,
+            int movesLeft,
+            ArrayList<Sensor> toVisit,
+            Point2D startingPosition,
+            FlightLog flightLog) {
+        this(seed, movesLeft, toVisit, startingPosition, flightLog, Headings.DEFAULT);
+    }
+
+    /**
+     * Initializes the values for the fields of drone class, with a custom set of headings.
+     *
+     * @param seed              the seed
+     * @param movesLeft         the moves left, i.e. the max number of moves the drone can make
+     * @param toVisit           the list of sensors to visit
+     * @param startingPosition  the starting position
+     * @param flightLog         the flight log to log the moves to
+     * @param headings          the legal movement directions and step length
      */
     public Drone(
             int seed,
             int movesLeft,
             ArrayList<Sensor> toVisit,
             Point2D startingPosition,
-            Path flightPathLogFile) {
+            FlightLog flightLog,
+            Headings headings) {
         super();
         this.seed = seed;
+        this.headings = headings;
         this.RNG = new Random(seed);
         this.movesLeft = movesLeft;
+        this.maxMoves = movesLeft;
         this.toVisit = toVisit;
+        this.sensorIndex = new SensorIndex(toVisit);
         this.startingPosition = startingPosition;
-        this.currentPosition = startingPosition;
-        this.flightPathLogFile = flightPathLogFile;
+        this.currentX = startingPosition.getX();
+        this.currentY = startingPosition.getY();
+        this.flightLog = flightLog;
     }
 
     /**
@@ -82,51 +118,76 @@ public abstract class Drone {
     public abstract ArrayList<Point> collectReadings();
 
     /**
-     * Find nearest sensor from the current location of the drone.
+     * Find nearest sensor from the current location of the drone, using the sensor index.
      *
      * @return the closest sensor
+     * @throws NoSuchElementException if there are no sensors to visit
      */
     protected Sensor findNearestSensor() {
-        return Collections.min(toVisit, new DistanceComparator(this.currentPosition));
+        var nearest = sensorIndex.nearest(this.currentX, this.currentY);
+        if (nearest == null) {
+            throw new NoSuchElementException("There are no sensors left to visit.");
+        }
+        return nearest;
+    }
+
+    /**
+     * Add a sensor to the end of the sensors to visit, keeping the sensor index up to date.
+     *
+     * @param sensor the sensor
+     */
+    protected void addToVisit(Sensor sensor) {
+        toVisit.add(sensor);
+        sensorIndex.add(sensor);
+    }
+
+    /**
+     * Remove a sensor from the sensors to visit, keeping the sensor index up to date.
+     *
+     * @param sensor the sensor
+     */
+    protected void removeToVisit(Sensor sensor) {
+        toVisit.remove(sensor);
+        sensorIndex.remove(sensor);
     }
 
     /**
      * Calculate the next position of the drone based on the movement angle selected.
      *
      * @param movementAngle the movement angle
-     * @return the next position co-ordinates as a Point2D object
+     * @param next          the array the next x and y co-ordinates are written to
      */
-    protected Point2D nextPosition(int movementAngle) {
-        var radianAngle = Math.toRadians(movementAngle);
-        // It moves by a distance of 0.0003 degrees
-        return new Point2D.Double(
-                this.currentPosition.getX() + 0.0003 * Math.cos(radianAngle),
-                this.currentPosition.getY() + 0.0003 * Math.sin(radianAngle));
+    protected void nextPosition(int movementAngle, double[] next) {
+        // It moves by the step length of the headings, 0.0003 degrees by default
+        next[0] = this.currentX + this.headings.dx(movementAngle);
+        next[1] = this.currentY + this.headings.dy(movementAngle);
     }
 
     /**
-     * This method logs each of the drone steps to a file.
+     * This method logs each of the drone steps to the flight log.
      *
-     * @param prevCoord the prev position of the drone
+     * @param prevX     the prev x co-ordinate of the drone
+     * @param prevY     the prev y co-ordinate of the drone
      * @param moveAngle the angle of the drone movement
      * @param loc       the w3w location or "null"
      */
-    protected void logToFile(Point2D prevCoord, int moveAngle, String loc) {
-        var logMessage =
-                String.format(
-                        "%d,%f,%f,%d,%f,%f,%s\n",
-                        150 - this.movesLeft + 1,
-                        prevCoord.getX(),
-                        prevCoord.getY(),
-                        moveAngle,
-                        this.currentPosition.getX(),
-                        this.currentPosition.getY(),
-                        loc);
-        try {
-            Files.writeString(this.flightPathLogFile, logMessage, StandardOpenOption.APPEND);
-        } catch (IOException e) {
-            System.err.println("Could not write " + logMessage + "to log file.");
+    protected void logMove(double prevX, double prevY, int moveAngle, String loc) {
+        this.flightLog.logMove(this.maxMoves - this.movesLeft + 1, prevX, prevY, moveAngle, this.currentX, this.currentY, loc);
+    }
+
+    /**
+     * Converts the packed x, y co-ordinates of a flight path to GeoJSON points.
+     *
+     * @param path   the path as x0, y0, x1, y1, ...
+     * @param length the number of used entries in the path array
+     * @return the array list of points, in order
+     */
+    protected static ArrayList<Point> toPointList(double[] path, int length) {
+        var pointList = new ArrayList<Point>(length / 2);
+        for (int i = 0; i < length; i += 2) {
+            pointList.add(Point.fromLngLat(path[i], path[i + 1]));
         }
+        return pointList;
     }
 
     /**
@@ -163,6 +224,7 @@ public abstract class Drone {
      */
     public void setToVisit(ArrayList<Sensor> toVisit) {
         this.toVisit = toVisit;
+        this.sensorIndex = new SensorIndex(toVisit);
     }
 
     /**
@@ -189,7 +251,7 @@ public abstract class Drone {
      * @return the current position
      */
     public Point2D getCurrentPosition() {
-        return currentPosition;
+        return new Point2D.Double(currentX, currentY);
     }
 
     /**
@@ -198,7 +260,8 @@ public abstract class Drone {
      * @param currentPosition the current position
      */
     public void setCurrentPosition(Point2D currentPosition) {
-        this.currentPosition = currentPosition;
+        this.currentX = currentPosition.getX();
+        this.currentY = currentPosition.getY();
     }
 
     /**
@@ -220,11 +283,20 @@ public abstract class Drone {
     }
 
     /**
-     * Gets flight path log file.
+     * Gets headings.
+     *
+     * @return the headings
+     */
+    public Headings getHeadings() {
+        return headings;
+    }
+
+    /**
+     * Gets flight log.
      *
-     * @return the flight path log file
+     * @return the flight log
      */
-    public Path getFlightPathLogFile() {
-        return flightPathLogFile;
+    public FlightLog getFlightLog() {
+        return flightLog;
     }
 }
@@ -2,10 +2,9 @@ package uk.ac.ed.inf.aqmaps;
 
 import com.mapbox.geojson.Point;
 
-import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
-import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * The {@link DroneCollectReadings} class extends {@link Drone} and implements a
@@ -14,9 +13,18 @@ import java.util.ArrayList;
  */
  public class DroneCollectReadings extends Drone {
     /**
-     * The list of list of points of all the no-fly zones on the map.
+     * The moves kept back when planning which sensors to read within the moves left, since a
+     * leg can take a move more when it starts off the sensor it is planned from.
      */
-    private final ArrayList<ArrayList<Point2D>> noFlyZonesArrayList;
+    private static final int ORIENTEERING_RESERVE = 3;
+    /**
+     * The no-fly zones on the map, the ones of the zone store after the moves made if there is one.
+     */
+    private NoFlyZones noFlyZones;
+    /**
+     * The store of the no-fly zones which change during the mission, or null if they do not.
+     */
+    private NoFlyZoneStore noFlyZoneStore;
     /**
      * The list of visited sensors.
      */
@@ -25,6 +33,77 @@ import java.util.ArrayList;
      * The previous movement angle.
      */
     private int prevMovementAngle;
+    /**
+     * The area the drone has to stay inside.
+     */
+    private PlayArea playArea = PlayArea.DEFAULT;
+    /**
+     * The way the drone orders the sensors.
+     */
+    private RoutePlanning routePlanning = RoutePlanning.GREEDY;
+    /**
+     * The store the moves between the sensors are taken from when planning a tour, or null
+     * to plan with the distances round the no-fly zones.
+     */
+    private DistanceMatrixStore distanceMatrixStore;
+    /**
+     * The value of reading each sensor when not all of them can be read.
+     */
+    private SensorPriority sensorPriority = SensorPriority.UNIFORM;
+    /**
+     * The planner choosing the sensors to read within the moves left, or null when not
+     * planning with {@link RoutePlanning#ORIENTEERING}.
+     */
+    private OrienteeringPlanner orienteeringPlanner;
+    /**
+     * The sensors of the orienteering planner, node i + 1 being sensor i.
+     */
+    private ArrayList<Sensor> orienteeringSensors;
+    /**
+     * The planned order of the sensors, or null when flying greedily.
+     */
+    private ArrayList<Sensor> plannedRoute;
+    /**
+     * The position in the planned route of the next sensor to fly to.
+     */
+    private int routeCursor;
+    /**
+     * The way the drone finds its way to the next sensor.
+     */
+    private Navigation navigation = Navigation.REACTIVE;
+    /**
+     * The planner of the legs between sensors, or null when navigating reactively.
+     */
+    private PathPlanner pathPlanner;
+    /**
+     * The planner keeping the drone on the leg being flown when navigating incrementally,
+     * or null if no leg was found.
+     */
+    private IncrementalPlanner incrementalPlanner;
+    /**
+     * The movement angles of the leg being flown, or null if no leg was found.
+     */
+    private int[] leg;
+    /**
+     * The position in the leg of the next move.
+     */
+    private int legStep;
+    /**
+     * The sensor the leg being flown leads to.
+     */
+    private Sensor legTarget;
+    /**
+     * The sensors the path planner found no way to, which the drone does not fly to.
+     */
+    private final ArrayList<Sensor> skippedSensors = new ArrayList<>();
+    /**
+     * Flag to check if the drone read every sensor and got back to the starting position.
+     */
+    private boolean completed;
+    /**
+     * The counters and timings of the mission.
+     */
+    private MissionMetrics metrics = new MissionMetrics();
 
     /**
      * Instantiates a new Drone with sensor reading collection algorithm.
@@ -32,63 +111,136 @@ import java.util.ArrayList;
      * @param seed                the seed
      * @param movesLeft           the moves left, i.e. the max number of moves the drone can make
      * @param toVisit             the list of sensors to visit
-     * @param noFlyZonesArrayList the list of list of points defining the no-fly zones on the map
+     * @param noFlyZones          the no-fly zones on the map, which may be shared with other drones
      * @param startingPosition    the starting position
-     * @param flightPathLogFile   the path of flightPathLog file
+     * @param flightLog           the flight log to log the moves to
      */
-    public DroneCollectReadings(int seed, int movesLeft, ArrayList<Sensor> toVisit, ArrayList<ArrayList<Point2D>> noFlyZonesArrayList, Point2D startingPosition, Path flightPathLogFile) {
-        super(seed, movesLeft, toVisit, startingPosition, flightPathLogFile);
-        this.noFlyZonesArrayList = noFlyZonesArrayList;
+    public DroneCollectReadings(int seed, int movesLeft, ArrayList<Sensor> toVisit, NoFlyZones noFlyZones, Point2D startingPosition, FlightLog flightLog) {
+        this(seed, movesLeft, toVisit, noFlyZones, startingPosition, flightLog, Headings.DEFAULT);
+    }
+
+    /**
+     * Instantiates a new Drone with sensor reading collection algorithm and a custom set of headings.
+     *
+     * @param seed                the seed
+     * @param movesLeft           the moves left, i.e. the max number of moves the drone can make
+     * @param toVisit             the list of sensors to visit
+     * @param noFlyZones          the no-fly zones on the map, which may be shared with other drones
+     * @param startingPosition    the starting position
+     * @param flightLog           the flight log to log the moves to
+     * @param headings            the legal movement directions and step length
+     */
+    public DroneCollectReadings(int seed, int movesLeft, ArrayList<Sensor> toVisit, NoFlyZones noFlyZones, Point2D startingPosition, FlightLog flightLog, Headings headings) {
+        super(seed, movesLeft, toVisit, startingPosition, flightLog, headings);
+        this.noFlyZones = noFlyZones;
         this.visitedSensors = new ArrayList<>();
         this.prevMovementAngle = -1;
     }
 
     /**
      * This method implements a greedy search algorithm to collect readings from all sensors,
-     * and return to the starting position.
+     * and return to the starting position. With {@link RoutePlanning#TOUR} the drone flies to
+     * the sensors in the order of a tour planned before take off, instead of to the nearest one.
+     * With {@link Navigation#PLANNED} it flies the shortest legs round the no-fly zones found by
+     * a {@link PathPlanner}, and with {@link Navigation#INCREMENTAL} it also repairs the leg with
+     * an {@link IncrementalPlanner} when a move is blocked. Sensors it can find no way to are
+     * skipped, and left unvisited. With a {@link NoFlyZoneStore} the no-fly zones are read
+     * from it before each move, and the leg being flown is repaired or planned again when
+     * they change.
      *
      * @return the array list of type Mapbox.Geojson.Point with points the drone visits (in order)
      */
     public ArrayList<Point> collectReadings() {
-        GeometryHelpers.setPolygonPointsArr(this.noFlyZonesArrayList);
-        var pointList = new ArrayList<Point>();
+        var flightStart = System.nanoTime();
+        var planningBefore = this.metrics.getPlanningNanos();
+        // the path is kept as packed x, y pairs and only turned into points at the end
+        var path = new double[2 * (this.movesLeft + 1)];
+        var pathLength = 0;
         // add starting position
-        pointList.add(Point.fromLngLat(this.startingPosition.getX(), this.startingPosition.getY()));
+        path[pathLength++] = this.startingPosition.getX();
+        path[pathLength++] = this.startingPosition.getY();
+        var nextCoords = new double[2];
+        // the mission is over once the drone is back at this dummy sensor, added when no sensors are left
+        Sensor startDummySensor = null;
+        this.completed = false;
+
+        if (this.noFlyZoneStore != null) {
+            this.updateZones();
+        }
+        var planningStart = System.nanoTime();
+        if (this.routePlanning == RoutePlanning.TOUR && !this.toVisit.isEmpty()) {
+            var tourPlanner = this.distanceMatrixStore == null
+                    ? new TourPlanner(this.startingPosition, this.toVisit, this.noFlyZones, this.playArea)
+                    // a leg the drone cannot fly either way costs more than its whole budget
+                    : new TourPlanner(this.toVisit.size() + 1, this.distanceMatrixStore
+                            .matrixFor(this.startingPosition, this.toVisit).toCosts(2 * this.maxMoves));
+            this.plannedRoute = tourPlanner.planRoute(this.toVisit);
+            this.routeCursor = 0;
+        }
+        if (this.navigation != Navigation.REACTIVE) {
+            this.pathPlanner = new PathPlanner(this.headings, this.noFlyZones, this.playArea);
+            this.legTarget = null;
+            this.skippedSensors.clear();
+        }
+        this.orienteeringPlanner = null;
+        if (this.routePlanning == RoutePlanning.ORIENTEERING && !this.toVisit.isEmpty()) {
+            this.planOrienteering();
+        }
+        this.metrics.addPlanningNanos(System.nanoTime() - planningStart);
 
         /* track if the drone is continuously intersecting the no-fly zones */
         var intersectionLoopCount = 0;
 
-        var nearestSensor = this.findNearestSensor();
-        var movementAngle = this.selectMovementAngle(nearestSensor);
+        var targetSensor = this.nextTarget();
+        var movementAngle = targetSensor == null ? 0 : this.nextMovementAngle(targetSensor);
 
-        while (this.movesLeft > 0) {
+        // an interrupt means the mission was cancelled, e.g. by the batch mode timeout
+        while (this.movesLeft > 0 && !Thread.currentThread().isInterrupted()) {
             if (this.toVisit.size() > 0) {
-                var nextCoords = this.nextPosition(movementAngle);
-                var moveLine = new Line2D.Double(this.currentPosition, nextCoords);
+                if (this.noFlyZoneStore != null && this.updateZones()) {
+                    targetSensor = this.nextTarget();
+                    if (targetSensor != null) {
+                        movementAngle = this.nextMovementAngle(targetSensor);
+                    }
+                }
+                this.nextPosition(movementAngle, nextCoords);
 
                 /*
                  if intersectAngle == -1 then the move does not go over a no fly zone
                  else we get the slope of the side we intersect to change our angle to
                 */
-                var intersectAngle = GeometryHelpers.polygonLineIntersects(moveLine);
-                var inPlayArea = GeometryHelpers.inPlayArea(nextCoords);
+                var intersectAngle = this.noFlyZones.polygonLineIntersects(
+                        this.currentX, this.currentY, nextCoords[0], nextCoords[1]);
+                if (intersectAngle != -1) {
+                    intersectAngle = this.headings.snap(intersectAngle);
+                }
+                var inPlayArea = this.playArea.contains(nextCoords[0], nextCoords[1]);
 
                 if (intersectAngle == -1 && inPlayArea) {
-                    var prevCoord = this.currentPosition;
+                    var prevX = this.currentX;
+                    var prevY = this.currentY;
                     // move to next position
-                    this.setCurrentPosition(nextCoords);
+                    this.currentX = nextCoords[0];
+                    this.currentY = nextCoords[1];
                     // check and do stuff if close to sensor
                     var loc = this.closeToSensor();
+                    if (this.orienteeringPlanner != null && !loc.equals("null")) {
+                        this.replanOrienteering(this.visitedSensors.get(this.visitedSensors.size() - 1));
+                    }
                     // set prev movement angle
                     this.prevMovementAngle = movementAngle;
-                    // add movement to point list
-                    pointList.add(Point.fromLngLat(this.currentPosition.getX(), this.currentPosition.getY()));
+                    // add movement to the path
+                    path[pathLength++] = this.currentX;
+                    path[pathLength++] = this.currentY;
                     // log the movement
-                    logToFile(prevCoord, this.prevMovementAngle, loc);
+                    logMove(prevX, prevY, this.prevMovementAngle, loc);
                     // update for next move
                     if (toVisit.size() > 0) {
-                        nearestSensor = this.findNearestSensor();
-                        movementAngle = this.selectMovementAngle(nearestSensor);
+                        targetSensor = this.nextTarget();
+                        // every sensor left may have been skipped, then the drone heads back next
+                        if (targetSensor != null) {
+                            movementAngle = this.nextMovementAngle(targetSensor);
+                        }
                     }
                 } else if (intersectAngle != -1 && inPlayArea) {
                     /*
@@ -96,8 +248,19 @@ import java.util.ArrayList;
                      same as the movement angle,
                      opposite to our previous movement angle,
                      or, we have been in an intersection loop for more than 4 counts.
+                    A planned leg is abandoned, and replanned after the next move.
                     */
-                    if (intersectAngle == movementAngle || this.prevMovementAngle == (intersectAngle + 180) % 360 || (++intersectionLoopCount) > 4) {
+                    this.metrics.countRejectedNoFlyMove();
+                    if (this.blockMove(movementAngle, targetSensor)) {
+                        movementAngle = this.nextMovementAngle(targetSensor);
+                        continue;
+                    }
+                    this.legTarget = null;
+                    if (intersectAngle == movementAngle || this.prevMovementAngle == (intersectAngle + 180) % 360) {
+                        movementAngle = this.randomMovementAngle();
+                        intersectionLoopCount = 0;
+                    } else if ((++intersectionLoopCount) > 4) {
+                        this.metrics.countIntersectionLoopReset();
                         movementAngle = this.randomMovementAngle();
                         intersectionLoopCount = 0;
                     } else {
@@ -107,42 +270,320 @@ import java.util.ArrayList;
                     continue;
                 } else {
                     // in case the drone was moving out of the play area we choose a random angle
+                    this.metrics.countRejectedOutOfAreaMove();
+                    if (this.blockMove(movementAngle, targetSensor)) {
+                        movementAngle = this.nextMovementAngle(targetSensor);
+                        continue;
+                    }
+                    this.legTarget = null;
                     movementAngle = this.randomMovementAngle();
                     continue;
                 }
             } else {
-                if (this.visitedSensors.size() == GeometryHelpers.NUM_OF_SENSORS + 1) {
-                    // All sensors visited and the drone is back at the starting position.
-                    this.visitedSensors.remove(GeometryHelpers.NUM_OF_SENSORS);
-                    System.out.println("Collected all the readings successfully! Retrieve from the starting location.");
+                if (startDummySensor != null && this.visitedSensors.get(this.visitedSensors.size() - 1) == startDummySensor) {
+                    // All sensors done with and the drone is back at the starting position.
                     break;
                 }
                 /*
                  Add a dummy sensor with starting location as the coordinates to the toVisit sensor list,
                  and update the movement angle of the drone.
                 */
-                var startDummySensor = new Sensor("null", 0.0, "");
+                startDummySensor = new Sensor("null", 0.0, "");
                 startDummySensor.setCoord(this.startingPosition);
-                this.toVisit.add(startDummySensor);
-                movementAngle = this.selectMovementAngle(startDummySensor);
+                this.addToVisit(startDummySensor);
+                movementAngle = this.nextMovementAngle(startDummySensor);
             }
             // decrement the number of moves
             this.movesLeft = this.movesLeft - 1;
         }
-        return pointList;
+        this.completed = startDummySensor != null && startDummySensor.isVisited() && this.skippedSensors.isEmpty();
+        if (startDummySensor != null) {
+            // the starting position is not a sensor, whether the drone got back to it or not
+            if (startDummySensor.isVisited()) {
+                this.visitedSensors.remove(startDummySensor);
+            } else {
+                this.removeToVisit(startDummySensor);
+            }
+        }
+        if (this.completed) {
+            System.out.println("Collected all the readings successfully! Retrieve from the starting location.");
+        }
+        // the skipped sensors were not read
+        this.skippedSensors.forEach(this::addToVisit);
+        this.metrics.addFlightNanos(System.nanoTime() - flightStart
+                - (this.metrics.getPlanningNanos() - planningBefore));
+        return toPointList(path, pathLength);
     }
 
     /**
-     * Select the movement angle rounded to nearest 10 between [0, 350].
+     * Plan which sensors to read within the moves of the drone and in what order, with the
+     * moves between them from the distance matrix store, or from a store of their own if
+     * there is none. The sensors left out are skipped.
+     */
+    private void planOrienteering() {
+        var store = this.distanceMatrixStore != null
+                ? this.distanceMatrixStore
+                : new DistanceMatrixStore(this.noFlyZones, this.playArea, this.headings, this.maxMoves, null);
+        this.orienteeringSensors = new ArrayList<>(this.toVisit);
+        var values = new double[this.orienteeringSensors.size() + 1];
+        for (int i = 0; i < this.orienteeringSensors.size(); i++) {
+            values[i + 1] = this.sensorPriority.value(this.orienteeringSensors.get(i));
+        }
+        this.orienteeringPlanner = new OrienteeringPlanner(
+                store.matrixFor(this.startingPosition, this.orienteeringSensors).withReverseLegs(), values, this.seed);
+        this.planOrienteeringRoute(0, this.movesLeft - ORIENTEERING_RESERVE);
+    }
+
+    /**
+     * Plan the sensors to read again after reading one, if the sensors planned no longer fit
+     * in the moves left, or if the legs so far took fewer moves than planned and there is
+     * room for a skipped sensor.
      *
-     * @param nearestSensor the nearest sensor
+     * @param read the sensor just read
+     */
+    private void replanOrienteering(Sensor read) {
+        var from = this.orienteeringSensors.indexOf(read) + 1;
+        if (from == 0) {
+            return;
+        }
+        // the move just made is only taken off the moves left at the end of the step
+        var budget = this.movesLeft - 1 - ORIENTEERING_RESERVE;
+        var path = new int[this.orienteeringSensors.size() + 2];
+        var length = 0;
+        path[length++] = from;
+        for (int i = this.routeCursor; i < this.plannedRoute.size(); i++) {
+            if (!this.plannedRoute.get(i).isVisited()) {
+                path[length++] = this.orienteeringSensors.indexOf(this.plannedRoute.get(i)) + 1;
+            }
+        }
+        path[length++] = 0;
+        var moves = this.orienteeringPlanner.moves(path, length);
+        if (moves <= budget) {
+            var room = false;
+            for (Sensor sensor : this.skippedSensors) {
+                var insertion = this.orienteeringPlanner.cheapestInsertion(path, length,
+                        this.orienteeringSensors.indexOf(sensor) + 1);
+                if (insertion != Long.MAX_VALUE && moves + (insertion >>> 32) <= budget) {
+                    room = true;
+                    break;
+                }
+            }
+            if (!room) {
+                return;
+            }
+        }
+        var planningStart = System.nanoTime();
+        this.planOrienteeringRoute(from, budget);
+        this.metrics.addPlanningNanos(System.nanoTime() - planningStart);
+    }
+
+    /**
+     * Plan the route through the sensors not read yet which are worth the most within the
+     * moves, ending at the starting position, and skip the others.
+     *
+     * @param from   the node the drone is at
+     * @param budget the moves the route can take
+     */
+    private void planOrienteeringRoute(int from, int budget) {
+        var candidates = new int[this.orienteeringSensors.size()];
+        var count = 0;
+        for (int i = 0; i < this.orienteeringSensors.size(); i++) {
+            if (!this.orienteeringSensors.get(i).isVisited()) {
+                candidates[count++] = i + 1;
+            }
+        }
+        var route = this.orienteeringPlanner.plan(from, 0, Arrays.copyOf(candidates, count), budget);
+        var planned = new boolean[this.orienteeringSensors.size() + 1];
+        this.plannedRoute = new ArrayList<>(route.length);
+        for (int node : route) {
+            this.plannedRoute.add(this.orienteeringSensors.get(node - 1));
+            planned[node] = true;
+        }
+        this.routeCursor = 0;
+        for (int c = 0; c < count; c++) {
+            var sensor = this.orienteeringSensors.get(candidates[c] - 1);
+            var skipped = this.skippedSensors.contains(sensor);
+            if (planned[candidates[c]] && skipped) {
+                this.skippedSensors.remove(sensor);
+                this.addToVisit(sensor);
+            } else if (!planned[candidates[c]] && !skipped) {
+                this.removeToVisit(sensor);
+                this.skippedSensors.add(sensor);
+            }
+        }
+    }
+
+    /**
+     * Find the sensor to fly to next: the next unvisited sensor of the planned route, or the
+     * nearest sensor if there is no route or it has been flown. When navigating with a path
+     * planner, sensors there is no way to are skipped, but never the starting position.
+     *
+     * @return the target sensor, or null if every sensor left was skipped
+     */
+    private Sensor nextTarget() {
+        while (!this.toVisit.isEmpty()) {
+            var candidate = this.nextCandidate();
+            // with no planned way back to the starting position the drone still heads back greedily
+            if (this.pathPlanner == null || this.planLeg(candidate) || candidate.getLocation().equals("null")) {
+                return candidate;
+            }
+            // no sequence of moves gets within reading distance, so do not waste moves trying
+            this.removeToVisit(candidate);
+            this.skippedSensors.add(candidate);
+        }
+        return null;
+    }
+
+    /**
+     * Find the next unvisited and not skipped sensor of the planned route, or the nearest
+     * sensor if there is no route or it has been flown.
+     *
+     * @return the candidate sensor
+     */
+    private Sensor nextCandidate() {
+        if (this.plannedRoute != null) {
+            while (this.routeCursor < this.plannedRoute.size()) {
+                var sensor = this.plannedRoute.get(this.routeCursor);
+                if (!sensor.isVisited() && !this.skippedSensors.contains(sensor)) {
+                    return sensor;
+                }
+                this.routeCursor++;
+            }
+        }
+        return this.findNearestSensor();
+    }
+
+    /**
+     * Make sure there is a leg with moves left to the target sensor, planning a new one when
+     * the target changes or the leg has been flown without reaching it.
+     *
+     * @param targetSensor the sensor to fly to
+     * @return true if there is a leg, false if the path planner found no way to the sensor
+     */
+    private boolean planLeg(Sensor targetSensor) {
+        if (this.navigation == Navigation.INCREMENTAL) {
+            return this.planIncrementalLeg(targetSensor);
+        }
+        if (targetSensor != this.legTarget || (this.leg != null && this.legStep >= this.leg.length)) {
+            var coord = targetSensor.getCoord();
+            // the starting position only has to be reached within a move, a sensor within reading distance
+            var goalRadius = targetSensor.getLocation().equals("null")
+                    ? this.headings.getStepLength() : GeometryHelpers.READING_DISTANCE;
+            var planningStart = System.nanoTime();
+            this.leg = this.pathPlanner.findPath(this.currentX, this.currentY,
+                    coord.getX(), coord.getY(), goalRadius, this.movesLeft);
+            this.metrics.addPlanningNanos(System.nanoTime() - planningStart);
+            this.legStep = 0;
+            this.legTarget = targetSensor;
+        }
+        return this.leg != null && this.legStep < this.leg.length;
+    }
+
+    /**
+     * Make sure there is an incremental planner keeping the drone on a leg to the target
+     * sensor, planning a new leg when the target changes or the planner lost its way.
+     *
+     * @param targetSensor the sensor to fly to
+     * @return true if there is a leg, false if the path planner found no way to the sensor
+     */
+    private boolean planIncrementalLeg(Sensor targetSensor) {
+        if (targetSensor != this.legTarget || this.incrementalPlanner == null) {
+            var coord = targetSensor.getCoord();
+            var goalRadius = targetSensor.getLocation().equals("null")
+                    ? this.headings.getStepLength() : GeometryHelpers.READING_DISTANCE;
+            var planningStart = System.nanoTime();
+            this.incrementalPlanner = IncrementalPlanner.plan(this.pathPlanner, this.headings, this.noFlyZones,
+                    this.playArea, this.currentX, this.currentY, coord.getX(), coord.getY(), goalRadius,
+                    this.movesLeft);
+            this.metrics.addPlanningNanos(System.nanoTime() - planningStart);
+            this.legTarget = targetSensor;
+        }
+        return this.incrementalPlanner != null;
+    }
+
+    /**
+     * Read the no-fly zones of the zone store after the moves made so far, and if they changed
+     * make the planners find the way round the new ones. A drone navigating reactively only
+     * checks its moves against the new zones. A zone which appears over the drone would leave it
+     * no legal move, so the drone keeps to the old zones until it has flown out of the new ones.
+     *
+     * @return true if the leg being flown has to be repaired or planned again, false if the
+     *         no-fly zones did not change or the drone navigates reactively
+     */
+    private boolean updateZones() {
+        var zones = this.noFlyZoneStore.zonesAt(this.maxMoves - this.movesLeft);
+        if (zones == this.noFlyZones || zones.contains(this.currentX, this.currentY)) {
+            return false;
+        }
+        this.noFlyZones = zones;
+        if (this.pathPlanner != null) {
+            var planningStart = System.nanoTime();
+            this.pathPlanner = new PathPlanner(this.headings, zones, this.playArea);
+            if (this.incrementalPlanner != null) {
+                this.incrementalPlanner.updateZones(zones);
+            } else {
+                // the leg is planned again round the new zones
+                this.legTarget = null;
+            }
+            this.metrics.addPlanningNanos(System.nanoTime() - planningStart);
+        }
+        return this.pathPlanner != null;
+    }
+
+    /**
+     * Tell the incremental planner a move of the drone is blocked, so that it repairs the leg
+     * instead of the drone turning reactively.
+     *
+     * @param movementAngle the movement angle of the blocked move
+     * @param targetSensor  the sensor the drone flies to, or null if there is none
+     * @return true if the incremental planner was told, false when not navigating incrementally
+     */
+    private boolean blockMove(int movementAngle, Sensor targetSensor) {
+        if (this.incrementalPlanner == null || targetSensor != this.legTarget) {
+            return false;
+        }
+        var planningStart = System.nanoTime();
+        this.incrementalPlanner.blockMove(this.currentX, this.currentY, movementAngle);
+        this.metrics.addPlanningNanos(System.nanoTime() - planningStart);
+        return true;
+    }
+
+    /**
+     * Find the angle of the next move towards the target sensor: the next move of the planned
+     * leg to it when navigating with a path planner, otherwise the reactive choice of
+     * {@link #selectMovementAngle(Sensor)}. When the incremental planner finds no way from
+     * where the drone is, the drone turns reactively and a new leg is planned after the move.
+     *
+     * @param targetSensor the sensor to fly to
+     * @return the movement angle
+     */
+    private int nextMovementAngle(Sensor targetSensor) {
+        if (this.pathPlanner != null && this.planLeg(targetSensor)) {
+            if (this.navigation != Navigation.INCREMENTAL) {
+                return this.leg[this.legStep++];
+            }
+            var planningStart = System.nanoTime();
+            var angle = this.incrementalPlanner.nextAngle(this.currentX, this.currentY);
+            this.metrics.addPlanningNanos(System.nanoTime() - planningStart);
+            if (angle != -1) {
+                return angle;
+            }
+            this.incrementalPlanner = null;
+        }
+        return this.selectMovementAngle(targetSensor);
+    }
+
+    /**
+     * Select the movement angle rounded to the nearest heading, i.e. to the nearest 10 between [0, 350] by default.
+     *
+     * @param targetSensor the sensor to fly to
      * @return the movement angle
      */
-    private int selectMovementAngle(Sensor nearestSensor) {
-        var nearestSensorCoord = nearestSensor.getCoord();
+    private int selectMovementAngle(Sensor targetSensor) {
+        var nearestSensorCoord = targetSensor.getCoord();
         var movementAngle =
-                GeometryHelpers.findMovementAngle(
-                        this.currentPosition.getX(), this.currentPosition.getY(),
+                this.headings.findMovementAngle(
+                        this.currentX, this.currentY,
                         nearestSensorCoord.getX(), nearestSensorCoord.getY());
         var oppMovementAngle = (movementAngle + 180) % 360;
         if (this.prevMovementAngle == oppMovementAngle) {
@@ -163,10 +604,11 @@ import java.util.ArrayList;
      */
     private String closeToSensor() {
         var sensor = findNearestSensor();
-        var dist = this.currentPosition.distance(sensor.getCoord());
-        if ((sensor.getLocation().equals("null") && dist < GeometryHelpers.MOVEMENT_RADIUS) || dist < GeometryHelpers.READING_DISTANCE) {
+        var coord = sensor.getCoord();
+        var dist = GeometryHelpers.distance(this.currentX, this.currentY, coord.getX(), coord.getY());
+        if ((sensor.getLocation().equals("null") && dist < this.headings.getStepLength()) || dist < GeometryHelpers.READING_DISTANCE) {
             sensor.setVisited(true);
-            toVisit.remove(sensor);
+            this.removeToVisit(sensor);
             visitedSensors.add(sensor);
             return sensor.getLocation();
         }
@@ -179,16 +621,171 @@ import java.util.ArrayList;
      * @return the random angle
      */
     private int randomMovementAngle() {
-        return this.RNG.nextInt(36) * 10;
+        this.metrics.countRandomAngleFallback();
+        return this.headings.angle(this.RNG.nextInt(this.headings.count()));
+    }
+
+    /**
+     * Is completed boolean.
+     *
+     * @return true if the last mission read every sensor and got back to the starting position
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Gets no fly zones.
+     *
+     * @return the no fly zones
+     */
+    public NoFlyZones getNoFlyZones() {
+        return noFlyZones;
+    }
+
+    /**
+     * Gets no fly zone store.
+     *
+     * @return the store of the no-fly zones which change during the mission, or null
+     */
+    public NoFlyZoneStore getNoFlyZoneStore() {
+        return noFlyZoneStore;
+    }
+
+    /**
+     * Sets no fly zone store, before the readings are collected. The no-fly zones the drone was
+     * made with are then only used until the mission starts.
+     *
+     * @param noFlyZoneStore the store of the no-fly zones which change during the mission, or null
+     */
+    public void setNoFlyZoneStore(NoFlyZoneStore noFlyZoneStore) {
+        this.noFlyZoneStore = noFlyZoneStore;
+    }
+
+    /**
+     * Gets play area.
+     *
+     * @return the play area
+     */
+    public PlayArea getPlayArea() {
+        return playArea;
+    }
+
+    /**
+     * Sets play area.
+     *
+     * @param playArea the play area
+     */
+    public void setPlayArea(PlayArea playArea) {
+        this.playArea = playArea;
+    }
+
+    /**
+     * Gets route planning.
+     *
+     * @return the route planning
+     */
+    public RoutePlanning getRoutePlanning() {
+        return routePlanning;
+    }
+
+    /**
+     * Sets route planning, before the readings are collected.
+     *
+     * @param routePlanning the route planning
+     */
+    public void setRoutePlanning(RoutePlanning routePlanning) {
+        this.routePlanning = routePlanning;
+    }
+
+    /**
+     * Gets sensor priority.
+     *
+     * @return the sensor priority
+     */
+    public SensorPriority getSensorPriority() {
+        return sensorPriority;
+    }
+
+    /**
+     * Sets sensor priority, before the readings are collected.
+     *
+     * @param sensorPriority the value of reading each sensor when not all of them can be read
+     */
+    public void setSensorPriority(SensorPriority sensorPriority) {
+        this.sensorPriority = sensorPriority;
+    }
+
+    /**
+     * Gets distance matrix store.
+     *
+     * @return the distance matrix store, or null when tours are planned with distances
+     */
+    public DistanceMatrixStore getDistanceMatrixStore() {
+        return distanceMatrixStore;
+    }
+
+    /**
+     * Sets distance matrix store, before the readings are collected.
+     *
+     * @param distanceMatrixStore the store of the moves between the sensors, or null
+     */
+    public void setDistanceMatrixStore(DistanceMatrixStore distanceMatrixStore) {
+        this.distanceMatrixStore = distanceMatrixStore;
+    }
+
+    /**
+     * Gets navigation.
+     *
+     * @return the navigation
+     */
+    public Navigation getNavigation() {
+        return navigation;
+    }
+
+    /**
+     * Sets navigation, before the readings are collected.
+     *
+     * @param navigation the navigation
+     */
+    public void setNavigation(Navigation navigation) {
+        this.navigation = navigation;
+    }
+
+    /**
+     * Gets metrics.
+     *
+     * @return the counters and timings of the mission
+     */
+    public MissionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets metrics, e.g. to add the metrics of several flights together.
+     *
+     * @param metrics the counters and timings of the mission
+     */
+    public void setMetrics(MissionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets skipped sensors.
+     *
+     * @return the sensors the path planner found no way to
+     */
+    public ArrayList<Sensor> getSkippedSensors() {
+        return skippedSensors;
     }
 
     /**
-     * Gets no fly zones array list.
+     * Gets planned route.
      *
-     * @return the no fly zones array list
+     * @return the planned route, or null when flying greedily
      */
-    public ArrayList<ArrayList<Point2D>> getNoFlyZonesArrayList() {
-        return noFlyZonesArrayList;
+    public ArrayList<Sensor> getPlannedRoute() {
+        return plannedRoute;
     }
 
     /**
@@ -0,0 +1,245 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable uniform grid index over the edges of the no-fly zones.
+ *
+ * <p>Every edge is given an id in the order the edges of the polygons are listed, with the
+ * closing edge of a polygon last, and is stored in each grid cell its bounding box overlaps.
+ * A query only tests the edges in the cells overlapped by the bounding box of the query
+ * segment, and returns the smallest intersecting id, so the answer is the same as a linear
+ * scan over the polygons.</p>
+ */
+public class EdgeIndex {
+
+    /**
+     * The maximum number of cells along each side of the grid.
+     */
+    private static final int MAX_CELLS_PER_SIDE = 256;
+
+    /**
+     * The x coordinates of the first end of each edge.
+     */
+    private final double[] edgeX1;
+    /**
+     * The y coordinates of the first end of each edge.
+     */
+    private final double[] edgeY1;
+    /**
+     * The x coordinates of the second end of each edge.
+     */
+    private final double[] edgeX2;
+    /**
+     * The y coordinates of the second end of each edge.
+     */
+    private final double[] edgeY2;
+    /**
+     * The movement angle along each edge, rounded to the nearest 10.
+     */
+    private final int[] edgeAngle;
+    /**
+     * The west bound of the grid.
+     */
+    private final double minX;
+    /**
+     * The south bound of the grid.
+     */
+    private final double minY;
+    /**
+     * The east bound of the grid.
+     */
+    private final double maxX;
+    /**
+     * The north bound of the grid.
+     */
+    private final double maxY;
+    /**
+     * The number of columns.
+     */
+    private final int cols;
+    /**
+     * The number of rows.
+     */
+    private final int rows;
+    /**
+     * The width of a cell.
+     */
+    private final double cellWidth;
+    /**
+     * The height of a cell.
+     */
+    private final double cellHeight;
+    /**
+     * The ascending edge ids in each cell, indexed by row * cols + col.
+     */
+    private final int[][] cells;
+
+    /**
+     * Builds the index over the edges of the given polygons.
+     *
+     * @param polygonPointsArr the list of lists of points defining the no-fly zones
+     */
+    public EdgeIndex(List<? extends List<Point2D>> polygonPointsArr) {
+        super();
+        var edges = new ArrayList<double[]>();
+        for (List<Point2D> polygonPoints : polygonPointsArr) {
+            var n = polygonPoints.size();
+            for (int i = 0; i < n; i++) {
+                // i == n - 1 is the closing edge from the last point back to the first
+                var from = polygonPoints.get(i);
+                var to = polygonPoints.get((i + 1) % n);
+                edges.add(new double[]{from.getX(), from.getY(), to.getX(), to.getY()});
+            }
+        }
+
+        var count = edges.size();
+        this.edgeX1 = new double[count];
+        this.edgeY1 = new double[count];
+        this.edgeX2 = new double[count];
+        this.edgeY2 = new double[count];
+        this.edgeAngle = new int[count];
+        var boundsMinX = Double.POSITIVE_INFINITY;
+        var boundsMinY = Double.POSITIVE_INFINITY;
+        var boundsMaxX = Double.NEGATIVE_INFINITY;
+        var boundsMaxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            var edge = edges.get(i);
+            edgeX1[i] = edge[0];
+            edgeY1[i] = edge[1];
+            edgeX2[i] = edge[2];
+            edgeY2[i] = edge[3];
+            edgeAngle[i] = GeometryHelpers.findMovementAngle(edge[0], edge[1], edge[2], edge[3]);
+            boundsMinX = Math.min(boundsMinX, Math.min(edge[0], edge[2]));
+            boundsMinY = Math.min(boundsMinY, Math.min(edge[1], edge[3]));
+            boundsMaxX = Math.max(boundsMaxX, Math.max(edge[0], edge[2]));
+            boundsMaxY = Math.max(boundsMaxY, Math.max(edge[1], edge[3]));
+        }
+
+        if (count == 0) {
+            this.minX = this.minY = this.maxX = this.maxY = 0;
+            this.cols = this.rows = 1;
+            this.cellWidth = this.cellHeight = 1;
+            this.cells = new int[][]{new int[0]};
+            return;
+        }
+
+        this.minX = boundsMinX;
+        this.minY = boundsMinY;
+        this.maxX = boundsMaxX;
+        this.maxY = boundsMaxY;
+        // about one edge per cell, which keeps the cells small compared to the map
+        var side = (int) Math.ceil(Math.sqrt(count));
+        this.cols = Math.max(1, Math.min(MAX_CELLS_PER_SIDE, side));
+        this.rows = this.cols;
+        // a zero extent (e.g. a single vertical edge) still needs a positive cell size
+        this.cellWidth = Math.max((maxX - minX) / cols, Double.MIN_NORMAL);
+        this.cellHeight = Math.max((maxY - minY) / rows, Double.MIN_NORMAL);
+
+        var cellCounts = new int[cols * rows];
+        for (int i = 0; i < count; i++) {
+            for (int row = row(Math.min(edgeY1[i], edgeY2[i])); row <= row(Math.max(edgeY1[i], edgeY2[i])); row++) {
+                for (int col = col(Math.min(edgeX1[i], edgeX2[i])); col <= col(Math.max(edgeX1[i], edgeX2[i])); col++) {
+                    cellCounts[row * cols + col]++;
+                }
+            }
+        }
+        this.cells = new int[cols * rows][];
+        for (int c = 0; c < cells.length; c++) {
+            cells[c] = new int[cellCounts[c]];
+            cellCounts[c] = 0;
+        }
+        // edges are added in id order, so the ids in each cell are ascending
+        for (int i = 0; i < count; i++) {
+            for (int row = row(Math.min(edgeY1[i], edgeY2[i])); row <= row(Math.max(edgeY1[i], edgeY2[i])); row++) {
+                for (int col = col(Math.min(edgeX1[i], edgeX2[i])); col <= col(Math.max(edgeX1[i], edgeX2[i])); col++) {
+                    var c = row * cols + col;
+                    cells[c][cellCounts[c]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the first edge, in polygon order, which intersects the segment from (x1, y1) to (x2, y2).
+     *
+     * @param x1 the x coordinate of the start of the segment
+     * @param y1 the y coordinate of the start of the segment
+     * @param x2 the x coordinate of the end of the segment
+     * @param y2 the y coordinate of the end of the segment
+     * @return the id of the edge or -1 if no edge intersects the segment
+     */
+    public int firstIntersectingEdge(double x1, double y1, double x2, double y2) {
+        var segMinX = Math.min(x1, x2);
+        var segMaxX = Math.max(x1, x2);
+        var segMinY = Math.min(y1, y2);
+        var segMaxY = Math.max(y1, y2);
+        if (segMaxX < minX || segMinX > maxX || segMaxY < minY || segMinY > maxY || edgeX1.length == 0) {
+            return -1;
+        }
+
+        var best = Integer.MAX_VALUE;
+        var lastRow = row(segMaxY);
+        var lastCol = col(segMaxX);
+        for (int row = row(segMinY); row <= lastRow; row++) {
+            for (int col = col(segMinX); col <= lastCol; col++) {
+                for (int id : cells[row * cols + col]) {
+                    if (id >= best) {
+                        // the ids are ascending, nothing later in this cell can be better
+                        break;
+                    }
+                    if (Math.max(edgeX1[id], edgeX2[id]) < segMinX || Math.min(edgeX1[id], edgeX2[id]) > segMaxX
+                            || Math.max(edgeY1[id], edgeY2[id]) < segMinY || Math.min(edgeY1[id], edgeY2[id]) > segMaxY) {
+                        continue;
+                    }
+                    if (GeometryHelpers.segmentsIntersect(edgeX1[id], edgeY1[id], edgeX2[id], edgeY2[id], x1, y1, x2, y2)) {
+                        best = id;
+                        break;
+                    }
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Gets the movement angle along an edge, i.e. the slope of the side of the no-fly zone.
+     *
+     * @param edge the id of the edge
+     * @return the angle rounded to the nearest 10
+     */
+    public int getEdgeAngle(int edge) {
+        return edgeAngle[edge];
+    }
+
+    /**
+     * Gets the number of edges in the index.
+     *
+     * @return the edge count
+     */
+    public int getEdgeCount() {
+        return edgeX1.length;
+    }
+
+    /**
+     * Finds the column of the cell containing an x coordinate, clamped to the grid.
+     *
+     * @param x the x coordinate
+     * @return the column
+     */
+    private int col(double x) {
+        return Math.max(0, Math.min(cols - 1, (int) ((x - minX) / cellWidth)));
+    }
+
+    /**
+     * Finds the row of the cell containing a y coordinate, clamped to the grid.
+     *
+     * @param y the y coordinate
+     * @return the row
+     */
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellHeight)));
+    }
+}
@@ -0,0 +1,189 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@link FlightLog} which writes the flight path to a file.
+ *
+ * <p>The file is opened once, lines are formatted into a reused builder and copied into a
+ * byte buffer, and the buffer is only written to the file when it is full or the log is
+ * closed. In asynchronous mode a full buffer is handed to a background writer and the
+ * drone carries on with a second buffer.</p>
+ */
+public class FileFlightLog implements FlightLog {
+
+    /**
+     * The size of each byte buffer, enough for about 45 moves, so that the buffer is written
+     * out a few times during a mission of 150 moves rather than only when the log is closed.
+     */
+    private static final int BUFFER_SIZE = 4 * 1024;
+    /**
+     * The daemon threads writing the buffers of asynchronous logs.
+     */
+    private static final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "flight-log-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The channel of the flight path file.
+     */
+    private final FileChannel channel;
+    /**
+     * Flag to check if full buffers are written on a background thread.
+     */
+    private final boolean async;
+    /**
+     * The line being formatted.
+     */
+    private final StringBuilder line = new StringBuilder(96);
+    /**
+     * The empty buffers, only used in asynchronous mode.
+     */
+    private final BlockingQueue<ByteBuffer> freeBuffers = new ArrayBlockingQueue<>(2);
+    /**
+     * The buffer lines are currently copied into.
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * The last background write, so that writes to the file happen in order.
+     */
+    private CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
+    /**
+     * The first error while writing the file, reported when the log is closed.
+     */
+    private IOException error;
+
+    /**
+     * Opens a flight log writing synchronously to the given file. An existing file is replaced.
+     *
+     * @param file the path of the flight path file
+     * @throws IOException if the file could not be opened
+     */
+    public FileFlightLog(Path file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Opens a flight log writing to the given file. An existing file is replaced.
+     *
+     * @param file  the path of the flight path file
+     * @param async true to write full buffers on a background thread
+     * @throws IOException if the file could not be opened
+     */
+    public FileFlightLog(Path file, boolean async) throws IOException {
+        super();
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.async = async;
+        if (async) {
+            freeBuffers.add(ByteBuffer.allocate(BUFFER_SIZE));
+        }
+    }
+
+    /**
+     * Formats the move into the buffer, writing the buffer out first if the line does not fit.
+     * Write errors are kept and thrown by {@link #close()}.
+     */
+    @Override
+    public void logMove(int moveNumber, double prevX, double prevY, int moveAngle, double x, double y, String location) {
+        line.setLength(0);
+        FlightLog.appendLine(line, moveNumber, prevX, prevY, moveAngle, x, y, location);
+        if (buffer.remaining() < line.length() * 3) {
+            drain();
+        }
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+            if (c >= 0x80) {
+                // only the location can hold non ASCII characters, encode the rest of the line properly
+                buffer.put(line.substring(i).getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+            buffer.put((byte) c);
+        }
+    }
+
+    /**
+     * Writes the current buffer to the file, or hands it to a background writer.
+     */
+    private void drain() {
+        buffer.flip();
+        if (!async) {
+            write(buffer);
+            buffer.clear();
+            return;
+        }
+        var full = buffer;
+        // runs even if an earlier write failed, so that the buffer always comes back
+        pendingWrite = pendingWrite.whenCompleteAsync((done, failure) -> {
+            try {
+                write(full);
+            } finally {
+                full.clear();
+                freeBuffers.offer(full);
+            }
+        }, writers);
+        try {
+            buffer = freeBuffers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // keep logging into a fresh buffer rather than losing the move
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    }
+
+    /**
+     * Writes a buffer to the file, keeping the first error.
+     *
+     * @param full the buffer, ready to be read
+     */
+    private void write(ByteBuffer full) {
+        try {
+            while (full.hasRemaining()) {
+                channel.write(full);
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes out the remaining lines and closes the file.
+     *
+     * @throws IOException if any part of the log could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (buffer.position() > 0) {
+                drain();
+            }
+            pendingWrite.join();
+        } catch (CompletionException e) {
+            throw new IOException("The flight log writer failed.", e.getCause());
+        } finally {
+            channel.close();
+        }
+        synchronized (this) {
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+}
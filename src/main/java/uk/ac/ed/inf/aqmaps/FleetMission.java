@@ -0,0 +1,406 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.mapbox.geojson.Point;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The mission of a day flown by a fleet of drones, each with its own starting position
+ * and move budget, instead of by a single drone.
+ *
+ * <p>The sensors of the day are split into one group per drone (see {@link FleetPartitioning})
+ * and each group goes to the drone whose start is closest to it. Every drone flies its group
+ * on its own thread, with the seed of the mission plus its index, and writes its own flight
+ * path file, {@code flightpath-DD-MM-YYYY-droneN.txt} with N from 1. A drone with no sensors
+ * stays on the ground. Once all of them have landed a single readings map is written with
+ * the markers of every sensor and the flight path of every drone.</p>
+ *
+ * <p>The moves of the mission are those of the drone which flew the longest, since the drones
+ * fly at the same time, and the mission is complete when every drone read its sensors and
+ * returned to its start.</p>
+ */
+public class FleetMission {
+
+    /**
+     * The maximum number of rounds of Lloyd's algorithm.
+     */
+    private static final int MAX_KMEANS_ROUNDS = 100;
+
+    /**
+     * The no-fly zones on the map, shared by the drones.
+     */
+    private final NoFlyZones noFlyZones;
+    /**
+     * The settings of the mission.
+     */
+    private final MissionSettings settings;
+
+    /**
+     * Instantiates a new Fleet mission.
+     *
+     * @param noFlyZones the no-fly zones on the map
+     * @param settings   the settings of the mission, with the fleet size, starts and partitioning
+     */
+    public FleetMission(NoFlyZones noFlyZones, MissionSettings settings) {
+        super();
+        this.noFlyZones = noFlyZones;
+        this.settings = settings;
+    }
+
+    /**
+     * Flies the fleet and writes the flight paths and the merged readings map to the output directory.
+     * The files only get their real names once every drone has landed, see {@link DayOutputs}.
+     *
+     * @param sensors    the sensors of the day
+     * @param dateString the date, as DD-MM-YYYY
+     * @param startTime  the {@link System#nanoTime()} the mission started at
+     * @param metrics    the metrics of the mission so far, which the drones add theirs to
+     * @return the summary of the mission
+     * @throws IOException if a flight path file or the readings map could not be written, or the mission was interrupted
+     */
+    public MissionResult fly(List<Sensor> sensors, String dateString, long startTime, MissionMetrics metrics)
+            throws IOException {
+        var partitionStart = System.nanoTime();
+        var groups = partition(sensors);
+        metrics.addPlanningNanos(System.nanoTime() - partitionStart);
+        var outputDir = settings.getOutputDir();
+
+        try (var outputs = new DayOutputs()) {
+            var executor = Executors.newFixedThreadPool(groups.size());
+            var flights = new ArrayList<Future<Flight>>();
+            try {
+                for (int i = 0; i < groups.size(); i++) {
+                    if (groups.get(i).isEmpty()) {
+                        continue;
+                    }
+                    var drone = i;
+                    var logFile = outputs.part(
+                            outputDir.resolve("flightpath-" + dateString + "-drone" + (i + 1) + ".txt"));
+                    flights.add(executor.submit(() -> flyDrone(drone, groups.get(drone), logFile)));
+                }
+
+                var processedSensors = new ArrayList<Sensor>();
+                var paths = new ArrayList<ArrayList<Point>>();
+                var movesUsed = 0;
+                var completed = true;
+                for (Future<Flight> future : flights) {
+                    var flight = future.get();
+                    processedSensors.addAll(flight.drone.getVisitedSensors());
+                    processedSensors.addAll(flight.drone.getToVisit());
+                    paths.add(flight.path);
+                    movesUsed = Math.max(movesUsed, settings.getMaxMoves() - flight.drone.getMovesLeft());
+                    completed &= flight.drone.isCompleted();
+                    metrics.add(flight.drone.getMetrics());
+                }
+
+                var outputStart = System.nanoTime();
+                var geojsonHelper = new GeoJsonHelper();
+                geojsonHelper.createGeoJsonMap(processedSensors, paths);
+                geojsonHelper.writeToFile(outputs.part(outputDir.resolve("readings-" + dateString + ".geojson")).toString());
+                outputs.commit();
+                metrics.addOutputNanos(System.nanoTime() - outputStart);
+
+                var elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+                return new MissionResult(dateString, settings.getRandomState(), movesUsed,
+                        App.countSensorsRead(processedSensors), sensors.size(), completed, elapsedMillis, metrics);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("The fleet mission of " + dateString + " was interrupted.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IllegalStateException("A drone of the fleet failed.", e.getCause());
+            } finally {
+                // an interrupt lands the drones still flying, before their files are deleted
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Splits the sensors into one group for each drone of the fleet.
+     *
+     * @param sensors the sensors of the day
+     * @return the sensors of each drone, in drone order, some possibly empty
+     */
+    public List<ArrayList<Sensor>> partition(List<Sensor> sensors) {
+        var fleetSize = settings.getFleetSize();
+        var groups = settings.getFleetPartitioning() == FleetPartitioning.KMEANS
+                ? kMeans(sensors, fleetSize)
+                : sectors(sensors, fleetSize);
+        return assignToStarts(groups);
+    }
+
+    /**
+     * Flies one drone of the fleet.
+     *
+     * @param drone   the index of the drone
+     * @param sensors the sensors of the drone
+     * @param logFile the path of its flight path file
+     * @return the flight
+     */
+    private Flight flyDrone(int drone, ArrayList<Sensor> sensors, Path logFile) {
+        Flight flight;
+        long outputStart;
+        try (var flightLog = settings.getLogFactory().open(logFile)) {
+            var collector = settings.newDrone(settings.getRandomState() + drone, sensors, noFlyZones,
+                    settings.getFleetStart(drone), flightLog);
+            var path = collector.collectReadings();
+            flight = new Flight(collector, path);
+            outputStart = System.nanoTime();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // closing the flight log writes out what it still holds
+        flight.drone.getMetrics().addOutputNanos(System.nanoTime() - outputStart);
+        return flight;
+    }
+
+    /**
+     * Splits the sensors into sectors round the centre of the starts, each with the same
+     * number of sensors give or take one. The first sector begins after the widest empty
+     * angle, so that no sector spans it.
+     *
+     * @param sensors   the sensors
+     * @param fleetSize the number of sectors
+     * @return the sectors, anticlockwise
+     */
+    List<ArrayList<Sensor>> sectors(List<Sensor> sensors, int fleetSize) {
+        var centre = startsCentre();
+        var sorted = new ArrayList<>(sensors);
+        sorted.sort(Comparator.comparingDouble(sensor -> angle(centre, sensor.getCoord())));
+
+        var n = sorted.size();
+        var first = 0;
+        var widestGap = -1.0;
+        for (int i = 0; i < n; i++) {
+            var from = angle(centre, sorted.get(i).getCoord());
+            var to = angle(centre, sorted.get((i + 1) % n).getCoord());
+            var gap = i + 1 < n ? to - from : to + 2 * Math.PI - from;
+            if (gap > widestGap) {
+                widestGap = gap;
+                first = (i + 1) % n;
+            }
+        }
+
+        var groups = new ArrayList<ArrayList<Sensor>>(fleetSize);
+        var next = 0;
+        for (int group = 0; group < fleetSize; group++) {
+            var size = n / fleetSize + (group < n % fleetSize ? 1 : 0);
+            var sector = new ArrayList<Sensor>(size);
+            for (int i = 0; i < size; i++) {
+                sector.add(sorted.get((first + next++) % n));
+            }
+            groups.add(sector);
+        }
+        return groups;
+    }
+
+    /**
+     * Splits the sensors into k-means clusters with Lloyd's algorithm. The first centre is the
+     * sensor farthest from the centre of the starts, and each next one the sensor farthest from
+     * the centres chosen so far, so that the clusters are the same on every run.
+     *
+     * @param sensors   the sensors
+     * @param fleetSize the number of clusters
+     * @return the clusters, some possibly empty
+     */
+    List<ArrayList<Sensor>> kMeans(List<Sensor> sensors, int fleetSize) {
+        var n = sensors.size();
+        var centres = new ArrayList<Point2D>(fleetSize);
+        var closest = new double[n];
+        var reference = startsCentre();
+        for (int i = 0; i < n; i++) {
+            closest[i] = reference.distanceSq(sensors.get(i).getCoord());
+        }
+        while (centres.size() < Math.min(fleetSize, n)) {
+            var farthest = 0;
+            for (int i = 1; i < n; i++) {
+                if (closest[i] > closest[farthest]) {
+                    farthest = i;
+                }
+            }
+            var centre = (Point2D) sensors.get(farthest).getCoord().clone();
+            centres.add(centre);
+            for (int i = 0; i < n; i++) {
+                closest[i] = Math.min(closest[i], centre.distanceSq(sensors.get(i).getCoord()));
+            }
+        }
+
+        var assignment = new int[n];
+        for (int round = 0; round < MAX_KMEANS_ROUNDS; round++) {
+            var changed = round == 0;
+            for (int i = 0; i < n; i++) {
+                var nearest = nearestCentre(centres, sensors.get(i).getCoord());
+                changed |= nearest != assignment[i];
+                assignment[i] = nearest;
+            }
+            if (!changed) {
+                break;
+            }
+            for (int c = 0; c < centres.size(); c++) {
+                var sumX = 0.0;
+                var sumY = 0.0;
+                var count = 0;
+                for (int i = 0; i < n; i++) {
+                    if (assignment[i] == c) {
+                        sumX += sensors.get(i).getCoord().getX();
+                        sumY += sensors.get(i).getCoord().getY();
+                        count++;
+                    }
+                }
+                // a centre left without sensors stays where it is
+                if (count > 0) {
+                    centres.get(c).setLocation(sumX / count, sumY / count);
+                }
+            }
+        }
+
+        var groups = new ArrayList<ArrayList<Sensor>>(fleetSize);
+        for (int c = 0; c < fleetSize; c++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            groups.get(assignment[i]).add(sensors.get(i));
+        }
+        return groups;
+    }
+
+    /**
+     * Gives each group to a drone, always matching the closest remaining pair of group
+     * centroid and drone start first. Empty groups go to the drones left over.
+     *
+     * @param groups the groups of sensors, as many as drones
+     * @return the groups in drone order
+     */
+    List<ArrayList<Sensor>> assignToStarts(List<ArrayList<Sensor>> groups) {
+        var fleetSize = groups.size();
+        var pairs = new ArrayList<int[]>();
+        var distances = new double[fleetSize * fleetSize];
+        for (int group = 0; group < fleetSize; group++) {
+            if (groups.get(group).isEmpty()) {
+                continue;
+            }
+            var centroid = centroid(groups.get(group));
+            for (int drone = 0; drone < fleetSize; drone++) {
+                distances[group * fleetSize + drone] = centroid.distance(settings.getFleetStart(drone));
+                pairs.add(new int[]{group, drone});
+            }
+        }
+        // a stable sort, so ties go to the lower group and then the lower drone
+        pairs.sort(Comparator.comparingDouble(pair -> distances[pair[0] * fleetSize + pair[1]]));
+
+        var assigned = new ArrayList<ArrayList<Sensor>>(fleetSize);
+        var groupTaken = new boolean[fleetSize];
+        for (int drone = 0; drone < fleetSize; drone++) {
+            assigned.add(null);
+        }
+        for (int[] pair : pairs) {
+            if (!groupTaken[pair[0]] && assigned.get(pair[1]) == null) {
+                assigned.set(pair[1], groups.get(pair[0]));
+                groupTaken[pair[0]] = true;
+            }
+        }
+        for (int drone = 0; drone < fleetSize; drone++) {
+            if (assigned.get(drone) == null) {
+                assigned.set(drone, new ArrayList<>());
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Finds the centre of the starting positions of the drones.
+     *
+     * @return the centre
+     */
+    private Point2D startsCentre() {
+        var x = 0.0;
+        var y = 0.0;
+        var fleetSize = settings.getFleetSize();
+        for (int drone = 0; drone < fleetSize; drone++) {
+            x += settings.getFleetStart(drone).getX();
+            y += settings.getFleetStart(drone).getY();
+        }
+        return new Point2D.Double(x / fleetSize, y / fleetSize);
+    }
+
+    /**
+     * Finds the centroid of a non empty group of sensors.
+     *
+     * @param sensors the sensors
+     * @return the centroid
+     */
+    private static Point2D centroid(List<Sensor> sensors) {
+        var x = 0.0;
+        var y = 0.0;
+        for (Sensor sensor : sensors) {
+            x += sensor.getCoord().getX();
+            y += sensor.getCoord().getY();
+        }
+        return new Point2D.Double(x / sensors.size(), y / sensors.size());
+    }
+
+    /**
+     * Finds the centre closest to a point, the first one on ties.
+     *
+     * @param centres the centres
+     * @param point   the point
+     * @return the index of the closest centre
+     */
+    private static int nearestCentre(List<Point2D> centres, Point2D point) {
+        var nearest = 0;
+        for (int c = 1; c < centres.size(); c++) {
+            if (centres.get(c).distanceSq(point) < centres.get(nearest).distanceSq(point)) {
+                nearest = c;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Finds the angle of a point seen from a centre.
+     *
+     * @param centre the centre
+     * @param point  the point
+     * @return the angle in radians, from -pi to pi
+     */
+    private static double angle(Point2D centre, Point2D point) {
+        return Math.atan2(point.getY() - centre.getY(), point.getX() - centre.getX());
+    }
+
+    /**
+     * The outcome of the flight of one drone.
+     */
+    private static final class Flight {
+        /**
+         * The drone, after its flight.
+         */
+        private final DroneCollectReadings drone;
+        /**
+         * The points the drone moved to, in order.
+         */
+        private final ArrayList<Point> path;
+
+        /**
+         * Instantiates a new Flight.
+         *
+         * @param drone the drone
+         * @param path  the points the drone moved to
+         */
+        private Flight(DroneCollectReadings drone, ArrayList<Point> path) {
+            this.drone = drone;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.Locale;
+
+/**
+ * The ways the sensors of a day can be split among the drones of a fleet, see {@link FleetMission}.
+ */
+public enum FleetPartitioning {
+    /**
+     * Split the sensors into angular sectors round the starts, with the same number of sensors each.
+     */
+    SECTORS,
+    /**
+     * Split the sensors into k-means clusters.
+     */
+    KMEANS;
+
+    /**
+     * Parses a fleet partitioning name, ignoring case.
+     *
+     * @param name the name, e.g. "kmeans"
+     * @return the fleet partitioning
+     * @throws IllegalArgumentException if there is no fleet partitioning with that name
+     */
+    public static FleetPartitioning parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,119 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The sink the drone logs each of its moves to. A log stays open for a whole mission and
+ * is closed by whoever opened it.
+ *
+ * <p>Every move is one line of the flight path file:</p>
+ * <pre>
+ *     move number,previous lng,previous lat,angle,lng,lat,w3w location or null
+ * </pre>
+ * <p>with the co-ordinates written to 6 decimal places, like {@code %f}.</p>
+ */
+public interface FlightLog extends Closeable {
+
+    /**
+     * Logs a move of the drone.
+     *
+     * @param moveNumber the number of the move, starting at 1
+     * @param prevX      the prev x co-ordinate of the drone
+     * @param prevY      the prev y co-ordinate of the drone
+     * @param moveAngle  the angle of the drone movement
+     * @param x          the new x co-ordinate of the drone
+     * @param y          the new y co-ordinate of the drone
+     * @param location   the w3w location of the sensor read after the move, or "null"
+     */
+    void logMove(int moveNumber, double prevX, double prevY, int moveAngle, double x, double y, String location);
+
+    /**
+     * Closes the log, writing out anything still buffered.
+     *
+     * @throws IOException if the log could not be written
+     */
+    @Override
+    void close() throws IOException;
+
+    /**
+     * Appends a flight path line, with its trailing new line, to a string builder.
+     *
+     * @param line       the string builder
+     * @param moveNumber the number of the move, starting at 1
+     * @param prevX      the prev x co-ordinate of the drone
+     * @param prevY      the prev y co-ordinate of the drone
+     * @param moveAngle  the angle of the drone movement
+     * @param x          the new x co-ordinate of the drone
+     * @param y          the new y co-ordinate of the drone
+     * @param location   the w3w location or "null"
+     */
+    static void appendLine(StringBuilder line, int moveNumber, double prevX, double prevY, int moveAngle, double x, double y, String location) {
+        line.append(moveNumber).append(',');
+        appendFixed(line, prevX);
+        line.append(',');
+        appendFixed(line, prevY);
+        line.append(',').append(moveAngle).append(',');
+        appendFixed(line, x);
+        line.append(',');
+        appendFixed(line, y);
+        line.append(',').append(location).append('\n');
+    }
+
+    /**
+     * Appends a number with 6 decimal places, rounded half up, to a string builder.
+     * The output is the same as {@code String.format(Locale.ROOT, "%f", value)}, without
+     * allocating for all but the values that lie on a rounding tie or are 1000 or more.
+     *
+     * @param line  the string builder
+     * @param value the number
+     */
+    static void appendFixed(StringBuilder line, double value) {
+        var abs = Math.abs(value);
+        if (!(abs < 1e3)) {
+            // infinities, NaN and numbers whose scaled double is too coarse to round exactly
+            line.append(String.format(Locale.ROOT, "%f", value));
+            return;
+        }
+        var scaled = abs * 1e6;
+        var units = (long) Math.floor(scaled);
+        var fraction = scaled - units;
+        if (Math.abs(fraction - 0.5) < 1e-6) {
+            /*
+             %f rounds the shortest decimal representation of the double half up, which the
+             scaled double cannot tell apart from its neighbours this close to a tie.
+            */
+            units = new BigDecimal(Double.toString(abs)).setScale(6, RoundingMode.HALF_UP).movePointRight(6).longValue();
+        } else if (fraction > 0.5) {
+            units++;
+        }
+        if (Math.copySign(1.0, value) < 0) {
+            line.append('-');
+        }
+        line.append(units / 1_000_000).append('.');
+        var decimals = units % 1_000_000;
+        for (long digit = 100_000; digit > decimals && digit > 1; digit /= 10) {
+            line.append('0');
+        }
+        line.append(decimals);
+    }
+
+    /**
+     * The factory of the flight log of a mission.
+     */
+    @FunctionalInterface
+    interface Factory {
+        /**
+         * Opens the flight log for the given flight path file.
+         *
+         * @param file the path of the flight path file
+         * @return the flight log
+         * @throws IOException if the log could not be opened
+         */
+        FlightLog open(Path file) throws IOException;
+    }
+}
@@ -1,5 +1,7 @@
 package uk.ac.ed.inf.aqmaps;
 
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 import com.mapbox.geojson.Feature;
 import com.mapbox.geojson.FeatureCollection;
 import com.mapbox.geojson.LineString;
@@ -8,8 +10,7 @@ import com.mapbox.geojson.Point;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.NavigableMap;
-import java.util.TreeMap;
+import java.util.List;
 
 /**
  * The utility class with methods to generate GeoJSON features.
@@ -17,13 +18,41 @@ import java.util.TreeMap;
 public class GeoJsonHelper {
 
     /**
-     * The map of readings to rgb value.
+     * The colours of the reading bands, each 32 wide, from 0 - 32 up to 224 - 256.
      */
-    private final NavigableMap<Integer, String> RANGE_TO_RGB;
+    private static final String[] BAND_RGB = {
+            "#00ff00", "#40ff00", "#80ff00", "#c0ff00", "#ffc000", "#ff8000", "#ff4000", "#ff0000"};
     /**
-     * The map of readings to symbol.
+     * The width of a reading band.
      */
-    private final NavigableMap<Integer, String> RANGE_TO_SYMBOL;
+    private static final int BAND_WIDTH = 32;
+    /**
+     * The readings from this one up are marked as dangerous.
+     */
+    private static final int DANGER_READING = 128;
+    /**
+     * The style of each reading from 0 to 255, shared by all the readings of a band.
+     */
+    private static final MarkerStyle[] STYLE_BY_READING = new MarkerStyle[256];
+    /**
+     * The style of a reading which is missing or out of range, or of a sensor with a low battery.
+     */
+    private static final MarkerStyle INVALID_STYLE = new MarkerStyle("#000000", "cross");
+    /**
+     * The style of a sensor which was not visited.
+     */
+    private static final MarkerStyle UNVISITED_STYLE = new MarkerStyle("#aaaaaa", "");
+
+    static {
+        var bandStyles = new MarkerStyle[BAND_RGB.length];
+        for (int band = 0; band < BAND_RGB.length; band++) {
+            bandStyles[band] = new MarkerStyle(BAND_RGB[band], band * BAND_WIDTH < DANGER_READING ? "lighthouse" : "danger");
+        }
+        for (int reading = 0; reading < STYLE_BY_READING.length; reading++) {
+            STYLE_BY_READING[reading] = bandStyles[reading / BAND_WIDTH];
+        }
+    }
+
     /**
      * The GeoJSON representation of the map with all features.
      */
@@ -33,37 +62,26 @@ public class GeoJsonHelper {
      * Instantiates a new GeoJSON helper.
      */
     public GeoJsonHelper() {
-        RANGE_TO_RGB = new TreeMap<>();
-        RANGE_TO_RGB.put(0, "#00ff00");
-        RANGE_TO_RGB.put(32, "#40ff00");
-        RANGE_TO_RGB.put(64, "#80ff00");
-        RANGE_TO_RGB.put(96, "#c0ff00");
-        RANGE_TO_RGB.put(128, "#ffc000");
-        RANGE_TO_RGB.put(160, "#ff8000");
-        RANGE_TO_RGB.put(192, "#ff4000");
-        RANGE_TO_RGB.put(224, "#ff0000");
-
-        RANGE_TO_SYMBOL = new TreeMap<>();
-        RANGE_TO_SYMBOL.put(0, "lighthouse");
-        RANGE_TO_SYMBOL.put(128, "danger");
+        super();
     }
 
     /**
-     * Writes the created GeoJSON map to a given filename.
+     * Writes the created GeoJSON map to a given filename. The error is left to the caller, as
+     * the batch mode flies many days in one process and only the failed day should stop.
      *
      * @param fileName the file name
+     * @throws IOException           if the file could not be written
+     * @throws IllegalStateException if the map has not been created yet
      */
-    public void writeToFile(String fileName) {
+    public void writeToFile(String fileName) throws IOException {
         if (this.geojsonMap == null) {
-            System.err.println("The GeoJSON map has not been created yet.");
-            System.exit(1);
+            throw new IllegalStateException("The GeoJSON map has not been created yet.");
         }
         try (FileWriter file = new FileWriter(fileName)) {
             file.write(this.geojsonMap.toJson());
             file.flush();
         } catch (IOException e) {
-            System.err.println("There was an error in writing the GeoJSON file to the given filename: " + fileName);
-            System.exit(1);
+            throw new IOException("There was an error in writing the GeoJSON file to the given filename: " + fileName, e);
         }
     }
 
@@ -75,9 +93,22 @@ public class GeoJsonHelper {
      */
     public void createGeoJsonMap(
             ArrayList<Sensor> sensors, ArrayList<Point> movePointList) {
+        createGeoJsonMap(sensors, List.of(movePointList));
+    }
+
+    /**
+     * Create a GeoJSON map of type {@link FeatureCollection} with the flight paths of several
+     * drones, e.g. of a {@link FleetMission}, and store it in the geojsonMap field.
+     *
+     * @param sensors        the list of visited and unvisited sensors by all the drones
+     * @param movePointLists the list of points in which each drone moved (in order)
+     */
+    public void createGeoJsonMap(
+            ArrayList<Sensor> sensors, List<? extends List<Point>> movePointLists) {
         var mapFeatures = this.generateGeoJsonMarkers(sensors);
-        var lineStringFeature = Feature.fromGeometry(LineString.fromLngLats(movePointList));
-        mapFeatures.add(lineStringFeature);
+        for (List<Point> movePointList : movePointLists) {
+            mapFeatures.add(Feature.fromGeometry(LineString.fromLngLats(movePointList)));
+        }
         this.geojsonMap = FeatureCollection.fromFeatures(mapFeatures);
     }
 
@@ -90,70 +121,72 @@ public class GeoJsonHelper {
     private ArrayList<Feature> generateGeoJsonMarkers(ArrayList<Sensor> sensors) {
         var features = new ArrayList<Feature>();
         for (Sensor sensor : sensors) {
-            var location = sensor.getLocation();
-            var coord = sensor.getCoord();
-            var readingString = sensor.getReading();
-            var battery = sensor.getBattery();
-            var visited = sensor.isVisited();
-
-            var reading = -1;
-            if (!readingString.equals("null") && !readingString.isEmpty()) {
-                reading = (int) Math.round(Double.parseDouble(readingString));
-            }
-
-            var marker = Point.fromLngLat(coord.getX(), coord.getY());
-            var rgbString = getRGBString(reading);
-            var markerSymbol = getMarkerSymbol(reading);
-
-            if (battery <= 10.0) {
-                rgbString = getRGBString(-1);
-                markerSymbol = getMarkerSymbol(-1);
-            }
-
-            if (!visited) {
-                markerSymbol = "";
-                rgbString = "#aaaaaa";
-            }
-
-            var feature = Feature.fromGeometry(marker);
-            feature.addStringProperty("location", location);
-            feature.addStringProperty("rgb-string", rgbString);
-            feature.addStringProperty("marker-color", rgbString);
-            feature.addStringProperty("marker-symbol", markerSymbol);
-            features.add(feature);
+            features.add(createMarker(sensor));
         }
         return features;
     }
 
     /**
-     * Gets rgb string for the reading value.
+     * Creates the GeoJSON marker of a sensor.
      *
-     * @param reading the reading
-     * @return the rgb string
+     * @param sensor the visited or unvisited sensor
+     * @return the GeoJSON point feature
      */
-    private String getRGBString(int reading) {
-        String result;
-        if (reading < 0 || reading > 255) {
-            result = "#000000";
-        } else {
-            result = RANGE_TO_RGB.floorEntry(reading).getValue();
-        }
-        return result;
+    Feature createMarker(Sensor sensor) {
+        var coord = sensor.getCoord();
+        var style = getStyle(sensor);
+
+        var properties = new JsonObject();
+        properties.addProperty("location", sensor.getLocation());
+        properties.add("rgb-string", style.rgb);
+        properties.add("marker-color", style.rgb);
+        properties.add("marker-symbol", style.symbol);
+        return Feature.fromGeometry(Point.fromLngLat(coord.getX(), coord.getY()), properties);
     }
 
     /**
-     * Gets marker symbol for the reading value.
+     * Gets the marker style of a sensor.
      *
-     * @param reading the reading
-     * @return the marker symbol
+     * @param sensor the visited or unvisited sensor
+     * @return the marker style
+     */
+    private static MarkerStyle getStyle(Sensor sensor) {
+        if (!sensor.isVisited()) {
+            return UNVISITED_STYLE;
+        }
+        if (sensor.getBattery() <= 10.0) {
+            return INVALID_STYLE;
+        }
+        var reading = sensor.getReadingValue();
+        if (reading < 0 || reading >= STYLE_BY_READING.length) {
+            return INVALID_STYLE;
+        }
+        return STYLE_BY_READING[reading];
+    }
+
+    /**
+     * The colour and symbol properties of a marker, built once and shared by every marker
+     * with the same style.
      */
-    private String getMarkerSymbol(int reading) {
-        String result;
-        if (reading < 0 || reading > 255) {
-            result = "cross";
-        } else {
-            result = RANGE_TO_SYMBOL.floorEntry(reading).getValue();
+    private static final class MarkerStyle {
+        /**
+         * The rgb string, used for both the rgb-string and marker-color properties.
+         */
+        private final JsonPrimitive rgb;
+        /**
+         * The marker symbol.
+         */
+        private final JsonPrimitive symbol;
+
+        /**
+         * Instantiates a new Marker style.
+         *
+         * @param rgb    the rgb string
+         * @param symbol the marker symbol
+         */
+        private MarkerStyle(String rgb, String symbol) {
+            this.rgb = new JsonPrimitive(rgb);
+            this.symbol = new JsonPrimitive(symbol);
         }
-        return result;
     }
 }
@@ -0,0 +1,196 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.mapbox.geojson.utils.GeoJsonUtils;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * The {@link FlightLog} which writes the GeoJSON readings map while the drone flies,
+ * instead of building the whole {@link com.mapbox.geojson.FeatureCollection} at the end.
+ *
+ * <p>The flight {@code LineString} is the first feature of the map, and each move adds its
+ * point to it as the move is logged. The sensor markers are only known once the mission is
+ * over and follow it when {@link #finish(List)} is called. Only a small byte buffer is kept,
+ * which is written to the file whenever it is full. The numbers are written the way Mapbox
+ * does, so the map holds the same features as the one made by {@link GeoJsonHelper}, with
+ * the flight path first rather than last. Moves are also handed on to the wrapped flight log.</p>
+ */
+public class GeoJsonStreamWriter implements FlightLog {
+
+    /**
+     * The size of the byte buffer, enough for about 80 points of the flight path.
+     */
+    private static final int BUFFER_SIZE = 2 * 1024;
+
+    /**
+     * The channel of the readings map file.
+     */
+    private final FileChannel channel;
+    /**
+     * The flight log the moves are handed on to.
+     */
+    private final FlightLog flightPath;
+    /**
+     * The helper which styles the sensor markers.
+     */
+    private final GeoJsonHelper geojsonHelper = new GeoJsonHelper();
+    /**
+     * The text being formatted.
+     */
+    private final StringBuilder text = new StringBuilder(128);
+    /**
+     * The buffer the text is copied into.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /**
+     * Flag to check if the markers and the end of the map have been written.
+     */
+    private boolean finished = false;
+    /**
+     * The first error while writing the map during the flight.
+     */
+    private IOException failure;
+
+    /**
+     * Opens a readings map at the given file and starts the flight path at the starting
+     * position. An existing file is replaced. The flight log is closed with this one,
+     * or straight away if the file could not be opened.
+     *
+     * @param file             the path of the readings map file
+     * @param startingPosition the starting position of the drone
+     * @param flightPath       the flight log the moves are handed on to
+     * @throws IOException if the file could not be opened or written
+     */
+    public GeoJsonStreamWriter(Path file, Point2D startingPosition, FlightLog flightPath) throws IOException {
+        super();
+        this.flightPath = flightPath;
+        try {
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            flightPath.close();
+            throw e;
+        }
+        text.append("{\"type\":\"FeatureCollection\",\"features\":[")
+                .append("{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[");
+        appendCoordinates(startingPosition.getX(), startingPosition.getY());
+        put();
+        try {
+            // the start goes out straight away, so the file shows the mission has begun
+            drain();
+        } catch (IOException e) {
+            channel.close();
+            flightPath.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Hands the move on to the wrapped flight log and adds its point to the flight path.
+     * Write errors are thrown by {@link #finish(List)} or {@link #close()} instead.
+     */
+    @Override
+    public void logMove(int moveNumber, double prevX, double prevY, int moveAngle, double x, double y, String location) {
+        flightPath.logMove(moveNumber, prevX, prevY, moveAngle, x, y, location);
+        text.append(',');
+        appendCoordinates(x, y);
+        put();
+    }
+
+    /**
+     * Ends the flight path and writes the markers of the sensors, then the end of the map.
+     *
+     * @param sensors the visited and unvisited sensors, in the order of their markers
+     * @throws IOException if the map could not be written
+     */
+    public void finish(List<Sensor> sensors) throws IOException {
+        text.append("]},\"properties\":{}}");
+        put();
+        for (Sensor sensor : sensors) {
+            text.append(',').append(geojsonHelper.createMarker(sensor).toJson());
+            put();
+        }
+        text.append("]}");
+        put();
+        finished = true;
+        drain();
+    }
+
+    /**
+     * Writes out the buffer and closes the file and the wrapped flight log. A map which was
+     * not finished is left as it is, so that it shows how far the mission got.
+     *
+     * @throws IOException if the map or the flight log could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try (flightPath; channel) {
+            if (!finished) {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Appends a point as a GeoJSON position, rounded to 7 decimal places like Mapbox.
+     *
+     * @param x the x co-ordinate
+     * @param y the y co-ordinate
+     */
+    private void appendCoordinates(double x, double y) {
+        text.append('[').append(GeoJsonUtils.trim(x)).append(',').append(GeoJsonUtils.trim(y)).append(']');
+    }
+
+    /**
+     * Copies the formatted text into the buffer, writing the buffer out whenever it fills up.
+     */
+    private void put() {
+        var bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        text.setLength(0);
+        var offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drainQuietly();
+            }
+            var length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Writes the buffer out during the flight, keeping the error for the end of the mission.
+     */
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (IOException e) {
+            // the rest of the map is dropped, finish or close reports the failure
+            failure = e;
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Writes the buffer to the file.
+     *
+     * @throws IOException if the buffer could not be written, or an earlier write failed
+     */
+    private void drain() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -1,13 +1,13 @@
 package uk.ac.ed.inf.aqmaps;
 
 import java.awt.geom.Line2D;
-import java.awt.geom.Point2D;
-import java.util.ArrayList;
 
 /**
  * The utility class with helpers to deal with shapes and boundaries on the map.
+ * It keeps no state, the no-fly zones and the play area are held by {@link NoFlyZones}
+ * and {@link PlayArea} instances.
  */
-public class GeometryHelpers {
+public final class GeometryHelpers {
 
     /**
      * The constant radius of drones movement.
@@ -20,73 +20,10 @@ public class GeometryHelpers {
     public static final double READING_DISTANCE = 0.0002;
 
     /**
-     * The constant number of total number of sensors on the map.
+     * Instantiates a new Geometry helpers, never.
      */
-    public static final int NUM_OF_SENSORS = 33;
-
-    /**
-     * The constant NORTH_LAT.
-     */
-    public static final double NORTH_LAT = 55.946233;
-    /**
-     * The constant SOUTH_LAT.
-     */
-    public static final double SOUTH_LAT = 55.942617;
-    /**
-     * The constant EAST_LNG.
-     */
-    public static final double EAST_LNG = -3.184319;
-    /**
-     * The constant WEST_LNG.
-     */
-    public static final double WEST_LNG = -3.192473;
-    /**
-     * The list of lists of points defining the no-fly zones.
-     */
-    private static ArrayList<ArrayList<Point2D>> polygonPointsArr;
-
-    /**
-     * Instantiates a new Geometry helpers.
-     *
-     * @param polygonPointsArr the list of lists of points defining the no-fly zones.
-     */
-    public GeometryHelpers(ArrayList<ArrayList<Point2D>> polygonPointsArr) {
+    private GeometryHelpers() {
         super();
-        GeometryHelpers.polygonPointsArr = polygonPointsArr;
-    }
-
-    /**
-     * This method checks if a line intersects with any of the no-fly zones.
-     * If it doesn't we return -1, else we find the slope of the line we intersected
-     * and return it.
-     *
-     * @param line the line
-     * @return the angle of new movement or -1
-     */
-    public static int polygonLineIntersects(Line2D line) {
-
-        for (ArrayList<Point2D> polygonPoints : polygonPointsArr) {
-            for (int i = 0; i < polygonPoints.size() - 1; i++) {
-                var polygonSide = new Line2D.Double(
-                        polygonPoints.get(i).getX(), polygonPoints.get(i).getY(),
-                        polygonPoints.get(i + 1).getX(), polygonPoints.get(i + 1).getY());
-                if (polygonSide.intersectsLine(line)) {
-                    return findMovementAngle(
-                            polygonSide.getX1(), polygonSide.getY1(),
-                            polygonSide.getX2(), polygonSide.getY2());
-                }
-            }
-            var polygonSide = new Line2D.Double(
-                    polygonPoints.get(polygonPoints.size() - 1).getX(),
-                    polygonPoints.get(polygonPoints.size() - 1).getY(),
-                    polygonPoints.get(0).getX(), polygonPoints.get(0).getY());
-            if (polygonSide.intersectsLine(line)) {
-                return findMovementAngle(
-                        polygonSide.getX1(), polygonSide.getY1(),
-                        polygonSide.getX2(), polygonSide.getY2());
-            }
-        }
-        return -1;
     }
 
     /**
@@ -111,34 +48,52 @@ public class GeometryHelpers {
     }
 
     /**
-     * This method checks if a point is in the play area.
+     * Checks if the segment from (x1, y1) to (x2, y2) intersects the segment from (x3, y3) to (x4, y4).
+     * Touching and collinear overlapping segments count as intersecting.
      *
-     * @param targetCoords the point to check
-     * @return true if inside else false
+     * @param x1 the x coordinate of the start of the first segment
+     * @param y1 the y coordinate of the start of the first segment
+     * @param x2 the x coordinate of the end of the first segment
+     * @param y2 the y coordinate of the end of the first segment
+     * @param x3 the x coordinate of the start of the second segment
+     * @param y3 the y coordinate of the start of the second segment
+     * @param x4 the x coordinate of the end of the second segment
+     * @param y4 the y coordinate of the end of the second segment
+     * @return true if the segments intersect else false
      */
-    public static boolean inPlayArea(Point2D targetCoords) {
-        return (targetCoords.getY() > SOUTH_LAT
-                && targetCoords.getY() < NORTH_LAT
-                && targetCoords.getX() < EAST_LNG
-                && targetCoords.getX() > WEST_LNG);
+    public static boolean segmentsIntersect(
+            double x1, double y1, double x2, double y2,
+            double x3, double y3, double x4, double y4) {
+        // the static form of Line2D.intersectsLine, which allocates nothing
+        return Line2D.linesIntersect(x1, y1, x2, y2, x3, y3, x4, y4);
     }
 
     /**
-     * Gets polygon points arr.
+     * The squared distance between the points (x1, y1) and (x2, y2). Use it to compare
+     * distances without taking a square root.
      *
-     * @return the polygon points arr
+     * @param x1 the x coordinate of the first point
+     * @param y1 the y coordinate of the first point
+     * @param x2 the x coordinate of the second point
+     * @param y2 the y coordinate of the second point
+     * @return the squared distance
      */
-    public static ArrayList<ArrayList<Point2D>> getPolygonPointsArr() {
-        return polygonPointsArr;
+    public static double distanceSq(double x1, double y1, double x2, double y2) {
+        var dX = x2 - x1;
+        var dY = y2 - y1;
+        return dX * dX + dY * dY;
     }
 
     /**
-     * Sets polygon points arr.
+     * The distance between the points (x1, y1) and (x2, y2).
      *
-     * @param polygonPointsArr the polygon points arr
+     * @param x1 the x coordinate of the first point
+     * @param y1 the y coordinate of the first point
+     * @param x2 the x coordinate of the second point
+     * @param y2 the y coordinate of the second point
+     * @return the distance
      */
-    public static void setPolygonPointsArr(ArrayList<ArrayList<Point2D>> polygonPointsArr) {
-        GeometryHelpers.polygonPointsArr = polygonPointsArr;
+    public static double distance(double x1, double y1, double x2, double y2) {
+        return Math.sqrt(distanceSq(x1, y1, x2, y2));
     }
-
 }
@@ -0,0 +1,164 @@
+package uk.ac.ed.inf.aqmaps;
+
+/**
+ * The immutable table of the legal movement directions of a drone.
+ *
+ * <p>A drone moves a fixed step length in one of 360 / angleStep headings, i.e. the
+ * multiples of angleStep in [0, 360). The x and y offsets of a move in every heading are
+ * computed once here, so moving the drone costs two array lookups instead of a
+ * conversion to radians, a cosine and a sine.</p>
+ */
+public class Headings {
+
+    /**
+     * The headings of the coursework drone: 36 directions, 10 degrees apart, and a step of 0.0003 degrees.
+     */
+    public static final Headings DEFAULT = new Headings(10, GeometryHelpers.MOVEMENT_RADIUS);
+
+    /**
+     * The angle in degrees between two neighbouring headings.
+     */
+    private final int angleStep;
+    /**
+     * The distance of one move in degrees.
+     */
+    private final double stepLength;
+    /**
+     * The x offset of a move in each heading, indexed by angle / angleStep.
+     */
+    private final double[] dx;
+    /**
+     * The y offset of a move in each heading, indexed by angle / angleStep.
+     */
+    private final double[] dy;
+
+    /**
+     * Instantiates a new Headings table.
+     *
+     * @param angleStep  the angle in degrees between two neighbouring headings, a divisor of 360
+     * @param stepLength the distance of one move in degrees
+     */
+    public Headings(int angleStep, double stepLength) {
+        super();
+        if (angleStep <= 0 || 360 % angleStep != 0) {
+            throw new IllegalArgumentException("The angle step must be a positive divisor of 360.");
+        }
+        if (!(stepLength > 0)) {
+            throw new IllegalArgumentException("The step length must be positive.");
+        }
+        this.angleStep = angleStep;
+        this.stepLength = stepLength;
+        var count = 360 / angleStep;
+        this.dx = new double[count];
+        this.dy = new double[count];
+        for (int i = 0; i < count; i++) {
+            var radianAngle = Math.toRadians(i * angleStep);
+            dx[i] = stepLength * Math.cos(radianAngle);
+            dy[i] = stepLength * Math.sin(radianAngle);
+        }
+    }
+
+    /**
+     * Gets the x offset of a move.
+     *
+     * @param angle the movement angle, a multiple of the angle step
+     * @return the x offset
+     * @throws IllegalArgumentException if the angle is not a multiple of the angle step
+     */
+    public double dx(int angle) {
+        return dx[index(angle)];
+    }
+
+    /**
+     * Gets the y offset of a move.
+     *
+     * @param angle the movement angle, a multiple of the angle step
+     * @return the y offset
+     * @throws IllegalArgumentException if the angle is not a multiple of the angle step
+     */
+    public double dy(int angle) {
+        return dy[index(angle)];
+    }
+
+    /**
+     * Gets the index of the heading of a movement angle. The angle is taken modulo 360,
+     * so 360 and -10 are the headings 0 and 350.
+     *
+     * @param angle the movement angle, a multiple of the angle step
+     * @return the index, in [0, count)
+     * @throws IllegalArgumentException if the angle is not a multiple of the angle step
+     */
+    private int index(int angle) {
+        var normalized = Math.floorMod(angle, 360);
+        if (normalized % angleStep != 0) {
+            throw new IllegalArgumentException(
+                    "The movement angle " + angle + " is not a multiple of the angle step " + angleStep + ".");
+        }
+        return normalized / angleStep;
+    }
+
+    /**
+     * Gets the number of headings.
+     *
+     * @return the count
+     */
+    public int count() {
+        return dx.length;
+    }
+
+    /**
+     * Gets the movement angle of a heading.
+     *
+     * @param index the index of the heading, in [0, count)
+     * @return the angle in degrees
+     */
+    public int angle(int index) {
+        return index * angleStep;
+    }
+
+    /**
+     * Rounds an angle in degrees to the nearest heading.
+     *
+     * @param degrees the angle, taken modulo 360
+     * @return the movement angle of the nearest heading, in [0, 360)
+     */
+    public int snap(int degrees) {
+        return (int) Math.floorMod(Math.round(degrees / (double) angleStep) * angleStep, 360L);
+    }
+
+    /**
+     * Find the movement angle of the heading closest to the direction from point A to B.
+     * For the default table this is the same as {@link GeometryHelpers#findMovementAngle}.
+     *
+     * @param X1 the x coordinate of point A
+     * @param Y1 the y coordinate of point A
+     * @param X2 the x coordinate of point B
+     * @param Y2 the y coordinate of point B
+     * @return the movement angle
+     */
+    public int findMovementAngle(double X1, double Y1, double X2, double Y2) {
+        var radians = Math.atan2(Y2 - Y1, X2 - X1);
+        if (radians < 0) {
+            radians += 2 * Math.PI;
+        }
+        return snap((int) Math.round(radians * 180 / Math.PI));
+    }
+
+    /**
+     * Gets angle step.
+     *
+     * @return the angle step
+     */
+    public int getAngleStep() {
+        return angleStep;
+    }
+
+    /**
+     * Gets step length.
+     *
+     * @return the step length
+     */
+    public double getStepLength() {
+        return stepLength;
+    }
+}
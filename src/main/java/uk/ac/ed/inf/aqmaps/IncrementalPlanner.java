@@ -0,0 +1,761 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * The planner which keeps the drone on the shortest sequence of legal moves to a goal while
+ * it flies, repairing the plan instead of planning again when a move turns out to be blocked
+ * or the no-fly zones change.
+ *
+ * <p>It runs D* Lite over a grid of squares a tenth of a step wide, like the nodes of the
+ * {@link PathPlanner}, where a move leads from a square to the one its centre moves to. The
+ * search runs backwards from the squares with their centre within the goal radius, so
+ * the moves to the goal of every square it has settled stay valid as the drone moves, and
+ * a blocked move only changes the squares whose way to the goal went through it. The drone
+ * picks each move from where it really is, checking the move itself, so the error of
+ * standing for a position by its square never adds up along the leg.</p>
+ *
+ * <p>A planner belongs to a single drone and is not thread-safe.</p>
+ */
+public class IncrementalPlanner {
+
+    /**
+     * The number of nodes per step length along each axis, used to merge nearby positions.
+     */
+    private static final int CELLS_PER_STEP = 10;
+    /**
+     * The maximum number of nodes expanded by one repair before the planner gives up.
+     */
+    private static final int MAX_EXPANSIONS = 50_000;
+    /**
+     * The moves past the drone up to which the squares are expanded, so that the moves of
+     * each square the drone can land in are known if it is closer to the goal.
+     */
+    private static final double SETTLED_MOVES = 0.5;
+    /**
+     * The state of a move not checked against the no-fly zones yet.
+     */
+    private static final byte UNKNOWN = 0;
+    /**
+     * The state of a legal move.
+     */
+    private static final byte OPEN = 1;
+    /**
+     * The state of a move which crosses a no-fly zone or leaves the play area from the centre.
+     */
+    private static final byte BLOCKED = 2;
+    /**
+     * The state of a move the drone found blocked, whatever the no-fly zones say.
+     */
+    private static final byte REPORTED = 3;
+
+    /**
+     * The headings of the drone.
+     */
+    private final Headings headings;
+    /**
+     * The no-fly zones.
+     */
+    private NoFlyZones noFlyZones;
+    /**
+     * The play area.
+     */
+    private final PlayArea playArea;
+    /**
+     * The x coordinate of the target.
+     */
+    private final double targetX;
+    /**
+     * The y coordinate of the target.
+     */
+    private final double targetY;
+    /**
+     * The distance to the target the drone has to get within.
+     */
+    private final double goalRadius;
+    /**
+     * The side of the square a node stands for.
+     */
+    private final double cellSize;
+    /**
+     * The nodes created so far, by key.
+     */
+    private final HashMap<Long, Node> nodes = new HashMap<>();
+    /**
+     * The inconsistent nodes, with stale entries left in and skipped when polled.
+     */
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+    /**
+     * The node of the drone, or null before the first move is asked for.
+     */
+    private Node start;
+    /**
+     * The moves the drone has made since the search began, which keeps old keys valid.
+     */
+    private double keyModifier = 0;
+    /**
+     * The x coordinate the drone last found moves blocked from.
+     */
+    private double blockedX = Double.NaN;
+    /**
+     * The y coordinate the drone last found moves blocked from.
+     */
+    private double blockedY = Double.NaN;
+    /**
+     * The indices of the headings of the moves the drone found blocked from there.
+     */
+    private final BitSet blockedMoves = new BitSet();
+    /**
+     * The number of nodes expanded so far, for the benchmarks.
+     */
+    private long expansions = 0;
+
+    /**
+     * Instantiates a new Incremental planner.
+     *
+     * @param headings   the headings of the drone
+     * @param noFlyZones the no-fly zones
+     * @param playArea   the play area
+     * @param targetX    the x coordinate of the target
+     * @param targetY    the y coordinate of the target
+     * @param goalRadius the distance to the target the drone has to get within
+     */
+    public IncrementalPlanner(Headings headings, NoFlyZones noFlyZones, PlayArea playArea,
+                              double targetX, double targetY, double goalRadius) {
+        super();
+        this.headings = headings;
+        this.noFlyZones = noFlyZones;
+        this.playArea = playArea;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.goalRadius = goalRadius;
+        this.cellSize = headings.getStepLength() / CELLS_PER_STEP;
+
+        // the squares with their centre within the goal radius, the drone may have to get closer in the outer ones
+        var cells = (int) Math.ceil(goalRadius / cellSize);
+        var centreX = Math.round(targetX / cellSize);
+        var centreY = Math.round(targetY / cellSize);
+        for (long i = centreX - cells; i <= centreX + cells; i++) {
+            for (long j = centreY - cells; j <= centreY + cells; j++) {
+                var x = i * cellSize;
+                var y = j * cellSize;
+                if (GeometryHelpers.distance(x, y, targetX, targetY) < goalRadius && playArea.contains(x, y)) {
+                    var goal = nodeAt(x, y);
+                    goal.goal = true;
+                    goal.rhs = 0;
+                    push(goal);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks with a {@link PathPlanner} that there is a leg to the target, and sets up a planner
+     * keeping the drone on the shortest one. The path planner tells a target there is no way to
+     * far quicker, since it searches forwards with a better heuristic.
+     *
+     * @param pathPlanner the path planner, over the same no-fly zones and play area
+     * @param headings    the headings of the drone
+     * @param noFlyZones  the no-fly zones
+     * @param playArea    the play area
+     * @param startX      the x coordinate of the drone
+     * @param startY      the y coordinate of the drone
+     * @param targetX     the x coordinate of the target
+     * @param targetY     the y coordinate of the target
+     * @param goalRadius  the distance to the target the drone has to get within
+     * @param maxMoves    the maximum number of moves
+     * @return the planner, or null if the path planner found no way to the target
+     */
+    public static IncrementalPlanner plan(PathPlanner pathPlanner, Headings headings, NoFlyZones noFlyZones,
+                                          PlayArea playArea, double startX, double startY,
+                                          double targetX, double targetY, double goalRadius, int maxMoves) {
+        if (pathPlanner.findPath(startX, startY, targetX, targetY, goalRadius, maxMoves) == null) {
+            return null;
+        }
+        return new IncrementalPlanner(headings, noFlyZones, playArea, targetX, targetY, goalRadius);
+    }
+
+    /**
+     * Finds the angle of the next move of the drone, repairing the plan first if a move was
+     * blocked or the no-fly zones changed since the last call.
+     *
+     * @param x the x coordinate of the drone
+     * @param y the y coordinate of the drone
+     * @return the movement angle, or -1 if there is no way to the goal
+     */
+    public int nextAngle(double x, double y) {
+        var node = nodeAt(x, y);
+        if (start != null && node != start) {
+            keyModifier += heuristic(start, node);
+        }
+        start = node;
+
+        // the squares the legal moves from where the drone is land in, which may be next to the ones the centre moves to
+        var landings = new Node[headings.count()];
+        var estimates = new double[headings.count()];
+        var blocked = x == blockedX && y == blockedY;
+        for (int i = 0; i < headings.count(); i++) {
+            if (blocked && blockedMoves.get(i)) {
+                continue;
+            }
+            var angle = headings.angle(i);
+            var toX = x + headings.dx(angle);
+            var toY = y + headings.dy(angle);
+            if (playArea.contains(toX, toY) && noFlyZones.polygonLineIntersects(x, y, toX, toY) == -1) {
+                landings[i] = nodeAt(toX, toY);
+                estimates[i] = heuristic(start, landings[i]);
+            }
+        }
+
+        if (start.goal) {
+            // the drone has to move on from the square, whether it is close enough or only its centre is
+            start.goal = false;
+            updateVertex(start);
+        }
+
+        while (computeShortestPath(landings, estimates)) {
+            var best = bestMove(x, y, landings);
+            if (best == -1) {
+                return -1;
+            }
+            var bestMoves = movesToGoal(x, y, best, landings[best]);
+            if (bestMoves < start.g) {
+                return headings.angle(best);
+            }
+            /*
+             The moves from the centre of the square get closer to the goal than any from where
+             the drone is, e.g. next to a no-fly zone. Left alone the square would lure the drone
+             back, so those moves are blocked for the square and the moves of the squares round it
+             repaired.
+            */
+            var lured = false;
+            for (int i = 0; i < headings.count(); i++) {
+                var successor = successor(start, i);
+                if (successor != null && (successor.goal ? 0 : successor.g) < bestMoves
+                        && moves(start)[i] != REPORTED) {
+                    moves(start)[i] = REPORTED;
+                    lured = true;
+                }
+            }
+            if (!lured) {
+                return headings.angle(best);
+            }
+            updateVertex(start);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the legal move from where the drone is which lands in the square closest to the
+     * goal. Many moves land in squares as close, so the one getting closest to the target is taken.
+     *
+     * @param x        the x coordinate of the drone
+     * @param y        the y coordinate of the drone
+     * @param landings the squares the moves land in, by heading index, null for the illegal moves
+     * @return the index of the heading of the move, or -1 if no move lands in a square with a way to the goal
+     */
+    private int bestMove(double x, double y, Node[] landings) {
+        var best = -1;
+        var bestMoves = Double.POSITIVE_INFINITY;
+        var bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < landings.length; i++) {
+            if (landings[i] == null) {
+                continue;
+            }
+            var moves = movesToGoal(x, y, i, landings[i]);
+            var angle = headings.angle(i);
+            var distance = GeometryHelpers.distance(x + headings.dx(angle), y + headings.dy(angle), targetX, targetY);
+            if (moves < bestMoves || (moves == bestMoves && moves != Double.POSITIVE_INFINITY && distance < bestDistance)) {
+                best = i;
+                bestMoves = moves;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the moves to the goal after a move of the drone.
+     *
+     * @param x       the x coordinate of the drone
+     * @param y       the y coordinate of the drone
+     * @param index   the index of the heading of the move
+     * @param landing the square the move lands in
+     * @return none if the drone lands within the goal radius, one more if it lands in a goal
+     *         square outside it, otherwise the moves of the square as last expanded
+     */
+    private double movesToGoal(double x, double y, int index, Node landing) {
+        var angle = headings.angle(index);
+        if (GeometryHelpers.distance(x + headings.dx(angle), y + headings.dy(angle), targetX, targetY) < goalRadius) {
+            return 0;
+        }
+        return landing.goal ? 1 : landing.g;
+    }
+
+    /**
+     * Tells the planner the drone found a move blocked, so that it is not planned again.
+     *
+     * @param x     the x coordinate of the drone
+     * @param y     the y coordinate of the drone
+     * @param angle the movement angle of the blocked move
+     */
+    public void blockMove(double x, double y, int angle) {
+        var node = nodeAt(x, y);
+        moves(node)[angle / headings.getAngleStep()] = REPORTED;
+        updateVertex(node);
+        // the move itself is not taken again from here, even if it looks legal against the no-fly zones
+        if (x != blockedX || y != blockedY) {
+            blockedX = x;
+            blockedY = y;
+            blockedMoves.clear();
+        }
+        blockedMoves.set(angle / headings.getAngleStep());
+    }
+
+    /**
+     * Changes the no-fly zones, checking the moves of the nodes created so far against the
+     * new ones. Only the nodes with a move which became blocked or legal are updated, and the
+     * plan is repaired on the next call to {@link #nextAngle(double, double)}.
+     *
+     * @param noFlyZones the new no-fly zones
+     */
+    public void updateZones(NoFlyZones noFlyZones) {
+        this.noFlyZones = noFlyZones;
+        for (Node node : nodes.values()) {
+            if (node.moves == null) {
+                continue;
+            }
+            // a move the drone found blocked stays blocked, since it was checked from a position off the centre
+            var changed = false;
+            for (int i = 0; i < node.moves.length; i++) {
+                if (node.moves[i] == OPEN || node.moves[i] == BLOCKED) {
+                    var state = check(node, i);
+                    changed |= state != node.moves[i];
+                    node.moves[i] = state;
+                }
+            }
+            if (changed) {
+                updateVertex(node);
+            }
+        }
+    }
+
+    /**
+     * Expands the inconsistent nodes until the moves to the goal are known of every square the
+     * drone can land in which could be closer to the goal than the others.
+     *
+     * @param landings  the squares the moves of the drone land in, null for the illegal moves
+     * @param estimates the estimated moves from the square of the drone to each of them
+     * @return true if they are known, false if the drone has no legal move or the search gave up
+     */
+    private boolean computeShortestPath(Node[] landings, double[] estimates) {
+        var expanded = 0;
+        while (true) {
+            // the landing square with the smallest key, which the search has to get past
+            Node focus = null;
+            var focusKey1 = Double.POSITIVE_INFINITY;
+            var focusKey2 = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < landings.length; i++) {
+                if (landings[i] == null) {
+                    continue;
+                }
+                var key2 = key2(landings[i]);
+                var key1 = key2 + estimates[i] + keyModifier;
+                if (focus == null || compare(key1, key2, focusKey1, focusKey2) < 0) {
+                    focus = landings[i];
+                    focusKey1 = key1;
+                    focusKey2 = key2;
+                }
+            }
+            if (focus == null) {
+                return false;
+            }
+            var top = peek();
+            if (top == null) {
+                return true;
+            }
+            if (compare(top.key1, top.key2, focusKey1 + SETTLED_MOVES, focusKey2) >= 0 && focus.g == focus.rhs) {
+                return true;
+            }
+            if (++expanded > MAX_EXPANSIONS) {
+                return false;
+            }
+            expansions++;
+            queue.poll();
+            var node = top.node;
+            node.queued = false;
+            var newKey1 = key1(node);
+            var newKey2 = key2(node);
+            if (compare(top.key1, top.key2, newKey1, newKey2) < 0) {
+                // the key was made before the drone moved
+                push(node);
+            } else if (node.g > node.rhs) {
+                node.g = node.rhs;
+                lowerPredecessors(node);
+            } else {
+                var oldG = node.g;
+                node.g = Double.POSITIVE_INFINITY;
+                updateVertex(node);
+                raisePredecessors(node, oldG);
+            }
+        }
+    }
+
+    /**
+     * Lowers the moves to the goal of the nodes one move before a node whose moves went down,
+     * creating them if needed. Only the move to the node is checked against the no-fly zones.
+     *
+     * @param node the node
+     */
+    private void lowerPredecessors(Node node) {
+        for (int i = 0; i < headings.count(); i++) {
+            var predecessor = predecessor(node, i, true);
+            if (predecessor != null && !predecessor.goal && 1 + node.g < predecessor.rhs
+                    && isOpen(predecessor, i)) {
+                predecessor.rhs = 1 + node.g;
+                queue(predecessor);
+            }
+        }
+    }
+
+    /**
+     * Updates the nodes one move before a node whose moves went up, if their moves were
+     * through it.
+     *
+     * @param node the node
+     * @param oldG the moves to the goal of the node before they went up
+     */
+    private void raisePredecessors(Node node, double oldG) {
+        for (int i = 0; i < headings.count(); i++) {
+            var predecessor = predecessor(node, i, false);
+            if (predecessor != null && !predecessor.goal && predecessor.rhs == 1 + oldG) {
+                updateVertex(predecessor);
+            }
+        }
+    }
+
+    /**
+     * Finds the node a move leads to a node from.
+     *
+     * @param node   the node
+     * @param index  the index of the heading of the move
+     * @param create whether to create the node if needed
+     * @return the node, or null if it is outside the play area, not created yet, or its
+     *         centre moves to a square next to the node because of rounding
+     */
+    private Node predecessor(Node node, int index, boolean create) {
+        var angle = headings.angle(index);
+        var x = node.x - headings.dx(angle);
+        var y = node.y - headings.dy(angle);
+        if (!playArea.contains(x, y)) {
+            return null;
+        }
+        var predecessor = create ? nodeAt(x, y) : nodes.get(key(x, y));
+        if (predecessor == null || successor(predecessor, index) != node) {
+            return null;
+        }
+        return predecessor;
+    }
+
+    /**
+     * Works out the moves to the goal a node would have through its successors, and queues
+     * the node if they differ from the ones it has.
+     *
+     * @param node the node
+     */
+    private void updateVertex(Node node) {
+        if (!node.goal) {
+            var rhs = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < headings.count(); i++) {
+                var successor = successor(node, i);
+                // only moves which could lower the moves are checked against the no-fly zones
+                if (successor != null && 1 + successor.g < rhs && isOpen(node, i)) {
+                    rhs = 1 + successor.g;
+                }
+            }
+            node.rhs = rhs;
+        }
+        queue(node);
+    }
+
+    /**
+     * Queues a node if it is inconsistent, dropping its old queue entry.
+     *
+     * @param node the node
+     */
+    private void queue(Node node) {
+        node.version++;
+        node.queued = false;
+        if (node.g != node.rhs) {
+            push(node);
+        }
+    }
+
+    /**
+     * Finds the node a move leads to.
+     *
+     * @param node  the node the move starts at
+     * @param index the index of the heading of the move
+     * @return the node, or null if none was created there yet
+     */
+    private Node successor(Node node, int index) {
+        var angle = headings.angle(index);
+        return nodes.get(key(node.x + headings.dx(angle), node.y + headings.dy(angle)));
+    }
+
+    /**
+     * Checks if a move is legal, checking it against the no-fly zones the first time.
+     *
+     * @param node  the node the move starts at
+     * @param index the index of the heading of the move
+     * @return true if the move is legal
+     */
+    private boolean isOpen(Node node, int index) {
+        var moves = moves(node);
+        if (moves[index] == UNKNOWN) {
+            moves[index] = check(node, index);
+        }
+        return moves[index] == OPEN;
+    }
+
+    /**
+     * Checks a move against the no-fly zones and the play area, the same checks the drone makes,
+     * and that the move does not start inside a no-fly zone.
+     *
+     * @param node  the node the move starts at
+     * @param index the index of the heading of the move
+     * @return {@link #OPEN} or {@link #BLOCKED}
+     */
+    private byte check(Node node, int index) {
+        var angle = headings.angle(index);
+        var x = node.x + headings.dx(angle);
+        var y = node.y + headings.dy(angle);
+        // a centre inside a no-fly zone has no moves, or moves from it could get out without crossing a side
+        return playArea.contains(x, y) && !noFlyZones.contains(node.x, node.y)
+                && noFlyZones.polygonLineIntersects(node.x, node.y, x, y) == -1
+                ? OPEN : BLOCKED;
+    }
+
+    /**
+     * Gets the states of the moves of a node, creating them if needed.
+     *
+     * @param node the node
+     * @return the states, by heading index
+     */
+    private byte[] moves(Node node) {
+        if (node.moves == null) {
+            node.moves = new byte[headings.count()];
+        }
+        return node.moves;
+    }
+
+    /**
+     * Finds the node a position belongs to, creating it if needed.
+     *
+     * @param x the x coordinate of the position
+     * @param y the y coordinate of the position
+     * @return the node
+     */
+    private Node nodeAt(double x, double y) {
+        var key = key(x, y);
+        var node = nodes.get(key);
+        if (node == null) {
+            node = new Node(Math.round(x / cellSize) * cellSize, Math.round(y / cellSize) * cellSize);
+            nodes.put(key, node);
+        }
+        return node;
+    }
+
+    /**
+     * Queues a node with its current key.
+     *
+     * @param node the node
+     */
+    private void push(Node node) {
+        node.version++;
+        node.queued = true;
+        queue.add(new Entry(node, key1(node), key2(node), node.version));
+    }
+
+    /**
+     * Finds the queued node with the smallest key, dropping stale entries.
+     *
+     * @return the entry of the node, or null if no node is queued
+     */
+    private Entry peek() {
+        while (!queue.isEmpty()) {
+            var top = queue.peek();
+            if (top.node.queued && top.version == top.node.version) {
+                return top;
+            }
+            queue.poll();
+        }
+        return null;
+    }
+
+    /**
+     * Finds the first part of the key of a node.
+     *
+     * @param node the node
+     * @return the estimated moves of the drone to the goal through the node
+     */
+    private double key1(Node node) {
+        return Math.min(node.g, node.rhs) + (start == null ? 0 : heuristic(start, node)) + keyModifier;
+    }
+
+    /**
+     * Finds the second part of the key of a node.
+     *
+     * @param node the node
+     * @return the moves from the node to the goal
+     */
+    private static double key2(Node node) {
+        return Math.min(node.g, node.rhs);
+    }
+
+    /**
+     * Compares two keys.
+     *
+     * @return a negative number, zero or a positive number as the first key is smaller, equal or larger
+     */
+    private static int compare(double a1, double a2, double b1, double b2) {
+        var byFirst = Double.compare(a1, b1);
+        return byFirst != 0 ? byFirst : Double.compare(a2, b2);
+    }
+
+    /**
+     * Estimates the number of moves between two nodes, never more than there are.
+     *
+     * @param from the first node
+     * @param to   the second node
+     * @return the straight line distance, in the longest moves between centres
+     */
+    private double heuristic(Node from, Node to) {
+        return GeometryHelpers.distance(from.x, from.y, to.x, to.y) / headings.getStepLength();
+    }
+
+    /**
+     * Finds the key of the node a position belongs to.
+     *
+     * @param x the x coordinate of the position
+     * @param y the y coordinate of the position
+     * @return the key
+     */
+    private long key(double x, double y) {
+        return (Math.round(x / cellSize) << 32) ^ (Math.round(y / cellSize) & 0xffffffffL);
+    }
+
+    /**
+     * Gets the number of nodes created so far.
+     *
+     * @return the node count
+     */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Gets the number of nodes expanded so far.
+     *
+     * @return the expansions
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+
+    /**
+     * A square of the grid in the search.
+     */
+    private static class Node {
+        /**
+         * The x coordinate of the centre.
+         */
+        private final double x;
+        /**
+         * The y coordinate of the centre.
+         */
+        private final double y;
+        /**
+         * The moves to the goal, as last expanded.
+         */
+        private double g = Double.POSITIVE_INFINITY;
+        /**
+         * The moves to the goal through the best successor.
+         */
+        private double rhs = Double.POSITIVE_INFINITY;
+        /**
+         * Flag to check if the node is within the goal radius of the target.
+         */
+        private boolean goal = false;
+        /**
+         * The states of the moves from the node, by heading index, or null if none was checked.
+         */
+        private byte[] moves;
+        /**
+         * Flag to check if the node is in the queue.
+         */
+        private boolean queued = false;
+        /**
+         * The version of the node, which tells its current queue entry from stale ones.
+         */
+        private int version = 0;
+
+        /**
+         * Instantiates a new Node.
+         *
+         * @param x the x coordinate of the centre
+         * @param y the y coordinate of the centre
+         */
+        private Node(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * An entry of the queue, the key of a node when it was queued.
+     */
+    private static class Entry implements Comparable<Entry> {
+        /**
+         * The node.
+         */
+        private final Node node;
+        /**
+         * The first part of the key.
+         */
+        private final double key1;
+        /**
+         * The second part of the key.
+         */
+        private final double key2;
+        /**
+         * The version of the node when it was queued.
+         */
+        private final int version;
+
+        /**
+         * Instantiates a new Entry.
+         *
+         * @param node    the node
+         * @param key1    the first part of the key
+         * @param key2    the second part of the key
+         * @param version the version of the node
+         */
+        private Entry(Node node, double key1, double key2, int version) {
+            this.node = node;
+            this.key1 = key1;
+            this.key2 = key2;
+            this.version = version;
+        }
+
+        /**
+         * Orders entries by key.
+         */
+        @Override
+        public int compareTo(Entry other) {
+            return compare(key1, key2, other.key1, other.key2);
+        }
+    }
+}
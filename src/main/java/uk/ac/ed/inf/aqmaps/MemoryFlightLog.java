@@ -0,0 +1,65 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The {@link FlightLog} which keeps the flight path in memory, e.g. to only write
+ * the flight path of the best of several runs, or to compare it in tests.
+ */
+public class MemoryFlightLog implements FlightLog {
+
+    /**
+     * The flight path lines.
+     */
+    private final StringBuilder contents = new StringBuilder(150 * 64);
+    /**
+     * The number of logged moves.
+     */
+    private int moves = 0;
+
+    /**
+     * Formats the move and appends it to the contents.
+     */
+    @Override
+    public void logMove(int moveNumber, double prevX, double prevY, int moveAngle, double x, double y, String location) {
+        FlightLog.appendLine(contents, moveNumber, prevX, prevY, moveAngle, x, y, location);
+        moves++;
+    }
+
+    /**
+     * Does nothing, the contents stay available.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Writes the flight path to a file, replacing an existing file.
+     *
+     * @param file the path of the flight path file
+     * @throws IOException if the file could not be written
+     */
+    public void writeTo(Path file) throws IOException {
+        Files.writeString(file, contents);
+    }
+
+    /**
+     * Gets the flight path lines.
+     *
+     * @return the contents
+     */
+    public String getContents() {
+        return contents.toString();
+    }
+
+    /**
+     * Gets the number of logged moves.
+     *
+     * @return the moves
+     */
+    public int getMoves() {
+        return moves;
+    }
+}
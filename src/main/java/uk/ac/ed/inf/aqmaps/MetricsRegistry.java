@@ -0,0 +1,231 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The registry adding up the {@link MissionMetrics} of the missions of a run, which can be
+ * watched over JMX while the run goes on and written to a JSON summary file at the end.
+ *
+ * <p>Missions flown in parallel record their results at the same time, so the totals are
+ * kept in {@link LongAdder}s and can be read at any time.</p>
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+
+    /**
+     * The name the registry is registered under with the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "uk.ac.ed.inf.aqmaps:type=MetricsRegistry";
+
+    /**
+     * The number of missions flown.
+     */
+    private final LongAdder missions = new LongAdder();
+    /**
+     * The number of completed missions.
+     */
+    private final LongAdder completedMissions = new LongAdder();
+    /**
+     * The moves used.
+     */
+    private final LongAdder movesUsed = new LongAdder();
+    /**
+     * The sensors read.
+     */
+    private final LongAdder sensorsRead = new LongAdder();
+    /**
+     * The candidate moves rejected because they cross a no-fly zone.
+     */
+    private final LongAdder rejectedNoFlyMoves = new LongAdder();
+    /**
+     * The candidate moves rejected because they leave the play area.
+     */
+    private final LongAdder rejectedOutOfAreaMoves = new LongAdder();
+    /**
+     * The falls back to a random movement angle.
+     */
+    private final LongAdder randomAngleFallbacks = new LongAdder();
+    /**
+     * The breaks out of a loop along the sides of a no-fly zone.
+     */
+    private final LongAdder intersectionLoopResets = new LongAdder();
+    /**
+     * The time spent fetching the sensors, in nanoseconds.
+     */
+    private final LongAdder fetchNanos = new LongAdder();
+    /**
+     * The time spent planning, in nanoseconds.
+     */
+    private final LongAdder planningNanos = new LongAdder();
+    /**
+     * The time spent flying, in nanoseconds.
+     */
+    private final LongAdder flightNanos = new LongAdder();
+    /**
+     * The time spent writing the outputs, in nanoseconds.
+     */
+    private final LongAdder outputNanos = new LongAdder();
+
+    /**
+     * Registers the registry with the platform MBean server, under {@link #OBJECT_NAME}.
+     *
+     * @throws JMException if the registry could not be registered, e.g. if one already is
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Adds the result of a mission to the totals.
+     *
+     * @param result the summary of the mission
+     */
+    public void record(MissionResult result) {
+        var metrics = result.getMetrics();
+        missions.increment();
+        if (result.isCompleted()) {
+            completedMissions.increment();
+        }
+        movesUsed.add(result.getMovesUsed());
+        sensorsRead.add(result.getSensorsRead());
+        rejectedNoFlyMoves.add(metrics.getRejectedNoFlyMoves());
+        rejectedOutOfAreaMoves.add(metrics.getRejectedOutOfAreaMoves());
+        randomAngleFallbacks.add(metrics.getRandomAngleFallbacks());
+        intersectionLoopResets.add(metrics.getIntersectionLoopResets());
+        fetchNanos.add(metrics.getFetchNanos());
+        planningNanos.add(metrics.getPlanningNanos());
+        flightNanos.add(metrics.getFlightNanos());
+        outputNanos.add(metrics.getOutputNanos());
+    }
+
+    /**
+     * Writes the totals and the metrics of each mission to a JSON file.
+     *
+     * @param file    the path of the summary file
+     * @param results the results of the missions, in the order they are listed in
+     * @throws IOException if the file could not be written
+     */
+    public void writeSummary(Path file, List<MissionResult> results) throws IOException {
+        var totals = new JsonObject();
+        totals.addProperty("missions", getMissions());
+        totals.addProperty("completedMissions", getCompletedMissions());
+        totals.addProperty("movesUsed", getMovesUsed());
+        totals.addProperty("sensorsRead", getSensorsRead());
+        totals.addProperty("rejectedNoFlyMoves", getRejectedNoFlyMoves());
+        totals.addProperty("rejectedOutOfAreaMoves", getRejectedOutOfAreaMoves());
+        totals.addProperty("randomAngleFallbacks", getRandomAngleFallbacks());
+        totals.addProperty("intersectionLoopResets", getIntersectionLoopResets());
+        totals.addProperty("fetchMillis", getFetchMillis());
+        totals.addProperty("planningMillis", getPlanningMillis());
+        totals.addProperty("flightMillis", getFlightMillis());
+        totals.addProperty("outputMillis", getOutputMillis());
+
+        var missionArray = new JsonArray();
+        for (MissionResult result : results) {
+            var metrics = result.getMetrics();
+            var mission = new JsonObject();
+            mission.addProperty("name", result.getName());
+            mission.addProperty("seed", result.getSeed());
+            mission.addProperty("completed", result.isCompleted());
+            mission.addProperty("movesUsed", result.getMovesUsed());
+            mission.addProperty("sensorsRead", result.getSensorsRead());
+            mission.addProperty("sensorsTotal", result.getSensorsTotal());
+            mission.addProperty("rejectedNoFlyMoves", metrics.getRejectedNoFlyMoves());
+            mission.addProperty("rejectedOutOfAreaMoves", metrics.getRejectedOutOfAreaMoves());
+            mission.addProperty("randomAngleFallbacks", metrics.getRandomAngleFallbacks());
+            mission.addProperty("intersectionLoopResets", metrics.getIntersectionLoopResets());
+            mission.addProperty("fetchMillis", millis(metrics.getFetchNanos()));
+            mission.addProperty("planningMillis", millis(metrics.getPlanningNanos()));
+            mission.addProperty("flightMillis", millis(metrics.getFlightNanos()));
+            mission.addProperty("outputMillis", millis(metrics.getOutputNanos()));
+            mission.addProperty("elapsedMillis", result.getElapsedMillis());
+            missionArray.add(mission);
+        }
+
+        var summary = new JsonObject();
+        summary.add("totals", totals);
+        summary.add("missions", missionArray);
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(summary));
+    }
+
+    @Override
+    public long getMissions() {
+        return missions.sum();
+    }
+
+    @Override
+    public long getCompletedMissions() {
+        return completedMissions.sum();
+    }
+
+    @Override
+    public long getMovesUsed() {
+        return movesUsed.sum();
+    }
+
+    @Override
+    public long getSensorsRead() {
+        return sensorsRead.sum();
+    }
+
+    @Override
+    public long getRejectedNoFlyMoves() {
+        return rejectedNoFlyMoves.sum();
+    }
+
+    @Override
+    public long getRejectedOutOfAreaMoves() {
+        return rejectedOutOfAreaMoves.sum();
+    }
+
+    @Override
+    public long getRandomAngleFallbacks() {
+        return randomAngleFallbacks.sum();
+    }
+
+    @Override
+    public long getIntersectionLoopResets() {
+        return intersectionLoopResets.sum();
+    }
+
+    @Override
+    public long getFetchMillis() {
+        return millis(fetchNanos.sum());
+    }
+
+    @Override
+    public long getPlanningMillis() {
+        return millis(planningNanos.sum());
+    }
+
+    @Override
+    public long getFlightMillis() {
+        return millis(flightNanos.sum());
+    }
+
+    @Override
+    public long getOutputMillis() {
+        return millis(outputNanos.sum());
+    }
+
+    /**
+     * Converts a time to milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time in milliseconds
+     */
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
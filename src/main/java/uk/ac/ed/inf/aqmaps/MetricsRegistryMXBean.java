@@ -0,0 +1,92 @@
+package uk.ac.ed.inf.aqmaps;
+
+/**
+ * The management interface of the {@link MetricsRegistry}, showing the totals of the
+ * missions flown so far over JMX, e.g. in JConsole or VisualVM.
+ */
+public interface MetricsRegistryMXBean {
+
+    /**
+     * Gets the number of missions flown.
+     *
+     * @return the mission count
+     */
+    long getMissions();
+
+    /**
+     * Gets the number of missions where every sensor was read and the drone returned.
+     *
+     * @return the completed mission count
+     */
+    long getCompletedMissions();
+
+    /**
+     * Gets the moves used by all the missions.
+     *
+     * @return the moves used
+     */
+    long getMovesUsed();
+
+    /**
+     * Gets the sensors read by all the missions.
+     *
+     * @return the sensors read
+     */
+    long getSensorsRead();
+
+    /**
+     * Gets the candidate moves rejected because they cross a no-fly zone.
+     *
+     * @return the rejected no fly moves
+     */
+    long getRejectedNoFlyMoves();
+
+    /**
+     * Gets the candidate moves rejected because they leave the play area.
+     *
+     * @return the rejected out of area moves
+     */
+    long getRejectedOutOfAreaMoves();
+
+    /**
+     * Gets the falls back to a random movement angle.
+     *
+     * @return the random angle fallbacks
+     */
+    long getRandomAngleFallbacks();
+
+    /**
+     * Gets the breaks out of a loop along the sides of a no-fly zone.
+     *
+     * @return the intersection loop resets
+     */
+    long getIntersectionLoopResets();
+
+    /**
+     * Gets the time spent fetching the sensors, in milliseconds.
+     *
+     * @return the fetch millis
+     */
+    long getFetchMillis();
+
+    /**
+     * Gets the time spent planning, in milliseconds.
+     *
+     * @return the planning millis
+     */
+    long getPlanningMillis();
+
+    /**
+     * Gets the time spent flying, in milliseconds.
+     *
+     * @return the flight millis
+     */
+    long getFlightMillis();
+
+    /**
+     * Gets the time spent writing the outputs, in milliseconds.
+     *
+     * @return the output millis
+     */
+    long getOutputMillis();
+}
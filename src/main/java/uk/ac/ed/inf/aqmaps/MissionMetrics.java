@@ -0,0 +1,197 @@
+package uk.ac.ed.inf.aqmaps;
+
+/**
+ * The counters and timings of a single drone mission, showing where it spends its moves
+ * and its time.
+ *
+ * <p>The metrics of a drone are only updated by the thread flying it, and are read once the
+ * mission is over. The metrics of a fleet are those of its drones added together, so their
+ * timings are the sum of the time each drone spent, not the wall time of the mission.</p>
+ */
+public class MissionMetrics {
+
+    /**
+     * The number of candidate moves rejected because they cross a no-fly zone.
+     */
+    private int rejectedNoFlyMoves = 0;
+    /**
+     * The number of candidate moves rejected because they leave the play area.
+     */
+    private int rejectedOutOfAreaMoves = 0;
+    /**
+     * The number of times the drone fell back to a random movement angle.
+     */
+    private int randomAngleFallbacks = 0;
+    /**
+     * The number of times the drone broke out of a loop along the sides of a no-fly zone.
+     */
+    private int intersectionLoopResets = 0;
+    /**
+     * The time spent fetching the sensors of the day, in nanoseconds.
+     */
+    private long fetchNanos = 0;
+    /**
+     * The time spent planning, i.e. sweeping seeds, planning tours and planning legs, in nanoseconds.
+     */
+    private long planningNanos = 0;
+    /**
+     * The time spent flying, apart from planning, in nanoseconds.
+     */
+    private long flightNanos = 0;
+    /**
+     * The time spent writing the readings map and closing the flight log, in nanoseconds.
+     */
+    private long outputNanos = 0;
+
+    /**
+     * Counts a candidate move rejected because it crosses a no-fly zone.
+     */
+    public void countRejectedNoFlyMove() {
+        rejectedNoFlyMoves++;
+    }
+
+    /**
+     * Counts a candidate move rejected because it leaves the play area.
+     */
+    public void countRejectedOutOfAreaMove() {
+        rejectedOutOfAreaMoves++;
+    }
+
+    /**
+     * Counts a fall back to a random movement angle.
+     */
+    public void countRandomAngleFallback() {
+        randomAngleFallbacks++;
+    }
+
+    /**
+     * Counts a break out of a loop along the sides of a no-fly zone.
+     */
+    public void countIntersectionLoopReset() {
+        intersectionLoopResets++;
+    }
+
+    /**
+     * Adds to the time spent fetching the sensors.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void addFetchNanos(long nanos) {
+        fetchNanos += nanos;
+    }
+
+    /**
+     * Adds to the time spent planning.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void addPlanningNanos(long nanos) {
+        planningNanos += nanos;
+    }
+
+    /**
+     * Adds to the time spent flying.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void addFlightNanos(long nanos) {
+        flightNanos += nanos;
+    }
+
+    /**
+     * Adds to the time spent writing the outputs.
+     *
+     * @param nanos the time in nanoseconds
+     */
+    public void addOutputNanos(long nanos) {
+        outputNanos += nanos;
+    }
+
+    /**
+     * Adds the counters and timings of another mission, e.g. of another drone of a fleet.
+     *
+     * @param other the other metrics
+     */
+    public void add(MissionMetrics other) {
+        rejectedNoFlyMoves += other.rejectedNoFlyMoves;
+        rejectedOutOfAreaMoves += other.rejectedOutOfAreaMoves;
+        randomAngleFallbacks += other.randomAngleFallbacks;
+        intersectionLoopResets += other.intersectionLoopResets;
+        fetchNanos += other.fetchNanos;
+        planningNanos += other.planningNanos;
+        flightNanos += other.flightNanos;
+        outputNanos += other.outputNanos;
+    }
+
+    /**
+     * Gets rejected no fly moves.
+     *
+     * @return the rejected no fly moves
+     */
+    public int getRejectedNoFlyMoves() {
+        return rejectedNoFlyMoves;
+    }
+
+    /**
+     * Gets rejected out of area moves.
+     *
+     * @return the rejected out of area moves
+     */
+    public int getRejectedOutOfAreaMoves() {
+        return rejectedOutOfAreaMoves;
+    }
+
+    /**
+     * Gets random angle fallbacks.
+     *
+     * @return the random angle fallbacks
+     */
+    public int getRandomAngleFallbacks() {
+        return randomAngleFallbacks;
+    }
+
+    /**
+     * Gets intersection loop resets.
+     *
+     * @return the intersection loop resets
+     */
+    public int getIntersectionLoopResets() {
+        return intersectionLoopResets;
+    }
+
+    /**
+     * Gets fetch nanos.
+     *
+     * @return the fetch nanos
+     */
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    /**
+     * Gets planning nanos.
+     *
+     * @return the planning nanos
+     */
+    public long getPlanningNanos() {
+        return planningNanos;
+    }
+
+    /**
+     * Gets flight nanos.
+     *
+     * @return the flight nanos
+     */
+    public long getFlightNanos() {
+        return flightNanos;
+    }
+
+    /**
+     * Gets output nanos.
+     *
+     * @return the output nanos
+     */
+    public long getOutputNanos() {
+        return outputNanos;
+    }
+}
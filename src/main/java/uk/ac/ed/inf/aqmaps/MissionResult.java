@@ -0,0 +1,160 @@
+package uk.ac.ed.inf.aqmaps;
+
+/**
+ * The summary of a single drone mission, i.e. one day of readings.
+ */
+public class MissionResult {
+    /**
+     * The name of the mission, usually the date string (DD-MM-YYYY).
+     */
+    private final String name;
+    /**
+     * The random state seed the drone flew with.
+     */
+    private final int seed;
+    /**
+     * The number of moves the drone made.
+     */
+    private final int movesUsed;
+    /**
+     * The number of sensors the drone took a reading from.
+     */
+    private final int sensorsRead;
+    /**
+     * The total number of sensors on the map for that day.
+     */
+    private final int sensorsTotal;
+    /**
+     * Flag to check if the drone read every sensor and returned to the starting position.
+     */
+    private final boolean completed;
+    /**
+     * The wall time of the mission in milliseconds.
+     */
+    private final long elapsedMillis;
+    /**
+     * The counters and timings of the mission.
+     */
+    private final MissionMetrics metrics;
+
+    /**
+     * Instantiates a new Mission result.
+     *
+     * @param name          the name of the mission
+     * @param seed          the random state seed the drone flew with
+     * @param movesUsed     the moves used
+     * @param sensorsRead   the sensors read
+     * @param sensorsTotal  the total number of sensors
+     * @param completed     true if all sensors were read and the drone returned
+     * @param elapsedMillis the wall time in milliseconds
+     * @param metrics       the counters and timings of the mission
+     */
+    public MissionResult(String name, int seed, int movesUsed, int sensorsRead, int sensorsTotal, boolean completed,
+                         long elapsedMillis, MissionMetrics metrics) {
+        super();
+        this.name = name;
+        this.seed = seed;
+        this.movesUsed = movesUsed;
+        this.sensorsRead = sensorsRead;
+        this.sensorsTotal = sensorsTotal;
+        this.completed = completed;
+        this.elapsedMillis = elapsedMillis;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets seed.
+     *
+     * @return the seed
+     */
+    public int getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets moves used.
+     *
+     * @return the moves used
+     */
+    public int getMovesUsed() {
+        return movesUsed;
+    }
+
+    /**
+     * Gets sensors read.
+     *
+     * @return the sensors read
+     */
+    public int getSensorsRead() {
+        return sensorsRead;
+    }
+
+    /**
+     * Gets sensors total.
+     *
+     * @return the sensors total
+     */
+    public int getSensorsTotal() {
+        return sensorsTotal;
+    }
+
+    /**
+     * Is completed boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Gets elapsed millis.
+     *
+     * @return the elapsed millis
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Gets metrics.
+     *
+     * @return the counters and timings of the mission
+     */
+    public MissionMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * To string string.
+     *
+     * @return the string
+     */
+    @Override
+    public String toString() {
+        return "MissionResult [name="
+                + name
+                + ", seed="
+                + seed
+                + ", movesUsed="
+                + movesUsed
+                + ", sensorsRead="
+                + sensorsRead
+                + ", sensorsTotal="
+                + sensorsTotal
+                + ", completed="
+                + completed
+                + ", elapsedMillis="
+                + elapsedMillis
+                + "]";
+    }
+}
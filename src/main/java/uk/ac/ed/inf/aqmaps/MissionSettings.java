@@ -0,0 +1,425 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The settings of a drone mission which stay the same from one day to the next.
+ */
+public class MissionSettings {
+    /**
+     * The starting position co-ordinates.
+     */
+    private final Point2D startingPosition;
+    /**
+     * The random state seed.
+     */
+    private final int randomState;
+    /**
+     * The number of moves each drone can make.
+     */
+    private int maxMoves = 150;
+    /**
+     * The area the drones have to stay inside.
+     */
+    private PlayArea playArea = PlayArea.DEFAULT;
+    /**
+     * The directory the output files are written to.
+     */
+    private Path outputDir = Path.of("");
+    /**
+     * The factory of the flight log, given the flight path file.
+     */
+    private FlightLog.Factory logFactory = FileFlightLog::new;
+    /**
+     * The store tours are planned with the moves of, or null to plan them with distances.
+     */
+    private DistanceMatrixStore distanceMatrixStore;
+    /**
+     * The store of the no-fly zones which change during a mission, or null if they do not.
+     */
+    private NoFlyZoneStore noFlyZoneStore;
+    /**
+     * The registry the results of the missions are recorded in, or null if they are not.
+     */
+    private MetricsRegistry metricsRegistry;
+    /**
+     * The way the drone orders the sensors.
+     */
+    private RoutePlanning routePlanning = RoutePlanning.GREEDY;
+    /**
+     * The value of reading each sensor when not all of them can be read.
+     */
+    private SensorPriority sensorPriority = SensorPriority.UNIFORM;
+    /**
+     * The way the drone finds its way to the next sensor.
+     */
+    private Navigation navigation = Navigation.REACTIVE;
+    /**
+     * Flag to check if the readings map is written while the drone flies.
+     */
+    private boolean streamReadingsMap = false;
+    /**
+     * The number of seeds tried for each day, from the random state seed up.
+     */
+    private int seedCount = 1;
+    /**
+     * The number of drones flying the mission together.
+     */
+    private int fleetSize = 1;
+    /**
+     * The starting positions of the drones of a fleet, the ones not given start at the starting position.
+     */
+    private List<Point2D> fleetStarts = List.of();
+    /**
+     * The way the sensors are split among the drones of a fleet.
+     */
+    private FleetPartitioning fleetPartitioning = FleetPartitioning.SECTORS;
+
+    /**
+     * Instantiates new Mission settings, with 150 moves in the default play area, writing
+     * to the current directory with a synchronous
+     * flight log, greedy route planning and reactive navigation, and with the readings map
+     * written at the end of the mission, flying a single drone with the random state seed only.
+     *
+     * @param startingPosition the starting position
+     * @param randomState      the random state seed
+     */
+    public MissionSettings(Point2D startingPosition, int randomState) {
+        super();
+        this.startingPosition = startingPosition;
+        this.randomState = randomState;
+    }
+
+    /**
+     * Gets starting position.
+     *
+     * @return the starting position
+     */
+    public Point2D getStartingPosition() {
+        return startingPosition;
+    }
+
+    /**
+     * Gets random state.
+     *
+     * @return the random state
+     */
+    public int getRandomState() {
+        return randomState;
+    }
+
+    /**
+     * Gets max moves.
+     *
+     * @return the max moves
+     */
+    public int getMaxMoves() {
+        return maxMoves;
+    }
+
+    /**
+     * Sets max moves.
+     *
+     * @param maxMoves the number of moves each drone can make
+     */
+    public void setMaxMoves(int maxMoves) {
+        if (maxMoves < 1) {
+            throw new IllegalArgumentException("The drones need at least one move.");
+        }
+        this.maxMoves = maxMoves;
+    }
+
+    /**
+     * Gets play area.
+     *
+     * @return the play area
+     */
+    public PlayArea getPlayArea() {
+        return playArea;
+    }
+
+    /**
+     * Sets play area.
+     *
+     * @param playArea the play area
+     */
+    public void setPlayArea(PlayArea playArea) {
+        this.playArea = playArea;
+    }
+
+    /**
+     * Gets output dir.
+     *
+     * @return the output dir
+     */
+    public Path getOutputDir() {
+        return outputDir;
+    }
+
+    /**
+     * Sets output dir.
+     *
+     * @param outputDir the output dir
+     */
+    public void setOutputDir(Path outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * Gets log factory.
+     *
+     * @return the log factory
+     */
+    public FlightLog.Factory getLogFactory() {
+        return logFactory;
+    }
+
+    /**
+     * Sets log factory.
+     *
+     * @param logFactory the log factory
+     */
+    public void setLogFactory(FlightLog.Factory logFactory) {
+        this.logFactory = logFactory;
+    }
+
+    /**
+     * Gets distance matrix store.
+     *
+     * @return the distance matrix store, or null when tours are planned with distances
+     */
+    public DistanceMatrixStore getDistanceMatrixStore() {
+        return distanceMatrixStore;
+    }
+
+    /**
+     * Sets distance matrix store.
+     *
+     * @param distanceMatrixStore the store tours are planned with the moves of, or null
+     */
+    public void setDistanceMatrixStore(DistanceMatrixStore distanceMatrixStore) {
+        this.distanceMatrixStore = distanceMatrixStore;
+    }
+
+    /**
+     * Gets no fly zone store.
+     *
+     * @return the no-fly zone store, or null when the no-fly zones do not change
+     */
+    public NoFlyZoneStore getNoFlyZoneStore() {
+        return noFlyZoneStore;
+    }
+
+    /**
+     * Sets no fly zone store.
+     *
+     * @param noFlyZoneStore the store of the no-fly zones which change during a mission, or null
+     */
+    public void setNoFlyZoneStore(NoFlyZoneStore noFlyZoneStore) {
+        this.noFlyZoneStore = noFlyZoneStore;
+    }
+
+    /**
+     * Gets metrics registry.
+     *
+     * @return the metrics registry, or null if the results are not recorded
+     */
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    /**
+     * Sets metrics registry.
+     *
+     * @param metricsRegistry the registry the results of the missions are recorded in, or null
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * Gets route planning.
+     *
+     * @return the route planning
+     */
+    public RoutePlanning getRoutePlanning() {
+        return routePlanning;
+    }
+
+    /**
+     * Sets route planning.
+     *
+     * @param routePlanning the route planning
+     */
+    public void setRoutePlanning(RoutePlanning routePlanning) {
+        this.routePlanning = routePlanning;
+    }
+
+    /**
+     * Gets sensor priority.
+     *
+     * @return the sensor priority
+     */
+    public SensorPriority getSensorPriority() {
+        return sensorPriority;
+    }
+
+    /**
+     * Sets sensor priority.
+     *
+     * @param sensorPriority the value of reading each sensor when not all of them can be read
+     */
+    public void setSensorPriority(SensorPriority sensorPriority) {
+        this.sensorPriority = sensorPriority;
+    }
+
+    /**
+     * Gets navigation.
+     *
+     * @return the navigation
+     */
+    public Navigation getNavigation() {
+        return navigation;
+    }
+
+    /**
+     * Sets navigation.
+     *
+     * @param navigation the navigation
+     */
+    public void setNavigation(Navigation navigation) {
+        this.navigation = navigation;
+    }
+
+    /**
+     * Is stream readings map boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isStreamReadingsMap() {
+        return streamReadingsMap;
+    }
+
+    /**
+     * Sets stream readings map.
+     *
+     * @param streamReadingsMap true to write the readings map while the drone flies
+     */
+    public void setStreamReadingsMap(boolean streamReadingsMap) {
+        this.streamReadingsMap = streamReadingsMap;
+    }
+
+    /**
+     * Gets seed count.
+     *
+     * @return the seed count
+     */
+    public int getSeedCount() {
+        return seedCount;
+    }
+
+    /**
+     * Sets seed count.
+     *
+     * @param seedCount the number of seeds tried for each day, 1 to only fly the random state seed
+     */
+    public void setSeedCount(int seedCount) {
+        if (seedCount < 1) {
+            throw new IllegalArgumentException("At least one seed has to be tried.");
+        }
+        this.seedCount = seedCount;
+    }
+
+    /**
+     * Gets fleet size.
+     *
+     * @return the fleet size
+     */
+    public int getFleetSize() {
+        return fleetSize;
+    }
+
+    /**
+     * Sets fleet size.
+     *
+     * @param fleetSize the number of drones, 1 to fly a single drone
+     */
+    public void setFleetSize(int fleetSize) {
+        if (fleetSize < 1) {
+            throw new IllegalArgumentException("At least one drone has to fly.");
+        }
+        this.fleetSize = fleetSize;
+    }
+
+    /**
+     * Gets fleet starts.
+     *
+     * @return the fleet starts
+     */
+    public List<Point2D> getFleetStarts() {
+        return fleetStarts;
+    }
+
+    /**
+     * Sets fleet starts.
+     *
+     * @param fleetStarts the starting positions of the first drones of a fleet
+     */
+    public void setFleetStarts(List<Point2D> fleetStarts) {
+        this.fleetStarts = List.copyOf(fleetStarts);
+    }
+
+    /**
+     * Gets the starting position of a drone of the fleet.
+     *
+     * @param drone the index of the drone, from 0
+     * @return its fleet start if one was given, else the starting position
+     */
+    public Point2D getFleetStart(int drone) {
+        return drone < fleetStarts.size() ? fleetStarts.get(drone) : startingPosition;
+    }
+
+    /**
+     * Gets fleet partitioning.
+     *
+     * @return the fleet partitioning
+     */
+    public FleetPartitioning getFleetPartitioning() {
+        return fleetPartitioning;
+    }
+
+    /**
+     * Sets fleet partitioning.
+     *
+     * @param fleetPartitioning the fleet partitioning
+     */
+    public void setFleetPartitioning(FleetPartitioning fleetPartitioning) {
+        this.fleetPartitioning = fleetPartitioning;
+    }
+
+    /**
+     * Makes a drone set up with these settings, so that the seed sweep, the fleet and the
+     * written flight all fly the same way.
+     *
+     * @param seed             the random state seed of the drone
+     * @param sensors          the sensors to visit
+     * @param noFlyZones       the no-fly zones on the map, which may be shared with other drones
+     * @param startingPosition the starting position of the drone
+     * @param flightLog        the flight log to log the moves to
+     * @return the new drone
+     */
+    public DroneCollectReadings newDrone(int seed, ArrayList<Sensor> sensors, NoFlyZones noFlyZones,
+                                         Point2D startingPosition, FlightLog flightLog) {
+        var drone = new DroneCollectReadings(seed, maxMoves, sensors, noFlyZones, startingPosition, flightLog);
+        drone.setPlayArea(playArea);
+        drone.setRoutePlanning(routePlanning);
+        drone.setSensorPriority(sensorPriority);
+        drone.setDistanceMatrixStore(distanceMatrixStore);
+        drone.setNavigation(navigation);
+        drone.setNoFlyZoneStore(noFlyZoneStore);
+        return drone;
+    }
+}
@@ -0,0 +1,34 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.Locale;
+
+/**
+ * The ways the drone can find its way to the next sensor.
+ */
+public enum Navigation {
+    /**
+     * Fly straight at the sensor, following the side of a no-fly zone or turning at random
+     * when a move is blocked.
+     */
+    REACTIVE,
+    /**
+     * Fly the shortest sequence of moves round the no-fly zones, see {@link PathPlanner}.
+     */
+    PLANNED,
+    /**
+     * Fly like {@link #PLANNED}, repairing the leg when a move is blocked instead of turning,
+     * see {@link IncrementalPlanner}.
+     */
+    INCREMENTAL;
+
+    /**
+     * Parses a navigation name, ignoring case.
+     *
+     * @param name the name, e.g. "planned"
+     * @return the navigation
+     * @throws IllegalArgumentException if there is no navigation with that name
+     */
+    public static Navigation parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
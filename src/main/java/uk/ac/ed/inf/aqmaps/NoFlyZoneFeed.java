@@ -0,0 +1,209 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import com.mapbox.geojson.Polygon;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The feed of temporary zones from a local GeoJSON file into a {@link NoFlyZoneStore}, which
+ * is read again whenever it changes, so that zones can be added or lifted while the drones fly.
+ *
+ * <p>The file is a feature collection of polygons. Each feature may have a {@code name}, and
+ * the moves the zone holds {@code from} and {@code until}; by default a zone is named after
+ * its position in the file and holds for the whole mission. The file is polled on a daemon
+ * thread and the store updated with all of its zones. A file which cannot be read or parsed
+ * is reported and the zones read last are kept.</p>
+ */
+public class NoFlyZoneFeed implements AutoCloseable {
+
+    /**
+     * The default time between two checks of the file, in milliseconds.
+     */
+    public static final long DEFAULT_POLL_MILLIS = 500;
+
+    /**
+     * The path of the feed file.
+     */
+    private final Path file;
+    /**
+     * The store the zones are fed into.
+     */
+    private final NoFlyZoneStore store;
+    /**
+     * The thread polling the file, or null before polling is started.
+     */
+    private ScheduledExecutorService poller;
+    /**
+     * The modification time of the file when it was last read, or null if it was not.
+     */
+    private FileTime lastModified;
+
+    /**
+     * Instantiates a new No fly zone feed.
+     *
+     * @param file  the path of the feed file
+     * @param store the store the zones are fed into
+     */
+    public NoFlyZoneFeed(Path file, NoFlyZoneStore store) {
+        super();
+        this.file = file;
+        this.store = store;
+    }
+
+    /**
+     * Reads the zones of a feed file into a store, and starts polling the file for changes
+     * every {@link #DEFAULT_POLL_MILLIS} milliseconds.
+     *
+     * @param file  the path of the feed file
+     * @param store the store the zones are fed into
+     * @return the feed, to be closed once the missions are over
+     * @throws IOException if the file exists but could not be read or is not a feed of zones
+     */
+    public static NoFlyZoneFeed open(Path file, NoFlyZoneStore store) throws IOException {
+        var feed = new NoFlyZoneFeed(file, store);
+        // the first missions are flown with the zones of the file, later changes are picked up while they fly
+        feed.poll();
+        feed.start(DEFAULT_POLL_MILLIS);
+        return feed;
+    }
+
+    /**
+     * Reads the file into the store if it changed since it was last read.
+     *
+     * @return true if the store was updated else false
+     * @throws IOException if the file could not be read or is not a feed of zones
+     */
+    public synchronized boolean poll() throws IOException {
+        FileTime modified;
+        try {
+            modified = Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            // a feed which is not there yet, or was taken away, has no zones
+            if (lastModified == null) {
+                return false;
+            }
+            lastModified = null;
+            store.replaceAll(List.of());
+            return true;
+        }
+        if (modified.equals(lastModified)) {
+            return false;
+        }
+        var zones = parseZones(Files.readString(file));
+        lastModified = modified;
+        store.replaceAll(zones);
+        return true;
+    }
+
+    /**
+     * Starts polling the file on a daemon thread.
+     *
+     * @param periodMillis the time between two checks of the file, in milliseconds
+     */
+    public synchronized void start(long periodMillis) {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "no-fly-zone-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignoring the no-fly zone feed " + file + ": " + e.getMessage());
+            }
+        }, 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling the file. The zones read last stay in the store.
+     */
+    @Override
+    public synchronized void close() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /**
+     * Parses a feed of temporary zones.
+     *
+     * @param geoJsonString the GeoJSON feature collection of polygons
+     * @return the temporary zones
+     * @throws IOException if the string is not a feed of zones
+     */
+    public static List<TemporaryZone> parseZones(String geoJsonString) throws IOException {
+        var zones = new ArrayList<TemporaryZone>();
+        try {
+            var features = FeatureCollection.fromJson(geoJsonString).features();
+            if (features == null) {
+                return zones;
+            }
+            for (int i = 0; i < features.size(); i++) {
+                var feature = features.get(i);
+                if (!(feature.geometry() instanceof Polygon)) {
+                    throw new IOException("Feature " + i + " of the no-fly zone feed is not a polygon.");
+                }
+                var polygon = new ArrayList<Point2D>();
+                for (Point point : Objects.requireNonNull((Polygon) feature.geometry()).coordinates().get(0)) {
+                    polygon.add(new Point2D.Double(point.longitude(), point.latitude()));
+                }
+                var properties = feature.properties();
+                var name = property(properties, "name");
+                var from = property(properties, "from");
+                var until = property(properties, "until");
+                zones.add(new TemporaryZone(
+                        name == null ? "zone-" + i : name.getAsString(),
+                        polygon,
+                        from == null ? 0 : from.getAsInt(),
+                        until == null ? TemporaryZone.FOREVER : until.getAsInt()));
+            }
+        } catch (RuntimeException e) {
+            // Gson and the zones themselves throw unchecked exceptions for bad input
+            throw new IOException("Not a no-fly zone feed: " + e.getMessage(), e);
+        }
+        return zones;
+    }
+
+    /**
+     * Gets a property of a feature.
+     *
+     * @param properties the properties of the feature, or null
+     * @param name       the name of the property
+     * @return the value, or null if it is not set
+     */
+    private static JsonElement property(JsonObject properties, String name) {
+        if (properties == null || !properties.has(name) || properties.get(name).isJsonNull()) {
+            return null;
+        }
+        return properties.get(name);
+    }
+
+    /**
+     * Gets file.
+     *
+     * @return the path of the feed file
+     */
+    public Path getFile() {
+        return file;
+    }
+}
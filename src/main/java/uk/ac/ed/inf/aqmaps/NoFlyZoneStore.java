@@ -0,0 +1,255 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The store of the no-fly zones which change during a mission: the buildings, which always
+ * hold, and the {@link TemporaryZone}s, which are fed in while the drones fly.
+ *
+ * <p>The store is copy-on-write. Each update builds a new {@link Snapshot}, with the
+ * {@link NoFlyZones} of every stretch of the mission over which the same temporary zones
+ * hold, and publishes it with a single write. The drones read the current snapshot without
+ * locking before each move, so building the zones never holds up a flight; updates only
+ * wait for each other. Stretches with the same zones share one instance, also with the
+ * previous snapshot, so a drone can tell the zones changed by comparing references, and an
+ * update which leaves the zones of a stretch as they were does not make the drones replan.</p>
+ */
+public class NoFlyZoneStore {
+
+    /**
+     * The no-fly zones which always hold.
+     */
+    private final NoFlyZones buildings;
+    /**
+     * The current snapshot.
+     */
+    private final AtomicReference<Snapshot> current;
+
+    /**
+     * Instantiates a new No fly zone store with no temporary zones.
+     *
+     * @param buildings the no-fly zones which always hold
+     */
+    public NoFlyZoneStore(NoFlyZones buildings) {
+        super();
+        this.buildings = buildings;
+        this.current = new AtomicReference<>(new Snapshot(0, List.of(), new int[]{0}, new NoFlyZones[]{buildings},
+                Map.of(Set.of(), buildings)));
+    }
+
+    /**
+     * Gets the current snapshot, without locking.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * Gets the no-fly zones of the current snapshot after a number of moves, without locking.
+     *
+     * @param move the number of moves made
+     * @return the no-fly zones
+     */
+    public NoFlyZones zonesAt(int move) {
+        return current.get().zonesAt(move);
+    }
+
+    /**
+     * Adds a temporary zone, replacing the one of the same name if there is one.
+     *
+     * @param zone the temporary zone
+     * @return the version of the new snapshot
+     */
+    public synchronized long add(TemporaryZone zone) {
+        var zones = new ArrayList<TemporaryZone>();
+        for (TemporaryZone other : current.get().getTemporaryZones()) {
+            if (!other.getName().equals(zone.getName())) {
+                zones.add(other);
+            }
+        }
+        zones.add(zone);
+        return publish(zones);
+    }
+
+    /**
+     * Removes the temporary zone of a name, if there is one.
+     *
+     * @param name the name of the temporary zone
+     * @return the version of the new snapshot
+     */
+    public synchronized long remove(String name) {
+        var zones = new ArrayList<TemporaryZone>();
+        for (TemporaryZone other : current.get().getTemporaryZones()) {
+            if (!other.getName().equals(name)) {
+                zones.add(other);
+            }
+        }
+        return publish(zones);
+    }
+
+    /**
+     * Replaces all the temporary zones, e.g. with the ones read again from a feed.
+     *
+     * @param zones the temporary zones
+     * @return the version of the new snapshot
+     */
+    public synchronized long replaceAll(List<TemporaryZone> zones) {
+        return publish(new ArrayList<>(zones));
+    }
+
+    /**
+     * Builds the snapshot of a list of temporary zones and makes it the current one. The
+     * mission is cut into stretches at every move a temporary zone starts or ends at, and each
+     * set of zones holding over a stretch gets its no-fly zones built once, unless the current
+     * snapshot already has the no-fly zones of the same polygons.
+     *
+     * @param zones the temporary zones
+     * @return the version of the new snapshot
+     */
+    private long publish(List<TemporaryZone> zones) {
+        var cuts = new TreeSet<Integer>();
+        cuts.add(0);
+        for (TemporaryZone zone : zones) {
+            cuts.add(zone.getFrom());
+            if (zone.getUntil() != TemporaryZone.FOREVER) {
+                cuts.add(zone.getUntil());
+            }
+        }
+
+        var previous = current.get();
+        var starts = new int[cuts.size()];
+        var stretches = new NoFlyZones[cuts.size()];
+        var built = new HashMap<Set<List<Point2D>>, NoFlyZones>();
+        var i = 0;
+        for (int start : cuts) {
+            // a feed read again has new zone objects, so the zones are told apart by their polygons
+            var holding = new HashSet<List<Point2D>>();
+            for (TemporaryZone zone : zones) {
+                if (zone.holdsAt(start)) {
+                    holding.add(zone.getPolygon());
+                }
+            }
+            starts[i] = start;
+            stretches[i++] = built.computeIfAbsent(Set.copyOf(holding), h -> {
+                var same = previous.built.get(h);
+                return same != null ? same : build(h);
+            });
+        }
+
+        var version = previous.getVersion() + 1;
+        current.set(new Snapshot(version, List.copyOf(zones), starts, stretches, built));
+        return version;
+    }
+
+    /**
+     * Builds the no-fly zones of the buildings and a set of temporary zones.
+     *
+     * @param holding the polygons of the temporary zones which hold
+     * @return the no-fly zones
+     */
+    private NoFlyZones build(Set<List<Point2D>> holding) {
+        if (holding.isEmpty()) {
+            return buildings;
+        }
+        var polygons = new ArrayList<List<Point2D>>(buildings.getPolygons());
+        polygons.addAll(holding);
+        return new NoFlyZones(polygons);
+    }
+
+    /**
+     * Gets buildings.
+     *
+     * @return the no-fly zones which always hold
+     */
+    public NoFlyZones getBuildings() {
+        return buildings;
+    }
+
+    /**
+     * The no-fly zones of a version of the store over the whole mission. Instances are immutable.
+     */
+    public static final class Snapshot {
+
+        /**
+         * The version of the store, which goes up with each update.
+         */
+        private final long version;
+        /**
+         * The temporary zones.
+         */
+        private final List<TemporaryZone> temporaryZones;
+        /**
+         * The number of moves made at the start of each stretch, in increasing order from 0.
+         */
+        private final int[] starts;
+        /**
+         * The no-fly zones of each stretch.
+         */
+        private final NoFlyZones[] stretches;
+        /**
+         * The no-fly zones of the stretches by the polygons of the temporary zones holding
+         * over them, which the next snapshot reuses.
+         */
+        private final Map<Set<List<Point2D>>, NoFlyZones> built;
+
+        /**
+         * Instantiates a new Snapshot.
+         *
+         * @param version        the version of the store
+         * @param temporaryZones the temporary zones
+         * @param starts         the number of moves made at the start of each stretch
+         * @param stretches      the no-fly zones of each stretch
+         * @param built          the no-fly zones of the stretches by the polygons of their temporary zones
+         */
+        private Snapshot(long version, List<TemporaryZone> temporaryZones, int[] starts, NoFlyZones[] stretches,
+                         Map<Set<List<Point2D>>, NoFlyZones> built) {
+            super();
+            this.version = version;
+            this.temporaryZones = temporaryZones;
+            this.starts = starts;
+            this.stretches = stretches;
+            this.built = built;
+        }
+
+        /**
+         * Gets the no-fly zones after a number of moves.
+         *
+         * @param move the number of moves made
+         * @return the no-fly zones
+         */
+        public NoFlyZones zonesAt(int move) {
+            var index = Arrays.binarySearch(starts, move);
+            // otherwise the insertion point is after the stretch the move is in
+            return stretches[index >= 0 ? index : Math.max(0, -index - 2)];
+        }
+
+        /**
+         * Gets version.
+         *
+         * @return the version of the store
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets temporary zones.
+         *
+         * @return the temporary zones, which cannot be changed
+         */
+        public List<TemporaryZone> getTemporaryZones() {
+            return temporaryZones;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The no-fly zones of the map, with the spatial index over their edges.
+ *
+ * <p>Instances are immutable: the polygons are copied when the zones are made and the
+ * {@link EdgeIndex} is never changed afterwards. One instance can therefore be shared by
+ * any number of drones and planners flying at the same time, without locking.</p>
+ */
+public final class NoFlyZones {
+
+    /**
+     * The map with no no-fly zones.
+     */
+    public static final NoFlyZones NONE = new NoFlyZones(List.of());
+
+    /**
+     * The list of lists of points defining the no-fly zones.
+     */
+    private final List<List<Point2D>> polygons;
+    /**
+     * The spatial index over the edges of the no-fly zones.
+     */
+    private final EdgeIndex edgeIndex;
+
+    /**
+     * Instantiates new No fly zones, copying the polygons.
+     *
+     * @param polygonPointsArr the list of lists of points defining the no-fly zones
+     */
+    public NoFlyZones(List<? extends List<Point2D>> polygonPointsArr) {
+        super();
+        var copies = new ArrayList<List<Point2D>>(polygonPointsArr.size());
+        for (List<Point2D> polygonPoints : polygonPointsArr) {
+            var copy = new ArrayList<Point2D>(polygonPoints.size());
+            for (Point2D point : polygonPoints) {
+                copy.add(new Point2D.Double(point.getX(), point.getY()));
+            }
+            copies.add(List.copyOf(copy));
+        }
+        this.polygons = List.copyOf(copies);
+        this.edgeIndex = new EdgeIndex(this.polygons);
+    }
+
+    /**
+     * This method checks if a line intersects with any of the no-fly zones.
+     * If it doesn't we return -1, else we find the slope of the line we intersected
+     * and return it.
+     *
+     * @param line the line
+     * @return the angle of new movement or -1
+     */
+    public int polygonLineIntersects(Line2D line) {
+        return polygonLineIntersects(line.getX1(), line.getY1(), line.getX2(), line.getY2());
+    }
+
+    /**
+     * This method checks if the line from (x1, y1) to (x2, y2) intersects with any of the
+     * no-fly zones. Only the edges near the line are tested, using the edge index.
+     *
+     * @param x1 the x coordinate of the start of the line
+     * @param y1 the y coordinate of the start of the line
+     * @param x2 the x coordinate of the end of the line
+     * @param y2 the y coordinate of the end of the line
+     * @return the angle of new movement or -1
+     */
+    public int polygonLineIntersects(double x1, double y1, double x2, double y2) {
+        var edge = edgeIndex.firstIntersectingEdge(x1, y1, x2, y2);
+        return edge == -1 ? -1 : edgeIndex.getEdgeAngle(edge);
+    }
+
+    /**
+     * Checks if the point (x, y) is inside any of the no-fly zones, by counting the polygon
+     * sides a ray from the point crosses.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return true if inside a no-fly zone else false
+     */
+    public boolean contains(double x, double y) {
+        for (List<Point2D> polygonPoints : polygons) {
+            var inside = false;
+            var n = polygonPoints.size();
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                var pi = polygonPoints.get(i);
+                var pj = polygonPoints.get(j);
+                if ((pi.getY() > y) != (pj.getY() > y)
+                        && x < (pj.getX() - pi.getX()) * (y - pi.getY()) / (pj.getY() - pi.getY()) + pi.getX()) {
+                    inside = !inside;
+                }
+            }
+            if (inside) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the distance from the point (x, y) to the closest side of any no-fly zone.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return the distance, infinity if there are no no-fly zones
+     */
+    public double distanceToSides(double x, double y) {
+        var best = Double.POSITIVE_INFINITY;
+        for (List<Point2D> polygonPoints : polygons) {
+            var n = polygonPoints.size();
+            for (int i = 0, j = n - 1; i < n; j = i++) {
+                var pi = polygonPoints.get(i);
+                var pj = polygonPoints.get(j);
+                best = Math.min(best, Line2D.ptSegDist(pi.getX(), pi.getY(), pj.getX(), pj.getY(), x, y));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the points just outside the corners of the no-fly zones, which are the turning
+     * points of the shortest paths around them. Each corner is moved by the clearance along
+     * the bisector of its two sides, away from the zone; corners which end up inside a zone
+     * or outside the play area are left out.
+     *
+     * @param clearance the distance between a corner and its point
+     * @param playArea  the play area
+     * @return the list of points
+     */
+    public ArrayList<Point2D> corners(double clearance, PlayArea playArea) {
+        var corners = new ArrayList<Point2D>();
+        for (List<Point2D> polygonPoints : polygons) {
+            var n = polygonPoints.size();
+            // GeoJSON rings repeat the first point at the end
+            if (n > 1 && polygonPoints.get(0).equals(polygonPoints.get(n - 1))) {
+                n--;
+            }
+            for (int i = 0; i < n; i++) {
+                var prev = polygonPoints.get((i + n - 1) % n);
+                var corner = polygonPoints.get(i);
+                var next = polygonPoints.get((i + 1) % n);
+                var lenPrev = GeometryHelpers.distance(prev.getX(), prev.getY(), corner.getX(), corner.getY());
+                var lenNext = GeometryHelpers.distance(next.getX(), next.getY(), corner.getX(), corner.getY());
+                if (lenPrev == 0 || lenNext == 0) {
+                    continue;
+                }
+                var bisectorX = (corner.getX() - prev.getX()) / lenPrev + (corner.getX() - next.getX()) / lenNext;
+                var bisectorY = (corner.getY() - prev.getY()) / lenPrev + (corner.getY() - next.getY()) / lenNext;
+                var length = Math.sqrt(bisectorX * bisectorX + bisectorY * bisectorY);
+                if (length == 0) {
+                    continue;
+                }
+                // the bisector points out of convex corners and into reflex ones, so try both ways
+                for (int sign = 1; sign >= -1; sign -= 2) {
+                    var x = corner.getX() + sign * clearance * bisectorX / length;
+                    var y = corner.getY() + sign * clearance * bisectorY / length;
+                    if (playArea.contains(x, y) && !contains(x, y)) {
+                        corners.add(new Point2D.Double(x, y));
+                        break;
+                    }
+                }
+            }
+        }
+        return corners;
+    }
+
+    /**
+     * Gets the polygons. The lists cannot be changed, and their points must not be.
+     *
+     * @return the list of lists of points defining the no-fly zones
+     */
+    public List<List<Point2D>> getPolygons() {
+        return polygons;
+    }
+}
@@ -0,0 +1,34 @@
+package uk.ac.ed.inf.aqmaps;
+
+/**
+ * The {@link FlightLog} which discards every move, for benchmarks and runs that
+ * only need the GeoJSON map or the mission summary.
+ */
+public class NoOpFlightLog implements FlightLog {
+
+    /**
+     * The shared instance, as the log has no state.
+     */
+    public static final NoOpFlightLog INSTANCE = new NoOpFlightLog();
+
+    /**
+     * Instantiates a new no-op flight log. Use {@link #INSTANCE} instead.
+     */
+    private NoOpFlightLog() {
+        super();
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void logMove(int moveNumber, double prevX, double prevY, int moveAngle, double x, double y, String location) {
+    }
+
+    /**
+     * Does nothing.
+     */
+    @Override
+    public void close() {
+    }
+}
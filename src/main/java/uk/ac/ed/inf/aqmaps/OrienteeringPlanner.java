@@ -0,0 +1,336 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The planner which chooses the sensors worth reading most within the moves the drone has,
+ * and the order to read them in, before it ends the flight where it has to, i.e. it solves
+ * the orienteering problem over the moves of a {@link DistanceMatrix}.
+ *
+ * <p>A path is grown by cheapest insertion, always adding the sensor worth the most per move
+ * it adds while the moves fit, and shortened with 2-opt and Or-opt moves on the directed
+ * moves, which make room for more sensors. It is then perturbed many times, dropping a few
+ * sensors at random and growing the path again, and the best path found is kept. The same
+ * seed always gives the same path.</p>
+ */
+public class OrienteeringPlanner {
+
+    /**
+     * The number of times the best path is perturbed.
+     */
+    private static final int PERTURBATIONS = 150;
+    /**
+     * The most sensors dropped by a perturbation.
+     */
+    private static final int MAX_DROPPED = 3;
+
+    /**
+     * The moves between the nodes.
+     */
+    private final DistanceMatrix matrix;
+    /**
+     * The value of each node, indexed like the matrix.
+     */
+    private final double[] values;
+    /**
+     * The random number generator of the perturbations.
+     */
+    private final Random random;
+
+    /**
+     * Instantiates a new Orienteering planner.
+     *
+     * @param matrix the moves between the nodes
+     * @param values the value of reading each node, indexed like the matrix
+     * @param seed   the seed of the perturbations
+     */
+    public OrienteeringPlanner(DistanceMatrix matrix, double[] values, long seed) {
+        super();
+        if (values.length != matrix.getSize()) {
+            throw new IllegalArgumentException("There must be a value for each node of the distance matrix.");
+        }
+        this.matrix = matrix;
+        this.values = values;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Plans the path from one node to another which reads the candidates worth the most
+     * within the moves.
+     *
+     * @param start      the node the path starts at
+     * @param end        the node the path has to end at
+     * @param candidates the nodes which can be read, apart from the start and the end
+     * @param budget     the moves the path can take
+     * @return the nodes to read in order, without the start and the end, empty if there is
+     *         no way to the end within the moves
+     */
+    public int[] plan(int start, int end, int[] candidates, int budget) {
+        if (matrix.moves(start, end) > budget) {
+            return new int[0];
+        }
+        var path = new int[candidates.length + 2];
+        path[0] = start;
+        path[1] = end;
+        var best = grow(path, 2, candidates, budget);
+        var bestPath = Arrays.copyOf(path, best);
+        var bestValue = value(bestPath, best);
+        var bestMoves = moves(bestPath, best);
+
+        var trial = new int[path.length];
+        for (int p = 0; p < PERTURBATIONS && best > 2; p++) {
+            System.arraycopy(bestPath, 0, trial, 0, best);
+            var length = best;
+            var dropped = 1 + random.nextInt(Math.min(MAX_DROPPED, length - 2));
+            for (int d = 0; d < dropped; d++) {
+                length = remove(trial, length, 1 + random.nextInt(length - 2));
+            }
+            length = grow(trial, length, candidates, budget);
+            var trialValue = value(trial, length);
+            var trialMoves = moves(trial, length);
+            if (trialValue > bestValue || (trialValue == bestValue && trialMoves < bestMoves)) {
+                bestPath = Arrays.copyOf(trial, length);
+                best = length;
+                bestValue = trialValue;
+                bestMoves = trialMoves;
+            }
+        }
+        return Arrays.copyOfRange(bestPath, 1, best - 1);
+    }
+
+    /**
+     * Gets the moves of a path.
+     *
+     * @param path   the nodes of the path, in order
+     * @param length the number of nodes
+     * @return the moves, or {@link DistanceMatrix#UNREACHABLE} if a leg cannot be flown
+     */
+    public int moves(int[] path, int length) {
+        long total = 0;
+        for (int i = 0; i + 1 < length; i++) {
+            var leg = matrix.moves(path[i], path[i + 1]);
+            if (leg == DistanceMatrix.UNREACHABLE) {
+                return DistanceMatrix.UNREACHABLE;
+            }
+            total += leg;
+        }
+        return (int) Math.min(total, DistanceMatrix.UNREACHABLE);
+    }
+
+    /**
+     * Finds the cheapest way to add a node to a path.
+     *
+     * @param path   the nodes of the path, in order
+     * @param length the number of nodes
+     * @param node   the node to add
+     * @return the moves the node adds at the best position, and the position, packed as
+     *         moves * 2^32 + position, or {@link Long#MAX_VALUE} if the node cannot be reached
+     */
+    public long cheapestInsertion(int[] path, int length, int node) {
+        var best = Long.MAX_VALUE;
+        for (int i = 1; i < length; i++) {
+            var there = matrix.moves(path[i - 1], node);
+            var back = matrix.moves(node, path[i]);
+            var skipped = matrix.moves(path[i - 1], path[i]);
+            if (there == DistanceMatrix.UNREACHABLE || back == DistanceMatrix.UNREACHABLE
+                    || skipped == DistanceMatrix.UNREACHABLE) {
+                continue;
+            }
+            // the moves can come down a little, since legs only have to get near the sensors
+            var added = Math.max(0, there + back - skipped);
+            var packed = ((long) added << 32) | i;
+            if (packed < best) {
+                best = packed;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds candidates to a path while they fit in the moves, and shortens it between additions.
+     *
+     * @param path       the nodes of the path, in order, with room for every candidate
+     * @param length     the number of nodes
+     * @param candidates the nodes which can be added
+     * @param budget     the moves the path can take
+     * @return the new number of nodes
+     */
+    private int grow(int[] path, int length, int[] candidates, int budget) {
+        improve(path, length);
+        var moves = moves(path, length);
+        while (moves <= budget) {
+            var bestNode = -1;
+            var bestPosition = -1;
+            var bestRatio = -1.0;
+            var bestAdded = 0;
+            for (int node : candidates) {
+                if (contains(path, length, node)) {
+                    continue;
+                }
+                var insertion = cheapestInsertion(path, length, node);
+                if (insertion == Long.MAX_VALUE) {
+                    continue;
+                }
+                var added = (int) (insertion >>> 32);
+                if (moves + added > budget) {
+                    continue;
+                }
+                // a move more than the added ones, so that free sensors still go by their value
+                var ratio = values[node] / (added + 1);
+                if (ratio > bestRatio || (ratio == bestRatio && added < bestAdded)) {
+                    bestNode = node;
+                    bestPosition = (int) insertion;
+                    bestRatio = ratio;
+                    bestAdded = added;
+                }
+            }
+            if (bestNode == -1) {
+                break;
+            }
+            System.arraycopy(path, bestPosition, path, bestPosition + 1, length - bestPosition);
+            path[bestPosition] = bestNode;
+            length++;
+            improve(path, length);
+            moves = moves(path, length);
+        }
+        return length;
+    }
+
+    /**
+     * Shortens a path with 2-opt, reversing a stretch of it, and Or-opt, moving a node to
+     * another place in it, until neither makes it shorter. The ends stay where they are. The
+     * moves of a stretch both ways are kept as prefix sums, so each try takes constant time.
+     *
+     * @param path   the nodes of the path, in order, changed in place
+     * @param length the number of nodes
+     */
+    private void improve(int[] path, int length) {
+        var forward = new long[length];
+        var backward = new long[length];
+        var improved = true;
+        while (improved) {
+            improved = false;
+            // forward[k] and backward[k] are the moves of path[0..k] flown forwards and backwards
+            for (int k = 1; k < length; k++) {
+                forward[k] = forward[k - 1] + leg(path[k - 1], path[k]);
+                backward[k] = backward[k - 1] + leg(path[k], path[k - 1]);
+            }
+            for (int i = 1; i < length - 2 && !improved; i++) {
+                for (int j = i + 1; j < length - 1; j++) {
+                    var before = leg(path[i - 1], path[i]) + forward[j] - forward[i] + leg(path[j], path[j + 1]);
+                    var after = leg(path[i - 1], path[j]) + backward[j] - backward[i] + leg(path[i], path[j + 1]);
+                    if (after < before) {
+                        reverse(path, i, j);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+            for (int i = 1; i < length - 1 && !improved; i++) {
+                var node = path[i];
+                var gain = leg(path[i - 1], node) + leg(node, path[i + 1]) - leg(path[i - 1], path[i + 1]);
+                // between path[k - 1] and path[k] once the node is taken out
+                for (int k = 1; k < length; k++) {
+                    if (k == i || k == i + 1) {
+                        continue;
+                    }
+                    if (leg(path[k - 1], node) + leg(node, path[k]) - leg(path[k - 1], path[k]) < gain) {
+                        move(path, i, k < i ? k : k - 1);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the moves of a leg, the ones of a leg which cannot be flown counting as many more
+     * than any path.
+     *
+     * @param from the node the leg starts at
+     * @param to   the node the leg leads to
+     * @return the moves
+     */
+    private long leg(int from, int to) {
+        return matrix.moves(from, to);
+    }
+
+    /**
+     * Adds up the values of the nodes of a path, apart from the ends.
+     *
+     * @param path   the nodes of the path, in order
+     * @param length the number of nodes
+     * @return the value of the path
+     */
+    private double value(int[] path, int length) {
+        var total = 0.0;
+        for (int i = 1; i < length - 1; i++) {
+            total += values[path[i]];
+        }
+        return total;
+    }
+
+    /**
+     * Checks if a path has a node.
+     *
+     * @param path   the nodes of the path
+     * @param length the number of nodes
+     * @param node   the node
+     * @return true if the path has the node else false
+     */
+    private static boolean contains(int[] path, int length, int node) {
+        for (int i = 0; i < length; i++) {
+            if (path[i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the node at a position of a path.
+     *
+     * @param path     the nodes of the path, changed in place
+     * @param length   the number of nodes
+     * @param position the position of the node
+     * @return the new number of nodes
+     */
+    private static int remove(int[] path, int length, int position) {
+        System.arraycopy(path, position + 1, path, position, length - position - 1);
+        return length - 1;
+    }
+
+    /**
+     * Moves the node at one position of a path to another, shifting the nodes between.
+     *
+     * @param path the nodes of the path, changed in place
+     * @param from the position of the node
+     * @param to   the position it ends up at
+     */
+    private static void move(int[] path, int from, int to) {
+        var node = path[from];
+        if (from < to) {
+            System.arraycopy(path, from + 1, path, from, to - from);
+        } else {
+            System.arraycopy(path, to, path, to + 1, from - to);
+        }
+        path[to] = node;
+    }
+
+    /**
+     * Reverses path[i..j] in place.
+     *
+     * @param path the nodes of the path
+     * @param i    the first position
+     * @param j    the last position
+     */
+    private static void reverse(int[] path, int i, int j) {
+        while (i < j) {
+            var temp = path[i];
+            path[i++] = path[j];
+            path[j--] = temp;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+/**
+ * The planner which finds the shortest sequence of legal drone moves from a position to a
+ * target, going round a set of {@link NoFlyZones}.
+ *
+ * <p>It runs A* over the lattice of positions the drone can reach with the moves of its
+ * {@link Headings}, where every move costs one. A move is legal if it does not cross a
+ * no-fly zone and ends in the play area, the same checks the drone makes. Positions closer
+ * than a tenth of a step are treated as the same node, which keeps the search small while
+ * the planned moves are still replayed exactly by the drone. The heuristic is the distance
+ * round the no-fly zones given by a {@link VisibilityGraph}, in moves.</p>
+ */
+public class PathPlanner {
+
+    /**
+     * The number of nodes per step length along each axis, used to merge nearby positions.
+     */
+    private static final int CELLS_PER_STEP = 10;
+    /**
+     * The maximum number of nodes expanded before the search gives up.
+     */
+    private static final int MAX_EXPANSIONS = 50_000;
+
+    /**
+     * The headings of the drone.
+     */
+    private final Headings headings;
+    /**
+     * The no-fly zones.
+     */
+    private final NoFlyZones noFlyZones;
+    /**
+     * The play area.
+     */
+    private final PlayArea playArea;
+    /**
+     * The visibility graph of the no-fly zones.
+     */
+    private final VisibilityGraph visibilityGraph;
+    /**
+     * The side of the square a node stands for.
+     */
+    private final double cellSize;
+
+    /**
+     * Instantiates a new Path planner.
+     *
+     * @param headings   the headings of the drone
+     * @param noFlyZones the no-fly zones
+     * @param playArea   the play area
+     */
+    public PathPlanner(Headings headings, NoFlyZones noFlyZones, PlayArea playArea) {
+        this(headings, noFlyZones, playArea, new VisibilityGraph(noFlyZones, playArea));
+    }
+
+    /**
+     * Instantiates a new Path planner.
+     *
+     * @param headings        the headings of the drone
+     * @param noFlyZones      the no-fly zones
+     * @param playArea        the play area
+     * @param visibilityGraph the visibility graph of the no-fly zones
+     */
+    public PathPlanner(Headings headings, NoFlyZones noFlyZones, PlayArea playArea, VisibilityGraph visibilityGraph) {
+        super();
+        this.headings = headings;
+        this.noFlyZones = noFlyZones;
+        this.playArea = playArea;
+        this.visibilityGraph = visibilityGraph;
+        this.cellSize = headings.getStepLength() / CELLS_PER_STEP;
+    }
+
+    /**
+     * Finds the shortest sequence of moves which ends closer than the goal radius to the target.
+     * At least one move is made, since the drone only takes readings after a move.
+     *
+     * @param startX     the x coordinate of the drone
+     * @param startY     the y coordinate of the drone
+     * @param targetX    the x coordinate of the target
+     * @param targetY    the y coordinate of the target
+     * @param goalRadius the distance to the target the drone has to get within
+     * @param maxMoves   the maximum number of moves
+     * @return the movement angles of the moves, or null if there is no such sequence
+     */
+    public int[] findPath(double startX, double startY, double targetX, double targetY, double goalRadius, int maxMoves) {
+        if (noFlyZones.contains(targetX, targetY)
+                && noFlyZones.distanceToSides(targetX, targetY) >= goalRadius) {
+            // the whole goal is inside a no-fly zone, which would only be found by searching the whole map
+            return null;
+        }
+        var distances = visibilityGraph.distancesTo(targetX, targetY);
+        var open = new PriorityQueue<Node>();
+        var closed = new HashSet<Long>();
+        var created = 0;
+        open.add(new Node(startX, startY, 0, heuristic(startX, startY, targetX, targetY, goalRadius, distances),
+                -1, null, created++));
+
+        var expansions = 0;
+        while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+            var node = open.poll();
+            if (node.moves > 0 && GeometryHelpers.distance(node.x, node.y, targetX, targetY) < goalRadius) {
+                return angles(node);
+            }
+            // the start is never merged, so a target next to it can still be reached by moving away and back
+            if (node.moves > 0 && !closed.add(key(node.x, node.y))) {
+                continue;
+            }
+            expansions++;
+            if (node.moves == maxMoves) {
+                continue;
+            }
+            for (int i = 0; i < headings.count(); i++) {
+                var angle = headings.angle(i);
+                // the same sum as the drone, so that the planned positions are exactly where it flies
+                var x = node.x + headings.dx(angle);
+                var y = node.y + headings.dy(angle);
+                if (!playArea.contains(x, y)
+                        || closed.contains(key(x, y))
+                        || noFlyZones.polygonLineIntersects(node.x, node.y, x, y) != -1) {
+                    continue;
+                }
+                var h = heuristic(x, y, targetX, targetY, goalRadius, distances);
+                if (node.moves + 1 + h > maxMoves) {
+                    continue;
+                }
+                open.add(new Node(x, y, node.moves + 1, h, angle, node, created++));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Estimates the number of moves from a position to within the goal radius of the target.
+     *
+     * @param x          the x coordinate of the position
+     * @param y          the y coordinate of the position
+     * @param targetX    the x coordinate of the target
+     * @param targetY    the y coordinate of the target
+     * @param goalRadius the distance to the target the drone has to get within
+     * @param distances  the distances of the corners of the visibility graph to the target
+     * @return the estimated number of moves
+     */
+    private double heuristic(double x, double y, double targetX, double targetY, double goalRadius, double[] distances) {
+        var distance = visibilityGraph.estimate(x, y, targetX, targetY, distances);
+        return Math.max(0, distance - goalRadius) / headings.getStepLength();
+    }
+
+    /**
+     * Finds the key of the node a position belongs to.
+     *
+     * @param x the x coordinate of the position
+     * @param y the y coordinate of the position
+     * @return the key
+     */
+    private long key(double x, double y) {
+        return (Math.round(x / cellSize) << 32) ^ (Math.round(y / cellSize) & 0xffffffffL);
+    }
+
+    /**
+     * Walks back from a node to the start and collects the movement angles.
+     *
+     * @param node the last node
+     * @return the movement angles, first move first
+     */
+    private static int[] angles(Node node) {
+        var stack = new ArrayDeque<Integer>();
+        for (var current = node; current.parent != null; current = current.parent) {
+            stack.push(current.angle);
+        }
+        var angles = new int[stack.size()];
+        for (int i = 0; i < angles.length; i++) {
+            angles[i] = stack.pop();
+        }
+        return angles;
+    }
+
+    /**
+     * A position in the search, with the way it was reached.
+     */
+    private static class Node implements Comparable<Node> {
+        /**
+         * The x coordinate.
+         */
+        private final double x;
+        /**
+         * The y coordinate.
+         */
+        private final double y;
+        /**
+         * The number of moves from the start.
+         */
+        private final int moves;
+        /**
+         * The estimated number of moves to the target.
+         */
+        private final double estimate;
+        /**
+         * The angle of the move which reached this node, -1 for the start.
+         */
+        private final int angle;
+        /**
+         * The node this one was reached from, null for the start.
+         */
+        private final Node parent;
+        /**
+         * The creation order, which breaks the remaining ties so that the search is deterministic.
+         */
+        private final int order;
+
+        /**
+         * Instantiates a new Node.
+         *
+         * @param x        the x coordinate
+         * @param y        the y coordinate
+         * @param moves    the number of moves from the start
+         * @param estimate the estimated number of moves to the target
+         * @param angle    the angle of the move which reached this node
+         * @param parent   the node this one was reached from
+         * @param order    the creation order
+         */
+        private Node(double x, double y, int moves, double estimate, int angle, Node parent, int order) {
+            this.x = x;
+            this.y = y;
+            this.moves = moves;
+            this.estimate = estimate;
+            this.angle = angle;
+            this.parent = parent;
+            this.order = order;
+        }
+
+        /**
+         * Orders nodes by estimated total moves, then by estimated moves left, then by creation.
+         */
+        @Override
+        public int compareTo(Node other) {
+            var byTotal = Double.compare(moves + estimate, other.moves + other.estimate);
+            if (byTotal != 0) {
+                return byTotal;
+            }
+            var byEstimate = Double.compare(estimate, other.estimate);
+            return byEstimate != 0 ? byEstimate : Integer.compare(order, other.order);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+
+/**
+ * The rectangular area the drone has to stay inside, given by its bounding latitudes and
+ * longitudes. Points on the boundary are outside.
+ */
+public final class PlayArea {
+
+    /**
+     * The play area of the University of Edinburgh central area.
+     */
+    public static final PlayArea DEFAULT = new PlayArea(55.946233, 55.942617, -3.184319, -3.192473);
+
+    /**
+     * The north bound latitude.
+     */
+    private final double northLat;
+    /**
+     * The south bound latitude.
+     */
+    private final double southLat;
+    /**
+     * The east bound longitude.
+     */
+    private final double eastLng;
+    /**
+     * The west bound longitude.
+     */
+    private final double westLng;
+
+    /**
+     * Instantiates a new Play area.
+     *
+     * @param northLat the north bound latitude
+     * @param southLat the south bound latitude
+     * @param eastLng  the east bound longitude
+     * @param westLng  the west bound longitude
+     */
+    public PlayArea(double northLat, double southLat, double eastLng, double westLng) {
+        super();
+        if (!(northLat > southLat) || !(eastLng > westLng)) {
+            throw new IllegalArgumentException("The play area must have north above south and east of west.");
+        }
+        this.northLat = northLat;
+        this.southLat = southLat;
+        this.eastLng = eastLng;
+        this.westLng = westLng;
+    }
+
+    /**
+     * Parses a play area given as NORTH_LAT,SOUTH_LAT,EAST_LNG,WEST_LNG.
+     *
+     * @param bounds the bounds
+     * @return the play area
+     * @throws IllegalArgumentException if the bounds are not four numbers of a valid area
+     */
+    public static PlayArea parse(String bounds) {
+        var fields = bounds.split(",");
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Invalid play area " + bounds + ", expected NORTH,SOUTH,EAST,WEST.");
+        }
+        return new PlayArea(Double.parseDouble(fields[0].trim()), Double.parseDouble(fields[1].trim()),
+                Double.parseDouble(fields[2].trim()), Double.parseDouble(fields[3].trim()));
+    }
+
+    /**
+     * This method checks if a point is in the play area.
+     *
+     * @param targetCoords the point to check
+     * @return true if inside else false
+     */
+    public boolean contains(Point2D targetCoords) {
+        return contains(targetCoords.getX(), targetCoords.getY());
+    }
+
+    /**
+     * This method checks if the point (x, y) is in the play area.
+     *
+     * @param x the x coordinate (longitude) of the point
+     * @param y the y coordinate (latitude) of the point
+     * @return true if inside else false
+     */
+    public boolean contains(double x, double y) {
+        return (y > southLat
+                && y < northLat
+                && x < eastLng
+                && x > westLng);
+    }
+
+    /**
+     * Gets north lat.
+     *
+     * @return the north lat
+     */
+    public double getNorthLat() {
+        return northLat;
+    }
+
+    /**
+     * Gets south lat.
+     *
+     * @return the south lat
+     */
+    public double getSouthLat() {
+        return southLat;
+    }
+
+    /**
+     * Gets east lng.
+     *
+     * @return the east lng
+     */
+    public double getEastLng() {
+        return eastLng;
+    }
+
+    /**
+     * Gets west lng.
+     *
+     * @return the west lng
+     */
+    public double getWestLng() {
+        return westLng;
+    }
+}
@@ -0,0 +1,166 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used, in-memory cache of web resources. Each entry keeps the
+ * validators the server sent with it (ETag and Last-Modified), so that {@link WebRequests}
+ * can revalidate it with a conditional GET instead of downloading and parsing it again.
+ *
+ * @param <T> the type of the parsed resource
+ */
+public class ResourceCache<T> {
+
+    /**
+     * The maximum number of cached resources.
+     */
+    private final int maxEntries;
+    /**
+     * The cached resources in least recently used order.
+     */
+    private final LinkedHashMap<URI, Entry<T>> entries;
+
+    /**
+     * Instantiates a new Resource cache.
+     *
+     * @param maxEntries the maximum number of cached resources
+     */
+    public ResourceCache(int maxEntries) {
+        super();
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one entry.");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<URI, ResourceCache.Entry<T>> eldest) {
+                return size() > ResourceCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the cached entry of a resource.
+     *
+     * @param uri the uri of the resource
+     * @return the entry or null if it is not cached
+     */
+    public synchronized Entry<T> get(URI uri) {
+        return entries.get(uri);
+    }
+
+    /**
+     * Caches a resource, evicting the least recently used one if the cache is full.
+     *
+     * @param uri   the uri of the resource
+     * @param entry the entry
+     */
+    public synchronized void put(URI uri, Entry<T> entry) {
+        entries.put(uri, entry);
+    }
+
+    /**
+     * Removes every cached resource.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of cached resources.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets max entries.
+     *
+     * @return the max entries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * A cached resource with its validators.
+     *
+     * @param <T> the type of the parsed resource
+     */
+    public static class Entry<T> {
+        /**
+         * The ETag header of the response, or null.
+         */
+        private final String etag;
+        /**
+         * The Last-Modified header of the response, or null.
+         */
+        private final String lastModified;
+        /**
+         * The body of the response.
+         */
+        private final String body;
+        /**
+         * The parsed body.
+         */
+        private final T value;
+
+        /**
+         * Instantiates a new Entry.
+         *
+         * @param etag         the ETag header or null
+         * @param lastModified the Last-Modified header or null
+         * @param body         the body
+         * @param value        the parsed body
+         */
+        public Entry(String etag, String lastModified, String body, T value) {
+            super();
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+            this.value = value;
+        }
+
+        /**
+         * Gets etag.
+         *
+         * @return the etag
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * Gets last modified.
+         *
+         * @return the last modified
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets body.
+         *
+         * @return the body
+         */
+        public String getBody() {
+            return body;
+        }
+
+        /**
+         * Gets value.
+         *
+         * @return the value
+         */
+        public T getValue() {
+            return value;
+        }
+    }
+}
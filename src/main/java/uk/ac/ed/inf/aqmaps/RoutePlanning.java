@@ -0,0 +1,34 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.Locale;
+
+/**
+ * The ways the drone can choose the order it visits the sensors in.
+ */
+public enum RoutePlanning {
+    /**
+     * Always fly to the nearest unvisited sensor.
+     */
+    GREEDY,
+    /**
+     * Plan a short tour of all the sensors before take off, see {@link TourPlanner}.
+     */
+    TOUR,
+    /**
+     * Plan which sensors to read within the moves of the drone, and in what order, so that
+     * the ones read are worth the most when not all can be, see {@link OrienteeringPlanner}.
+     * The plan is made again as the drone flies if the moves do not go as planned.
+     */
+    ORIENTEERING;
+
+    /**
+     * Parses a route planning name, ignoring case.
+     *
+     * @param name the name, e.g. "tour"
+     * @return the route planning
+     * @throws IllegalArgumentException if there is no route planning with that name
+     */
+    public static RoutePlanning parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
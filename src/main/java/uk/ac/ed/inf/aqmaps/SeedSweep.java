@@ -0,0 +1,265 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.mapbox.geojson.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The sweep which flies the same day with several random state seeds in parallel and picks
+ * the best flight.
+ *
+ * <p>The seeds are the mission seed and the ones following it. Every run gets its own copies
+ * of the sensors, since the drone marks them as visited, while the no-fly zones are shared.
+ * Runs log to a {@link MemoryFlightLog}, and the flight path and moves of the winning run are
+ * kept, so that they can be written as they were flown rather than flying the winner again,
+ * which could give another flight once a {@link NoFlyZoneFeed} has changed the zones.</p>
+ *
+ * <p>The best flight reads the most sensors, then returns to the starting position, then
+ * uses the fewest moves. The lowest seed wins any remaining tie, so a sweep is repeatable.</p>
+ */
+public class SeedSweep {
+
+    /**
+     * The daemon threads flying the runs of every sweep. Unlike the common fork join pool
+     * they are interrupted when a run is cancelled, which lands the drone.
+     */
+    private static final ExecutorService runners = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), runnable -> {
+                var thread = new Thread(runnable, "seed-sweep-runner");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * The executor the runs are flown on.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Instantiates a new Seed sweep flying on the shared runner threads.
+     */
+    public SeedSweep() {
+        this(runners);
+    }
+
+    /**
+     * Instantiates a new Seed sweep.
+     *
+     * @param executor the executor the runs are flown on, whose threads must stop a run when
+     *                 they are interrupted
+     */
+    public SeedSweep(ExecutorService executor) {
+        super();
+        this.executor = executor;
+    }
+
+    /**
+     * Flies the day once for each seed and finds the best flight. If the sweep is interrupted
+     * the runs still flying are cancelled, and the best of the finished runs is kept.
+     *
+     * @param sensors     the sensors of the day, which are not changed
+     * @param noFlyZones  the no-fly zones on the map
+     * @param settings    the settings of the mission, the seed being the first one tried
+     * @param seeds       the number of seeds to try
+     * @return the best run, or null if the sweep was interrupted before any run finished
+     */
+    public Run findBest(List<Sensor> sensors, NoFlyZones noFlyZones,
+                        MissionSettings settings, int seeds) {
+        var runs = new ArrayList<Future<Run>>(seeds);
+        for (int i = 0; i < seeds; i++) {
+            var seed = settings.getRandomState() + i;
+            runs.add(executor.submit(() -> fly(seed, sensors, noFlyZones, settings)));
+        }
+
+        Run best = null;
+        for (Future<Run> future : runs) {
+            Run run;
+            try {
+                run = future.get();
+            } catch (InterruptedException e) {
+                // the mission was cancelled, land the runs still flying and keep what has been flown
+                Thread.currentThread().interrupt();
+                runs.forEach(remaining -> remaining.cancel(true));
+                break;
+            } catch (CancellationException e) {
+                continue;
+            } catch (ExecutionException e) {
+                runs.forEach(remaining -> remaining.cancel(true));
+                throw new IllegalStateException("A run of the seed sweep failed.", e.getCause());
+            }
+            if (best == null || run.isBetterThan(best)) {
+                best = run;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Flies the day with a seed, without writing anything.
+     *
+     * @param seed        the random state seed
+     * @param sensors     the sensors of the day, copied for the run
+     * @param noFlyZones  the no-fly zones on the map
+     * @param settings    the settings of the mission
+     * @return the outcome of the run
+     */
+    private static Run fly(int seed, List<Sensor> sensors, NoFlyZones noFlyZones,
+                           MissionSettings settings) {
+        var copies = new ArrayList<Sensor>(sensors.size());
+        for (Sensor sensor : sensors) {
+            var copy = new Sensor(sensor.getLocation(), sensor.getBattery(), sensor.getReading());
+            copy.setCoord(sensor.getCoord());
+            copy.setLastKnown(sensor.getLastKnown());
+            copies.add(copy);
+        }
+        var flightLog = new MemoryFlightLog();
+        var drone = settings.newDrone(seed, copies, noFlyZones, settings.getStartingPosition(), flightLog);
+        var movementPoints = drone.collectReadings();
+        return new Run(seed, App.countSensorsRead(drone.getVisitedSensors()),
+                drone.isCompleted(), settings.getMaxMoves() - drone.getMovesLeft(), drone, flightLog, movementPoints);
+    }
+
+    /**
+     * The outcome of one run of the sweep.
+     */
+    public static final class Run {
+        /**
+         * The random state seed.
+         */
+        private final int seed;
+        /**
+         * The number of sensors read.
+         */
+        private final int sensorsRead;
+        /**
+         * Flag to check if the drone read every sensor and returned to the starting position.
+         */
+        private final boolean completed;
+        /**
+         * The number of moves used.
+         */
+        private final int movesUsed;
+        /**
+         * The drone after the run.
+         */
+        private final DroneCollectReadings drone;
+        /**
+         * The flight path of the run.
+         */
+        private final MemoryFlightLog flightLog;
+        /**
+         * The points the drone moved through, in order.
+         */
+        private final ArrayList<Point> movementPoints;
+
+        /**
+         * Instantiates a new Run.
+         *
+         * @param seed           the random state seed
+         * @param sensorsRead    the number of sensors read
+         * @param completed      true if all sensors were read and the drone returned
+         * @param movesUsed      the number of moves used
+         * @param drone          the drone after the run
+         * @param flightLog      the flight path of the run
+         * @param movementPoints the points the drone moved through
+         */
+        Run(int seed, int sensorsRead, boolean completed, int movesUsed, DroneCollectReadings drone,
+            MemoryFlightLog flightLog, ArrayList<Point> movementPoints) {
+            this.seed = seed;
+            this.sensorsRead = sensorsRead;
+            this.completed = completed;
+            this.movesUsed = movesUsed;
+            this.drone = drone;
+            this.flightLog = flightLog;
+            this.movementPoints = movementPoints;
+        }
+
+        /**
+         * Checks if this run beats another one, see {@link SeedSweep} for the order.
+         *
+         * @param other the other run
+         * @return true if this run is better
+         */
+        boolean isBetterThan(Run other) {
+            if (sensorsRead != other.sensorsRead) {
+                return sensorsRead > other.sensorsRead;
+            }
+            if (completed != other.completed) {
+                return completed;
+            }
+            if (movesUsed != other.movesUsed) {
+                return movesUsed < other.movesUsed;
+            }
+            return seed < other.seed;
+        }
+
+        /**
+         * Gets seed.
+         *
+         * @return the random state seed
+         */
+        public int getSeed() {
+            return seed;
+        }
+
+        /**
+         * Gets sensors read.
+         *
+         * @return the number of sensors read
+         */
+        public int getSensorsRead() {
+            return sensorsRead;
+        }
+
+        /**
+         * Is completed boolean.
+         *
+         * @return true if all sensors were read and the drone returned
+         */
+        public boolean isCompleted() {
+            return completed;
+        }
+
+        /**
+         * Gets moves used.
+         *
+         * @return the number of moves used
+         */
+        public int getMovesUsed() {
+            return movesUsed;
+        }
+
+        /**
+         * Gets drone.
+         *
+         * @return the drone after the run, with its own copies of the sensors
+         */
+        public DroneCollectReadings getDrone() {
+            return drone;
+        }
+
+        /**
+         * Gets flight log.
+         *
+         * @return the flight path of the run
+         */
+        public MemoryFlightLog getFlightLog() {
+            return flightLog;
+        }
+
+        /**
+         * Gets movement points.
+         *
+         * @return the points the drone moved through, in order
+         */
+        public ArrayList<Point> getMovementPoints() {
+            return movementPoints;
+        }
+    }
+}
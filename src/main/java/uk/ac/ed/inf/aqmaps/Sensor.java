@@ -27,6 +27,15 @@ public class Sensor {
      * Flag to check if the sensor has been visited
      */
     private boolean visited = false;
+    /**
+     * The reading rounded to a whole number, -1 if there is none, or null until it is parsed on
+     * first use. Volatile, and a single field, so another thread sees either null or the value.
+     */
+    private transient volatile Integer readingValue;
+    /**
+     * The same sensor as it was read last, on the day before, or null if that is not known.
+     */
+    private transient Sensor lastKnown;
 
     /**
      * Instantiates a new Sensor.
@@ -105,6 +114,40 @@ public class Sensor {
         return reading;
     }
 
+    /**
+     * Gets the reading rounded to a whole number. The reading string is only parsed once.
+     *
+     * @return the rounded reading, or -1 if the reading is "null" or empty
+     */
+    public int getReadingValue() {
+        var value = readingValue;
+        if (value == null) {
+            value = reading.equals("null") || reading.isEmpty()
+                    ? -1
+                    : (int) Math.round(Double.parseDouble(reading));
+            readingValue = value;
+        }
+        return value;
+    }
+
+    /**
+     * Gets last known.
+     *
+     * @return the same sensor as it was read last, or null if that is not known
+     */
+    public Sensor getLastKnown() {
+        return lastKnown;
+    }
+
+    /**
+     * Sets last known.
+     *
+     * @param lastKnown the same sensor as it was read last, or null if that is not known
+     */
+    public void setLastKnown(Sensor lastKnown) {
+        this.lastKnown = lastKnown;
+    }
+
     /**
      * To string string.
      *
@@ -0,0 +1,276 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A uniform grid index over the sensors a drone still has to visit, for finding the nearest
+ * one without scanning all of them.
+ *
+ * <p>The grid is sized from the sensors it is built with, at about two sensors per cell, and
+ * sensors added later outside it go in the edge cells. A query searches rings of cells round
+ * the cell of the query point, comparing squared distances, and stops once no cell further out
+ * can hold a closer sensor. Sensors remember the order they were added in, and the earliest one
+ * wins a tie, so the answer is the same as a linear scan over the list of sensors to visit.</p>
+ */
+public class SensorIndex {
+
+    /**
+     * The maximum number of cells along each side of the grid.
+     */
+    private static final int MAX_CELLS_PER_SIDE = 256;
+
+    /**
+     * The west bound of the grid.
+     */
+    private final double minX;
+    /**
+     * The south bound of the grid.
+     */
+    private final double minY;
+    /**
+     * The number of columns.
+     */
+    private final int cols;
+    /**
+     * The number of rows.
+     */
+    private final int rows;
+    /**
+     * The width of a cell.
+     */
+    private final double cellWidth;
+    /**
+     * The height of a cell.
+     */
+    private final double cellHeight;
+    /**
+     * The sensors in each cell, indexed by row * cols + col.
+     */
+    private final List<List<Entry>> cells;
+    /**
+     * The order given to the next sensor added.
+     */
+    private long nextOrder = 0;
+    /**
+     * The number of sensors in the index.
+     */
+    private int size = 0;
+
+    /**
+     * Builds the index over the given sensors, in the order of the list.
+     *
+     * @param sensors the sensors, with their co-ordinates set
+     */
+    public SensorIndex(List<Sensor> sensors) {
+        super();
+        var boundsMinX = Double.POSITIVE_INFINITY;
+        var boundsMinY = Double.POSITIVE_INFINITY;
+        var boundsMaxX = Double.NEGATIVE_INFINITY;
+        var boundsMaxY = Double.NEGATIVE_INFINITY;
+        for (Sensor sensor : sensors) {
+            var coord = sensor.getCoord();
+            boundsMinX = Math.min(boundsMinX, coord.getX());
+            boundsMinY = Math.min(boundsMinY, coord.getY());
+            boundsMaxX = Math.max(boundsMaxX, coord.getX());
+            boundsMaxY = Math.max(boundsMaxY, coord.getY());
+        }
+
+        if (sensors.isEmpty()) {
+            this.minX = this.minY = 0;
+            this.cols = this.rows = 1;
+            this.cellWidth = this.cellHeight = 1;
+        } else {
+            this.minX = boundsMinX;
+            this.minY = boundsMinY;
+            // about two sensors per cell, so a query usually looks at a handful of cells
+            var side = (int) Math.ceil(Math.sqrt(sensors.size() / 2.0));
+            this.cols = Math.max(1, Math.min(MAX_CELLS_PER_SIDE, side));
+            this.rows = this.cols;
+            // a zero extent (e.g. a single sensor) still needs a positive cell size
+            this.cellWidth = Math.max((boundsMaxX - minX) / cols, Double.MIN_NORMAL);
+            this.cellHeight = Math.max((boundsMaxY - minY) / rows, Double.MIN_NORMAL);
+        }
+
+        this.cells = new ArrayList<>(cols * rows);
+        for (int c = 0; c < cols * rows; c++) {
+            cells.add(new ArrayList<>(2));
+        }
+        for (Sensor sensor : sensors) {
+            add(sensor);
+        }
+    }
+
+    /**
+     * Adds a sensor, which comes after all the sensors already in the index.
+     *
+     * @param sensor the sensor, with its co-ordinates set
+     */
+    public void add(Sensor sensor) {
+        var coord = sensor.getCoord();
+        cells.get(cell(coord.getX(), coord.getY())).add(new Entry(sensor, coord.getX(), coord.getY(), nextOrder++));
+        size++;
+    }
+
+    /**
+     * Removes a sensor, e.g. once it has been visited.
+     *
+     * @param sensor the sensor
+     * @return true if the sensor was in the index
+     */
+    public boolean remove(Sensor sensor) {
+        var coord = sensor.getCoord();
+        var entries = cells.get(cell(coord.getX(), coord.getY()));
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).sensor == sensor) {
+                entries.remove(i);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the sensor nearest to the point (x, y), the earliest added one if several are.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return the nearest sensor, or null if the index is empty
+     */
+    public Sensor nearest(double x, double y) {
+        if (size == 0) {
+            return null;
+        }
+        var col = col(x);
+        var row = row(y);
+        Entry best = null;
+        var bestDistSq = Double.POSITIVE_INFINITY;
+        for (int ring = 0; ; ring++) {
+            var firstCol = col - ring;
+            var lastCol = col + ring;
+            var firstRow = row - ring;
+            var lastRow = row + ring;
+            for (int r = Math.max(0, firstRow); r <= Math.min(rows - 1, lastRow); r++) {
+                // the inner rows of the ring only have their two end cells on it
+                var step = r == firstRow || r == lastRow ? 1 : Math.max(1, lastCol - firstCol);
+                for (int c = firstCol; c <= lastCol; c += step) {
+                    if (c < 0 || c >= cols) {
+                        continue;
+                    }
+                    for (Entry entry : cells.get(r * cols + c)) {
+                        var distSq = GeometryHelpers.distanceSq(x, y, entry.x, entry.y);
+                        if (best == null || distSq < bestDistSq || (distSq == bestDistSq && entry.order < best.order)) {
+                            best = entry;
+                            bestDistSq = distSq;
+                        }
+                    }
+                }
+            }
+
+            /*
+             A sensor outside the rings searched so far lies beyond one of their sides which is
+             not at the edge of the grid, so it is at least as far as the nearest of those sides.
+            */
+            var bound = Double.POSITIVE_INFINITY;
+            if (firstCol > 0) {
+                bound = Math.min(bound, x - (minX + firstCol * cellWidth));
+            }
+            if (lastCol < cols - 1) {
+                bound = Math.min(bound, minX + (lastCol + 1) * cellWidth - x);
+            }
+            if (firstRow > 0) {
+                bound = Math.min(bound, y - (minY + firstRow * cellHeight));
+            }
+            if (lastRow < rows - 1) {
+                bound = Math.min(bound, minY + (lastRow + 1) * cellHeight - y);
+            }
+            if (bound == Double.POSITIVE_INFINITY) {
+                break;
+            }
+            // the cell of a sensor is found by rounding, so allow it to be a little outside
+            bound -= 1e-9 * Math.min(cellWidth, cellHeight);
+            if (best != null && bound > 0 && bound * bound > bestDistSq) {
+                break;
+            }
+        }
+        return best.sensor;
+    }
+
+    /**
+     * Gets the number of sensors in the index.
+     *
+     * @return the sensor count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the cell containing the point (x, y), clamped to the grid.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     * @return the cell, as row * cols + col
+     */
+    private int cell(double x, double y) {
+        return row(y) * cols + col(x);
+    }
+
+    /**
+     * Finds the column of the cell containing an x coordinate, clamped to the grid.
+     *
+     * @param x the x coordinate
+     * @return the column
+     */
+    private int col(double x) {
+        return Math.max(0, Math.min(cols - 1, (int) ((x - minX) / cellWidth)));
+    }
+
+    /**
+     * Finds the row of the cell containing a y coordinate, clamped to the grid.
+     *
+     * @param y the y coordinate
+     * @return the row
+     */
+    private int row(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellHeight)));
+    }
+
+    /**
+     * A sensor in the index, with its co-ordinates and the order it was added in.
+     */
+    private static final class Entry {
+        /**
+         * The sensor.
+         */
+        private final Sensor sensor;
+        /**
+         * The x coordinate of the sensor.
+         */
+        private final double x;
+        /**
+         * The y coordinate of the sensor.
+         */
+        private final double y;
+        /**
+         * The order the sensor was added in.
+         */
+        private final long order;
+
+        /**
+         * Instantiates a new Entry.
+         *
+         * @param sensor the sensor
+         * @param x      the x coordinate of the sensor
+         * @param y      the y coordinate of the sensor
+         * @param order  the order the sensor was added in
+         */
+        private Entry(Sensor sensor, double x, double y, long order) {
+            this.sensor = sensor;
+            this.x = x;
+            this.y = y;
+            this.order = order;
+        }
+    }
+}
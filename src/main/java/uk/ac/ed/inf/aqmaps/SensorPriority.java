@@ -0,0 +1,66 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.Locale;
+
+/**
+ * The ways the sensors can be worth reading when the drone cannot read all of them within
+ * its moves, see {@link OrienteeringPlanner}. The drone only learns the battery and reading of
+ * a sensor by reading it, so a sensor is valued by what it reported when it was last read,
+ * see {@link Sensor#getLastKnown()}. A sensor which was not read before is worth one.
+ */
+public enum SensorPriority {
+    /**
+     * Every sensor is worth the same, so as many as possible are read.
+     */
+    UNIFORM,
+    /**
+     * A sensor whose battery was low when it was last read is worth two others, since it has
+     * to be found and serviced before it stops reporting.
+     */
+    BATTERY,
+    /**
+     * A sensor is worth more the higher it read last time, up to two others for the top of the
+     * scale, so that the worst air is watched first. Sensors with a low battery or no reading
+     * last time are worth one.
+     */
+    READING;
+
+    /**
+     * The battery level at and below which a sensor has a low battery, as on the readings map.
+     */
+    private static final double LOW_BATTERY = 10.0;
+    /**
+     * The top of the reading scale.
+     */
+    private static final double MAX_READING = 256.0;
+
+    /**
+     * Finds what reading a sensor is worth, from what it reported when it was last read.
+     *
+     * @param sensor the sensor
+     * @return the value of the sensor, between 1 and 2
+     */
+    public double value(Sensor sensor) {
+        var lastKnown = sensor.getLastKnown();
+        if (this == UNIFORM || lastKnown == null) {
+            return 1;
+        }
+        var lowBattery = lastKnown.getBattery() <= LOW_BATTERY;
+        if (this == BATTERY) {
+            return lowBattery ? 2 : 1;
+        }
+        var reading = lastKnown.getReadingValue();
+        return lowBattery || reading < 0 ? 1 : 1 + Math.min(reading, MAX_READING) / MAX_READING;
+    }
+
+    /**
+     * Parses a sensor priority name, ignoring case.
+     *
+     * @param name the name, e.g. "battery"
+     * @return the sensor priority
+     * @throws IllegalArgumentException if there is no sensor priority with that name
+     */
+    public static SensorPriority parse(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,699 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.LineString;
+import com.mapbox.geojson.Point;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The regression and performance harness which replays the days of the {@code autotest}
+ * directory in a single JVM and compares the outputs with the golden ones there.
+ *
+ * <p>The days are flown in parallel from the same start and seed as {@code autotest/runner.py}.
+ * Each day is compared as soon as it is flown: the flight path move by move and the readings
+ * map sensor by sensor, as numbers rather than text, so that the spacing of the golden files
+ * and the order of the features do not count. The moves used, the sensors missed and the wall
+ * time of each day are reported next to the golden ones.</p>
+ *
+ * <p>The golden outputs in {@code autotest} were recorded against the course web server, so a
+ * replay only matches them when it fetches the same maps and buildings. To replay against any
+ * other server, e.g. a {@code --fixtures} directory, first record golden outputs for it with
+ * {@code --update-golden} into a directory of their own, and replay against that directory
+ * afterwards:</p>
+ * <pre>
+ *     --farm --fixtures DIR --golden GOLDEN --from 01-01-2020 --to 31-12-2020 --update-golden
+ *     --farm --fixtures DIR --golden GOLDEN
+ * </pre>
+ */
+public class SimulationFarm {
+
+    /**
+     * The largest difference between two coordinates which still match, one and a half units
+     * of the sixth decimal the files are written with, so that differently rounded values agree.
+     */
+    private static final double TOLERANCE = 1.5e-6;
+
+    /**
+     * The options of the farm, those of the batch mode and its own.
+     */
+    private static class FarmOptions extends BatchOptions {
+        /**
+         * The directory of the golden outputs.
+         */
+        private Path goldenDir = Path.of("autotest");
+        /**
+         * The file the comparison of each day is written to, or null.
+         */
+        private Path reportFile = null;
+        /**
+         * Flag to check if the outputs of each day replace its golden ones.
+         */
+        private boolean updateGolden = false;
+
+        /**
+         * Parses --update-golden.
+         */
+        @Override
+        protected boolean parseFlag(String option) {
+            if (option.equals("--update-golden")) {
+                updateGolden = true;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Parses --golden and --report, and the options of the batch mode.
+         */
+        @Override
+        protected boolean parseOption(String option, String value) {
+            switch (option) {
+                case "--golden":
+                    goldenDir = Path.of(value);
+                    return true;
+                case "--report":
+                    reportFile = Path.of(value);
+                    return true;
+                default:
+                    return super.parseOption(option, value);
+            }
+        }
+    }
+
+    /**
+     * <p>This the entry point of the simulation farm. The arguments are given as options, the
+     * ones of {@link BatchApp#main} except {@code --fleet}, whose flight paths have no golden
+     * ones, and: </p>
+     * <pre>
+     *     *   --golden DIR        directory of the golden outputs (default autotest)
+     *     *   --report FILE       write the comparison of each day and the totals to a JSON file
+     *     *   --update-golden     copy the outputs of each day flown over its golden ones
+     * </pre>
+     * <p>The days replayed are the golden days from --from to --to, or all of them, or the days
+     * of --dates. With --update-golden and both --from and --to, every day of the range is
+     * flown, so that golden outputs can be recorded for days which have none yet. The output
+     * directory is a new temporary directory unless --out is given.</p>
+     * <p>The exit status is 1 unless every day was flown and matches its golden outputs.</p>
+     *
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        var options = new FarmOptions();
+        options.parseArgs(args);
+        if (options.getFleetSize() > 1) {
+            throw new IllegalArgumentException("--fleet cannot be replayed, the golden outputs are of a single drone.");
+        }
+        var goldenDir = options.goldenDir;
+        var from = options.getFrom();
+        var to = options.getTo();
+
+        List<LocalDate> dates = new ArrayList<>();
+        Path outputDir = options.getOutputDir();
+        try {
+            if (options.getDatesFile() != null || (options.updateGolden && from != null && to != null)) {
+                dates = options.getDates();
+            } else {
+                for (LocalDate date : goldenDates(goldenDir)) {
+                    if ((from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to))) {
+                        dates.add(date);
+                    }
+                }
+            }
+            if (outputDir == null) {
+                outputDir = Files.createTempDirectory("aqmaps-farm");
+            } else {
+                Files.createDirectories(outputDir);
+            }
+            if (options.updateGolden) {
+                Files.createDirectories(goldenDir);
+            }
+        } catch (IOException e) {
+            System.err.println("IO exception while reading the golden outputs in " + goldenDir
+                    + " or creating the output directory.");
+            System.exit(1);
+        }
+        if (dates.isEmpty()) {
+            throw new IllegalArgumentException(" There are no golden days in " + goldenDir + " to replay.");
+        }
+
+        var standIn = options.startStandIn();
+        var requestHandler = options.newRequestHandler();
+        NoFlyZones noFlyZones = null;
+        try {
+            noFlyZones = new NoFlyZones(requestHandler.getBuidings());
+        } catch (WebRequestException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        var settings = options.newSettings(noFlyZones, outputDir);
+        var distanceMatrixStore = settings.getDistanceMatrixStore();
+        var zoneFeed = options.openZoneFeed(noFlyZones, settings);
+
+        System.out.println((options.updateGolden ? "Recording " : "Replaying ") + dates.size() + " days from "
+                + goldenDir + " into " + outputDir + ".");
+        var farmStart = System.nanoTime();
+        var replays = replayDays(requestHandler, noFlyZones, dates, settings, goldenDir, options.updateGolden,
+                options.getThreads(), options.getTimeoutSeconds());
+        var elapsedMillis = (System.nanoTime() - farmStart) / 1_000_000;
+        System.out.println(summary(replays, elapsedMillis));
+
+        if (zoneFeed != null) {
+            zoneFeed.close();
+        }
+        if (distanceMatrixStore != null) {
+            try {
+                distanceMatrixStore.save();
+            } catch (IOException e) {
+                System.err.println("IO exception while writing the distance matrix store "
+                        + distanceMatrixStore.getStoreFile() + ".");
+            }
+        }
+        if (options.reportFile != null) {
+            try {
+                writeReport(options.reportFile, replays, elapsedMillis);
+            } catch (IOException e) {
+                System.err.println("IO exception while writing the farm report " + options.reportFile + ".");
+            }
+        }
+        if (standIn != null) {
+            standIn.close();
+        }
+        if (!replays.stream().allMatch(DayReplay::isMatching)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Replays every date on a bounded thread pool, see {@link DayRunner}, comparing each day
+     * with its golden outputs on the thread which flew it.
+     *
+     * @param requestHandler the shared web requests handler
+     * @param noFlyZones     the no-fly zones on the map, shared by the missions of all the days
+     * @param dates          the dates to replay
+     * @param settings       the settings shared by the missions of all the days
+     * @param goldenDir      the directory of the golden outputs
+     * @param updateGolden   true to copy the outputs of each day flown over its golden ones
+     * @param threads        the number of days replayed in parallel
+     * @param timeoutSeconds the time limit for a single day
+     * @return the replays of all the days, in date order
+     */
+    public static List<DayReplay> replayDays(
+            WebRequests requestHandler,
+            NoFlyZones noFlyZones,
+            List<LocalDate> dates,
+            MissionSettings settings,
+            Path goldenDir,
+            boolean updateGolden,
+            int threads,
+            long timeoutSeconds) {
+        var replays = new ArrayList<DayReplay>();
+        new DayRunner(threads, timeoutSeconds).run(dates,
+                (day, month, year) -> {
+                    var result = App.runDay(requestHandler, noFlyZones, day, month, year, settings);
+                    if (updateGolden) {
+                        updateGolden(result.getName(), settings.getOutputDir(), goldenDir);
+                    }
+                    return compare(result, settings, goldenDir);
+                },
+                new DayRunner.DayListener<>() {
+                    @Override
+                    public void finished(LocalDate date, DayReplay replay) {
+                        add(replay);
+                    }
+
+                    @Override
+                    public void timedOut(LocalDate date) {
+                        add(unflown(date.format(BatchOptions.DATE_FORMAT), true, settings, goldenDir));
+                    }
+
+                    @Override
+                    public void failed(LocalDate date, Throwable cause) {
+                        System.err.println(date.format(BatchOptions.DATE_FORMAT) + " failed: " + cause);
+                        add(unflown(date.format(BatchOptions.DATE_FORMAT), false, settings, goldenDir));
+                    }
+
+                    /**
+                     * Records the replay of a day.
+                     *
+                     * @param replay the replay of the day
+                     */
+                    private void add(DayReplay replay) {
+                        replays.add(replay);
+                        System.out.println(replay);
+                    }
+                });
+        return replays;
+    }
+
+    /**
+     * Copies the outputs of a day over its golden ones.
+     *
+     * @param name      the date string of the day
+     * @param outputDir the output directory
+     * @param goldenDir the directory of the golden outputs
+     * @throws IOException if an output could not be copied
+     */
+    private static void updateGolden(String name, Path outputDir, Path goldenDir) throws IOException {
+        for (String fileName : List.of("flightpath-" + name + ".txt", "readings-" + name + ".geojson")) {
+            Files.copy(outputDir.resolve(fileName), goldenDir.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Compares the outputs of a day with the golden ones.
+     *
+     * @param result    the summary of the mission
+     * @param settings  the settings of the mission
+     * @param goldenDir the directory of the golden outputs
+     * @return the replay of the day
+     * @throws IOException if the outputs of the day could not be read
+     */
+    static DayReplay compare(MissionResult result, MissionSettings settings, Path goldenDir) throws IOException {
+        var name = result.getName();
+        var outputDir = settings.getOutputDir();
+        var goldenPath = readGolden(goldenDir.resolve("flightpath-" + name + ".txt"));
+        var goldenMap = readGolden(goldenDir.resolve("readings-" + name + ".geojson"));
+        var path = Files.readString(outputDir.resolve("flightpath-" + name + ".txt"));
+        var map = parseMap(Files.readString(outputDir.resolve("readings-" + name + ".geojson")));
+        var golden = parseMap(goldenMap);
+        return new DayReplay(name, result, false,
+                firstDifferentMove(goldenPath, path),
+                countDifferentSensors(golden, map),
+                sameLine(flightLine(golden), flightLine(map)),
+                countMoves(goldenPath),
+                countUnread(golden),
+                isCompleted(golden, settings.getStartingPosition()));
+    }
+
+    /**
+     * Records a day which was not flown to the end.
+     *
+     * @param name      the date string of the day
+     * @param timedOut  true if the day was stopped after the time limit
+     * @param settings  the settings of the mission
+     * @param goldenDir the directory of the golden outputs
+     * @return the replay of the day
+     */
+    private static DayReplay unflown(String name, boolean timedOut, MissionSettings settings, Path goldenDir) {
+        var goldenMoves = 0;
+        var goldenMissed = 0;
+        var goldenCompleted = false;
+        try {
+            goldenMoves = countMoves(readGolden(goldenDir.resolve("flightpath-" + name + ".txt")));
+            var golden = parseMap(readGolden(goldenDir.resolve("readings-" + name + ".geojson")));
+            goldenMissed = countUnread(golden);
+            goldenCompleted = isCompleted(golden, settings.getStartingPosition());
+        } catch (IOException e) {
+            System.err.println("IO exception while reading the golden outputs of " + name + ".");
+        }
+        return new DayReplay(name, null, timedOut, 1, 0, false, goldenMoves, goldenMissed, goldenCompleted);
+    }
+
+    /**
+     * Finds the first move of a flight path which differs from the golden one. The fields are
+     * compared as numbers, so the spacing and the trailing zeros of the files do not count.
+     *
+     * @param golden the golden flight path
+     * @param actual the flight path
+     * @return the first different move, counted from 1, or 0 if the flight paths match
+     */
+    static int firstDifferentMove(String golden, String actual) {
+        var goldenMoves = golden.strip().split("\n");
+        var actualMoves = actual.strip().split("\n");
+        var common = Math.min(goldenMoves.length, actualMoves.length);
+        for (int i = 0; i < common; i++) {
+            if (!sameMove(goldenMoves[i], actualMoves[i])) {
+                return i + 1;
+            }
+        }
+        return goldenMoves.length == actualMoves.length ? 0 : common + 1;
+    }
+
+    /**
+     * Checks if two lines of a flight path are the same move, i.e. the same number, positions,
+     * angle and sensor.
+     *
+     * @param golden the golden line
+     * @param actual the line
+     * @return true if the moves match else false
+     */
+    private static boolean sameMove(String golden, String actual) {
+        var goldenFields = golden.split(",");
+        var actualFields = actual.split(",");
+        if (goldenFields.length != 7 || actualFields.length != 7) {
+            return golden.strip().equals(actual.strip());
+        }
+        try {
+            for (int i = 0; i < 7; i++) {
+                var goldenField = goldenFields[i].strip();
+                var actualField = actualFields[i].strip();
+                if (i == 0 || i == 6) {
+                    if (!goldenField.equals(actualField)) {
+                        return false;
+                    }
+                } else if (Math.abs(Double.parseDouble(goldenField) - Double.parseDouble(actualField)) > TOLERANCE) {
+                    return false;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts the sensors whose markers differ between two readings maps, matching them by
+     * location whatever order they are in. A sensor on only one of the maps counts as different.
+     *
+     * @param golden the golden readings map
+     * @param actual the readings map
+     * @return the number of different sensors
+     */
+    static int countDifferentSensors(FeatureCollection golden, FeatureCollection actual) {
+        var goldenMarkers = markers(golden);
+        var actualMarkers = markers(actual);
+        var locations = new HashSet<>(goldenMarkers.keySet());
+        locations.addAll(actualMarkers.keySet());
+        var different = 0;
+        for (String location : locations) {
+            if (!sameMarker(goldenMarkers.get(location), actualMarkers.get(location))) {
+                different++;
+            }
+        }
+        return different;
+    }
+
+    /**
+     * Checks if two sensor markers have the same position and style.
+     *
+     * @param golden the golden marker, or null
+     * @param actual the marker, or null
+     * @return true if both are there and match else false
+     */
+    private static boolean sameMarker(Feature golden, Feature actual) {
+        if (golden == null || actual == null) {
+            return false;
+        }
+        for (String property : List.of("rgb-string", "marker-color", "marker-symbol")) {
+            if (!Objects.equals(property(golden, property), property(actual, property))) {
+                return false;
+            }
+        }
+        return samePoint((Point) golden.geometry(), (Point) actual.geometry());
+    }
+
+    /**
+     * Checks if two flight lines have the same points.
+     *
+     * @param golden the points of the golden flight line, or null
+     * @param actual the points of the flight line, or null
+     * @return true if both have the same points or neither is there else false
+     */
+    private static boolean sameLine(List<Point> golden, List<Point> actual) {
+        if (golden == null || actual == null) {
+            return golden == actual;
+        }
+        if (golden.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < golden.size(); i++) {
+            if (!samePoint(golden.get(i), actual.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if two points are within the tolerance of each other.
+     *
+     * @param golden the golden point
+     * @param actual the point
+     * @return true if the points match else false
+     */
+    private static boolean samePoint(Point golden, Point actual) {
+        return Math.abs(golden.longitude() - actual.longitude()) <= TOLERANCE
+                && Math.abs(golden.latitude() - actual.latitude()) <= TOLERANCE;
+    }
+
+    /**
+     * Gets the sensor markers of a readings map by location.
+     *
+     * @param map the readings map
+     * @return the point features, by their location property
+     */
+    private static Map<String, Feature> markers(FeatureCollection map) {
+        var markers = new HashMap<String, Feature>();
+        for (Feature feature : features(map)) {
+            if (feature.geometry() instanceof Point) {
+                markers.put(property(feature, "location"), feature);
+            }
+        }
+        return markers;
+    }
+
+    /**
+     * Gets the points of the flight line of a readings map.
+     *
+     * @param map the readings map
+     * @return the points, or null if there is no flight line
+     */
+    private static List<Point> flightLine(FeatureCollection map) {
+        for (Feature feature : features(map)) {
+            if (feature.geometry() instanceof LineString) {
+                return ((LineString) feature.geometry()).coordinates();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counts the sensors of a readings map which were not read, i.e. have a marker without a symbol.
+     *
+     * @param map the readings map
+     * @return the number of unread sensors
+     */
+    private static int countUnread(FeatureCollection map) {
+        var unread = 0;
+        for (Feature feature : markers(map).values()) {
+            var symbol = property(feature, "marker-symbol");
+            if (symbol == null || symbol.isEmpty()) {
+                unread++;
+            }
+        }
+        return unread;
+    }
+
+    /**
+     * Checks if a readings map is of a completed mission, i.e. every sensor was read and the
+     * flight line ends close to where it started. The okay.txt of the golden runs only records
+     * that the program finished, and only for the days runner.py was last run for.
+     *
+     * @param map   the readings map
+     * @param start the starting position
+     * @return true if the mission was completed else false
+     */
+    private static boolean isCompleted(FeatureCollection map, Point2D start) {
+        var line = flightLine(map);
+        if (line == null || line.isEmpty() || countUnread(map) > 0) {
+            return false;
+        }
+        var end = line.get(line.size() - 1);
+        return start.distance(end.longitude(), end.latitude()) < GeometryHelpers.MOVEMENT_RADIUS;
+    }
+
+    /**
+     * Counts the moves of a flight path by the number of its last move, which is how the
+     * moves used are counted, even where a move is missing from the file.
+     *
+     * @param flightPath the flight path
+     * @return the number of moves
+     */
+    private static int countMoves(String flightPath) {
+        var lines = flightPath.strip().split("\n");
+        var last = lines[lines.length - 1];
+        try {
+            return Integer.parseInt(last.split(",")[0].strip());
+        } catch (NumberFormatException e) {
+            return last.isEmpty() ? 0 : lines.length;
+        }
+    }
+
+    /**
+     * Parses a readings map.
+     *
+     * @param geoJsonString the GeoJSON feature collection, or an empty string for a missing map
+     * @return the feature collection, with no features for a missing map
+     */
+    private static FeatureCollection parseMap(String geoJsonString) {
+        return geoJsonString.isEmpty() ? FeatureCollection.fromFeatures(List.of()) : FeatureCollection.fromJson(geoJsonString);
+    }
+
+    /**
+     * Gets the features of a feature collection.
+     *
+     * @param map the feature collection
+     * @return the features, empty if there are none
+     */
+    private static List<Feature> features(FeatureCollection map) {
+        var features = map.features();
+        return features == null ? List.of() : features;
+    }
+
+    /**
+     * Gets a string property of a feature.
+     *
+     * @param feature the feature
+     * @param name    the name of the property
+     * @return the value, or null if it is not set
+     */
+    private static String property(Feature feature, String name) {
+        return feature.hasNonNullValueForProperty(name) ? feature.getStringProperty(name) : null;
+    }
+
+    /**
+     * Reads a golden output.
+     *
+     * @param file the path of the golden output
+     * @return the contents, empty if there is no such output
+     * @throws IOException if the output exists but could not be read
+     */
+    private static String readGolden(Path file) throws IOException {
+        try {
+            return Files.readString(file);
+        } catch (NoSuchFileException e) {
+            return "";
+        }
+    }
+
+    /**
+     * Finds the days with a golden flight path.
+     *
+     * @param goldenDir the directory of the golden outputs
+     * @return the dates, in order
+     * @throws IOException if the directory could not be listed
+     */
+    static List<LocalDate> goldenDates(Path goldenDir) throws IOException {
+        var dates = new ArrayList<LocalDate>();
+        try (var files = Files.list(goldenDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                var fileName = file.getFileName().toString();
+                if (fileName.startsWith("flightpath-") && fileName.endsWith(".txt")) {
+                    try {
+                        dates.add(LocalDate.parse(fileName.substring("flightpath-".length(),
+                                fileName.length() - ".txt".length()), BatchOptions.DATE_FORMAT));
+                    } catch (DateTimeParseException e) {
+                        // not the flight path of a day
+                    }
+                }
+            }
+        }
+        dates.sort(null);
+        return dates;
+    }
+
+    /**
+     * Sums up the replays.
+     *
+     * @param replays       the replays of all the days
+     * @param elapsedMillis the wall time of the whole farm in milliseconds
+     * @return the summary lines
+     */
+    static String summary(List<DayReplay> replays, long elapsedMillis) {
+        var flown = 0;
+        var matching = 0;
+        var flightPathsDifferent = 0;
+        var readingsMapsDifferent = 0;
+        var completed = 0;
+        var goldenCompleted = 0;
+        long moves = 0;
+        long goldenMoves = 0;
+        long missed = 0;
+        long goldenMissed = 0;
+        long dayMillis = 0;
+        long maxDayMillis = 0;
+        for (DayReplay replay : replays) {
+            goldenCompleted += replay.isGoldenCompleted() ? 1 : 0;
+            if (!replay.isFlown()) {
+                continue;
+            }
+            var result = replay.getResult();
+            flown++;
+            matching += replay.isMatching() ? 1 : 0;
+            flightPathsDifferent += replay.isFlightPathMatching() ? 0 : 1;
+            readingsMapsDifferent += replay.isReadingsMapMatching() ? 0 : 1;
+            completed += result.isCompleted() ? 1 : 0;
+            // only the days flown here, so that the totals compare like with like
+            moves += result.getMovesUsed();
+            goldenMoves += replay.getGoldenMoves();
+            missed += replay.getSensorsMissed();
+            goldenMissed += replay.getGoldenSensorsMissed();
+            dayMillis += result.getElapsedMillis();
+            maxDayMillis = Math.max(maxDayMillis, result.getElapsedMillis());
+        }
+        return String.format("Replayed %d of %d days in %.1f seconds, %d match the golden outputs, "
+                        + "%d flight paths and %d readings maps differ.%n"
+                        + "Completed %d (golden %d), moves used %d (golden %d), sensors missed %d (golden %d), "
+                        + "wall time per day %.1f ms on average and %d ms at most.",
+                flown, replays.size(), elapsedMillis / 1000.0, matching, flightPathsDifferent, readingsMapsDifferent,
+                completed, goldenCompleted, moves, goldenMoves, missed, goldenMissed,
+                flown == 0 ? 0.0 : (double) dayMillis / flown, maxDayMillis);
+    }
+
+    /**
+     * Writes the comparison of each day and the totals to a JSON file.
+     *
+     * @param file          the path of the report
+     * @param replays       the replays of all the days
+     * @param elapsedMillis the wall time of the whole farm in milliseconds
+     * @throws IOException if the report could not be written
+     */
+    static void writeReport(Path file, List<DayReplay> replays, long elapsedMillis) throws IOException {
+        var days = new JsonArray();
+        for (DayReplay replay : replays) {
+            var day = new JsonObject();
+            day.addProperty("name", replay.getName());
+            day.addProperty("flown", replay.isFlown());
+            day.addProperty("timedOut", replay.isTimedOut());
+            day.addProperty("matching", replay.isMatching());
+            day.addProperty("firstDifferentMove", replay.getFirstDifferentMove());
+            day.addProperty("differentSensors", replay.getDifferentSensors());
+            day.addProperty("flightLineMatching", replay.isFlightLineMatching());
+            var result = replay.getResult();
+            if (result != null) {
+                day.addProperty("completed", result.isCompleted());
+                day.addProperty("movesUsed", result.getMovesUsed());
+                day.addProperty("sensorsMissed", replay.getSensorsMissed());
+                day.addProperty("elapsedMillis", result.getElapsedMillis());
+            }
+            day.addProperty("goldenCompleted", replay.isGoldenCompleted());
+            day.addProperty("goldenMoves", replay.getGoldenMoves());
+            day.addProperty("goldenSensorsMissed", replay.getGoldenSensorsMissed());
+            days.add(day);
+        }
+        var report = new JsonObject();
+        report.addProperty("days", replays.size());
+        report.addProperty("matchingDays", replays.stream().filter(DayReplay::isMatching).count());
+        report.addProperty("elapsedMillis", elapsedMillis);
+        report.add("replays", days);
+        Files.writeString(file, new GsonBuilder().setPrettyPrinting().create().toJson(report));
+    }
+}
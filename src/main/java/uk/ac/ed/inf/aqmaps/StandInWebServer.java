@@ -0,0 +1,452 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * The embedded stand-in for the coursework web server, which serves the files of a local
+ * fixture directory laid out like the web server content:
+ * <pre>
+ *     buildings/no-fly-zones.geojson
+ *     maps/YYYY/MM/DD/air-quality-data.json
+ *     words/FIRST/SECOND/THIRD/details.json
+ * </pre>
+ * <p>Files are sent with an ETag and a Last-Modified header, and conditional requests are
+ * answered with 304 Not Modified. Every response can be delayed and a fraction of them replaced
+ * by 500 errors. Both are decided from the seed, the path and how many times the path has been
+ * requested before, so the n-th request of a path always gets the same delay and outcome, and
+ * requests for other paths do not change it. A path which only one day asks for at a time, such
+ * as the map of the day, therefore sees the same delays and errors whatever order the days run
+ * in. When parallel days ask for the same path at once, such as the words of a sensor both days
+ * read, the path still gets the same delays and errors in total, but which day gets which depends
+ * on the order their requests arrive in.</p>
+ */
+public class StandInWebServer implements AutoCloseable {
+
+    /**
+     * The top level directories which are served.
+     */
+    private static final Set<String> SERVED_DIRS = Set.of("buildings", "maps", "words");
+
+    static {
+        // otherwise every small response on a kept alive connection waits for a delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * The fixture directory.
+     */
+    private final Path fixtureDir;
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+    /**
+     * The threads reading the fixtures and sending the responses.
+     */
+    private final ExecutorService workers;
+    /**
+     * The timer sending delayed responses, so that waiting does not hold a worker.
+     */
+    private final ScheduledExecutorService delays;
+    /**
+     * The number of times each path has been requested.
+     */
+    private final ConcurrentHashMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    /**
+     * The total number of requests.
+     */
+    private final AtomicLong requests = new AtomicLong();
+    /**
+     * The number of injected errors.
+     */
+    private final AtomicLong injectedErrors = new AtomicLong();
+    /**
+     * The shortest delay of a response in milliseconds.
+     */
+    private volatile long minLatencyMillis;
+    /**
+     * The longest delay of a response in milliseconds.
+     */
+    private volatile long maxLatencyMillis;
+    /**
+     * The fraction of requests answered with an error, in [0, 1].
+     */
+    private volatile double errorRate;
+    /**
+     * The seed of the delays and errors.
+     */
+    private volatile long seed;
+
+    /**
+     * Starts a stand-in web server on localhost.
+     *
+     * @param fixtureDir the fixture directory
+     * @param port       the port, or 0 for any free port (see {@link #getPort()})
+     * @throws IOException if the server could not be started
+     */
+    public StandInWebServer(Path fixtureDir, int port) throws IOException {
+        super();
+        if (!Files.isDirectory(fixtureDir)) {
+            throw new IOException("The fixture directory " + fixtureDir + " does not exist.");
+        }
+        this.fixtureDir = fixtureDir.toAbsolutePath().normalize();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.workers = Executors.newCachedThreadPool(daemonThreads("stand-in-worker"));
+        this.delays = Executors.newSingleThreadScheduledExecutor(daemonThreads("stand-in-delay"));
+        server.createContext("/", this::handle);
+        server.setExecutor(workers);
+        server.start();
+    }
+
+    /**
+     * <p>Runs the stand-in server until the process is stopped. The arguments are: </p>
+     * <pre>
+     *     *   fixture directory
+     *     *   port
+     *     *   --latency MS or MIN-MAX   delay of each response (optional, default 0)
+     *     *   --error-rate R            fraction of requests failing with 500 (optional, default 0)
+     *     *   --seed SEED               seed of the delays and errors (optional, default 0)
+     * </pre>
+     *
+     * @param args the input arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(" We need the fixture directory and port to proceed.");
+        }
+        try {
+            var server = new StandInWebServer(Path.of(args[0]), Integer.parseInt(args[1]));
+            for (int i = 2; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for option " + args[i] + ".");
+                }
+                server.configure(args[i], args[i + 1]);
+            }
+            System.out.println("Serving " + args[0] + " at http://localhost:" + server.getPort() + "/");
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Applies a command line option of the stand-in server.
+     *
+     * @param option the option, --latency, --error-rate or --seed
+     * @param value  the value of the option
+     * @throws IllegalArgumentException if the option is unknown or its value is invalid
+     */
+    public void configure(String option, String value) {
+        try {
+            switch (option) {
+                case "--latency":
+                    var range = value.split("-", 2);
+                    setLatencyMillis(Long.parseLong(range[0]), Long.parseLong(range[range.length - 1]));
+                    break;
+                case "--error-rate":
+                    setErrorRate(Double.parseDouble(value));
+                    break;
+                case "--seed":
+                    setSeed(Long.parseLong(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option + ".");
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid option value: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Handles a request: picks its delay and whether it fails, then answers after the delay.
+     *
+     * @param exchange the request and response
+     */
+    private void handle(HttpExchange exchange) {
+        requests.incrementAndGet();
+        var path = exchange.getRequestURI().getPath();
+        var attempt = requestCounts.computeIfAbsent(path, p -> new AtomicInteger()).getAndIncrement();
+        var random = mix(seed, path.hashCode(), attempt);
+
+        // the remainder picks the delay and the top 53 bits the error
+        var latency = minLatencyMillis;
+        if (maxLatencyMillis > minLatencyMillis) {
+            latency += Math.floorMod(random, maxLatencyMillis - minLatencyMillis + 1);
+        }
+        var fail = (random >>> 11) * 0x1.0p-53 < errorRate;
+
+        if (latency == 0) {
+            respond(exchange, fail);
+        } else {
+            delays.schedule(() -> workers.execute(() -> respond(exchange, fail)), latency, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the response to a request.
+     *
+     * @param exchange the request and response
+     * @param fail     true to answer with an injected error
+     */
+    private void respond(HttpExchange exchange, boolean fail) {
+        try {
+            if (fail) {
+                injectedErrors.incrementAndGet();
+                send(exchange, 500, "Injected error.");
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                send(exchange, 405, "Method not allowed.");
+                return;
+            }
+            var path = exchange.getRequestURI().getPath();
+            if (path.equals("/")) {
+                // the connection check of WebRequests asks for the root
+                send(exchange, 200, "aqmaps stand-in web server");
+                return;
+            }
+            var file = resolve(path);
+            if (file == null) {
+                send(exchange, 404, "Not found.");
+                return;
+            }
+            sendFile(exchange, file);
+        } catch (IOException e) {
+            // the client went away, there is no one left to tell
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Finds the fixture file of a request path.
+     *
+     * @param path the request path
+     * @return the file, or null if the path is not served or there is no such file
+     */
+    private Path resolve(String path) {
+        var relative = path.startsWith("/") ? path.substring(1) : path;
+        var slash = relative.indexOf('/');
+        if (slash == -1 || !SERVED_DIRS.contains(relative.substring(0, slash))) {
+            return null;
+        }
+        var file = fixtureDir.resolve(relative).normalize();
+        // no escaping the served directory with .., whether out of the fixture directory or into another part of it
+        if (!file.startsWith(fixtureDir.resolve(relative.substring(0, slash))) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * Sends a fixture file, or 304 if the client has the current version.
+     *
+     * @param exchange the request and response
+     * @param file     the file
+     * @throws IOException if the file could not be read or sent
+     */
+    private void sendFile(HttpExchange exchange, Path file) throws IOException {
+        var body = Files.readAllBytes(file);
+        var crc = new CRC32();
+        crc.update(body);
+        var etag = "\"" + Long.toHexString(crc.getValue()) + "-" + body.length + "\"";
+        var lastModified = Files.getLastModifiedTime(file).toInstant().truncatedTo(ChronoUnit.SECONDS);
+
+        var headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", "application/json");
+        headers.set("ETag", etag);
+        headers.set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(lastModified.atZone(ZoneOffset.UTC)));
+
+        var ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        var ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifNoneMatch != null ? ifNoneMatch.equals(etag) : notModifiedSince(lastModified, ifModifiedSince)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        send(exchange, 200, body);
+    }
+
+    /**
+     * Checks an If-Modified-Since header against the modification time of a file.
+     *
+     * @param lastModified    the modification time, to the second
+     * @param ifModifiedSince the header, or null
+     * @return true if the file has not changed since the time in the header
+     */
+    private static boolean notModifiedSince(Instant lastModified, String ifModifiedSince) {
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            return !lastModified.isAfter(ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Sends a plain text response.
+     *
+     * @param exchange the request and response
+     * @param status   the status code
+     * @param message  the body
+     * @throws IOException if the response could not be sent
+     */
+    private static void send(HttpExchange exchange, int status, String message) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a response.
+     *
+     * @param exchange the request and response
+     * @param status   the status code
+     * @param body     the body
+     * @throws IOException if the response could not be sent
+     */
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    /**
+     * Mixes the seed, the path and the attempt into well spread random bits (SplitMix64).
+     *
+     * @param seed    the seed
+     * @param path    the hash of the path
+     * @param attempt the number of earlier requests for the path
+     * @return the random bits
+     */
+    private static long mix(long seed, int path, int attempt) {
+        var z = seed + 0x9E3779B97F4A7C15L * ((((long) path << 32) ^ (attempt & 0xffffffffL)) + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Creates a thread factory of named daemon threads, which do not keep the JVM running.
+     *
+     * @param name the thread name
+     * @return the thread factory
+     */
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            var thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Stops the server, dropping any delayed responses.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        delays.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets the fixture directory.
+     *
+     * @return the fixture directory
+     */
+    public Path getFixtureDir() {
+        return fixtureDir;
+    }
+
+    /**
+     * Sets the delay of every response, picked uniformly in [min, max].
+     *
+     * @param minLatencyMillis the shortest delay in milliseconds
+     * @param maxLatencyMillis the longest delay in milliseconds
+     */
+    public void setLatencyMillis(long minLatencyMillis, long maxLatencyMillis) {
+        if (minLatencyMillis < 0 || maxLatencyMillis < minLatencyMillis) {
+            throw new IllegalArgumentException("The latency must be a range of non negative milliseconds.");
+        }
+        this.minLatencyMillis = minLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+
+    /**
+     * Sets the fraction of requests answered with a 500 error.
+     *
+     * @param errorRate the error rate, in [0, 1]
+     */
+    public void setErrorRate(double errorRate) {
+        if (!(errorRate >= 0 && errorRate <= 1)) {
+            throw new IllegalArgumentException("The error rate must be between 0 and 1.");
+        }
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Sets the seed of the delays and errors.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Gets the number of requests received.
+     *
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of requests answered with an injected error.
+     *
+     * @return the injected error count
+     */
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+}
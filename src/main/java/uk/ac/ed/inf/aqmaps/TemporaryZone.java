@@ -0,0 +1,109 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A no-fly zone which only holds for part of a mission, e.g. round an event or a crane.
+ *
+ * <p>The time of a mission is counted in moves, like the flight log: the zone holds from the
+ * move it starts at, until the move it ends at. Instances are immutable, the polygon is
+ * copied when the zone is made.</p>
+ */
+public final class TemporaryZone {
+
+    /**
+     * The end of a zone which holds until the end of the mission.
+     */
+    public static final int FOREVER = Integer.MAX_VALUE;
+
+    /**
+     * The name of the zone, which a later zone of the same name replaces.
+     */
+    private final String name;
+    /**
+     * The points of the polygon of the zone.
+     */
+    private final List<Point2D> polygon;
+    /**
+     * The number of moves made when the zone starts to hold.
+     */
+    private final int from;
+    /**
+     * The number of moves made when the zone stops holding, or {@link #FOREVER}.
+     */
+    private final int until;
+
+    /**
+     * Instantiates a new Temporary zone, copying the polygon.
+     *
+     * @param name    the name of the zone
+     * @param polygon the points of the polygon of the zone
+     * @param from    the number of moves made when the zone starts to hold
+     * @param until   the number of moves made when the zone stops holding, or {@link #FOREVER}
+     */
+    public TemporaryZone(String name, List<Point2D> polygon, int from, int until) {
+        super();
+        if (from < 0 || until <= from) {
+            throw new IllegalArgumentException("The temporary zone " + name + " must start at a move before it ends.");
+        }
+        if (polygon.size() < 3) {
+            throw new IllegalArgumentException("The temporary zone " + name + " must have at least 3 points.");
+        }
+        var copy = new ArrayList<Point2D>(polygon.size());
+        for (Point2D point : polygon) {
+            copy.add(new Point2D.Double(point.getX(), point.getY()));
+        }
+        this.name = name;
+        this.polygon = List.copyOf(copy);
+        this.from = from;
+        this.until = until;
+    }
+
+    /**
+     * Checks if the zone holds after a number of moves.
+     *
+     * @param move the number of moves made
+     * @return true if the zone holds else false
+     */
+    public boolean holdsAt(int move) {
+        return from <= move && move < until;
+    }
+
+    /**
+     * Gets name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets polygon. The list cannot be changed, and its points must not be.
+     *
+     * @return the points of the polygon of the zone
+     */
+    public List<Point2D> getPolygon() {
+        return polygon;
+    }
+
+    /**
+     * Gets from.
+     *
+     * @return the number of moves made when the zone starts to hold
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets until.
+     *
+     * @return the number of moves made when the zone stops holding, or {@link #FOREVER}
+     */
+    public int getUntil() {
+        return until;
+    }
+}
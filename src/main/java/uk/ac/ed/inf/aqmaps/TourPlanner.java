@@ -0,0 +1,292 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The planner which orders the sensors of a day into a short closed tour from the
+ * starting position, before the drone takes off.
+ *
+ * <p>The tour is built with the nearest neighbour heuristic and then improved with 2-opt
+ * (reversing a stretch of the tour) and Or-opt (moving a run of up to three sensors to
+ * another place in the tour) until neither finds a shorter tour. Node 0 of the cost
+ * matrix is the starting position, nodes 1 to n are the sensors in input order.</p>
+ */
+public class TourPlanner {
+
+    /**
+     * The longest run of sensors Or-opt moves at once.
+     */
+    private static final int MAX_OR_OPT_LENGTH = 3;
+    /**
+     * The smallest improvement worth applying, to stop rounding errors from looping.
+     */
+    private static final double EPSILON = 1e-12;
+
+    /**
+     * The number of nodes, the starting position included.
+     */
+    private final int size;
+    /**
+     * The symmetric cost of travelling between each pair of nodes, indexed by from * size + to.
+     */
+    private final double[] costs;
+
+    /**
+     * Instantiates a new Tour planner.
+     *
+     * @param size  the number of nodes, the starting position included
+     * @param costs the symmetric cost between each pair of nodes, indexed by from * size + to
+     */
+    public TourPlanner(int size, double[] costs) {
+        super();
+        if (costs.length != size * size) {
+            throw new IllegalArgumentException("The cost matrix must have size * size entries.");
+        }
+        this.size = size;
+        this.costs = costs;
+    }
+
+    /**
+     * Instantiates a new Tour planner for the sensors of a day, with obstacle aware
+     * costs (see {@link #legCosts(Point2D, List, NoFlyZones, PlayArea)}).
+     *
+     * @param startingPosition the starting position
+     * @param sensors          the sensors to visit
+     * @param noFlyZones       the no-fly zones
+     * @param playArea         the play area
+     */
+    public TourPlanner(Point2D startingPosition, List<Sensor> sensors, NoFlyZones noFlyZones, PlayArea playArea) {
+        this(sensors.size() + 1, legCosts(startingPosition, sensors, noFlyZones, playArea));
+    }
+
+    /**
+     * Plans the tour.
+     *
+     * @return the order to visit the nodes in, starting with 0, the starting position
+     */
+    public int[] plan() {
+        var tour = nearestNeighbourTour();
+        var improved = true;
+        while (improved) {
+            improved = twoOpt(tour) | orOpt(tour);
+        }
+        return tour;
+    }
+
+    /**
+     * Plans the tour and returns the sensors in the order to visit them.
+     *
+     * @param sensors the sensors, in the order used for the cost matrix
+     * @return the sensors in tour order
+     */
+    public ArrayList<Sensor> planRoute(List<Sensor> sensors) {
+        var tour = plan();
+        var route = new ArrayList<Sensor>(sensors.size());
+        for (int i = 1; i < tour.length; i++) {
+            route.add(sensors.get(tour[i] - 1));
+        }
+        return route;
+    }
+
+    /**
+     * The length of a closed tour.
+     *
+     * @param tour the order of the nodes
+     * @return the total cost, the way back to the first node included
+     */
+    public double tourCost(int[] tour) {
+        var total = 0.0;
+        for (int i = 0; i < tour.length; i++) {
+            total += cost(tour[i], tour[(i + 1) % tour.length]);
+        }
+        return total;
+    }
+
+    /**
+     * Builds a tour by always going to the closest unvisited node.
+     *
+     * @return the tour, starting with node 0
+     */
+    private int[] nearestNeighbourTour() {
+        var tour = new int[size];
+        var visited = new boolean[size];
+        visited[0] = true;
+        for (int i = 1; i < size; i++) {
+            var from = tour[i - 1];
+            var nearest = -1;
+            for (int to = 1; to < size; to++) {
+                if (!visited[to] && (nearest == -1 || cost(from, to) < cost(from, nearest))) {
+                    nearest = to;
+                }
+            }
+            tour[i] = nearest;
+            visited[nearest] = true;
+        }
+        return tour;
+    }
+
+    /**
+     * Applies every improving 2-opt move, i.e. reverses tour[i..j] when that shortens the tour.
+     *
+     * @param tour the tour, changed in place
+     * @return true if the tour was improved
+     */
+    private boolean twoOpt(int[] tour) {
+        var improved = false;
+        for (int i = 1; i < size - 1; i++) {
+            for (int j = i + 1; j < size; j++) {
+                var a = tour[i - 1];
+                var b = tour[i];
+                var c = tour[j];
+                var d = tour[(j + 1) % size];
+                var delta = cost(a, c) + cost(b, d) - cost(a, b) - cost(c, d);
+                if (delta < -EPSILON) {
+                    reverse(tour, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Applies every improving Or-opt move, i.e. moves a run of up to three nodes, possibly
+     * reversed, to between two other neighbouring nodes when that shortens the tour.
+     *
+     * @param tour the tour, changed in place
+     * @return true if the tour was improved
+     */
+    private boolean orOpt(int[] tour) {
+        var improved = false;
+        for (int length = 1; length <= MAX_OR_OPT_LENGTH; length++) {
+            for (int i = 1; i + length <= size; i++) {
+                var first = tour[i];
+                var last = tour[i + length - 1];
+                var prev = tour[i - 1];
+                var next = tour[(i + length) % size];
+                var removeGain = cost(prev, first) + cost(last, next) - cost(prev, next);
+
+                var bestDelta = -EPSILON;
+                var bestPos = -1;
+                var bestReversed = false;
+                // try every edge (tour[k], tour[k + 1]) outside the run
+                for (int k = 0; k < size; k++) {
+                    if (k >= i - 1 && k < i + length) {
+                        continue;
+                    }
+                    var u = tour[k];
+                    var v = tour[(k + 1) % size];
+                    var forward = cost(u, first) + cost(last, v) - cost(u, v) - removeGain;
+                    var backward = cost(u, last) + cost(first, v) - cost(u, v) - removeGain;
+                    if (forward < bestDelta) {
+                        bestDelta = forward;
+                        bestPos = k;
+                        bestReversed = false;
+                    }
+                    if (backward < bestDelta) {
+                        bestDelta = backward;
+                        bestPos = k;
+                        bestReversed = true;
+                    }
+                }
+                if (bestPos != -1) {
+                    moveRun(tour, i, length, bestPos, bestReversed);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * Moves tour[i..i + length - 1] to just after tour[pos], keeping node 0 at the front.
+     *
+     * @param tour     the tour, changed in place
+     * @param i        the start of the run
+     * @param length   the length of the run
+     * @param pos      the position of the node the run goes after, outside the run
+     * @param reversed true to insert the run in reverse
+     */
+    private static void moveRun(int[] tour, int i, int length, int pos, boolean reversed) {
+        var run = new int[length];
+        System.arraycopy(tour, i, run, 0, length);
+        if (reversed) {
+            reverse(run, 0, length - 1);
+        }
+        if (pos > i) {
+            // shift the nodes between the run and pos left, then put the run after them
+            System.arraycopy(tour, i + length, tour, i, pos - i - length + 1);
+            System.arraycopy(run, 0, tour, pos - length + 1, length);
+        } else {
+            // shift the nodes after pos right, then put the run after pos
+            System.arraycopy(tour, pos + 1, tour, pos + 1 + length, i - pos - 1);
+            System.arraycopy(run, 0, tour, pos + 1, length);
+        }
+    }
+
+    /**
+     * Reverses tour[i..j] in place.
+     *
+     * @param tour the tour
+     * @param i    the first position
+     * @param j    the last position
+     */
+    private static void reverse(int[] tour, int i, int j) {
+        while (i < j) {
+            var temp = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = temp;
+        }
+    }
+
+    /**
+     * The cost of travelling between two nodes.
+     *
+     * @param from the first node
+     * @param to   the second node
+     * @return the cost
+     */
+    private double cost(int from, int to) {
+        return costs[from * size + to];
+    }
+
+    /**
+     * Finds the distance between the starting position and every sensor, and between every
+     * pair of sensors, going round the no-fly zones (see {@link VisibilityGraph}). A pair
+     * which cannot be joined costs twice its straight distance.
+     *
+     * @param startingPosition the starting position, node 0
+     * @param sensors          the sensors, nodes 1 to n
+     * @param noFlyZones       the no-fly zones
+     * @param playArea         the play area
+     * @return the symmetric cost matrix, indexed by from * size + to
+     */
+    public static double[] legCosts(Point2D startingPosition, List<Sensor> sensors, NoFlyZones noFlyZones, PlayArea playArea) {
+        var size = sensors.size() + 1;
+        var xs = new double[size];
+        var ys = new double[size];
+        xs[0] = startingPosition.getX();
+        ys[0] = startingPosition.getY();
+        for (int i = 1; i < size; i++) {
+            xs[i] = sensors.get(i - 1).getCoord().getX();
+            ys[i] = sensors.get(i - 1).getCoord().getY();
+        }
+
+        var visibilityGraph = new VisibilityGraph(noFlyZones, playArea);
+
+        var costs = new double[size * size];
+        for (int a = 0; a < size; a++) {
+            for (int b = a + 1; b < size; b++) {
+                var cost = visibilityGraph.distance(xs[a], ys[a], xs[b], ys[b]);
+                if (cost == Double.POSITIVE_INFINITY) {
+                    cost = 2 * GeometryHelpers.distance(xs[a], ys[a], xs[b], ys[b]);
+                }
+                costs[a * size + b] = cost;
+                costs[b * size + a] = cost;
+            }
+        }
+        return costs;
+    }
+}
@@ -0,0 +1,181 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.util.Arrays;
+
+/**
+ * The visibility graph of the corners of a set of {@link NoFlyZones}.
+ *
+ * <p>The nodes are the corners of the no-fly zones, pushed a small clearance out of the zone
+ * (see {@link NoFlyZones#corners(double, PlayArea)}), and two corners are joined when the
+ * straight line between them does not cross a no-fly zone. The shortest way round the
+ * no-fly zones between two points only turns at corners, so shortest paths in this graph
+ * give the obstacle aware distance between any two points of the map.</p>
+ */
+public class VisibilityGraph {
+
+    /**
+     * The distance kept from the corners of the no-fly zones.
+     */
+    private static final double CORNER_CLEARANCE = 1e-5;
+
+    /**
+     * The no-fly zones.
+     */
+    private final NoFlyZones noFlyZones;
+    /**
+     * The x coordinates of the corners.
+     */
+    private final double[] cornerX;
+    /**
+     * The y coordinates of the corners.
+     */
+    private final double[] cornerY;
+    /**
+     * The length of the line between each pair of corners, or infinity if it crosses a
+     * no-fly zone, indexed by from * size + to.
+     */
+    private final double[] edgeCosts;
+
+    /**
+     * Builds the visibility graph of the no-fly zones, leaving out the corners outside the play area.
+     *
+     * @param noFlyZones the no-fly zones
+     * @param playArea   the play area
+     */
+    public VisibilityGraph(NoFlyZones noFlyZones, PlayArea playArea) {
+        super();
+        this.noFlyZones = noFlyZones;
+        var corners = noFlyZones.corners(CORNER_CLEARANCE, playArea);
+        var size = corners.size();
+        this.cornerX = new double[size];
+        this.cornerY = new double[size];
+        for (int i = 0; i < size; i++) {
+            cornerX[i] = corners.get(i).getX();
+            cornerY[i] = corners.get(i).getY();
+        }
+        this.edgeCosts = new double[size * size];
+        Arrays.fill(edgeCosts, Double.POSITIVE_INFINITY);
+        for (int a = 0; a < size; a++) {
+            edgeCosts[a * size + a] = 0;
+            for (int b = a + 1; b < size; b++) {
+                if (visible(cornerX[a], cornerY[a], cornerX[b], cornerY[b])) {
+                    var cost = GeometryHelpers.distance(cornerX[a], cornerY[a], cornerX[b], cornerY[b]);
+                    edgeCosts[a * size + b] = cost;
+                    edgeCosts[b * size + a] = cost;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the length of the shortest way round the no-fly zones from every corner to a
+     * target point, with Dijkstra's algorithm started from the target.
+     *
+     * @param x the x coordinate of the target
+     * @param y the y coordinate of the target
+     * @return the distance from each corner to the target, infinity if there is no way
+     */
+    public double[] distancesTo(double x, double y) {
+        var size = cornerX.length;
+        var distances = new double[size];
+        var done = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            distances[i] = visible(cornerX[i], cornerY[i], x, y)
+                    ? GeometryHelpers.distance(cornerX[i], cornerY[i], x, y)
+                    : Double.POSITIVE_INFINITY;
+        }
+        // the graph is small and dense, so a linear scan for the closest corner is enough
+        for (int round = 0; round < size; round++) {
+            var closest = -1;
+            for (int i = 0; i < size; i++) {
+                if (!done[i] && (closest == -1 || distances[i] < distances[closest])) {
+                    closest = i;
+                }
+            }
+            if (distances[closest] == Double.POSITIVE_INFINITY) {
+                break;
+            }
+            done[closest] = true;
+            for (int i = 0; i < size; i++) {
+                var through = distances[closest] + edgeCosts[closest * size + i];
+                if (!done[i] && through < distances[i]) {
+                    distances[i] = through;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Estimates the length of the shortest way round the no-fly zones from a point to the
+     * target the distances were computed for. The estimate never exceeds the true length,
+     * apart from the corner clearance, so it can be used as an A* heuristic.
+     *
+     * @param x         the x coordinate of the point
+     * @param y         the y coordinate of the point
+     * @param targetX   the x coordinate of the target
+     * @param targetY   the y coordinate of the target
+     * @param distances the distances of the corners to the target, from {@link #distancesTo(double, double)}
+     * @return the estimated distance
+     */
+    public double estimate(double x, double y, double targetX, double targetY, double[] distances) {
+        if (visible(x, y, targetX, targetY)) {
+            return GeometryHelpers.distance(x, y, targetX, targetY);
+        }
+        /*
+         a blocked path turns first at a corner the point can see, so the cheapest way through
+         any corner is a lower bound, without paying for a visibility test to every corner
+        */
+        var best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < cornerX.length; i++) {
+            best = Math.min(best, GeometryHelpers.distance(x, y, cornerX[i], cornerY[i]) + distances[i]);
+        }
+        // with no corner in reach fall back to the straight line, which is always a lower bound
+        return best == Double.POSITIVE_INFINITY ? GeometryHelpers.distance(x, y, targetX, targetY) : best;
+    }
+
+    /**
+     * Finds the length of the shortest way round the no-fly zones between two points.
+     *
+     * @param x1 the x coordinate of the first point
+     * @param y1 the y coordinate of the first point
+     * @param x2 the x coordinate of the second point
+     * @param y2 the y coordinate of the second point
+     * @return the distance, infinity if the points cannot be joined
+     */
+    public double distance(double x1, double y1, double x2, double y2) {
+        if (visible(x1, y1, x2, y2)) {
+            return GeometryHelpers.distance(x1, y1, x2, y2);
+        }
+        var distances = distancesTo(x2, y2);
+        var best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < cornerX.length; i++) {
+            if (distances[i] < best && visible(x1, y1, cornerX[i], cornerY[i])) {
+                best = Math.min(best, GeometryHelpers.distance(x1, y1, cornerX[i], cornerY[i]) + distances[i]);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the number of corners in the graph.
+     *
+     * @return the corner count
+     */
+    public int getCornerCount() {
+        return cornerX.length;
+    }
+
+    /**
+     * Checks if the straight line between two points stays out of the no-fly zones.
+     *
+     * @param x1 the x coordinate of the first point
+     * @param y1 the y coordinate of the first point
+     * @param x2 the x coordinate of the second point
+     * @param y2 the y coordinate of the second point
+     * @return true if the line does not cross a no-fly zone
+     */
+    private boolean visible(double x1, double y1, double x2, double y2) {
+        return noFlyZones.polygonLineIntersects(x1, y1, x2, y2) == -1;
+    }
+}
@@ -0,0 +1,29 @@
+package uk.ac.ed.inf.aqmaps;
+
+/**
+ * The exception thrown by {@link WebRequests} when a resource could not be fetched
+ * from the web server or the response could not be used.
+ */
+public class WebRequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Instantiates a new Web request exception.
+     *
+     * @param message the message
+     */
+    public WebRequestException(String message) {
+        super(message);
+    }
+
+    /**
+     * Instantiates a new Web request exception.
+     *
+     * @param message the message
+     * @param cause   the cause
+     */
+    public WebRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
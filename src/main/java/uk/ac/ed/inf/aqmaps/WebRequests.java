@@ -16,9 +16,15 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
 
 /**
  * The Web requests class contains methods to do the required HTTP requests
@@ -30,6 +36,22 @@ public class WebRequests {
      * The HTTP client.
      */
     private static final HttpClient client = HttpClient.newHttpClient();
+    /**
+     * The JSON parser, shared as it is thread safe.
+     */
+    private static final Gson gson = new Gson();
+    /**
+     * The default number of requests that may be in flight at once.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 8;
+    /**
+     * The default number of daily sensor maps kept in memory.
+     */
+    public static final int DEFAULT_MAP_CACHE_SIZE = 64;
+    /**
+     * The default time limit of a request.
+     */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
     /**
      * The host.
      */
@@ -38,6 +60,30 @@ public class WebRequests {
      * The port.
      */
     private final int port;
+    /**
+     * The permits limiting the number of asynchronous requests in flight.
+     */
+    private volatile Semaphore requestPermits = new Semaphore(DEFAULT_MAX_CONCURRENT_REQUESTS);
+    /**
+     * The maximum number of asynchronous requests in flight.
+     */
+    private volatile int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    /**
+     * The time limit of a request, after which it fails with a {@link WebRequestException}.
+     */
+    private volatile Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+    /**
+     * The cache of W3W location coordinates, or null to always fetch them.
+     */
+    private volatile WordsCache wordsCache;
+    /**
+     * The cache of the parsed no-fly zones.
+     */
+    private final ResourceCache<ArrayList<ArrayList<Point2D>>> buildingsCache = new ResourceCache<>(1);
+    /**
+     * The cache of the daily air quality data.
+     */
+    private volatile ResourceCache<String> mapsCache = new ResourceCache<>(DEFAULT_MAP_CACHE_SIZE);
 
     /**
      * Instantiates a new Web requests.
@@ -97,16 +143,24 @@ public class WebRequests {
     }
 
     /**
-     * Get the no-fly zones on the map.
+     * Get the no-fly zones on the map. The zones are parsed once and revalidated with the
+     * server on every later call, so the returned list is shared and must not be modified.
      *
      * @return the list of list of points defining each no-fly zone
+     * @throws WebRequestException if the no-fly zones could not be fetched
      */
     public ArrayList<ArrayList<Point2D>> getBuidings() {
-        var request =
-                HttpRequest.newBuilder()
-                        .uri(URI.create(this.host + ":" + this.port + "/buildings/no-fly-zones.geojson"))
-                        .build();
-        var geoJsonString = safeGET(request);
+        var uri = URI.create(this.host + ":" + this.port + "/buildings/no-fly-zones.geojson");
+        return cachedGET(uri, this.buildingsCache, WebRequests::parseBuildings);
+    }
+
+    /**
+     * Parses the no-fly zones GeoJSON into lists of points.
+     *
+     * @param geoJsonString the GeoJSON feature collection of no-fly zones
+     * @return the list of list of points defining each no-fly zone
+     */
+    public static ArrayList<ArrayList<Point2D>> parseBuildings(String geoJsonString) {
         // Creating a list of features
         FeatureCollection fc = FeatureCollection.fromJson(geoJsonString);
         List<Feature> fcList = fc.features();
@@ -134,20 +188,81 @@ public class WebRequests {
     }
 
     /**
-     * This method does a get request safely while handling any exceptions..
+     * This method does a get request safely while handling any exceptions.
      *
      * @param request the request object
      * @return the string of the response
+     * @throws WebRequestException if the request fails or the server does not answer with 200 OK
      */
     private String safeGET(HttpRequest request) {
-        HttpResponse<String> response = null;
+        return checkedBody(send(request));
+    }
+
+    /**
+     * Does a get request through a resource cache. A cached resource is revalidated with a
+     * conditional GET using its ETag and Last-Modified validators; if the server answers
+     * 304 Not Modified, or sends the same body again, the cached parsed value is reused.
+     *
+     * @param <T>    the type of the parsed resource
+     * @param uri    the uri of the resource
+     * @param cache  the cache to use
+     * @param parser the parser of the response body
+     * @return the parsed resource
+     * @throws WebRequestException if the request fails or the server answers neither 200 nor 304
+     */
+    private <T> T cachedGET(URI uri, ResourceCache<T> cache, Function<String, T> parser) {
+        var cached = cache.get(uri);
+        var builder = HttpRequest.newBuilder().uri(uri).timeout(this.requestTimeout);
+        if (cached != null && cached.getEtag() != null) {
+            builder.header("If-None-Match", cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            builder.header("If-Modified-Since", cached.getLastModified());
+        }
+        var response = send(builder.build());
+        if (cached != null && response.statusCode() == 304) {
+            return cached.getValue();
+        }
+
+        var body = checkedBody(response);
+        var etag = response.headers().firstValue("ETag").orElse(null);
+        var lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        var value = cached != null && cached.getBody().equals(body) ? cached.getValue() : parser.apply(body);
+        cache.put(uri, new ResourceCache.Entry<>(etag, lastModified, body, value));
+        return value;
+    }
+
+    /**
+     * Sends a request, turning connection problems into a {@link WebRequestException}.
+     *
+     * @param request the request object
+     * @return the response
+     * @throws WebRequestException if the request fails
+     */
+    private HttpResponse<String> send(HttpRequest request) {
         try {
-            response = client.send(request, BodyHandlers.ofString());
-        } catch (IOException | InterruptedException e) {
-            System.err.println("Exception while connecting to " + this.host + " at port " + this.port + ".");
-            System.exit(1);
+            return client.send(request, BodyHandlers.ofString());
+        } catch (IOException e) {
+            throw new WebRequestException(
+                    "Exception while connecting to " + this.host + " at port " + this.port + ".", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WebRequestException("Interrupted while fetching " + request.uri() + ".", e);
         }
+    }
 
+    /**
+     * Returns the body of a response, if the server answered with 200 OK.
+     *
+     * @param response the response
+     * @return the body of the response
+     * @throws WebRequestException if the status code is not 200
+     */
+    private String checkedBody(HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new WebRequestException(
+                    "The server answered " + response.statusCode() + " for " + response.request().uri() + ".");
+        }
         return response.body();
     }
 
@@ -156,30 +271,111 @@ public class WebRequests {
      *
      * @param path the w3w location
      * @return the list of {@link Sensor} to visit
+     * @throws WebRequestException if the map or any of the sensor locations could not be fetched
      */
     public ArrayList<Sensor> getMaps(String path) {
+        var sensorList = getSensorData(path);
 
-        // Get air-quality-data JSON file from the server.
-        var request =
-                HttpRequest.newBuilder()
-                        .uri(
-                                URI.create(this.host + ":" + this.port + "/maps/" + path + "air-quality-data.json"))
-                        .build();
-        var geoJsonString = safeGET(request);
+        // Resolve all the sensor locations concurrently, then join them back in input order.
+        var cache = this.wordsCache;
+        var pending = new ArrayList<CompletableFuture<Point2D.Double>>(sensorList.size());
+        for (Sensor sensor : sensorList) {
+            var cached = cache == null ? null : cache.get(sensor.getLocation());
+            if (cached != null) {
+                pending.add(CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            var wordPath = sensor.getLocation().replace(".", "/");
+            pending.add(getWordsAsync(wordPath));
+        }
+        for (int i = 0; i < sensorList.size(); i++) {
+            try {
+                // get rather than join, so that a cancelled day is not stuck on a slow lookup
+                sensorList.get(i).setCoord(pending.get(i).get());
+            } catch (InterruptedException e) {
+                pending.forEach(future -> future.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new WebRequestException(
+                        "Interrupted while resolving the location of sensor " + sensorList.get(i).getLocation() + ".", e);
+            } catch (ExecutionException e) {
+                pending.forEach(future -> future.cancel(true));
+                if (e.getCause() instanceof WebRequestException) {
+                    throw (WebRequestException) e.getCause();
+                }
+                throw new WebRequestException(
+                        "Could not resolve the location of sensor " + sensorList.get(i).getLocation() + ".",
+                        e.getCause());
+            }
+        }
+        saveWordsCache();
+
+        return sensorList;
+    }
+
+    /**
+     * Gets the sensors of the map for the given date, without looking up their locations.
+     *
+     * @param path the date path, as YYYY/MM/DD/
+     * @return the list of {@link Sensor} with no coordinates
+     * @throws WebRequestException if the map could not be fetched
+     */
+    public ArrayList<Sensor> getSensorData(String path) {
+
+        // Get air-quality-data JSON file from the server, or the revalidated cached copy.
+        var uri = URI.create(this.host + ":" + this.port + "/maps/" + path + "air-quality-data.json");
+        var geoJsonString = cachedGET(uri, this.mapsCache, Function.identity());
 
         // Deserialise JSON Array to an ArrayList of AirQualityData
         Type targetClassType = new TypeToken<ArrayList<Sensor>>() {
         }.getType();
 
-        ArrayList<Sensor> sensorList = new Gson().fromJson(geoJsonString, targetClassType);
+        return gson.fromJson(geoJsonString, targetClassType);
+    }
 
-        for (Sensor sensor : sensorList) {
-            var wordPath = sensor.getLocation().replace(".", "/");
-            var coord = getWords(wordPath, true);
-            sensor.setCoord(coord);
+    /**
+     * Fetches the coordinates of a W3W location asynchronously. At most
+     * {@link #getMaxConcurrentRequests()} of these requests are in flight at once,
+     * so the calling thread blocks until a permit is available.
+     *
+     * @param path the w3w location, with the words separated by "/"
+     * @return the future coordinates, failing with a {@link WebRequestException}
+     */
+    private CompletableFuture<Point2D.Double> getWordsAsync(String path) {
+        var request =
+                HttpRequest.newBuilder()
+                        .uri(URI.create(this.host + ":" + this.port + "/words/" + path + "/details.json"))
+                        .timeout(this.requestTimeout)
+                        .build();
+        var permits = this.requestPermits;
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(
+                    new WebRequestException("Interrupted while fetching " + request.uri() + ".", e));
         }
-
-        return sensorList;
+        CompletableFuture<HttpResponse<String>> sent;
+        try {
+            sent = client.sendAsync(request, BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            // the request never got in flight, so nothing else gives the permit back
+            permits.release();
+            return CompletableFuture.failedFuture(
+                    new WebRequestException("Exception while fetching " + request.uri() + ".", e));
+        }
+        return sent
+                .whenComplete((response, error) -> permits.release())
+                .thenApply(response -> {
+                    var words = gson.fromJson(checkedBody(response), Words.class);
+                    return toCoord(path, words);
+                })
+                .exceptionally(error -> {
+                    var cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof WebRequestException) {
+                        throw (WebRequestException) cause;
+                    }
+                    throw new WebRequestException("Exception while fetching " + request.uri() + ".", cause);
+                });
     }
 
     /**
@@ -193,17 +389,59 @@ public class WebRequests {
         if (!coordsOnly) {
             getWords(path);
         }
+        var cache = this.wordsCache;
+        if (cache != null) {
+            var cached = cache.get(path.replace("/", "."));
+            if (cached != null) {
+                return cached;
+            }
+        }
         // Get the details.json file for given path.
         var request =
                 HttpRequest.newBuilder()
                         .uri(URI.create(this.host + ":" + this.port + "/words/" + path + "/details.json"))
+                        .timeout(this.requestTimeout)
                         .build();
         var jsonString = safeGET(request);
 
         // Deserialising the fetched JSON file.
-        var words = new Gson().fromJson(jsonString, Words.class);
+        var words = gson.fromJson(jsonString, Words.class);
+
+        var coord = toCoord(path, words);
+        saveWordsCache();
+        return coord;
+    }
+
+    /**
+     * Extracts the coordinates from the details of a W3W location, and caches them.
+     *
+     * @param path  the w3w location, with the words separated by "/"
+     * @param words the deserialised details
+     * @return the coordinates
+     */
+    private Point2D.Double toCoord(String path, Words words) {
+        var coord = new Point2D.Double(words.getCoordinates().getLng(), words.getCoordinates().getLat());
+        var cache = this.wordsCache;
+        if (cache != null) {
+            cache.put(path.replace("/", "."), coord);
+        }
+        return coord;
+    }
 
-        return new Point2D.Double(words.getCoordinates().getLng(), words.getCoordinates().getLat());
+    /**
+     * Writes the words cache to disk, if there is one. A failure only costs the
+     * lookups next time, so it is reported but not raised.
+     */
+    private void saveWordsCache() {
+        var cache = this.wordsCache;
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.save();
+        } catch (IOException e) {
+            System.err.println("Could not write the words cache to " + cache.getCacheFile() + ".");
+        }
     }
 
     /**
@@ -218,11 +456,91 @@ public class WebRequests {
         var request =
                 HttpRequest.newBuilder()
                         .uri(URI.create(this.host + ":" + this.port + "/words/" + path + "/details.json"))
+                        .timeout(this.requestTimeout)
                         .build();
         var jsonString = safeGET(request);
 
         // Deserialising the fetched JSON file.
 
-        return new Gson().fromJson(jsonString, Words.class);
+        return gson.fromJson(jsonString, Words.class);
+    }
+
+    /**
+     * Gets max concurrent requests.
+     *
+     * @return the max concurrent requests
+     */
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    /**
+     * Sets max concurrent requests.
+     *
+     * @param maxConcurrentRequests the max number of asynchronous requests in flight
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("At least one request must be allowed in flight.");
+        }
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.requestPermits = new Semaphore(maxConcurrentRequests);
+    }
+
+    /**
+     * Gets request timeout.
+     *
+     * @return the time limit of a request
+     */
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Sets request timeout.
+     *
+     * @param requestTimeout the time limit of a request
+     */
+    public void setRequestTimeout(Duration requestTimeout) {
+        if (requestTimeout.isNegative() || requestTimeout.isZero()) {
+            throw new IllegalArgumentException("The request timeout must be positive.");
+        }
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Gets the maximum number of daily sensor maps kept in memory.
+     *
+     * @return the map cache size
+     */
+    public int getMapCacheSize() {
+        return mapsCache.getMaxEntries();
+    }
+
+    /**
+     * Sets the maximum number of daily sensor maps kept in memory. This empties the cache.
+     *
+     * @param mapCacheSize the map cache size
+     */
+    public void setMapCacheSize(int mapCacheSize) {
+        this.mapsCache = new ResourceCache<>(mapCacheSize);
+    }
+
+    /**
+     * Gets words cache.
+     *
+     * @return the words cache, or null if locations are not cached
+     */
+    public WordsCache getWordsCache() {
+        return wordsCache;
+    }
+
+    /**
+     * Sets words cache.
+     *
+     * @param wordsCache the words cache, or null to always fetch locations
+     */
+    public void setWordsCache(WordsCache wordsCache) {
+        this.wordsCache = wordsCache;
     }
 }
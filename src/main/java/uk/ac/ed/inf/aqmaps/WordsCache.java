@@ -0,0 +1,267 @@
+package uk.ac.ed.inf.aqmaps;
+
+import java.awt.geom.Point2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent, size bounded cache of W3W location to coordinates lookups.
+ *
+ * <p>The cache lives in memory as a least recently used map and is stored in a compact
+ * binary file, {@value #FILE_NAME}, inside the cache directory. Each entry is stored as
+ * the W3W string, the longitude and latitude, and a CRC32 checksum of the three, so
+ * damaged entries are dropped when the file is loaded. The file is rewritten atomically,
+ * which lets several processes share one cache directory without corrupting it.</p>
+ */
+public class WordsCache {
+
+    /**
+     * The default maximum number of cached locations.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 4096;
+    /**
+     * The name of the cache file inside the cache directory.
+     */
+    public static final String FILE_NAME = "words.cache";
+    /**
+     * The magic number at the start of the cache file ("W3WC").
+     */
+    private static final int MAGIC = 0x57335743;
+    /**
+     * The version of the cache file format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The path of the cache file.
+     */
+    private final Path cacheFile;
+    /**
+     * The maximum number of cached locations.
+     */
+    private final int maxEntries;
+    /**
+     * The cached coordinates in least recently used order.
+     */
+    private final LinkedHashMap<String, Point2D.Double> entries;
+    /**
+     * Flag to check if the cache changed since it was last loaded or saved.
+     */
+    private boolean dirty = false;
+
+    /**
+     * Instantiates a new, empty Words cache. Use {@link #open(Path, int)} to load a stored cache.
+     *
+     * @param cacheDir   the cache directory
+     * @param maxEntries the maximum number of cached locations
+     */
+    public WordsCache(Path cacheDir, int maxEntries) {
+        super();
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The cache must hold at least one entry.");
+        }
+        this.cacheFile = cacheDir.resolve(FILE_NAME);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Point2D.Double> eldest) {
+                return size() > WordsCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Opens the cache stored in the given directory. A missing or unreadable cache file
+     * gives an empty cache.
+     *
+     * @param cacheDir   the cache directory
+     * @param maxEntries the maximum number of cached locations
+     * @return the words cache
+     */
+    public static WordsCache open(Path cacheDir, int maxEntries) {
+        var cache = new WordsCache(cacheDir, maxEntries);
+        try {
+            cache.load();
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable words cache " + cache.cacheFile + ".");
+        }
+        return cache;
+    }
+
+    /**
+     * Gets the cached coordinates of a W3W location.
+     *
+     * @param location the w3w location, e.g. "trades.rare.cable"
+     * @return the coordinates or null if they are not cached
+     */
+    public synchronized Point2D.Double get(String location) {
+        var coord = entries.get(location);
+        // hand out copies, as Point2D is mutable
+        return coord == null ? null : new Point2D.Double(coord.getX(), coord.getY());
+    }
+
+    /**
+     * Caches the coordinates of a W3W location, evicting the least recently used
+     * location if the cache is full.
+     *
+     * @param location the w3w location
+     * @param coord    the coordinates
+     */
+    public synchronized void put(String location, Point2D coord) {
+        if (!isValid(location, coord.getX(), coord.getY())) {
+            return;
+        }
+        var previous = entries.put(location, new Point2D.Double(coord.getX(), coord.getY()));
+        if (previous == null || !previous.equals(coord)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Loads the entries of the cache file, keeping the entries read before any damaged one.
+     *
+     * @throws IOException if the cache file exists but has a wrong header
+     */
+    private synchronized void load() throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a words cache file.");
+            }
+            var count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                var location = in.readUTF();
+                var lng = in.readDouble();
+                var lat = in.readDouble();
+                var checksum = in.readInt();
+                if (checksum != checksum(location, lng, lat) || !isValid(location, lng, lat)) {
+                    // the rest of the file cannot be trusted either
+                    dirty = true;
+                    break;
+                }
+                entries.put(location, new Point2D.Double(lng, lat));
+            }
+        } catch (NoSuchFileException e) {
+            // nothing cached yet
+        } catch (EOFException e) {
+            // truncated file, keep what was read
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the cache to its file if it changed. The file is first written next to
+     * the cache file and then moved over it.
+     *
+     * @throws IOException if the cache file could not be written
+     */
+    public synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        var cacheDir = cacheFile.toAbsolutePath().getParent();
+        Files.createDirectories(cacheDir);
+        var tempFile = Files.createTempFile(cacheDir, FILE_NAME, ".tmp");
+        try {
+            try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entries.size());
+                // written eldest first, so that loading restores the recency order
+                for (Map.Entry<String, Point2D.Double> entry : entries.entrySet()) {
+                    var lng = entry.getValue().getX();
+                    var lat = entry.getValue().getY();
+                    out.writeUTF(entry.getKey());
+                    out.writeDouble(lng);
+                    out.writeDouble(lat);
+                    out.writeInt(checksum(entry.getKey(), lng, lat));
+                }
+            }
+            try {
+                Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Computes the checksum of a cache entry.
+     *
+     * @param location the w3w location
+     * @param lng      the longitude
+     * @param lat      the latitude
+     * @return the CRC32 of the entry
+     */
+    private static int checksum(String location, double lng, double lat) {
+        var crc = new CRC32();
+        crc.update(location.getBytes(StandardCharsets.UTF_8));
+        var bits = Double.doubleToLongBits(lng);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (bits >>> shift));
+        }
+        bits = Double.doubleToLongBits(lat);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (bits >>> shift));
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Checks if an entry is worth caching: a three word location and coordinates on the globe.
+     *
+     * @param location the w3w location
+     * @param lng      the longitude
+     * @param lat      the latitude
+     * @return true if the entry is valid else false
+     */
+    private static boolean isValid(String location, double lng, double lat) {
+        return location.split("\\.", -1).length == 3
+                && lng >= -180 && lng <= 180
+                && lat >= -90 && lat <= 90;
+    }
+
+    /**
+     * Gets the number of cached locations.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets max entries.
+     *
+     * @return the max entries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Gets cache file.
+     *
+     * @return the cache file
+     */
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+}
@@ -0,0 +1,86 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the command line options shared by the batch mode and the simulation farm.
+ */
+public class BatchOptionsTest {
+
+    /**
+     * A range of dates with a few settings.
+     */
+    @Test
+    public void parsesTheRangeAndSettings() {
+        var options = BatchOptions.parse(new String[]{
+                "--from", "30-12-2020", "--to", "02-01-2021", "--threads", "3", "--timeout", "5", "--out", "out"});
+        assertEquals(4, options.getDates().size());
+        assertEquals(LocalDate.of(2021, 1, 2), options.getDates().get(3));
+        assertEquals(3, options.getThreads());
+        assertEquals(5, options.getTimeoutSeconds());
+        assertEquals(Path.of("out"), options.getOutputDir());
+        assertNull(options.getMetricsFile());
+    }
+
+    /**
+     * The settings of the missions follow the options.
+     */
+    @Test
+    public void makesTheSettings() {
+        var options = BatchOptions.parse(new String[]{
+                "--lat", "55.945", "--lng", "-3.188", "--seed", "42", "--max-moves", "90", "--planner", "tour"});
+        var settings = options.newSettings(NoFlyZones.NONE, Path.of("out"));
+        assertEquals(-3.188, settings.getStartingPosition().getX(), 0);
+        assertEquals(55.945, settings.getStartingPosition().getY(), 0);
+        assertEquals(42, settings.getRandomState());
+        assertEquals(90, settings.getMaxMoves());
+        assertEquals(RoutePlanning.TOUR, settings.getRoutePlanning());
+        assertNull(settings.getDistanceMatrixStore());
+    }
+
+    /**
+     * An option the batch mode does not know.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownOptions() {
+        BatchOptions.parse(new String[]{"--golden", "autotest"});
+    }
+
+    /**
+     * An option without its value.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingValues() {
+        BatchOptions.parse(new String[]{"--from", "01-01-2020", "--to"});
+    }
+
+    /**
+     * A date which is not DD-MM-YYYY.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidDates() {
+        BatchOptions.parse(new String[]{"--from", "2020-01-01"});
+    }
+
+    /**
+     * A fleet whose seeds would be swept.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSweptFleets() {
+        BatchOptions.parse(new String[]{"--fleet", "2", "--seeds", "4"});
+    }
+
+    /**
+     * Neither a range nor a dates file.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void needsTheDates() {
+        BatchOptions.parse(new String[]{"--from", "01-01-2020"}).getDates();
+    }
+}
@@ -0,0 +1,97 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that {@link DayOutputs} only leaves finished days behind.
+ */
+public class DayOutputsTest {
+
+    /**
+     * The output directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Committed outputs replace the files of an earlier run and leave no temporary files.
+     *
+     * @throws IOException if a file could not be written
+     */
+    @Test
+    public void commitRenamesTheFiles() throws IOException {
+        var file = folder.getRoot().toPath().resolve("flightpath-01-01-2020.txt");
+        Files.writeString(file, "earlier run");
+        try (var outputs = new DayOutputs()) {
+            Files.writeString(outputs.part(file), "1,a\n");
+            assertEquals("earlier run", Files.readString(file));
+            outputs.commit();
+        }
+        assertEquals("1,a\n", Files.readString(file));
+        assertArrayEquals(new String[]{"flightpath-01-01-2020.txt"}, folder.getRoot().list());
+    }
+
+    /**
+     * A day which fails before it commits leaves nothing behind.
+     *
+     * @throws IOException if a file could not be written
+     */
+    @Test
+    public void failedDayLeavesNoFiles() throws IOException {
+        var file = folder.getRoot().toPath().resolve("readings-01-01-2020.geojson");
+        try (var outputs = new DayOutputs()) {
+            Files.writeString(outputs.part(file), "{\"type\":");
+        }
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    /**
+     * A day cancelled by the timeout keeps none of its files.
+     *
+     * @throws IOException if a file could not be written
+     */
+    @Test
+    public void interruptedDayIsNotCommitted() throws IOException {
+        var file = folder.getRoot().toPath().resolve("flightpath-01-01-2020.txt");
+        try (var outputs = new DayOutputs()) {
+            Files.writeString(outputs.part(file), "1,a\n");
+            Thread.currentThread().interrupt();
+            outputs.commit();
+            fail("An interrupted day should not be committed.");
+        } catch (InterruptedIOException e) {
+            assertTrue(Thread.interrupted());
+        }
+        assertFalse(Files.exists(file));
+        assertEquals(0, folder.getRoot().list().length);
+    }
+
+    /**
+     * An output which was never written, like the flight path with --flight-log none, does not
+     * stop the others from being committed.
+     *
+     * @throws IOException if a file could not be written
+     */
+    @Test
+    public void unwrittenOutputIsSkipped() throws IOException {
+        var log = folder.getRoot().toPath().resolve("flightpath-01-01-2020.txt");
+        var map = folder.getRoot().toPath().resolve("readings-01-01-2020.geojson");
+        try (var outputs = new DayOutputs()) {
+            outputs.part(log);
+            Files.writeString(outputs.part(map), "{}");
+            outputs.commit();
+        }
+        assertArrayEquals(new String[]{"readings-01-01-2020.geojson"}, folder.getRoot().list());
+    }
+}
@@ -0,0 +1,59 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the outcomes {@link DayRunner} hands to its listener.
+ */
+public class DayRunnerTest {
+
+    /**
+     * Every outcome lands on the listener, in date order, whichever day finishes first.
+     */
+    @Test
+    public void reportsEveryDayInOrder() {
+        var dates = List.of(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2), LocalDate.of(2020, 1, 3),
+                LocalDate.of(2020, 1, 4));
+        var outcomes = new ArrayList<String>();
+        new DayRunner(4, 1).run(dates,
+                (day, month, year) -> {
+                    switch (day) {
+                        case "01":
+                            Thread.sleep(200);
+                            return "slow";
+                        case "02":
+                            // past the time limit, until the watchdog interrupts it
+                            Thread.sleep(60_000);
+                            return "never";
+                        case "03":
+                            throw new IOException("no map");
+                        default:
+                            return day + "-" + month + "-" + year;
+                    }
+                },
+                new DayRunner.DayListener<String>() {
+                    @Override
+                    public void finished(LocalDate date, String result) {
+                        outcomes.add(result);
+                    }
+
+                    @Override
+                    public void timedOut(LocalDate date) {
+                        outcomes.add(date.getDayOfMonth() + " timed out");
+                    }
+
+                    @Override
+                    public void failed(LocalDate date, Throwable cause) {
+                        outcomes.add(date.getDayOfMonth() + " " + cause.getMessage());
+                    }
+                });
+        assertEquals(List.of("slow", "2 timed out", "3 no map", "04-01-2020"), outcomes);
+    }
+}
@@ -0,0 +1,183 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests saving and loading a {@link DistanceMatrixStore}.
+ */
+public class DistanceMatrixStoreTest {
+
+    /**
+     * The starting position of the day.
+     */
+    private static final Point2D START = new Point2D.Double(-3.1900, 55.9440);
+    /**
+     * The maximum number of moves of a leg.
+     */
+    private static final int MAX_MOVES = 150;
+
+    /**
+     * The store directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Makes sensors at the given x coordinates, on both sides of the wall of the path planner test.
+     *
+     * @param xs the x coordinates
+     * @return the new sensors
+     */
+    private static List<Sensor> sensors(double... xs) {
+        return Arrays.stream(xs).mapToObj(x -> {
+            var sensor = new Sensor("s" + x, 100.0, "50.0");
+            sensor.setCoord(new Point2D.Double(x, 55.9440));
+            return sensor;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Opens the store of the wall in the store directory.
+     *
+     * @return the store
+     */
+    private DistanceMatrixStore open() {
+        return DistanceMatrixStore.open(PathPlannerTest.WALL, PlayArea.DEFAULT, Headings.DEFAULT, MAX_MOVES,
+                folder.getRoot().toPath());
+    }
+
+    /**
+     * Gets every leg of a matrix.
+     *
+     * @param matrix the distance matrix
+     * @return the moves of the legs, row by row
+     */
+    private static int[] legs(DistanceMatrix matrix) {
+        var size = matrix.getSize();
+        var legs = new int[size * size];
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < size; b++) {
+                legs[a * size + b] = matrix.moves(a, b);
+            }
+        }
+        return legs;
+    }
+
+    /**
+     * Gets the legs a store kept in memory only finds.
+     *
+     * @param sensors the sensors of the day
+     * @return the moves of the legs, row by row
+     */
+    private static int[] freshLegs(List<Sensor> sensors) {
+        var store = new DistanceMatrixStore(PathPlannerTest.WALL, PlayArea.DEFAULT, Headings.DEFAULT, MAX_MOVES, null);
+        return legs(store.matrixFor(START, sensors));
+    }
+
+    /**
+     * A saved store loads with the same places and legs, and is not written again unchanged.
+     *
+     * @throws IOException if the store could not be written
+     */
+    @Test
+    public void savedStoreLoadsTheSameLegs() throws IOException {
+        var sensors = sensors(-3.1890, -3.1870, -3.1860);
+        var store = open();
+        var expected = legs(store.matrixFor(START, sensors));
+        store.save();
+        var storeFile = store.getStoreFile();
+        var saved = Files.readAllBytes(storeFile);
+
+        var loaded = open();
+        assertEquals(storeFile, loaded.getStoreFile());
+        assertEquals(4, loaded.getPlaceCount());
+        assertArrayEquals(expected, legs(loaded.matrixFor(START, sensors)));
+        loaded.save();
+        assertArrayEquals(saved, Files.readAllBytes(storeFile));
+        assertArrayEquals(freshLegs(sensors), expected);
+    }
+
+    /**
+     * A loaded store grows with the places of a new day, and finds the same legs as a fresh one.
+     *
+     * @throws IOException if the store could not be written
+     */
+    @Test
+    public void loadedStoreGrows() throws IOException {
+        var store = open();
+        store.matrixFor(START, sensors(-3.1890, -3.1870));
+        store.save();
+
+        var day = sensors(-3.1860, -3.1870, -3.1895);
+        var loaded = open();
+        assertArrayEquals(freshLegs(day), legs(loaded.matrixFor(START, day)));
+        assertEquals(5, loaded.getPlaceCount());
+        loaded.save();
+        assertEquals(5, open().getPlaceCount());
+    }
+
+    /**
+     * A damaged or foreign store file gives an empty store, which is then saved over it.
+     *
+     * @throws IOException if the store could not be written
+     */
+    @Test
+    public void damagedStoreStartsAgain() throws IOException {
+        var sensors = sensors(-3.1890, -3.1870);
+        var store = open();
+        store.matrixFor(START, sensors);
+        store.save();
+        var storeFile = store.getStoreFile();
+        var saved = Files.readAllBytes(storeFile);
+
+        Files.write(storeFile, Arrays.copyOf(saved, saved.length - 3));
+        assertEquals(0, open().getPlaceCount());
+        Files.writeString(storeFile, "not a matrix");
+        assertEquals(0, open().getPlaceCount());
+        var damaged = Arrays.copyOf(saved, saved.length);
+        // more places than fit in an array
+        damaged[8] = 0x7f;
+        Files.write(storeFile, damaged);
+        assertEquals(0, open().getPlaceCount());
+
+        var again = open();
+        assertArrayEquals(freshLegs(sensors), legs(again.matrixFor(START, sensors)));
+        again.save();
+        assertArrayEquals(saved, Files.readAllBytes(storeFile));
+    }
+
+    /**
+     * A missing store directory is made on save, and other no-fly zones get another store file.
+     *
+     * @throws IOException if the store could not be written
+     */
+    @Test
+    public void eachBuildingMapHasItsOwnFile() throws IOException {
+        Path storeDir = folder.getRoot().toPath().resolve("matrices");
+        var store = DistanceMatrixStore.open(NoFlyZones.NONE, PlayArea.DEFAULT, Headings.DEFAULT, MAX_MOVES, storeDir);
+        assertEquals(0, store.getPlaceCount());
+        store.matrixFor(START, sensors(-3.1870));
+        store.save();
+        assertTrue(Files.isRegularFile(store.getStoreFile()));
+        assertTrue(store.getStoreFile().getFileName().toString().endsWith(DistanceMatrixStore.FILE_EXTENSION));
+
+        var walled = DistanceMatrixStore.open(PathPlannerTest.WALL, PlayArea.DEFAULT, Headings.DEFAULT, MAX_MOVES, storeDir);
+        assertNotEquals(store.getStoreFile(), walled.getStoreFile());
+        assertEquals(0, walled.getPlaceCount());
+    }
+}
@@ -0,0 +1,103 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the end of the missions of {@link DroneCollectReadings}.
+ */
+public class DroneCollectReadingsTest {
+
+    /**
+     * The starting position of the drone.
+     */
+    private static final Point2D START = new Point2D.Double(-3.1878, 55.9444);
+
+    /**
+     * Two sensors east of the start, the second too far out to get back from within 12 moves.
+     *
+     * @return the new sensors
+     */
+    private static ArrayList<Sensor> farSensors() {
+        var near = new Sensor("a.b.c", 100.0, "50.0");
+        near.setCoord(new Point2D.Double(START.getX() + 0.0006, START.getY()));
+        var far = new Sensor("d.e.f", 100.0, "60.0");
+        far.setCoord(new Point2D.Double(START.getX() + 0.0024, START.getY()));
+        return new ArrayList<>(List.of(near, far));
+    }
+
+    /**
+     * Flies the far sensors with 12 moves.
+     *
+     * @param navigation the navigation of the drone
+     * @return the drone after the mission
+     */
+    private static DroneCollectReadings flyOutOfMoves(Navigation navigation) {
+        var drone = new DroneCollectReadings(5678, 12, farSensors(), NoFlyZones.NONE, START, NoOpFlightLog.INSTANCE);
+        drone.setNavigation(navigation);
+        drone.collectReadings();
+        return drone;
+    }
+
+    /**
+     * Checks that a drone which cannot get back keeps every sensor it read, leaves the starting
+     * position off both lists and does not count the mission as completed.
+     *
+     * @param navigation the navigation of the drone
+     */
+    private static void assertOutOfMoves(Navigation navigation) {
+        var drone = flyOutOfMoves(navigation);
+        var locations = new ArrayList<String>();
+        drone.getVisitedSensors().forEach(sensor -> locations.add(sensor.getLocation()));
+        assertEquals(List.of("a.b.c", "d.e.f"), locations);
+        assertTrue(drone.getToVisit().isEmpty());
+        assertFalse(drone.isCompleted());
+        assertEquals(0, drone.getMovesLeft());
+    }
+
+    /**
+     * A reactive drone running out of moves on the way back.
+     */
+    @Test
+    public void reactiveDroneOutOfMovesKeepsItsReadings() {
+        assertOutOfMoves(Navigation.REACTIVE);
+    }
+
+    /**
+     * A planned drone with no planned way back heads back greedily instead of skipping the start.
+     */
+    @Test
+    public void plannedDroneOutOfMovesKeepsItsReadings() {
+        assertOutOfMoves(Navigation.PLANNED);
+    }
+
+    /**
+     * An incremental drone with no planned way back heads back greedily instead of skipping the start.
+     */
+    @Test
+    public void incrementalDroneOutOfMovesKeepsItsReadings() {
+        assertOutOfMoves(Navigation.INCREMENTAL);
+    }
+
+    /**
+     * With enough moves every navigation reads both sensors and gets back.
+     */
+    @Test
+    public void droneWithEnoughMovesCompletes() {
+        for (Navigation navigation : Navigation.values()) {
+            var drone = new DroneCollectReadings(5678, 150, farSensors(), NoFlyZones.NONE, START, NoOpFlightLog.INSTANCE);
+            drone.setNavigation(navigation);
+            drone.collectReadings();
+            assertEquals(navigation.toString(), 2, drone.getVisitedSensors().size());
+            assertTrue(navigation.toString(), drone.getToVisit().isEmpty());
+            assertTrue(navigation.toString(), drone.isCompleted());
+        }
+    }
+}
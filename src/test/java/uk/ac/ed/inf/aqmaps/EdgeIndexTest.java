@@ -0,0 +1,211 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that {@link EdgeIndex} finds the same edge as a linear scan over the polygons.
+ */
+public class EdgeIndexTest {
+
+    /**
+     * Finds the first edge, in polygon order with the closing edge of each polygon last,
+     * which intersects the segment, by testing every edge.
+     *
+     * @param polygons the polygons
+     * @param x1       the x coordinate of the start of the segment
+     * @param y1       the y coordinate of the start of the segment
+     * @param x2       the x coordinate of the end of the segment
+     * @param y2       the y coordinate of the end of the segment
+     * @return the id of the edge or -1 if no edge intersects the segment
+     */
+    private static int linearScan(List<List<Point2D>> polygons, double x1, double y1, double x2, double y2) {
+        var id = 0;
+        for (List<Point2D> polygon : polygons) {
+            var n = polygon.size();
+            for (int i = 0; i < n; i++) {
+                var from = polygon.get(i);
+                var to = polygon.get((i + 1) % n);
+                if (Line2D.linesIntersect(from.getX(), from.getY(), to.getX(), to.getY(), x1, y1, x2, y2)) {
+                    return id;
+                }
+                id++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets a random point in the play area, or a little outside it.
+     *
+     * @param random the random numbers
+     * @param margin the fraction of the play area the point may be outside it by
+     * @return the point
+     */
+    private static Point2D randomPoint(Random random, double margin) {
+        var area = PlayArea.DEFAULT;
+        var width = area.getEastLng() - area.getWestLng();
+        var height = area.getNorthLat() - area.getSouthLat();
+        return new Point2D.Double(
+                area.getWestLng() + width * (random.nextDouble() * (1 + 2 * margin) - margin),
+                area.getSouthLat() + height * (random.nextDouble() * (1 + 2 * margin) - margin));
+    }
+
+    /**
+     * Makes a random star-shaped polygon, which may be concave, round a random centre.
+     *
+     * @param random the random numbers
+     * @return the points of the polygon, without repeating the first point
+     */
+    private static List<Point2D> randomPolygon(Random random) {
+        var centre = randomPoint(random, 0);
+        var n = 3 + random.nextInt(10);
+        var angles = new double[n];
+        for (int i = 0; i < n; i++) {
+            angles[i] = random.nextDouble() * 2 * Math.PI;
+        }
+        Arrays.sort(angles);
+        var polygon = new ArrayList<Point2D>();
+        for (double angle : angles) {
+            var radius = 0.0001 + random.nextDouble() * 0.0008;
+            polygon.add(new Point2D.Double(
+                    centre.getX() + radius * Math.cos(angle),
+                    centre.getY() + radius * Math.sin(angle)));
+        }
+        return polygon;
+    }
+
+    /**
+     * Queries the index and the linear scan with a segment and checks they agree.
+     *
+     * @param polygons the polygons
+     * @param index    the index over the polygons
+     * @param from     the start of the segment
+     * @param to       the end of the segment
+     */
+    private static void assertSameEdge(List<List<Point2D>> polygons, EdgeIndex index, Point2D from, Point2D to) {
+        assertEquals("segment " + from + " to " + to,
+                linearScan(polygons, from.getX(), from.getY(), to.getX(), to.getY()),
+                index.firstIntersectingEdge(from.getX(), from.getY(), to.getX(), to.getY()));
+    }
+
+    /**
+     * Random polygons queried with drone moves, long segments, and segments which end on,
+     * start from or run along the edges at a vertex.
+     */
+    @Test
+    public void firstEdgeMatchesLinearScan() {
+        var random = new Random(5678);
+        for (int round = 0; round < 30; round++) {
+            var polygons = new ArrayList<List<Point2D>>();
+            var count = 1 + random.nextInt(12);
+            for (int i = 0; i < count; i++) {
+                polygons.add(randomPolygon(random));
+            }
+            var index = new EdgeIndex(polygons);
+            var edgeCount = polygons.stream().mapToInt(List::size).sum();
+            assertEquals(edgeCount, index.getEdgeCount());
+
+            for (int step = 0; step < 500; step++) {
+                var from = randomPoint(random, 0.2);
+                Point2D to;
+                if (step % 2 == 0) {
+                    // a drone move in one of the legal headings
+                    var angle = Headings.DEFAULT.angle(random.nextInt(Headings.DEFAULT.count()));
+                    to = new Point2D.Double(from.getX() + Headings.DEFAULT.dx(angle), from.getY() + Headings.DEFAULT.dy(angle));
+                } else {
+                    to = randomPoint(random, 0.2);
+                }
+                assertSameEdge(polygons, index, from, to);
+            }
+
+            for (List<Point2D> polygon : polygons) {
+                for (int i = 0; i < polygon.size(); i++) {
+                    var vertex = polygon.get(i);
+                    var next = polygon.get((i + 1) % polygon.size());
+                    var outside = randomPoint(random, 0.2);
+                    // ending exactly on a vertex, which belongs to two edges
+                    assertSameEdge(polygons, index, outside, vertex);
+                    // starting from a vertex
+                    assertSameEdge(polygons, index, vertex, outside);
+                    // a zero length segment on a vertex
+                    assertSameEdge(polygons, index, vertex, vertex);
+                    // along the edge to its midpoint
+                    var midpoint = new Point2D.Double((vertex.getX() + next.getX()) / 2, (vertex.getY() + next.getY()) / 2);
+                    assertSameEdge(polygons, index, vertex, midpoint);
+                }
+            }
+        }
+    }
+
+    /**
+     * A segment which only crosses the closing edge of a polygon finds that edge, and one
+     * through the first vertex finds the first edge rather than the closing edge.
+     */
+    @Test
+    public void closingEdgesAndSharedVertices() {
+        // a square listed anticlockwise, whose closing edge 3 is the west side
+        var square = List.<Point2D>of(
+                new Point2D.Double(-3.1880, 55.9440),
+                new Point2D.Double(-3.1870, 55.9440),
+                new Point2D.Double(-3.1870, 55.9450),
+                new Point2D.Double(-3.1880, 55.9450));
+        var triangle = List.<Point2D>of(
+                new Point2D.Double(-3.1860, 55.9440),
+                new Point2D.Double(-3.1850, 55.9440),
+                new Point2D.Double(-3.1855, 55.9450));
+        var polygons = List.of(square, triangle);
+        var index = new EdgeIndex(polygons);
+        assertEquals(7, index.getEdgeCount());
+
+        // across the west side only
+        assertEquals(3, index.firstIntersectingEdge(-3.1885, 55.9445, -3.1875, 55.9445));
+        // across the closing edge of the triangle, from its third point back to the first
+        assertEquals(6, index.firstIntersectingEdge(-3.1865, 55.9446, -3.1856, 55.9446));
+        // touching the first vertex of the square, shared by edges 0 and 3
+        assertEquals(0, index.firstIntersectingEdge(-3.1885, 55.9435, -3.1880, 55.9440));
+        // touching the vertex shared by edges 1 and 2
+        assertEquals(1, index.firstIntersectingEdge(-3.1865, 55.9455, -3.1870, 55.9450));
+        // between the two polygons
+        assertEquals(-1, index.firstIntersectingEdge(-3.1868, 55.9435, -3.1862, 55.9455));
+        // right across both, the square comes first
+        assertEquals(1, index.firstIntersectingEdge(-3.1845, 55.9445, -3.1875, 55.9445));
+        // outside the bounds of every edge
+        assertEquals(-1, index.firstIntersectingEdge(-3.1900, 55.9460, -3.1895, 55.9465));
+
+        for (int edge = 0; edge < 4; edge++) {
+            var from = square.get(edge);
+            var to = square.get((edge + 1) % 4);
+            assertEquals(GeometryHelpers.findMovementAngle(from.getX(), from.getY(), to.getX(), to.getY()),
+                    index.getEdgeAngle(edge));
+        }
+        assertEquals(270, index.getEdgeAngle(3));
+    }
+
+    /**
+     * An index with no edges, and one whose only edge is vertical, so its grid has no width.
+     */
+    @Test
+    public void emptyAndDegenerateIndexes() {
+        var empty = new EdgeIndex(List.<List<Point2D>>of());
+        assertEquals(0, empty.getEdgeCount());
+        assertEquals(-1, empty.firstIntersectingEdge(-3.1880, 55.9440, -3.1870, 55.9450));
+
+        // two points make one edge there and the same edge back
+        var wall = List.<Point2D>of(new Point2D.Double(-3.1880, 55.9440), new Point2D.Double(-3.1880, 55.9450));
+        var index = new EdgeIndex(List.of(wall));
+        assertEquals(2, index.getEdgeCount());
+        assertEquals(0, index.firstIntersectingEdge(-3.1885, 55.9445, -3.1875, 55.9445));
+        assertEquals(0, index.firstIntersectingEdge(-3.1885, 55.9450, -3.1880, 55.9450));
+        assertEquals(-1, index.firstIntersectingEdge(-3.1885, 55.9451, -3.1875, 55.9451));
+        assertEquals(-1, index.firstIntersectingEdge(-3.1879, 55.9440, -3.1875, 55.9450));
+    }
+}
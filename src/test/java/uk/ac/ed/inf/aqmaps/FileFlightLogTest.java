@@ -0,0 +1,107 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that a {@link FileFlightLog} writes every move, in both modes.
+ */
+public class FileFlightLogTest {
+
+    /**
+     * The number of moves of a mission.
+     */
+    private static final int MOVES = 150;
+
+    /**
+     * The output directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Logs the moves of a mission, reading a sensor with a non ASCII location every tenth move.
+     *
+     * @param log   the flight log
+     * @param moves the number of moves
+     * @return the expected contents of the flight path file
+     */
+    private static String logMoves(FlightLog log, int moves) {
+        var expected = new StringBuilder();
+        for (int i = 1; i <= moves; i++) {
+            var location = i % 10 == 0 ? "café.naïve.señor" : "null";
+            log.logMove(i, -3.1878 + i * 1e-4, 55.9444, 10 * (i % 36), -3.1878 + (i + 1) * 1e-4, 55.9444, location);
+            FlightLog.appendLine(expected, i, -3.1878 + i * 1e-4, 55.9444, 10 * (i % 36),
+                    -3.1878 + (i + 1) * 1e-4, 55.9444, location);
+        }
+        return expected.toString();
+    }
+
+    /**
+     * Both modes write every move of a mission, in order.
+     *
+     * @throws IOException if the log could not be written
+     */
+    @Test
+    public void bothModesWriteEveryMove() throws IOException {
+        for (boolean async : new boolean[]{false, true}) {
+            var file = folder.getRoot().toPath().resolve("flightpath-" + async + ".txt");
+            String expected;
+            try (var log = new FileFlightLog(file, async)) {
+                expected = logMoves(log, MOVES);
+            }
+            assertEquals(expected, Files.readString(file));
+        }
+    }
+
+    /**
+     * A mission's log is written out while the drone flies, not only when it is closed.
+     *
+     * @throws IOException          if the log could not be written
+     * @throws InterruptedException if the test was interrupted
+     */
+    @Test(timeout = 10_000)
+    public void logIsWrittenDuringTheMission() throws IOException, InterruptedException {
+        for (boolean async : new boolean[]{false, true}) {
+            var file = folder.getRoot().toPath().resolve("flightpath-" + async + ".txt");
+            try (var log = new FileFlightLog(file, async)) {
+                logMoves(log, MOVES);
+                // the background writer may still be busy with the last full buffer
+                while (Files.size(file) == 0) {
+                    Thread.sleep(10);
+                }
+            }
+        }
+    }
+
+    /**
+     * A disk which is full fails the log when it is closed, in both modes, without blocking
+     * the drone on a buffer that never comes back.
+     *
+     * @throws IOException if the log could not be opened
+     */
+    @Test(timeout = 10_000)
+    public void writeErrorsAreThrownOnClose() throws IOException {
+        var full = Path.of("/dev/full");
+        Assume.assumeTrue(Files.isWritable(full));
+        for (boolean async : new boolean[]{false, true}) {
+            var log = new FileFlightLog(full, async);
+            logMoves(log, 4 * MOVES);
+            try {
+                log.close();
+                fail("Writing to a full disk must fail the log.");
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link FleetMission} splits the sensors of a day into balanced, deterministic
+ * groups, one for each drone, and gives each group to the drone starting closest to it.
+ */
+public class FleetMissionTest {
+
+    /**
+     * The starting positions of the drones, at the four corners round the middle of the play area.
+     */
+    private static final List<Point2D> STARTS = List.of(
+            new Point2D.Double(-3.1900, 55.9450),
+            new Point2D.Double(-3.1860, 55.9450),
+            new Point2D.Double(-3.1860, 55.9435),
+            new Point2D.Double(-3.1900, 55.9435));
+
+    /**
+     * Makes a sensor at a position.
+     *
+     * @param name the location of the sensor
+     * @param x    the x coordinate
+     * @param y    the y coordinate
+     * @return the new sensor
+     */
+    private static Sensor sensor(String name, double x, double y) {
+        var sensor = new Sensor(name, 100.0, "50.0");
+        sensor.setCoord(new Point2D.Double(x, y));
+        return sensor;
+    }
+
+    /**
+     * Makes sensors at random positions in the play area.
+     *
+     * @param random the random numbers
+     * @param count  the number of sensors
+     * @return the sensors
+     */
+    private static List<Sensor> randomSensors(Random random, int count) {
+        var area = PlayArea.DEFAULT;
+        var sensors = new ArrayList<Sensor>();
+        for (int i = 0; i < count; i++) {
+            sensors.add(sensor("s" + i,
+                    area.getWestLng() + random.nextDouble() * (area.getEastLng() - area.getWestLng()),
+                    area.getSouthLat() + random.nextDouble() * (area.getNorthLat() - area.getSouthLat())));
+        }
+        return sensors;
+    }
+
+    /**
+     * Makes a fleet mission with the first drones at the test starts.
+     *
+     * @param fleetSize    the number of drones
+     * @param partitioning the fleet partitioning
+     * @return the fleet mission
+     */
+    private static FleetMission fleet(int fleetSize, FleetPartitioning partitioning) {
+        var settings = new MissionSettings(new Point2D.Double(-3.1880, 55.9444), 5678);
+        settings.setFleetSize(fleetSize);
+        settings.setFleetStarts(STARTS);
+        settings.setFleetPartitioning(partitioning);
+        return new FleetMission(NoFlyZones.NONE, settings);
+    }
+
+    /**
+     * Checks that every sensor is in exactly one of the groups.
+     *
+     * @param sensors the sensors
+     * @param groups  the groups
+     */
+    private static void assertEachSensorOnce(List<Sensor> sensors, List<ArrayList<Sensor>> groups) {
+        var grouped = new ArrayList<Sensor>();
+        groups.forEach(grouped::addAll);
+        assertEquals(sensors.size(), grouped.size());
+        // sensors are compared by identity, so a sensor in two groups leaves one out
+        assertEquals(new HashSet<>(sensors), new HashSet<>(grouped));
+    }
+
+    /**
+     * Tests that the sectors have the same number of sensors give or take one, for any
+     * number of sensors and drones.
+     */
+    @Test
+    public void sectorsAreBalanced() {
+        var random = new Random(5678);
+        for (int fleetSize = 1; fleetSize <= 6; fleetSize++) {
+            var fleet = fleet(fleetSize, FleetPartitioning.SECTORS);
+            for (int count = 0; count <= 40; count++) {
+                var sensors = randomSensors(random, count);
+                var sectors = fleet.sectors(sensors, fleetSize);
+                assertEquals(fleetSize, sectors.size());
+                var smallest = sectors.stream().mapToInt(List::size).min().orElseThrow();
+                var largest = sectors.stream().mapToInt(List::size).max().orElseThrow();
+                assertTrue(smallest + " to " + largest + " sensors", largest - smallest <= 1);
+                assertEachSensorOnce(sensors, sectors);
+            }
+        }
+    }
+
+    /**
+     * Tests that no sector spans the widest empty angle round the centre of the starts, so
+     * two clusters on either side of an empty half are not mixed.
+     */
+    @Test
+    public void sectorsStartAfterTheWidestGap() {
+        var east = new ArrayList<Sensor>();
+        var west = new ArrayList<Sensor>();
+        for (int i = 0; i < 5; i++) {
+            east.add(sensor("e" + i, -3.1870, 55.9438 + i * 0.0002));
+            west.add(sensor("w" + i, -3.1890, 55.9438 + i * 0.0002));
+        }
+        var sensors = new ArrayList<Sensor>(east);
+        sensors.addAll(west);
+        var sectors = fleet(2, FleetPartitioning.SECTORS).sectors(sensors, 2);
+        var found = List.of(new HashSet<>(sectors.get(0)), new HashSet<>(sectors.get(1)));
+        assertTrue(found.contains(new HashSet<>(east)));
+        assertTrue(found.contains(new HashSet<>(west)));
+    }
+
+    /**
+     * Tests that k-means finds well separated clusters, and the same ones on every run and
+     * whatever order the sensors are listed in.
+     */
+    @Test
+    public void kMeansIsDeterministic() {
+        var random = new Random(1234);
+        var clusters = new ArrayList<List<Sensor>>();
+        var sensors = new ArrayList<Sensor>();
+        for (Point2D start : STARTS.subList(0, 3)) {
+            var cluster = new ArrayList<Sensor>();
+            for (int i = 0; i < 8; i++) {
+                cluster.add(sensor("c" + clusters.size() + "-" + i,
+                        start.getX() + random.nextDouble() * 0.0003, start.getY() + random.nextDouble() * 0.0003));
+            }
+            clusters.add(cluster);
+            sensors.addAll(cluster);
+        }
+
+        var groups = fleet(3, FleetPartitioning.KMEANS).kMeans(sensors, 3);
+        assertEquals(groups, fleet(3, FleetPartitioning.KMEANS).kMeans(sensors, 3));
+        var found = new HashSet<HashSet<Sensor>>();
+        groups.forEach(group -> found.add(new HashSet<>(group)));
+        var expected = new HashSet<HashSet<Sensor>>();
+        clusters.forEach(cluster -> expected.add(new HashSet<>(cluster)));
+        assertEquals(expected, found);
+
+        var randomSensors = randomSensors(random, 33);
+        var first = fleet(4, FleetPartitioning.KMEANS).kMeans(randomSensors, 4);
+        assertEquals(first, fleet(4, FleetPartitioning.KMEANS).kMeans(randomSensors, 4));
+        var shuffled = new ArrayList<>(randomSensors);
+        Collections.shuffle(shuffled, new Random(42));
+        var second = fleet(4, FleetPartitioning.KMEANS).kMeans(shuffled, 4);
+        for (int c = 0; c < 4; c++) {
+            assertEquals(new HashSet<>(first.get(c)), new HashSet<>(second.get(c)));
+        }
+    }
+
+    /**
+     * Tests that with fewer sensors than drones the drones left over get empty groups, and
+     * with no sensors every drone does.
+     */
+    @Test
+    public void fewerSensorsThanDronesLeavesEmptyGroups() {
+        var sensors = List.of(sensor("a", -3.1899, 55.9449), sensor("b", -3.1861, 55.9436));
+        for (FleetPartitioning partitioning : FleetPartitioning.values()) {
+            var groups = fleet(4, partitioning).partition(sensors);
+            assertEquals(4, groups.size());
+            // each sensor goes to the drone starting next to it
+            assertEquals(List.of(sensors.get(0)), groups.get(0));
+            assertTrue(groups.get(1).isEmpty());
+            assertEquals(List.of(sensors.get(1)), groups.get(2));
+            assertTrue(groups.get(3).isEmpty());
+
+            var none = fleet(3, partitioning).partition(List.of());
+            assertEquals(3, none.size());
+            none.forEach(group -> assertTrue(group.isEmpty()));
+        }
+    }
+
+    /**
+     * Tests that every sensor lands in exactly one group, for both partitionings and any fleet size.
+     */
+    @Test
+    public void everySensorInExactlyOneGroup() {
+        var random = new Random(42);
+        for (FleetPartitioning partitioning : FleetPartitioning.values()) {
+            for (int fleetSize = 1; fleetSize <= 6; fleetSize++) {
+                for (int round = 0; round < 10; round++) {
+                    var sensors = randomSensors(random, 1 + random.nextInt(40));
+                    var groups = fleet(fleetSize, partitioning).partition(sensors);
+                    assertEquals(fleetSize, groups.size());
+                    assertEachSensorOnce(sensors, groups);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests that each group goes to the drone whose start is closest to it, whatever order the
+     * groups are in, and that drones beyond the given starts and empty groups get what is left.
+     */
+    @Test
+    public void groupsGoToTheClosestStarts() {
+        var nearStart = new ArrayList<ArrayList<Sensor>>();
+        for (int drone = 0; drone < STARTS.size(); drone++) {
+            var start = STARTS.get(drone);
+            nearStart.add(new ArrayList<>(List.of(
+                    sensor("n" + drone + "-0", start.getX() + 0.0001, start.getY()),
+                    sensor("n" + drone + "-1", start.getX(), start.getY() - 0.0001))));
+        }
+        var fleet = fleet(4, FleetPartitioning.SECTORS);
+        var assigned = fleet.assignToStarts(List.of(nearStart.get(2), nearStart.get(0), nearStart.get(3), nearStart.get(1)));
+        for (int drone = 0; drone < 4; drone++) {
+            assertSame(nearStart.get(drone), assigned.get(drone));
+        }
+
+        // the fifth drone starts at the starting position, with the group near it, and the
+        // empty group goes to the drone whose start no group is near
+        var middle = new ArrayList<>(List.of(sensor("m", -3.1881, 55.9444)));
+        var empty = new ArrayList<Sensor>();
+        assigned = fleet(5, FleetPartitioning.SECTORS).assignToStarts(
+                List.of(empty, middle, nearStart.get(3), nearStart.get(0), nearStart.get(2)));
+        assertSame(nearStart.get(0), assigned.get(0));
+        assertTrue(assigned.get(1).isEmpty());
+        assertSame(nearStart.get(2), assigned.get(2));
+        assertSame(nearStart.get(3), assigned.get(3));
+        assertSame(middle, assigned.get(4));
+    }
+}
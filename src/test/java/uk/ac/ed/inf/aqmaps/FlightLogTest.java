@@ -0,0 +1,102 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests that the lines of a {@link FlightLog} are written like {@code String.format}.
+ */
+public class FlightLogTest {
+
+    /**
+     * Formats a number with {@link FlightLog#appendFixed}.
+     *
+     * @param value the number
+     * @return the number with 6 decimal places
+     */
+    private static String fixed(double value) {
+        var line = new StringBuilder();
+        FlightLog.appendFixed(line, value);
+        return line.toString();
+    }
+
+    /**
+     * Checks that a number is formatted like {@code %f}.
+     *
+     * @param value the number
+     */
+    private static void assertLikeFormat(double value) {
+        assertEquals(String.valueOf(value), String.format(Locale.ROOT, "%f", value), fixed(value));
+    }
+
+    /**
+     * Random co-ordinates round the play area, and random numbers of every size.
+     */
+    @Test
+    public void randomNumbersMatchFormat() {
+        var random = new Random(5678);
+        for (int i = 0; i < 100_000; i++) {
+            assertLikeFormat(-3.192473 + random.nextDouble() * 0.0078);
+            assertLikeFormat(55.942617 + random.nextDouble() * 0.0033);
+            assertLikeFormat((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(16) - 3));
+        }
+    }
+
+    /**
+     * Numbers on a rounding tie are rounded half up, away from zero, like {@code %f}.
+     */
+    @Test
+    public void tiesRoundHalfUp() {
+        assertLikeFormat(0.0000005);
+        assertLikeFormat(-0.0000005);
+        assertLikeFormat(1.2345675);
+        assertLikeFormat(-3.1884565);
+        assertLikeFormat(55.9444445);
+        assertLikeFormat(0.9999995);
+        assertEquals("1.000000", fixed(0.9999995));
+        // moves of the drone sum up to numbers just off a tie
+        var random = new Random(1234);
+        for (int i = 0; i < 10_000; i++) {
+            var tie = (random.nextInt(20_000_000) - 10_000_000 + 0.5) / 1e6;
+            assertLikeFormat(tie);
+            assertLikeFormat(Math.nextUp(tie));
+            assertLikeFormat(Math.nextDown(tie));
+        }
+    }
+
+    /**
+     * Zeros, small negative numbers, large numbers and numbers which are not finite.
+     */
+    @Test
+    public void specialNumbersMatchFormat() {
+        assertLikeFormat(0.0);
+        assertLikeFormat(-0.0);
+        assertLikeFormat(-1e-9);
+        assertLikeFormat(1e-9);
+        assertLikeFormat(999_999_999_999.9999);
+        assertLikeFormat(1e12);
+        assertLikeFormat(-1e20);
+        assertLikeFormat(Double.MAX_VALUE);
+        assertLikeFormat(Double.POSITIVE_INFINITY);
+        assertLikeFormat(Double.NEGATIVE_INFINITY);
+        assertLikeFormat(Double.NaN);
+    }
+
+    /**
+     * A whole flight path line.
+     */
+    @Test
+    public void lineMatchesFormat() {
+        var line = new StringBuilder();
+        FlightLog.appendLine(line, 12, -3.1878, 55.9444, 340, -3.18789396926, 55.94443420201, "trades.rare.cable");
+        FlightLog.appendLine(line, 13, -3.18789396926, 55.94443420201, 0, -3.18759396926, 55.94443420201, "null");
+        assertEquals(String.format(Locale.ROOT, "%d,%f,%f,%d,%f,%f,%s%n%d,%f,%f,%d,%f,%f,%s%n",
+                12, -3.1878, 55.9444, 340, -3.18789396926, 55.94443420201, "trades.rare.cable",
+                13, -3.18789396926, 55.94443420201, 0, -3.18759396926, 55.94443420201, "null")
+                .replace(System.lineSeparator(), "\n"), line.toString());
+    }
+}
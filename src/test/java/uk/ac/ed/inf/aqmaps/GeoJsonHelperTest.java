@@ -0,0 +1,72 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.mapbox.geojson.Point;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link GeoJsonHelper} leaves write errors to its caller.
+ */
+public class GeoJsonHelperTest {
+
+    /**
+     * The output directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Makes a map of a single sensor and a single move.
+     *
+     * @return the helper with the map created
+     */
+    private static GeoJsonHelper smallMap() {
+        var sensor = new Sensor("a.b.c", 90.0, "50.0");
+        sensor.setCoord(new Point2D.Double(-3.1878, 55.9444));
+        var geojsonHelper = new GeoJsonHelper();
+        geojsonHelper.createGeoJsonMap(new ArrayList<>(List.of(sensor)), new ArrayList<>(List.of(
+                Point.fromLngLat(-3.1878, 55.9444), Point.fromLngLat(-3.1875, 55.9444))));
+        return geojsonHelper;
+    }
+
+    /**
+     * The map is written to the file.
+     *
+     * @throws IOException if the map could not be written
+     */
+    @Test
+    public void mapIsWritten() throws IOException {
+        var file = folder.getRoot().toPath().resolve("readings.geojson");
+        smallMap().writeToFile(file.toString());
+        assertTrue(Files.readString(file).startsWith("{\"type\":\"FeatureCollection\""));
+    }
+
+    /**
+     * A file which cannot be written throws, so that only the day fails and not the whole batch.
+     *
+     * @throws IOException always
+     */
+    @Test(expected = IOException.class)
+    public void unwritableFileThrows() throws IOException {
+        smallMap().writeToFile(folder.getRoot().toPath().resolve("missing/readings.geojson").toString());
+    }
+
+    /**
+     * Writing before the map is created throws.
+     *
+     * @throws IOException never
+     */
+    @Test(expected = IllegalStateException.class)
+    public void mapNotCreatedThrows() throws IOException {
+        new GeoJsonHelper().writeToFile(folder.getRoot().toPath().resolve("readings.geojson").toString());
+    }
+}
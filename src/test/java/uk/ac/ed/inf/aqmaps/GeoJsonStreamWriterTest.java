@@ -0,0 +1,126 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a {@link GeoJsonStreamWriter} writes the same readings map as {@link GeoJsonHelper}.
+ */
+public class GeoJsonStreamWriterTest {
+
+    /**
+     * The starting position of the drone.
+     */
+    private static final Point2D START = new Point2D.Double(-3.1878, 55.9444);
+
+    /**
+     * The output directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Makes random sensors round the start, with readings of every band, a low battery and
+     * a missing reading.
+     *
+     * @return the new sensors
+     */
+    private static ArrayList<Sensor> sensors() {
+        var random = new Random(5678);
+        var sensors = new ArrayList<Sensor>();
+        for (int i = 0; i < 33; i++) {
+            var reading = i == 7 ? "NaN" : String.valueOf(random.nextInt(256) + 0.5);
+            var sensor = new Sensor("w" + i + ".x.y", i == 3 ? 5.0 : 90.0, reading);
+            sensor.setCoord(new Point2D.Double(-3.1920 + random.nextDouble() * 0.0070,
+                    55.9430 + random.nextDouble() * 0.0030));
+            sensors.add(sensor);
+        }
+        return sensors;
+    }
+
+    /**
+     * Gets the features of a readings map file.
+     *
+     * @param file the readings map file
+     * @return the features
+     * @throws IOException if the file could not be read
+     */
+    private static JsonArray features(Path file) throws IOException {
+        return JsonParser.parseString(Files.readString(file)).getAsJsonObject().getAsJsonArray("features");
+    }
+
+    /**
+     * A streamed map holds the same features as the map built after the flight, with the flight
+     * path first, and is the Mapbox serialisation of those features in that order.
+     *
+     * @throws IOException if a map could not be written
+     */
+    @Test
+    public void streamedMapMatchesTreeMap() throws IOException {
+        var streamedFile = folder.getRoot().toPath().resolve("streamed.geojson");
+        var treeFile = folder.getRoot().toPath().resolve("tree.geojson");
+
+        // too few moves to read every sensor, so there are unvisited markers too
+        DroneCollectReadings drone;
+        ArrayList<Sensor> processedSensors;
+        try (var streamed = new GeoJsonStreamWriter(streamedFile, START, NoOpFlightLog.INSTANCE)) {
+            drone = new DroneCollectReadings(5678, 60, sensors(), NoFlyZones.NONE, START, streamed);
+            var movementPoints = drone.collectReadings();
+            processedSensors = drone.getVisitedSensors();
+            processedSensors.addAll(drone.getToVisit());
+            streamed.finish(processedSensors);
+
+            var geojsonHelper = new GeoJsonHelper();
+            geojsonHelper.createGeoJsonMap(processedSensors, movementPoints);
+            geojsonHelper.writeToFile(treeFile.toString());
+        }
+        assertTrue(drone.getToVisit().size() > 0);
+
+        var streamedFeatures = features(streamedFile);
+        var treeFeatures = features(treeFile);
+        assertEquals(processedSensors.size() + 1, streamedFeatures.size());
+        // the flight path is last in the tree map
+        var reordered = new JsonArray();
+        reordered.add(treeFeatures.get(treeFeatures.size() - 1));
+        for (int i = 0; i < treeFeatures.size() - 1; i++) {
+            reordered.add(treeFeatures.get(i));
+        }
+        assertEquals(reordered, streamedFeatures);
+
+        var features = new ArrayList<Feature>();
+        for (var feature : reordered) {
+            features.add(Feature.fromJson(feature.toString()));
+        }
+        assertEquals(FeatureCollection.fromFeatures(features).toJson(), Files.readString(streamedFile));
+    }
+
+    /**
+     * A map closed before it is finished keeps the flight path so far.
+     *
+     * @throws IOException if the map could not be written
+     */
+    @Test
+    public void unfinishedMapShowsTheFlightSoFar() throws IOException {
+        var file = folder.getRoot().toPath().resolve("readings.geojson");
+        try (var streamed = new GeoJsonStreamWriter(file, START, NoOpFlightLog.INSTANCE)) {
+            streamed.logMove(1, START.getX(), START.getY(), 0, START.getX() + 0.0003, START.getY(), "null");
+        }
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"geometry\":"
+                + "{\"type\":\"LineString\",\"coordinates\":[[-3.1878,55.9444],[-3.1875,55.9444]", Files.readString(file));
+    }
+}
@@ -0,0 +1,102 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that {@link Headings} holds the same offsets as computing the cosine and sine of every move.
+ */
+public class HeadingsTest {
+
+    /**
+     * Checks every heading of a table against the cosine and sine of its angle.
+     *
+     * @param headings the table
+     */
+    private static void assertMatchesTrigonometry(Headings headings) {
+        assertEquals(360 / headings.getAngleStep(), headings.count());
+        for (int i = 0; i < headings.count(); i++) {
+            var angle = headings.angle(i);
+            var radianAngle = Math.toRadians(angle);
+            assertEquals(headings.getStepLength() * Math.cos(radianAngle), headings.dx(angle), 0.0);
+            assertEquals(headings.getStepLength() * Math.sin(radianAngle), headings.dy(angle), 0.0);
+        }
+    }
+
+    /**
+     * Tests that the default table and tables with other steps match the trigonometry exactly.
+     */
+    @Test
+    public void tableMatchesTrigonometry() {
+        assertMatchesTrigonometry(Headings.DEFAULT);
+        assertMatchesTrigonometry(new Headings(1, 0.0001));
+        assertMatchesTrigonometry(new Headings(45, 0.0005));
+        assertMatchesTrigonometry(new Headings(360, 0.0003));
+    }
+
+    /**
+     * Tests that angles outside [0, 360) are taken modulo 360.
+     */
+    @Test
+    public void anglesWrapAround() {
+        var headings = Headings.DEFAULT;
+        assertEquals(headings.dx(0), headings.dx(360), 0.0);
+        assertEquals(headings.dy(0), headings.dy(360), 0.0);
+        assertEquals(headings.dx(350), headings.dx(-10), 0.0);
+        assertEquals(headings.dy(350), headings.dy(-10), 0.0);
+        assertEquals(headings.dx(90), headings.dx(450), 0.0);
+        assertEquals(headings.dy(270), headings.dy(-450), 0.0);
+    }
+
+    /**
+     * Tests that an angle between two headings is rejected rather than rounded down to one of them.
+     */
+    @Test
+    public void anglesOffTheStepAreRejected() {
+        var headings = Headings.DEFAULT;
+        for (int angle : new int[] {355, 5, -5, 361, 1}) {
+            try {
+                headings.dx(angle);
+                fail("dx(" + angle + ") should be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                headings.dy(angle);
+                fail("dy(" + angle + ") should be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Tests that snapping gives a heading in [0, 360) and agrees with {@link GeometryHelpers#findMovementAngle}.
+     */
+    @Test
+    public void snapAndFindMovementAngle() {
+        var headings = Headings.DEFAULT;
+        assertEquals(0, headings.snap(0));
+        assertEquals(0, headings.snap(360));
+        assertEquals(0, headings.snap(356));
+        assertEquals(350, headings.snap(354));
+        assertEquals(350, headings.snap(-10));
+        assertEquals(340, headings.snap(-16));
+        assertEquals(10, headings.snap(374));
+
+        var random = new Random(5678);
+        for (int i = 0; i < 10_000; i++) {
+            var x1 = random.nextDouble();
+            var y1 = random.nextDouble();
+            var x2 = random.nextDouble();
+            var y2 = random.nextDouble();
+            var angle = headings.findMovementAngle(x1, y1, x2, y2);
+            assertEquals(GeometryHelpers.findMovementAngle(x1, y1, x2, y2), angle);
+            headings.dx(angle);
+        }
+    }
+}
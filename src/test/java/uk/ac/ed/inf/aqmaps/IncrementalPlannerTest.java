@@ -0,0 +1,134 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link IncrementalPlanner} repairs its plan to legs as short as a fresh
+ * {@link PathPlanner} finds.
+ */
+public class IncrementalPlannerTest {
+
+    /**
+     * The headings of the drone.
+     */
+    private static final Headings HEADINGS = Headings.DEFAULT;
+    /**
+     * The start of the legs, west of the wall.
+     */
+    private static final Point2D START = new Point2D.Double(-3.1900, 55.9440);
+    /**
+     * The target of the legs, east of the wall.
+     */
+    private static final Point2D TARGET = new Point2D.Double(-3.1860, 55.9440);
+    /**
+     * The distance to the target the drone has to get within.
+     */
+    private static final double RADIUS = GeometryHelpers.READING_DISTANCE;
+    /**
+     * The moves an incremental leg may take over the shortest one. The planner stands for each
+     * position by the centre of its square, a tenth of a step wide, and now and then a square
+     * looks as close to the goal as the best one while the drone in it is a move further away.
+     */
+    private static final int SLACK = 2;
+
+    /**
+     * Flies the drone with the planner from a position until it is within the goal radius,
+     * checking every move against the no-fly zones.
+     *
+     * @param planner    the planner
+     * @param from       the position of the drone
+     * @param noFlyZones the no-fly zones the drone checks its moves against
+     * @return the number of moves
+     */
+    private static int fly(IncrementalPlanner planner, Point2D from, NoFlyZones noFlyZones) {
+        var x = from.getX();
+        var y = from.getY();
+        var moves = 0;
+        while (GeometryHelpers.distance(x, y, TARGET.getX(), TARGET.getY()) >= RADIUS || moves == 0) {
+            var angle = planner.nextAngle(x, y);
+            assertTrue("no way to the goal after " + moves + " moves", angle != -1);
+            var toX = x + HEADINGS.dx(angle);
+            var toY = y + HEADINGS.dy(angle);
+            assertEquals(-1, noFlyZones.polygonLineIntersects(x, y, toX, toY));
+            x = toX;
+            y = toY;
+            moves++;
+            assertTrue(moves <= 150);
+        }
+        return moves;
+    }
+
+    /**
+     * Gets the number of moves of a fresh A* leg.
+     *
+     * @param noFlyZones the no-fly zones
+     * @param from       the start of the leg
+     * @return the number of moves
+     */
+    private static int shortest(NoFlyZones noFlyZones, Point2D from) {
+        var angles = new PathPlanner(HEADINGS, noFlyZones, PlayArea.DEFAULT)
+                .findPath(from.getX(), from.getY(), TARGET.getX(), TARGET.getY(), RADIUS, 150);
+        assertNotNull(angles);
+        return angles.length;
+    }
+
+    /**
+     * Plans a leg round the wall from scratch. The sides of the wall lie on the corners of the
+     * squares, so this also checks that the plan does not cut through the wall.
+     */
+    @Test
+    public void firstPlanMatchesAStar() {
+        var planner = new IncrementalPlanner(HEADINGS, PathPlannerTest.WALL, PlayArea.DEFAULT,
+                TARGET.getX(), TARGET.getY(), RADIUS);
+        var moves = fly(planner, START, PathPlannerTest.WALL);
+        var shortest = shortest(PathPlannerTest.WALL, START);
+        assertTrue(moves + " moves for " + shortest, moves >= shortest && moves <= shortest + SLACK);
+    }
+
+    /**
+     * The wall appears after the drone has set off on the straight leg, and the leg from where
+     * the drone is then is as short as a fresh A* leg round it.
+     */
+    @Test
+    public void repairedPlanMatchesAStar() {
+        var planner = new IncrementalPlanner(HEADINGS, NoFlyZones.NONE, PlayArea.DEFAULT,
+                TARGET.getX(), TARGET.getY(), RADIUS);
+        var x = START.getX();
+        var y = START.getY();
+        for (int i = 0; i < 3; i++) {
+            var angle = planner.nextAngle(x, y);
+            x += HEADINGS.dx(angle);
+            y += HEADINGS.dy(angle);
+        }
+        planner.updateZones(PathPlannerTest.WALL);
+        var here = new Point2D.Double(x, y);
+        var moves = fly(planner, here, PathPlannerTest.WALL);
+        var shortest = shortest(PathPlannerTest.WALL, here);
+        assertTrue(moves + " moves for " + shortest, moves >= shortest && moves <= shortest + SLACK);
+    }
+
+    /**
+     * The drone finds the move it planned blocked, though the no-fly zones say it is legal, and
+     * the planner takes another one and still gets there about as quickly as A*.
+     */
+    @Test
+    public void blockedMoveIsReplanned() {
+        var planner = new IncrementalPlanner(HEADINGS, NoFlyZones.NONE, PlayArea.DEFAULT,
+                TARGET.getX(), TARGET.getY(), RADIUS);
+        var planned = planner.nextAngle(START.getX(), START.getY());
+        planner.blockMove(START.getX(), START.getY(), planned);
+        var angle = planner.nextAngle(START.getX(), START.getY());
+        assertNotEquals(planned, angle);
+        var next = new Point2D.Double(START.getX() + HEADINGS.dx(angle), START.getY() + HEADINGS.dy(angle));
+        var moves = 1 + fly(planner, next, NoFlyZones.NONE);
+        var shortest = shortest(NoFlyZones.NONE, START);
+        assertTrue(moves + " moves for " + shortest, moves >= shortest && moves <= shortest + SLACK);
+    }
+}
@@ -0,0 +1,75 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the snapshots of a {@link NoFlyZoneStore}.
+ */
+public class NoFlyZoneStoreTest {
+
+    /**
+     * Makes a square temporary zone.
+     *
+     * @param name  the name of the zone
+     * @param x     the west side of the square
+     * @param from  the move the zone holds from
+     * @param until the move the zone holds until
+     * @return the new temporary zone
+     */
+    private static TemporaryZone square(String name, double x, int from, int until) {
+        return new TemporaryZone(name, List.of(new Point2D.Double(x, 0), new Point2D.Double(x + 1, 0),
+                new Point2D.Double(x + 1, 1), new Point2D.Double(x, 1)), from, until);
+    }
+
+    /**
+     * The zones of each stretch of the mission.
+     */
+    @Test
+    public void stretchesFollowTheTemporaryZones() {
+        var store = new NoFlyZoneStore(NoFlyZones.NONE);
+        store.add(square("crane", 0, 10, 20));
+        assertSame(NoFlyZones.NONE, store.zonesAt(0));
+        assertSame(NoFlyZones.NONE, store.zonesAt(9));
+        assertTrue(store.zonesAt(10).contains(0.5, 0.5));
+        assertTrue(store.zonesAt(19).contains(0.5, 0.5));
+        assertSame(NoFlyZones.NONE, store.zonesAt(20));
+        assertEquals(1, store.snapshot().getVersion());
+    }
+
+    /**
+     * Reading the same zones again, as new objects, keeps the no-fly zones the drones have.
+     */
+    @Test
+    public void sameZonesKeepTheirInstances() {
+        var store = new NoFlyZoneStore(NoFlyZones.NONE);
+        store.replaceAll(List.of(square("crane", 0, 0, TemporaryZone.FOREVER)));
+        var before = store.zonesAt(5);
+        store.replaceAll(List.of(square("crane", 0, 0, TemporaryZone.FOREVER)));
+        assertSame(before, store.zonesAt(5));
+    }
+
+    /**
+     * A zone added for a later stretch leaves the earlier stretches as they were.
+     */
+    @Test
+    public void unchangedStretchesKeepTheirInstances() {
+        var store = new NoFlyZoneStore(NoFlyZones.NONE);
+        store.add(square("crane", 0, 0, TemporaryZone.FOREVER));
+        var early = store.zonesAt(5);
+        store.add(square("parade", 5, 50, TemporaryZone.FOREVER));
+        assertSame(early, store.zonesAt(5));
+        assertNotSame(early, store.zonesAt(60));
+        assertTrue(store.zonesAt(60).contains(5.5, 0.5));
+
+        store.remove("crane");
+        assertSame(NoFlyZones.NONE, store.zonesAt(5));
+    }
+}
@@ -0,0 +1,150 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the paths of the {@link OrienteeringPlanner} keep within the moves.
+ */
+public class OrienteeringPlannerTest {
+
+    /**
+     * Makes a distance matrix over random places on a grid, with legs a little longer one way
+     * than the other, and a few legs which cannot be flown.
+     *
+     * @param random the random numbers
+     * @param size   the number of nodes
+     * @return the distance matrix
+     */
+    private static DistanceMatrix randomMatrix(Random random, int size) {
+        var xs = new int[size];
+        var ys = new int[size];
+        for (int i = 0; i < size; i++) {
+            xs[i] = random.nextInt(40);
+            ys[i] = random.nextInt(40);
+        }
+        var moves = new int[size * size];
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < size; b++) {
+                if (a == b) {
+                    continue;
+                }
+                var distance = (int) Math.ceil(Math.hypot(xs[a] - xs[b], ys[a] - ys[b]));
+                moves[a * size + b] = random.nextInt(20) == 0
+                        ? DistanceMatrix.UNREACHABLE
+                        : Math.max(1, distance + random.nextInt(3) - 1);
+            }
+        }
+        return new DistanceMatrix(size, moves);
+    }
+
+    /**
+     * Gets the moves of the whole path, from the start to the end.
+     *
+     * @param planner the planner
+     * @param start   the node the path starts at
+     * @param end     the node the path ends at
+     * @param planned the nodes planned to be read
+     * @return the moves
+     */
+    private static int pathMoves(OrienteeringPlanner planner, int start, int end, int[] planned) {
+        var path = new int[planned.length + 2];
+        path[0] = start;
+        System.arraycopy(planned, 0, path, 1, planned.length);
+        path[path.length - 1] = end;
+        return planner.moves(path, path.length);
+    }
+
+    /**
+     * Random days, both back to the start and ending somewhere else, keep within the moves and
+     * only read each candidate once.
+     */
+    @Test
+    public void pathsKeepWithinTheBudget() {
+        var random = new Random(5678);
+        for (int round = 0; round < 200; round++) {
+            var size = 2 + random.nextInt(30);
+            var matrix = randomMatrix(random, size);
+            var values = new double[size];
+            for (int i = 1; i < size; i++) {
+                values[i] = random.nextDouble();
+            }
+            var planner = new OrienteeringPlanner(matrix, values, round);
+            var start = random.nextInt(size);
+            var end = random.nextBoolean() ? start : random.nextInt(size);
+            var candidates = IntStream.range(0, size).filter(i -> i != start && i != end).toArray();
+            var budget = random.nextInt(200);
+
+            var planned = planner.plan(start, end, candidates, budget);
+            if (matrix.moves(start, end) > budget) {
+                assertEquals(0, planned.length);
+                continue;
+            }
+            assertTrue(pathMoves(planner, start, end, planned) <= budget);
+            var read = new HashSet<Integer>();
+            for (int node : planned) {
+                assertTrue(Arrays.stream(candidates).anyMatch(candidate -> candidate == node));
+                assertTrue(read.add(node));
+            }
+        }
+    }
+
+    /**
+     * With moves to spare every candidate is read, and with too few none are.
+     */
+    @Test
+    public void budgetDecidesWhatIsRead() {
+        var random = new Random(1234);
+        var matrix = randomMatrix(random, 12);
+        var values = new double[12];
+        Arrays.fill(values, 1, 12, 1.0);
+        var candidates = IntStream.range(1, 12).filter(i -> matrix.moves(0, i) != DistanceMatrix.UNREACHABLE
+                && matrix.moves(i, 0) != DistanceMatrix.UNREACHABLE).toArray();
+        var planner = new OrienteeringPlanner(matrix, values, 0);
+
+        var planned = planner.plan(0, 0, candidates, 100_000);
+        assertEquals(candidates.length, planned.length);
+        assertEquals(0, planner.plan(0, 0, candidates, 0).length);
+    }
+
+    /**
+     * When only one of two sensors on either side of the start fits, the one worth more is read.
+     */
+    @Test
+    public void valuableSensorIsRead() {
+        // the start in the middle, a sensor 10 moves west and one 10 moves east
+        var matrix = new DistanceMatrix(3, new int[]{
+                0, 10, 10,
+                10, 0, 20,
+                10, 20, 0});
+        var westWorthMore = new OrienteeringPlanner(matrix, new double[]{0, 2, 1}, 0);
+        assertArrayEquals(new int[]{1}, westWorthMore.plan(0, 0, new int[]{1, 2}, 25));
+        var eastWorthMore = new OrienteeringPlanner(matrix, new double[]{0, 1, 2}, 0);
+        assertArrayEquals(new int[]{2}, eastWorthMore.plan(0, 0, new int[]{1, 2}, 25));
+        assertEquals(2, eastWorthMore.plan(0, 0, new int[]{1, 2}, 40).length);
+    }
+
+    /**
+     * The same seed gives the same path.
+     */
+    @Test
+    public void sameSeedSamePath() {
+        var matrix = randomMatrix(new Random(42), 30);
+        var values = new Random(43).doubles(30).toArray();
+        values[0] = 0;
+        var candidates = IntStream.range(1, 30).toArray();
+        var first = new OrienteeringPlanner(matrix, values, 7).plan(0, 0, candidates, 120);
+        var second = new OrienteeringPlanner(matrix, values, 7).plan(0, 0, candidates, 120);
+        assertNotEquals(0, first.length);
+        assertArrayEquals(first, second);
+    }
+}
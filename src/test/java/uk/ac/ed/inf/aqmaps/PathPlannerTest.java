@@ -0,0 +1,123 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the legs found by {@link PathPlanner}.
+ */
+public class PathPlannerTest {
+
+    /**
+     * The headings of the drone.
+     */
+    private static final Headings HEADINGS = Headings.DEFAULT;
+    /**
+     * The start of the legs, west of the wall.
+     */
+    private static final Point2D START = new Point2D.Double(-3.1900, 55.9440);
+    /**
+     * The target of the legs, east of the wall.
+     */
+    private static final Point2D TARGET = new Point2D.Double(-3.1860, 55.9440);
+    /**
+     * A wall between the start and the target, with room to go round it to the north and south.
+     */
+    static final NoFlyZones WALL = new NoFlyZones(List.of(List.of(
+            new Point2D.Double(-3.1882, 55.9432), new Point2D.Double(-3.1878, 55.9432),
+            new Point2D.Double(-3.1878, 55.9452), new Point2D.Double(-3.1882, 55.9452),
+            new Point2D.Double(-3.1882, 55.9432))));
+
+    /**
+     * Flies a leg, checking that every move is legal.
+     *
+     * @param angles     the movement angles of the leg
+     * @param noFlyZones the no-fly zones
+     * @return where the leg ends
+     */
+    static Point2D fly(int[] angles, NoFlyZones noFlyZones) {
+        var x = START.getX();
+        var y = START.getY();
+        for (int angle : angles) {
+            var toX = x + HEADINGS.dx(angle);
+            var toY = y + HEADINGS.dy(angle);
+            assertTrue(PlayArea.DEFAULT.contains(toX, toY));
+            assertEquals(-1, noFlyZones.polygonLineIntersects(x, y, toX, toY));
+            x = toX;
+            y = toY;
+        }
+        return new Point2D.Double(x, y);
+    }
+
+    /**
+     * With nothing in the way the leg is as short as the straight line allows.
+     */
+    @Test
+    public void straightLegIsShortest() {
+        var planner = new PathPlanner(HEADINGS, NoFlyZones.NONE, PlayArea.DEFAULT);
+        var radius = GeometryHelpers.READING_DISTANCE;
+        var angles = planner.findPath(START.getX(), START.getY(), TARGET.getX(), TARGET.getY(), radius, 150);
+        assertNotNull(angles);
+        assertTrue(fly(angles, NoFlyZones.NONE).distance(TARGET) < radius);
+        var fewest = (int) Math.ceil((START.distance(TARGET) - radius) / HEADINGS.getStepLength());
+        assertEquals(fewest, angles.length);
+    }
+
+    /**
+     * The leg goes round a wall, and is longer than the straight line.
+     */
+    @Test
+    public void legGoesRoundTheWall() {
+        var planner = new PathPlanner(HEADINGS, WALL, PlayArea.DEFAULT);
+        var radius = GeometryHelpers.READING_DISTANCE;
+        var angles = planner.findPath(START.getX(), START.getY(), TARGET.getX(), TARGET.getY(), radius, 150);
+        assertNotNull(angles);
+        assertTrue(fly(angles, WALL).distance(TARGET) < radius);
+        var straight = new PathPlanner(HEADINGS, NoFlyZones.NONE, PlayArea.DEFAULT)
+                .findPath(START.getX(), START.getY(), TARGET.getX(), TARGET.getY(), radius, 150);
+        assertTrue(angles.length > straight.length);
+    }
+
+    /**
+     * A target next to the start still takes a move, since readings are only taken after one.
+     */
+    @Test
+    public void targetAtTheStartTakesAMove() {
+        var planner = new PathPlanner(HEADINGS, NoFlyZones.NONE, PlayArea.DEFAULT);
+        var angles = planner.findPath(START.getX(), START.getY(), START.getX(), START.getY(),
+                GeometryHelpers.READING_DISTANCE, 150);
+        assertNotNull(angles);
+        assertTrue(angles.length >= 1);
+        assertTrue(fly(angles, NoFlyZones.NONE).distance(START) < GeometryHelpers.READING_DISTANCE);
+    }
+
+    /**
+     * No leg is found within fewer moves than the shortest one.
+     */
+    @Test
+    public void noLegWithinTooFewMoves() {
+        var planner = new PathPlanner(HEADINGS, WALL, PlayArea.DEFAULT);
+        var radius = GeometryHelpers.READING_DISTANCE;
+        var shortest = planner.findPath(START.getX(), START.getY(), TARGET.getX(), TARGET.getY(), radius, 150);
+        assertNotNull(planner.findPath(START.getX(), START.getY(), TARGET.getX(), TARGET.getY(), radius,
+                shortest.length));
+        assertNull(planner.findPath(START.getX(), START.getY(), TARGET.getX(), TARGET.getY(), radius,
+                shortest.length - 1));
+    }
+
+    /**
+     * A target deep inside a no-fly zone cannot be reached.
+     */
+    @Test
+    public void noLegIntoANoFlyZone() {
+        var planner = new PathPlanner(HEADINGS, WALL, PlayArea.DEFAULT);
+        assertNull(planner.findPath(START.getX(), START.getY(), -3.1880, 55.9442, 0.00005, 150));
+    }
+}
@@ -0,0 +1,169 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link ResourceCache} and how {@link WebRequests} revalidates it with a
+ * {@link StandInWebServer}, recovering when a resource changes or goes missing.
+ */
+public class ResourceCacheTest {
+
+    /**
+     * The fixture directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The stand-in web server.
+     */
+    private StandInWebServer server;
+    /**
+     * The requests to the stand-in web server.
+     */
+    private WebRequests webRequests;
+
+    /**
+     * Starts the stand-in web server over an empty fixture directory.
+     *
+     * @throws IOException if the server could not be started
+     */
+    @Before
+    public void startServer() throws IOException {
+        server = new StandInWebServer(folder.getRoot().toPath(), 0);
+        webRequests = new WebRequests(server.getPort());
+    }
+
+    /**
+     * Stops the stand-in web server.
+     */
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    /**
+     * Writes the no-fly zones fixture, a single square with the given west side.
+     *
+     * @param west the longitude of the west side
+     * @return the path of the fixture
+     * @throws IOException if the fixture could not be written
+     */
+    private Path writeBuildings(double west) throws IOException {
+        var east = west + 0.0005;
+        var file = folder.getRoot().toPath().resolve("buildings/no-fly-zones.geojson");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "{\"type\": \"FeatureCollection\", \"features\": [{\"type\": \"Feature\", "
+                + "\"properties\": {}, \"geometry\": {\"type\": \"Polygon\", \"coordinates\": [[["
+                + west + ", 55.944], [" + east + ", 55.944], [" + east + ", 55.945], ["
+                + west + ", 55.944]]]}}]}");
+        return file;
+    }
+
+    /**
+     * The least recently used resource is evicted.
+     */
+    @Test
+    public void leastRecentlyUsedIsEvicted() {
+        var cache = new ResourceCache<String>(2);
+        var a = URI.create("http://localhost/a");
+        var b = URI.create("http://localhost/b");
+        cache.put(a, new ResourceCache.Entry<>("\"a\"", null, "a", "a"));
+        cache.put(b, new ResourceCache.Entry<>("\"b\"", null, "b", "b"));
+        cache.get(a);
+        cache.put(URI.create("http://localhost/c"), new ResourceCache.Entry<>(null, null, "c", "c"));
+        assertNull(cache.get(b));
+        assertEquals("a", cache.get(a).getValue());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * A cache with no room is refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyCacheIsRefused() {
+        new ResourceCache<String>(0);
+    }
+
+    /**
+     * Unchanged no-fly zones are answered with 304 and keep their parsed instance, even when
+     * the file is written again with the same content.
+     *
+     * @throws IOException if a fixture could not be written
+     */
+    @Test
+    public void unchangedResourceIsReused() throws IOException {
+        writeBuildings(-3.1869);
+        var first = webRequests.getBuidings();
+        assertSame(first, webRequests.getBuidings());
+        writeBuildings(-3.1869);
+        assertSame(first, webRequests.getBuidings());
+    }
+
+    /**
+     * Changed no-fly zones are fetched and parsed again.
+     *
+     * @throws IOException if a fixture could not be written
+     */
+    @Test
+    public void changedResourceIsFetchedAgain() throws IOException {
+        writeBuildings(-3.1869);
+        var first = webRequests.getBuidings();
+        writeBuildings(-3.1879);
+        var second = webRequests.getBuidings();
+        assertNotSame(first, second);
+        assertEquals(-3.1879, second.get(0).get(0).getX(), 0);
+    }
+
+    /**
+     * No-fly zones which go missing fail rather than being served from the cache, and the
+     * cache recovers once they are back.
+     *
+     * @throws IOException if a fixture could not be written
+     */
+    @Test
+    public void missingResourceFailsAndRecovers() throws IOException {
+        var file = writeBuildings(-3.1869);
+        webRequests.getBuidings();
+        Files.delete(file);
+        try {
+            webRequests.getBuidings();
+            fail("Missing no-fly zones must not be served from the cache.");
+        } catch (WebRequestException e) {
+            // expected
+        }
+        writeBuildings(-3.1879);
+        assertEquals(-3.1879, webRequests.getBuidings().get(0).get(0).getX(), 0);
+    }
+
+    /**
+     * Every call revalidates the cached no-fly zones with the server.
+     *
+     * @throws IOException if a fixture could not be written
+     */
+    @Test
+    public void everyCallRevalidates() throws IOException {
+        writeBuildings(-3.1869);
+        var requests = server.getRequestCount();
+        webRequests.getBuidings();
+        webRequests.getBuidings();
+        webRequests.getBuidings();
+        assertEquals(requests + 3, server.getRequestCount());
+    }
+}
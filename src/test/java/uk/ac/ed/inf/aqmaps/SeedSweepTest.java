@@ -0,0 +1,133 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the choice of the best flight by a {@link SeedSweep}.
+ */
+public class SeedSweepTest {
+
+    /**
+     * The starting position of the drone.
+     */
+    private static final Point2D START = new Point2D.Double(-3.1878, 55.9444);
+    /**
+     * The number of seeds swept.
+     */
+    private static final int SEEDS = 8;
+
+    /**
+     * Makes random sensors over the play area, too many to read them all within the moves.
+     *
+     * @return the new sensors
+     */
+    private static ArrayList<Sensor> sensors() {
+        var random = new Random(5678);
+        var sensors = new ArrayList<Sensor>();
+        for (int i = 0; i < 40; i++) {
+            var sensor = new Sensor("s" + i + ".x.y", 90.0, "50.0");
+            sensor.setCoord(new Point2D.Double(-3.1920 + random.nextDouble() * 0.0070,
+                    55.9430 + random.nextDouble() * 0.0030));
+            sensors.add(sensor);
+        }
+        return sensors;
+    }
+
+    /**
+     * Makes a run with no flight, for comparing.
+     *
+     * @param seed        the random state seed
+     * @param sensorsRead the number of sensors read
+     * @param completed   true if all sensors were read and the drone returned
+     * @param movesUsed   the number of moves used
+     * @return the run
+     */
+    private static SeedSweep.Run run(int seed, int sensorsRead, boolean completed, int movesUsed) {
+        return new SeedSweep.Run(seed, sensorsRead, completed, movesUsed, null, null, null);
+    }
+
+    /**
+     * The most sensors read wins, then getting back, then the fewest moves, then the lowest seed.
+     */
+    @Test
+    public void tiesAreBrokenInOrder() {
+        assertTrue(run(9, 30, false, 150).isBetterThan(run(1, 29, true, 90)));
+        assertTrue(run(9, 30, true, 150).isBetterThan(run(1, 30, false, 90)));
+        assertTrue(run(9, 30, true, 120).isBetterThan(run(1, 30, true, 121)));
+        assertTrue(run(1, 30, true, 120).isBetterThan(run(9, 30, true, 120)));
+        assertFalse(run(9, 30, true, 120).isBetterThan(run(1, 30, true, 120)));
+        assertFalse(run(1, 30, true, 120).isBetterThan(run(1, 30, true, 120)));
+    }
+
+    /**
+     * The sweep picks the best of the seeds flown one by one, keeps its flight as it was flown,
+     * and leaves the sensors of the day as they were.
+     */
+    @Test
+    public void bestSeedIsChosen() {
+        var settings = new MissionSettings(START, 5678);
+        var sensors = sensors();
+        var best = new SeedSweep().findBest(sensors, NoFlyZones.NONE, settings, SEEDS);
+
+        SeedSweep.Run expected = null;
+        for (int seed = 5678; seed < 5678 + SEEDS; seed++) {
+            var log = new MemoryFlightLog();
+            var drone = settings.newDrone(seed, sensors(), NoFlyZones.NONE, START, log);
+            var points = drone.collectReadings();
+            var run = new SeedSweep.Run(seed, App.countSensorsRead(drone.getVisitedSensors()), drone.isCompleted(),
+                    settings.getMaxMoves() - drone.getMovesLeft(), drone, log, points);
+            if (expected == null || run.isBetterThan(expected)) {
+                expected = run;
+            }
+        }
+        assertEquals(expected.getSeed(), best.getSeed());
+        assertEquals(expected.getFlightLog().getContents(), best.getFlightLog().getContents());
+        assertEquals(expected.getMovesUsed(), best.getMovesUsed());
+        assertEquals(expected.getMovementPoints(), best.getMovementPoints());
+        assertEquals(best.getSensorsRead(), App.countSensorsRead(best.getDrone().getVisitedSensors()));
+        assertTrue(sensors.stream().noneMatch(Sensor::isVisited));
+    }
+
+    /**
+     * An interrupted sweep cancels the runs it has not flown, and keeps the interrupt.
+     *
+     * @throws InterruptedException if the test was interrupted
+     */
+    @Test(timeout = 20_000)
+    public void interruptedSweepCancelsItsRuns() throws InterruptedException {
+        var executor = Executors.newSingleThreadExecutor();
+        var blocker = new CountDownLatch(1);
+        try {
+            // no run starts before the sweep is interrupted
+            executor.execute(() -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            Thread.currentThread().interrupt();
+            var best = new SeedSweep(executor).findBest(sensors(), NoFlyZones.NONE, new MissionSettings(START, 5678), 10_000);
+            assertTrue(Thread.interrupted());
+            assertNull(best);
+            blocker.countDown();
+            executor.shutdown();
+            // flying every seed would take far longer
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link SensorIndex} finds the same sensor as a linear scan.
+ */
+public class SensorIndexTest {
+
+    /**
+     * Makes a sensor at a position.
+     *
+     * @param name the location of the sensor
+     * @param x    the x coordinate
+     * @param y    the y coordinate
+     * @return the new sensor
+     */
+    private static Sensor sensor(String name, double x, double y) {
+        var sensor = new Sensor(name, 100.0, "50.0");
+        sensor.setCoord(new Point2D.Double(x, y));
+        return sensor;
+    }
+
+    /**
+     * Finds the nearest sensor by scanning the list, the earliest one if several are as near.
+     *
+     * @param sensors the sensors
+     * @param x       the x coordinate of the point
+     * @param y       the y coordinate of the point
+     * @return the nearest sensor, or null if there are none
+     */
+    private static Sensor linearScan(List<Sensor> sensors, double x, double y) {
+        Sensor best = null;
+        var bestDistSq = Double.POSITIVE_INFINITY;
+        for (Sensor sensor : sensors) {
+            var distSq = GeometryHelpers.distanceSq(x, y, sensor.getCoord().getX(), sensor.getCoord().getY());
+            if (distSq < bestDistSq) {
+                best = sensor;
+                bestDistSq = distSq;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets a random point in the play area, or a little outside it.
+     *
+     * @param random the random numbers
+     * @param margin the fraction of the play area the point may be outside it by
+     * @return the point
+     */
+    private static Point2D randomPoint(Random random, double margin) {
+        var area = PlayArea.DEFAULT;
+        var width = area.getEastLng() - area.getWestLng();
+        var height = area.getNorthLat() - area.getSouthLat();
+        return new Point2D.Double(
+                area.getWestLng() + width * (random.nextDouble() * (1 + 2 * margin) - margin),
+                area.getSouthLat() + height * (random.nextDouble() * (1 + 2 * margin) - margin));
+    }
+
+    /**
+     * Random sensors, some added later outside the grid and some removed, queried from random
+     * points in and round the play area.
+     */
+    @Test
+    public void nearestMatchesLinearScan() {
+        var random = new Random(5678);
+        for (int round = 0; round < 20; round++) {
+            var sensors = new ArrayList<Sensor>();
+            var count = 1 + random.nextInt(60);
+            for (int i = 0; i < count; i++) {
+                var point = randomPoint(random, 0);
+                sensors.add(sensor("s" + i, point.getX(), point.getY()));
+            }
+            var index = new SensorIndex(sensors);
+            for (int step = 0; step < 200; step++) {
+                var choice = random.nextInt(10);
+                if (choice == 0) {
+                    // every other new sensor is on top of an existing one, to check the ties
+                    var point = step % 2 == 0 && !sensors.isEmpty()
+                            ? sensors.get(random.nextInt(sensors.size())).getCoord()
+                            : randomPoint(random, 0.5);
+                    var sensor = sensor("a" + step, point.getX(), point.getY());
+                    sensors.add(sensor);
+                    index.add(sensor);
+                } else if (choice == 1 && !sensors.isEmpty()) {
+                    var sensor = sensors.remove(random.nextInt(sensors.size()));
+                    assertTrue(index.remove(sensor));
+                }
+                assertEquals(sensors.size(), index.size());
+                var query = randomPoint(random, 0.5);
+                assertSame(linearScan(sensors, query.getX(), query.getY()), index.nearest(query.getX(), query.getY()));
+            }
+        }
+    }
+
+    /**
+     * Sensors at the same place give the earliest sensor, and the next one once it is removed.
+     */
+    @Test
+    public void tiesGoToTheEarliestSensor() {
+        var west = sensor("west", -3.1890, 55.9444);
+        var first = sensor("first", -3.1880, 55.9440);
+        var second = sensor("second", -3.1880, 55.9440);
+        var third = sensor("third", -3.1880, 55.9440);
+        var index = new SensorIndex(List.of(west, first, second));
+        index.add(third);
+        assertSame(first, index.nearest(-3.1880, 55.9440));
+        assertSame(first, index.nearest(-3.1881, 55.9439));
+        index.remove(first);
+        assertSame(second, index.nearest(-3.1881, 55.9439));
+        index.remove(second);
+        assertSame(third, index.nearest(-3.1881, 55.9439));
+    }
+
+    /**
+     * An empty index, and one with a single sensor.
+     */
+    @Test
+    public void emptyAndSingleSensor() {
+        var index = new SensorIndex(List.of());
+        assertNull(index.nearest(-3.1880, 55.9440));
+        var only = sensor("only", -3.1880, 55.9440);
+        index.add(only);
+        assertSame(only, index.nearest(-3.1920, 55.9460));
+        assertTrue(index.remove(only));
+        assertFalse(index.remove(only));
+        assertNull(index.nearest(-3.1880, 55.9440));
+    }
+}
@@ -0,0 +1,315 @@
+package uk.ac.ed.inf.aqmaps;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import com.mapbox.geojson.Feature;
+import com.mapbox.geojson.FeatureCollection;
+import com.mapbox.geojson.Point;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@link SimulationFarm} compares the outputs of a day with the golden ones in
+ * {@code autotest} as numbers, within the tolerance, and reports the totals.
+ */
+public class SimulationFarmTest {
+
+    /**
+     * The directory of the golden outputs.
+     */
+    private static final Path GOLDEN_DIR = Path.of("autotest");
+    /**
+     * The day of the golden pair the tests compare.
+     */
+    private static final String DAY = "01-01-2020";
+
+    /**
+     * The temporary directory for the outputs and reports.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Reads the golden flight path of the day.
+     *
+     * @return the flight path
+     * @throws IOException if the golden output could not be read
+     */
+    private static String goldenPath() throws IOException {
+        return Files.readString(GOLDEN_DIR.resolve("flightpath-" + DAY + ".txt"));
+    }
+
+    /**
+     * Reads the golden readings map of the day.
+     *
+     * @return the readings map
+     * @throws IOException if the golden output could not be read
+     */
+    private static FeatureCollection goldenMap() throws IOException {
+        return FeatureCollection.fromJson(Files.readString(GOLDEN_DIR.resolve("readings-" + DAY + ".geojson")));
+    }
+
+    /**
+     * Rewrites a flight path with other spacing, the shortest form of each number and
+     * Windows line endings, i.e. the same moves written differently.
+     *
+     * @param flightPath the flight path
+     * @return the rewritten flight path
+     */
+    private static String respace(String flightPath) {
+        var lines = new ArrayList<String>();
+        for (String line : flightPath.strip().split("\n")) {
+            var fields = line.split(",");
+            for (int i = 0; i < fields.length; i++) {
+                fields[i] = fields[i].strip();
+                if (i >= 1 && i <= 5) {
+                    fields[i] = Double.toString(Double.parseDouble(fields[i]));
+                }
+            }
+            lines.add(String.join(" ,", fields));
+        }
+        return String.join("\r\n", lines) + "\r\n";
+    }
+
+    /**
+     * Replaces a field of one move of a flight path.
+     *
+     * @param flightPath the flight path
+     * @param move       the number of the move, counted from 1
+     * @param field      the index of the field
+     * @param value      the new value
+     * @return the changed flight path
+     */
+    private static String changeMove(String flightPath, int move, int field, String value) {
+        var lines = flightPath.strip().split("\n");
+        var fields = lines[move - 1].split(",");
+        fields[field] = " " + value;
+        lines[move - 1] = String.join(",", fields);
+        return String.join("\n", lines) + "\n";
+    }
+
+    /**
+     * Makes the summary of a mission flown to the end.
+     *
+     * @param movesUsed     the moves used
+     * @param sensorsRead   the sensors read, out of 33
+     * @param elapsedMillis the wall time of the day
+     * @return the mission result
+     */
+    private static MissionResult result(int movesUsed, int sensorsRead, long elapsedMillis) {
+        return new MissionResult(DAY, 5678, movesUsed, sensorsRead, 33, sensorsRead == 33, elapsedMillis,
+                new MissionMetrics());
+    }
+
+    /**
+     * Tests that a golden output compared with itself has no differences.
+     *
+     * @throws IOException if the golden outputs could not be read
+     */
+    @Test
+    public void goldenMatchesItself() throws IOException {
+        assertEquals(0, SimulationFarm.firstDifferentMove(goldenPath(), goldenPath()));
+        assertEquals(0, SimulationFarm.countDifferentSensors(goldenMap(), goldenMap()));
+    }
+
+    /**
+     * Tests that the spacing, number format and line endings of a flight path, and the spacing
+     * and feature order of a readings map, do not count.
+     *
+     * @throws IOException if the golden outputs could not be read
+     */
+    @Test
+    public void shiftedSpacingMatches() throws IOException {
+        var respaced = respace(goldenPath());
+        assertFalse(respaced.equals(goldenPath()));
+        assertEquals(0, SimulationFarm.firstDifferentMove(goldenPath(), respaced));
+
+        // one unit of the sixth decimal is within the tolerance, as a differently rounded value is
+        var x = Double.parseDouble(goldenPath().strip().split("\n")[9].split(",")[4].strip());
+        assertEquals(0, SimulationFarm.firstDifferentMove(goldenPath(),
+                changeMove(goldenPath(), 10, 4, String.format(Locale.ROOT, "%.6f", x + 1e-6))));
+        assertEquals(10, SimulationFarm.firstDifferentMove(goldenPath(),
+                changeMove(goldenPath(), 10, 4, String.format(Locale.ROOT, "%.6f", x + 3e-6))));
+
+        var features = new ArrayList<>(goldenMap().features());
+        Collections.reverse(features);
+        var prettyJson = new GsonBuilder().setPrettyPrinting().create()
+                .toJson(JsonParser.parseString(FeatureCollection.fromFeatures(features).toJson()));
+        assertEquals(0, SimulationFarm.countDifferentSensors(goldenMap(), FeatureCollection.fromJson(prettyJson)));
+    }
+
+    /**
+     * Tests that a changed move is found at its number, and a flight path cut short or carried
+     * on is different from the move after the last common one.
+     *
+     * @throws IOException if the golden outputs could not be read
+     */
+    @Test
+    public void changedMoveIsFound() throws IOException {
+        var golden = goldenPath();
+        assertEquals(40, SimulationFarm.firstDifferentMove(golden, changeMove(golden, 40, 3, "100")));
+        assertEquals(40, SimulationFarm.firstDifferentMove(golden, changeMove(golden, 40, 6, "some.other.words")));
+        assertEquals(1, SimulationFarm.firstDifferentMove(golden, changeMove(golden, 1, 1, "-3.187803")));
+        assertEquals(7, SimulationFarm.firstDifferentMove(golden, changeMove(golden, 7, 2, "not a number")));
+
+        var lines = golden.strip().split("\n");
+        var shorter = String.join("\n", List.of(lines).subList(0, 100));
+        assertEquals(101, SimulationFarm.firstDifferentMove(golden, shorter));
+        assertEquals(101, SimulationFarm.firstDifferentMove(shorter, golden));
+    }
+
+    /**
+     * Tests that a sensor marker with another colour or position, or missing from one
+     * of the maps, counts once.
+     *
+     * @throws IOException if the golden outputs could not be read
+     */
+    @Test
+    public void changedSensorsAreCounted() throws IOException {
+        var golden = goldenMap();
+        var features = new ArrayList<>(golden.features());
+        var first = features.get(0);
+        var second = features.get(1);
+        var point = (Point) second.geometry();
+
+        var recoloured = Feature.fromJson(first.toJson());
+        recoloured.addStringProperty("marker-color", "#000000");
+        features.set(0, recoloured);
+        features.set(1, Feature.fromGeometry(Point.fromLngLat(point.longitude() + 1e-5, point.latitude()),
+                second.properties()));
+        assertEquals(2, SimulationFarm.countDifferentSensors(golden, FeatureCollection.fromFeatures(features)));
+
+        var missing = new ArrayList<>(golden.features());
+        missing.remove(0);
+        assertEquals(1, SimulationFarm.countDifferentSensors(golden, FeatureCollection.fromFeatures(missing)));
+        assertEquals(1, SimulationFarm.countDifferentSensors(FeatureCollection.fromFeatures(missing), golden));
+        assertEquals(33, SimulationFarm.countDifferentSensors(golden, FeatureCollection.fromFeatures(List.of())));
+    }
+
+    /**
+     * Tests that a day whose outputs are the golden ones written differently matches, and one
+     * with a changed move does not.
+     *
+     * @throws IOException if the outputs could not be written or read
+     */
+    @Test
+    public void compareDayWithGolden() throws IOException {
+        var outputDir = folder.newFolder("out").toPath();
+        var settings = new MissionSettings(new Point2D.Double(-3.1878, 55.9444), 5678);
+        settings.setOutputDir(outputDir);
+        var features = new ArrayList<>(goldenMap().features());
+        Collections.reverse(features);
+        Files.writeString(outputDir.resolve("readings-" + DAY + ".geojson"),
+                FeatureCollection.fromFeatures(features).toJson());
+
+        Files.writeString(outputDir.resolve("flightpath-" + DAY + ".txt"), respace(goldenPath()));
+        var replay = SimulationFarm.compare(result(124, 33, 10), settings, GOLDEN_DIR);
+        assertTrue(replay.toString(), replay.isMatching());
+        assertEquals(124, replay.getGoldenMoves());
+        assertEquals(0, replay.getGoldenSensorsMissed());
+
+        Files.writeString(outputDir.resolve("flightpath-" + DAY + ".txt"), changeMove(goldenPath(), 50, 3, "0"));
+        replay = SimulationFarm.compare(result(124, 33, 10), settings, GOLDEN_DIR);
+        assertFalse(replay.isMatching());
+        assertEquals(50, replay.getFirstDifferentMove());
+        assertTrue(replay.isReadingsMapMatching());
+    }
+
+    /**
+     * Tests that the golden days are the dated flight paths, in date rather than name order.
+     *
+     * @throws IOException if the directory could not be listed
+     */
+    @Test
+    public void goldenDatesAreSorted() throws IOException {
+        var goldenDir = folder.newFolder("golden").toPath();
+        for (String fileName : List.of("flightpath-01-02-2020.txt", "flightpath-31-01-2020.txt",
+                "flightpath-15-01-2021.txt", "flightpath-notadate.txt", "readings-02-01-2020.geojson", "okay.txt")) {
+            Files.writeString(goldenDir.resolve(fileName), "");
+        }
+        assertEquals(List.of(LocalDate.of(2020, 1, 31), LocalDate.of(2020, 2, 1), LocalDate.of(2021, 1, 15)),
+                SimulationFarm.goldenDates(goldenDir));
+
+        var dates = SimulationFarm.goldenDates(GOLDEN_DIR);
+        assertTrue(dates.contains(LocalDate.of(2020, 1, 1)));
+        try (var files = Files.list(GOLDEN_DIR)) {
+            assertEquals(files.filter(file -> file.getFileName().toString().startsWith("flightpath-")).count(),
+                    dates.size());
+        }
+    }
+
+    /**
+     * Makes the replays of three days: one matching, one with a different flight path and
+     * one timed out.
+     *
+     * @return the replays
+     */
+    private static List<DayReplay> replays() {
+        return List.of(
+                new DayReplay("01-01-2020", result(120, 33, 100), false, 0, 0, true, 124, 0, true),
+                new DayReplay("02-01-2020", result(150, 31, 300), false, 12, 0, true, 140, 1, false),
+                new DayReplay("03-01-2020", null, true, 1, 0, false, 110, 0, true));
+    }
+
+    /**
+     * Tests that the summary counts only the days flown, except for the golden completions.
+     */
+    @Test
+    public void summaryTotals() {
+        var summary = SimulationFarm.summary(replays(), 2500);
+        assertTrue(summary, summary.startsWith("Replayed 2 of 3 days in "));
+        assertTrue(summary, summary.contains("1 match the golden outputs, 1 flight paths and 0 readings maps differ."));
+        assertTrue(summary, summary.contains(
+                "Completed 1 (golden 2), moves used 270 (golden 264), sensors missed 2 (golden 1), "));
+        assertTrue(summary, summary.endsWith(" ms on average and 300 ms at most."));
+
+        var empty = SimulationFarm.summary(List.of(), 0);
+        assertTrue(empty, empty.startsWith("Replayed 0 of 0 days in "));
+    }
+
+    /**
+     * Tests that the report has every day, with the mission fields only for the days flown.
+     *
+     * @throws IOException if the report could not be written or read
+     */
+    @Test
+    public void reportHasEveryDay() throws IOException {
+        var file = folder.getRoot().toPath().resolve("report.json");
+        SimulationFarm.writeReport(file, replays(), 2500);
+        var report = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+        assertEquals(3, report.get("days").getAsInt());
+        assertEquals(1, report.get("matchingDays").getAsInt());
+        assertEquals(2500, report.get("elapsedMillis").getAsLong());
+
+        var days = report.getAsJsonArray("replays");
+        assertEquals(3, days.size());
+        var matching = days.get(0).getAsJsonObject();
+        assertEquals("01-01-2020", matching.get("name").getAsString());
+        assertTrue(matching.get("matching").getAsBoolean());
+        assertEquals(120, matching.get("movesUsed").getAsInt());
+        var different = days.get(1).getAsJsonObject();
+        assertEquals(12, different.get("firstDifferentMove").getAsInt());
+        assertEquals(2, different.get("sensorsMissed").getAsInt());
+        assertEquals(140, different.get("goldenMoves").getAsInt());
+        var timedOut = days.get(2).getAsJsonObject();
+        assertTrue(timedOut.get("timedOut").getAsBoolean());
+        assertFalse(timedOut.get("flown").getAsBoolean());
+        assertFalse(timedOut.has("movesUsed"));
+        assertTrue(timedOut.get("goldenCompleted").getAsBoolean());
+    }
+}
@@ -0,0 +1,227 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the {@link StandInWebServer} revalidates with 304, keeps requests inside the
+ * served directories and injects the same errors for the same seed.
+ */
+public class StandInWebServerTest {
+
+    /**
+     * The path of the no-fly zones fixture.
+     */
+    private static final String BUILDINGS = "/buildings/no-fly-zones.geojson";
+
+    /**
+     * The temporary directory holding the fixture directory and a file outside it.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The fixture directory.
+     */
+    private Path fixtureDir;
+    /**
+     * The stand-in web server.
+     */
+    private StandInWebServer server;
+    /**
+     * The client of the stand-in web server.
+     */
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Writes the fixtures, a file in the fixture directory but outside the served directories
+     * and one outside the fixture directory, and starts the server.
+     *
+     * @throws IOException if the fixtures could not be written or the server started
+     */
+    @Before
+    public void startServer() throws IOException {
+        fixtureDir = folder.newFolder("fixtures").toPath();
+        Files.createDirectories(fixtureDir.resolve("buildings"));
+        Files.writeString(fixtureDir.resolve(BUILDINGS.substring(1)), "{\"type\": \"FeatureCollection\", \"features\": []}");
+        Files.setLastModifiedTime(fixtureDir.resolve(BUILDINGS.substring(1)),
+                FileTime.from(Instant.parse("2020-01-01T12:00:00Z")));
+        Files.writeString(fixtureDir.resolve("secret.txt"), "not served");
+        Files.writeString(folder.getRoot().toPath().resolve("outside.txt"), "not served");
+        server = new StandInWebServer(fixtureDir, 0);
+    }
+
+    /**
+     * Stops the stand-in web server.
+     */
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    /**
+     * Sends a GET request.
+     *
+     * @param path    the request path
+     * @param headers the request headers, as name and value pairs
+     * @return the response
+     * @throws IOException          if the request failed
+     * @throws InterruptedException if the request was interrupted
+     */
+    private HttpResponse<String> get(String path, String... headers) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path));
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Sends a GET request over a plain socket, so that the path reaches the server exactly
+     * as written, dots and all.
+     *
+     * @param path the request path
+     * @return the status code
+     * @throws IOException if the request failed
+     */
+    private int rawStatus(String path) throws IOException {
+        try (var socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            socket.getOutputStream().write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            socket.getOutputStream().flush();
+            var reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            var statusLine = reader.readLine();
+            assertNotNull("no response to " + path, statusLine);
+            return Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+
+    /**
+     * Tests that a client with the current ETag or a later Last-Modified gets 304, the ETag
+     * taking precedence, and that a changed file is sent again.
+     *
+     * @throws Exception if a request failed
+     */
+    @Test
+    public void conditionalRequestsAreRevalidated() throws Exception {
+        var first = get(BUILDINGS);
+        assertEquals(200, first.statusCode());
+        var etag = first.headers().firstValue("ETag").orElseThrow();
+        var lastModified = first.headers().firstValue("Last-Modified").orElseThrow();
+        assertEquals("Wed, 1 Jan 2020 12:00:00 GMT", lastModified);
+
+        assertEquals(304, get(BUILDINGS, "If-None-Match", etag).statusCode());
+        assertEquals("", get(BUILDINGS, "If-None-Match", etag).body());
+        assertEquals(304, get(BUILDINGS, "If-Modified-Since", lastModified).statusCode());
+        assertEquals(304, get(BUILDINGS, "If-Modified-Since", "Thu, 2 Jan 2020 00:00:00 GMT").statusCode());
+        assertEquals(200, get(BUILDINGS, "If-Modified-Since", "Tue, 31 Dec 2019 00:00:00 GMT").statusCode());
+        assertEquals(200, get(BUILDINGS, "If-Modified-Since", "yesterday").statusCode());
+        // a stale ETag is sent the file even though the time says it has not changed
+        assertEquals(200, get(BUILDINGS, "If-None-Match", "\"0-0\"", "If-Modified-Since", lastModified).statusCode());
+
+        Files.writeString(fixtureDir.resolve(BUILDINGS.substring(1)), "{\"type\": \"FeatureCollection\"}");
+        var changed = get(BUILDINGS, "If-None-Match", etag);
+        assertEquals(200, changed.statusCode());
+        assertEquals("{\"type\": \"FeatureCollection\"}", changed.body());
+        assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+    }
+
+    /**
+     * Tests that paths climbing out of the served directories, into the rest of the fixture
+     * directory or out of it, are not found, as are unserved and missing files.
+     *
+     * @throws IOException if a request failed
+     */
+    @Test
+    public void pathTraversalIsRejected() throws IOException {
+        assertEquals(200, rawStatus(BUILDINGS));
+        assertEquals(200, rawStatus("/buildings/../buildings/no-fly-zones.geojson"));
+        assertEquals(404, rawStatus("/buildings/../secret.txt"));
+        assertEquals(404, rawStatus("/maps/../../outside.txt"));
+        assertEquals(404, rawStatus("/words/%2e%2e/%2e%2e/outside.txt"));
+        assertEquals(404, rawStatus("/buildings/../../fixtures/secret.txt"));
+        assertEquals(404, rawStatus("/secret.txt"));
+        assertEquals(404, rawStatus("/buildings"));
+        assertEquals(404, rawStatus("/maps/2020/01/01/air-quality-data.json"));
+    }
+
+    /**
+     * Requests each of a number of paths a few times, a path at a time or a round at a time.
+     *
+     * @param seed      the seed of the errors
+     * @param pathFirst true to request each path every time before the next path
+     * @return the status codes of each path, in the order the path was requested
+     * @throws Exception if a request failed
+     */
+    private Map<String, List<Integer>> statuses(long seed, boolean pathFirst) throws Exception {
+        server.setSeed(seed);
+        server.setErrorRate(0.3);
+        var statuses = new HashMap<String, List<Integer>>();
+        var paths = new ArrayList<String>();
+        for (int day = 1; day <= 31; day++) {
+            paths.add(String.format("/maps/2020/01/%02d/air-quality-data.json", day));
+        }
+        paths.add(BUILDINGS);
+        for (int i = 0; i < paths.size() * 4; i++) {
+            var path = pathFirst ? paths.get(i / 4) : paths.get(i % paths.size());
+            statuses.computeIfAbsent(path, p -> new ArrayList<>()).add(get(path).statusCode());
+        }
+        return statuses;
+    }
+
+    /**
+     * Tests that the same seed fails the same requests of each path, whatever order the paths
+     * are requested in, that another seed fails others, and that about the error rate fail.
+     *
+     * @throws Exception if a request failed
+     */
+    @Test
+    public void seededErrorsAreReproducible() throws Exception {
+        var first = statuses(42, true);
+        var errors = first.values().stream().flatMap(List::stream).filter(status -> status == 500).count();
+        assertEquals(errors, server.getInjectedErrorCount());
+        assertEquals(32 * 4, server.getRequestCount());
+        // 128 requests at 0.3, far from none and from all
+        assertTrue(errors + " errors", errors > 20 && errors < 60);
+        for (List<Integer> path : first.values()) {
+            for (int status : path) {
+                assertTrue(status == 500 || status == 200 || status == 404);
+            }
+        }
+
+        server.close();
+        server = new StandInWebServer(fixtureDir, 0);
+        assertEquals(first, statuses(42, false));
+
+        server.close();
+        server = new StandInWebServer(fixtureDir, 0);
+        assertNotEquals(first, statuses(43, true));
+    }
+}
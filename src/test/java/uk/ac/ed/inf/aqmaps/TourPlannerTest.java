@@ -0,0 +1,188 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Test;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the 2-opt and Or-opt moves of the {@link TourPlanner} only ever shorten a tour.
+ */
+public class TourPlannerTest {
+
+    /**
+     * The slack of the cost comparisons, for rounding errors.
+     */
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * Makes the costs between random places on a grid, or random symmetric costs which break
+     * the triangle inequality.
+     *
+     * @param random    the random numbers
+     * @param size      the number of nodes
+     * @param euclidean true for the distances between places, false for random costs
+     * @return the symmetric costs, indexed by from * size + to
+     */
+    private static double[] randomCosts(Random random, int size, boolean euclidean) {
+        var xs = random.doubles(size).toArray();
+        var ys = random.doubles(size).toArray();
+        var costs = new double[size * size];
+        for (int a = 0; a < size; a++) {
+            for (int b = a + 1; b < size; b++) {
+                var cost = euclidean ? Math.hypot(xs[a] - xs[b], ys[a] - ys[b]) : random.nextDouble();
+                costs[a * size + b] = cost;
+                costs[b * size + a] = cost;
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Builds the nearest neighbour tour the planner starts from.
+     *
+     * @param size  the number of nodes
+     * @param costs the costs
+     * @return the tour, starting with node 0
+     */
+    private static int[] nearestNeighbourTour(int size, double[] costs) {
+        var tour = new int[size];
+        var visited = new boolean[size];
+        visited[0] = true;
+        for (int i = 1; i < size; i++) {
+            var nearest = -1;
+            for (int to = 1; to < size; to++) {
+                if (!visited[to] && (nearest == -1 || costs[tour[i - 1] * size + to] < costs[tour[i - 1] * size + nearest])) {
+                    nearest = to;
+                }
+            }
+            tour[i] = nearest;
+            visited[nearest] = true;
+        }
+        return tour;
+    }
+
+    /**
+     * Moves a run of a tour to after another position, possibly reversed.
+     *
+     * @param tour     the tour
+     * @param i        the start of the run
+     * @param length   the length of the run
+     * @param pos      the position the run goes after, outside the run
+     * @param reversed true to insert the run in reverse
+     * @return the new tour
+     */
+    private static int[] moved(int[] tour, int i, int length, int pos, boolean reversed) {
+        var run = new ArrayList<Integer>();
+        var rest = new ArrayList<Integer>();
+        for (int p = 0; p < tour.length; p++) {
+            if (p >= i && p < i + length) {
+                run.add(tour[p]);
+            }
+        }
+        if (reversed) {
+            Collections.reverse(run);
+        }
+        for (int p = 0; p < tour.length; p++) {
+            if (p < i || p >= i + length) {
+                rest.add(tour[p]);
+            }
+            if (p == pos) {
+                rest.addAll(run);
+            }
+        }
+        return rest.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Checks that a planned tour visits every node once from node 0, is no longer than the
+     * nearest neighbour tour, and that no 2-opt or Or-opt move would shorten it.
+     *
+     * @param size  the number of nodes
+     * @param costs the costs
+     */
+    private static void assertImprovedTour(int size, double[] costs) {
+        var planner = new TourPlanner(size, costs);
+        var tour = planner.plan();
+        assertEquals(0, tour[0]);
+        assertArrayEquals(IntStream.range(0, size).toArray(), Arrays.stream(tour).sorted().toArray());
+        var cost = planner.tourCost(tour);
+        assertTrue(cost <= planner.tourCost(nearestNeighbourTour(size, costs)) + TOLERANCE);
+
+        for (int i = 1; i < size - 1; i++) {
+            for (int j = i + 1; j < size; j++) {
+                var reversed = tour.clone();
+                for (int a = i, b = j; a < b; a++, b--) {
+                    var temp = reversed[a];
+                    reversed[a] = reversed[b];
+                    reversed[b] = temp;
+                }
+                assertTrue("2-opt " + i + ".." + j, planner.tourCost(reversed) >= cost - TOLERANCE);
+            }
+        }
+        for (int length = 1; length <= 3; length++) {
+            for (int i = 1; i + length <= size; i++) {
+                for (int pos = 0; pos < size; pos++) {
+                    if (pos >= i - 1 && pos < i + length) {
+                        continue;
+                    }
+                    assertTrue("Or-opt", planner.tourCost(moved(tour, i, length, pos, false)) >= cost - TOLERANCE);
+                    assertTrue("Or-opt reversed", planner.tourCost(moved(tour, i, length, pos, true)) >= cost - TOLERANCE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Random places on a grid.
+     */
+    @Test
+    public void euclideanToursAreImproved() {
+        var random = new Random(5678);
+        for (int round = 0; round < 100; round++) {
+            var size = 1 + random.nextInt(40);
+            assertImprovedTour(size, randomCosts(random, size, true));
+        }
+    }
+
+    /**
+     * Random costs, where the nearest neighbour tour is far from the best.
+     */
+    @Test
+    public void randomCostToursAreImproved() {
+        var random = new Random(1234);
+        for (int round = 0; round < 100; round++) {
+            var size = 1 + random.nextInt(40);
+            assertImprovedTour(size, randomCosts(random, size, false));
+        }
+    }
+
+    /**
+     * The route of a day reads every sensor once.
+     */
+    @Test
+    public void routeVisitsEverySensorOnce() {
+        var random = new Random(42);
+        var sensors = new ArrayList<Sensor>();
+        for (int i = 0; i < 33; i++) {
+            var sensor = new Sensor("s" + i, 100.0, "50.0");
+            sensor.setCoord(new Point2D.Double(-3.1920 + random.nextDouble() * 0.0070, 55.9430 + random.nextDouble() * 0.0030));
+            sensors.add(sensor);
+        }
+        var route = new TourPlanner(new Point2D.Double(-3.1878, 55.9444), sensors, NoFlyZones.NONE, PlayArea.DEFAULT)
+                .planRoute(sensors);
+        assertEquals(sensors.size(), route.size());
+        assertEquals(new HashSet<>(sensors), new HashSet<>(route));
+        assertFalse(route.contains(null));
+    }
+}
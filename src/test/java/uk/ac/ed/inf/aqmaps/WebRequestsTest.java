@@ -0,0 +1,174 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests how {@link WebRequests} resolves the sensor locations of a map concurrently, against a
+ * {@link StandInWebServer} with delays and errors.
+ */
+public class WebRequestsTest {
+
+    /**
+     * The number of sensors on the map.
+     */
+    private static final int SENSORS = 33;
+    /**
+     * The date path of the map.
+     */
+    private static final String DAY = "2020/01/01/";
+
+    /**
+     * The fixture directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The stand-in web server.
+     */
+    private StandInWebServer server;
+    /**
+     * The requests to the stand-in web server.
+     */
+    private WebRequests webRequests;
+
+    /**
+     * Writes a map of sensors, each at its own location, and starts the stand-in web server.
+     *
+     * @throws IOException if the fixtures could not be written or the server could not be started
+     */
+    @Before
+    public void startServer() throws IOException {
+        var root = folder.getRoot().toPath();
+        var map = new StringBuilder("[");
+        for (int i = 0; i < SENSORS; i++) {
+            var location = "word" + i + ".sensor.map";
+            map.append(i == 0 ? "" : ",").append("{\"location\": \"").append(location)
+                    .append("\", \"battery\": 90.0, \"reading\": \"").append(i).append(".0\"}");
+            var details = root.resolve("words/word" + i + "/sensor/map/details.json");
+            Files.createDirectories(details.getParent());
+            Files.writeString(details, "{\"coordinates\": {\"lng\": " + lng(i) + ", \"lat\": 55.944}, \"words\": \""
+                    + location + "\"}");
+        }
+        var mapFile = root.resolve("maps/" + DAY + "air-quality-data.json");
+        Files.createDirectories(mapFile.getParent());
+        Files.writeString(mapFile, map.append("]").toString());
+
+        server = new StandInWebServer(root, 0);
+        webRequests = new WebRequests(server.getPort());
+    }
+
+    /**
+     * Stops the stand-in web server.
+     */
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    /**
+     * Gets the longitude of a sensor.
+     *
+     * @param i the index of the sensor
+     * @return the longitude
+     */
+    private static double lng(int i) {
+        return -3.19 + i * 1e-4;
+    }
+
+    /**
+     * Lookups finishing in a random order still give each sensor its own location.
+     */
+    @Test(timeout = 30_000)
+    public void locationsAreJoinedInInputOrder() {
+        server.setLatencyMillis(0, 40);
+        webRequests.setMaxConcurrentRequests(4);
+        var sensors = webRequests.getMaps(DAY);
+        assertEquals(SENSORS, sensors.size());
+        for (int i = 0; i < SENSORS; i++) {
+            assertEquals("word" + i + ".sensor.map", sensors.get(i).getLocation());
+            assertEquals(lng(i), sensors.get(i).getCoord().getX(), 0);
+        }
+    }
+
+    /**
+     * Injected errors fail the map with a {@link WebRequestException}, and give back every
+     * permit, so that the next map is resolved with a single permit.
+     */
+    @Test(timeout = 30_000)
+    public void errorsFailWithWebRequestException() {
+        webRequests.setMaxConcurrentRequests(1);
+        // the map itself is fetched before the seeded errors start
+        webRequests.getSensorData(DAY);
+        server.setSeed(42);
+        server.setErrorRate(0.5);
+        try {
+            webRequests.getMaps(DAY);
+            fail("Half the lookups failing must fail the map.");
+        } catch (WebRequestException e) {
+            assertTrue(server.getInjectedErrorCount() > 0);
+        }
+        server.setErrorRate(0);
+        assertEquals(SENSORS, webRequests.getMaps(DAY).size());
+    }
+
+    /**
+     * A lookup slower than the request timeout fails the map.
+     */
+    @Test(timeout = 30_000)
+    public void slowLookupTimesOut() {
+        webRequests.getSensorData(DAY);
+        webRequests.setRequestTimeout(Duration.ofMillis(200));
+        server.setLatencyMillis(5_000, 5_000);
+        var start = System.nanoTime();
+        try {
+            webRequests.getMaps(DAY);
+            fail("A lookup slower than the timeout must fail the map.");
+        } catch (WebRequestException e) {
+            assertTrue(System.nanoTime() - start < 4_000_000_000L);
+        }
+    }
+
+    /**
+     * An interrupt, e.g. from the batch mode timeout of a day, stops a day waiting for its lookups.
+     *
+     * @throws InterruptedException if the test was interrupted
+     */
+    @Test(timeout = 30_000)
+    public void interruptStopsTheLookups() throws InterruptedException {
+        webRequests.getSensorData(DAY);
+        server.setLatencyMillis(20_000, 20_000);
+        var failure = new AtomicReference<Throwable>();
+        var interrupted = new AtomicBoolean();
+        var day = new Thread(() -> {
+            try {
+                webRequests.getMaps(DAY);
+            } catch (Throwable e) {
+                failure.set(e);
+                interrupted.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        day.start();
+        Thread.sleep(300);
+        var start = System.nanoTime();
+        day.interrupt();
+        day.join(5_000);
+        assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        assertTrue(failure.get() instanceof WebRequestException);
+        assertTrue(interrupted.get());
+    }
+}
@@ -0,0 +1,173 @@
+package uk.ac.ed.inf.aqmaps;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests that a {@link WordsCache} survives being saved, and recovers from damaged files.
+ */
+public class WordsCacheTest {
+
+    /**
+     * The cache directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Gets the cache directory.
+     *
+     * @return the path of the cache directory
+     */
+    private Path cacheDir() {
+        return folder.getRoot().toPath();
+    }
+
+    /**
+     * Saves a cache of the given locations.
+     *
+     * @param count the number of locations
+     * @return the bytes of the cache file
+     * @throws IOException if the cache could not be written
+     */
+    private byte[] saveLocations(int count) throws IOException {
+        var cache = WordsCache.open(cacheDir(), WordsCache.DEFAULT_MAX_ENTRIES);
+        for (int i = 0; i < count; i++) {
+            cache.put("word.word." + i, new Point2D.Double(-3.19 + i * 1e-4, 55.94));
+        }
+        cache.save();
+        return Files.readAllBytes(cache.getCacheFile());
+    }
+
+    /**
+     * A saved cache loads with the same coordinates.
+     *
+     * @throws IOException if the cache could not be written
+     */
+    @Test
+    public void savedCacheLoads() throws IOException {
+        saveLocations(3);
+        var cache = WordsCache.open(cacheDir(), WordsCache.DEFAULT_MAX_ENTRIES);
+        assertEquals(3, cache.size());
+        assertEquals(new Point2D.Double(-3.19 + 2e-4, 55.94), cache.get("word.word.2"));
+        assertNull(cache.get("word.word.3"));
+    }
+
+    /**
+     * A missing cache directory gives an empty cache, and is made on save.
+     *
+     * @throws IOException if the cache could not be written
+     */
+    @Test
+    public void missingCacheStartsEmpty() throws IOException {
+        var cacheDir = cacheDir().resolve("w3w");
+        var cache = WordsCache.open(cacheDir, WordsCache.DEFAULT_MAX_ENTRIES);
+        assertEquals(0, cache.size());
+        cache.put("trades.rare.cable", new Point2D.Double(-3.19, 55.94));
+        cache.save();
+        assertEquals(1, WordsCache.open(cacheDir, WordsCache.DEFAULT_MAX_ENTRIES).size());
+    }
+
+    /**
+     * A truncated cache file keeps the entries before the cut, and is rewritten whole on save.
+     *
+     * @throws IOException if the cache could not be written
+     */
+    @Test
+    public void truncatedCacheKeepsWholeEntries() throws IOException {
+        var saved = saveLocations(3);
+        var cacheFile = cacheDir().resolve(WordsCache.FILE_NAME);
+        Files.write(cacheFile, Arrays.copyOf(saved, saved.length - 5));
+
+        var cache = WordsCache.open(cacheDir(), WordsCache.DEFAULT_MAX_ENTRIES);
+        assertEquals(2, cache.size());
+        assertNull(cache.get("word.word.2"));
+        cache.save();
+        assertEquals(2, WordsCache.open(cacheDir(), WordsCache.DEFAULT_MAX_ENTRIES).size());
+    }
+
+    /**
+     * An entry with a wrong checksum is dropped with every entry after it.
+     *
+     * @throws IOException if the cache could not be written
+     */
+    @Test
+    public void damagedEntryIsDropped() throws IOException {
+        var saved = saveLocations(3);
+        var cacheFile = cacheDir().resolve(WordsCache.FILE_NAME);
+        // the header, then the first entry: the length of the location, the location, two
+        // doubles and the checksum; flip a bit of the longitude of the second entry
+        var entryLength = 2 + "word.word.0".length() + 2 * Double.BYTES + Integer.BYTES;
+        var damaged = saved.clone();
+        damaged[3 * Integer.BYTES + entryLength + 2 + "word.word.1".length() + 3] ^= 1;
+        Files.write(cacheFile, damaged);
+
+        var cache = WordsCache.open(cacheDir(), WordsCache.DEFAULT_MAX_ENTRIES);
+        assertEquals(1, cache.size());
+        assertEquals(new Point2D.Double(-3.19, 55.94), cache.get("word.word.0"));
+    }
+
+    /**
+     * A file which is not a cache gives an empty cache, which is then saved over it.
+     *
+     * @throws IOException if the cache could not be written
+     */
+    @Test
+    public void foreignFileStartsEmpty() throws IOException {
+        var cacheFile = cacheDir().resolve(WordsCache.FILE_NAME);
+        Files.writeString(cacheFile, "not a cache at all");
+        var cache = WordsCache.open(cacheDir(), WordsCache.DEFAULT_MAX_ENTRIES);
+        assertEquals(0, cache.size());
+
+        cache.put("trades.rare.cable", new Point2D.Double(-3.19, 55.94));
+        cache.save();
+        assertEquals(new Point2D.Double(-3.19, 55.94),
+                WordsCache.open(cacheDir(), WordsCache.DEFAULT_MAX_ENTRIES).get("trades.rare.cable"));
+    }
+
+    /**
+     * The least recently used location is evicted, and the order survives a save.
+     *
+     * @throws IOException if the cache could not be written
+     */
+    @Test
+    public void leastRecentlyUsedIsEvicted() throws IOException {
+        var cache = WordsCache.open(cacheDir(), 2);
+        cache.put("a.a.a", new Point2D.Double(1, 1));
+        cache.put("b.b.b", new Point2D.Double(2, 2));
+        cache.get("a.a.a");
+        cache.save();
+
+        var loaded = WordsCache.open(cacheDir(), 2);
+        loaded.put("c.c.c", new Point2D.Double(3, 3));
+        assertNull(loaded.get("b.b.b"));
+        assertEquals(new Point2D.Double(1, 1), loaded.get("a.a.a"));
+    }
+
+    /**
+     * An unchanged cache is not written again, and invalid entries are not cached.
+     *
+     * @throws IOException if the cache could not be written
+     */
+    @Test
+    public void unchangedCacheIsNotRewritten() throws IOException {
+        var saved = saveLocations(2);
+        var cache = WordsCache.open(cacheDir(), WordsCache.DEFAULT_MAX_ENTRIES);
+        cache.put("word.word.0", new Point2D.Double(-3.19, 55.94));
+        cache.put("not-three-words", new Point2D.Double(-3.19, 55.94));
+        cache.put("far.far.away", new Point2D.Double(200, 55.94));
+        cache.save();
+        assertArrayEquals(saved, Files.readAllBytes(cache.getCacheFile()));
+    }
+}